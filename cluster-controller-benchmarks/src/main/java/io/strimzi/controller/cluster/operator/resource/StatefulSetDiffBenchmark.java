@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetStatusBuilder;
+import io.strimzi.controller.cluster.model.AssemblyType;
+import io.strimzi.controller.cluster.model.KafkaCluster;
+import io.strimzi.controller.cluster.model.Labels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link StatefulSetDiff} against the JSON patch based {@link JsonDiffStatefulSetDiff} it replaced,
+ * diffing a live Kafka StatefulSet (with server-set metadata, defaults and status) against a freshly generated one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatefulSetDiffBenchmark {
+
+    private StatefulSet current;
+
+    private StatefulSet desired;
+
+    private StatefulSet changedImage;
+
+    private static StatefulSet generate(String image) {
+        Map<String, String> data = new HashMap<>();
+        data.put(KafkaCluster.KEY_REPLICAS, "3");
+        data.put(KafkaCluster.KEY_IMAGE, image);
+        data.put(KafkaCluster.KEY_METRICS_CONFIG, "{\"lowercaseOutputName\": true}");
+        data.put(KafkaCluster.KEY_STORAGE, "{\"type\": \"persistent-claim\", \"size\": \"1Gi\", \"delete-claim\": false}");
+        ConfigMap cm = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withNamespace("test")
+                    .withName("my-cluster")
+                    .withLabels(Labels.forKind("cluster").withType(AssemblyType.KAFKA).toMap())
+                .endMetadata()
+                .withData(data)
+                .build();
+        return KafkaCluster.fromConfigMap(cm).generateStatefulSet(false);
+    }
+
+    @Setup
+    public void setup() {
+        desired = generate("strimzi/kafka:latest");
+        changedImage = generate("strimzi/kafka:1.0.0");
+        // What the API server would return
+        current = new StatefulSetBuilder(generate("strimzi/kafka:latest"))
+                .editMetadata()
+                    .withResourceVersion("12345")
+                    .withUid("6d9a3d4e-0a4b-11e8-a1c6-54ee75187a4e")
+                    .withGeneration(3L)
+                    .withSelfLink("/apis/apps/v1beta1/namespaces/test/statefulsets/my-cluster-kafka")
+                .endMetadata()
+                .editSpec()
+                    .withRevisionHistoryLimit(10)
+                .endSpec()
+                .withStatus(new StatefulSetStatusBuilder()
+                    .withReplicas(3)
+                    .withObservedGeneration(3L)
+                    .build())
+                .build();
+        Container container = current.getSpec().getTemplate().getSpec().getContainers().get(0);
+        container.setImagePullPolicy("IfNotPresent");
+        container.setTerminationMessagePath("/dev/termination-log");
+        container.setTerminationMessagePolicy("File");
+    }
+
+    @Benchmark
+    public StatefulSetDiff diffUnchanged() {
+        return new StatefulSetDiff(current, desired);
+    }
+
+    @Benchmark
+    public JsonDiffStatefulSetDiff jsonDiffUnchanged() {
+        return new JsonDiffStatefulSetDiff(current, desired);
+    }
+
+    @Benchmark
+    public StatefulSetDiff diffChangedImage() {
+        return new StatefulSetDiff(current, changedImage);
+    }
+
+    @Benchmark
+    public JsonDiffStatefulSetDiff jsonDiffChangedImage() {
+        return new JsonDiffStatefulSetDiff(current, changedImage);
+    }
+}
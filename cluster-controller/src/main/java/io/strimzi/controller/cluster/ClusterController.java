@@ -5,10 +5,12 @@
 package io.strimzi.controller.cluster;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 
 import io.strimzi.controller.cluster.model.AssemblyType;
 import io.strimzi.controller.cluster.model.Labels;
@@ -16,20 +18,32 @@ import io.strimzi.controller.cluster.operator.assembly.AbstractAssemblyOperator;
 import io.strimzi.controller.cluster.operator.assembly.KafkaAssemblyOperator;
 import io.strimzi.controller.cluster.operator.assembly.KafkaConnectAssemblyOperator;
 import io.strimzi.controller.cluster.operator.assembly.KafkaConnectS2IAssemblyOperator;
+import io.strimzi.controller.cluster.operator.resource.ResourceCache;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An "operator" for managing assemblies of various types <em>in a particular namespace</em>.
  * The Cluster Controller's multiple namespace support is achieved by deploying multiple
- * {@link ClusterController}'s in Vertx.
+ * {@link ClusterController}'s in Vertx, or by deploying a single {@link ClusterController} for
+ * {@linkplain ResourceCache#ANY_NAMESPACE all namespaces}, which uses a single watch and staggers the
+ * periodic reconciliation of each namespace over the reconciliation interval.
  */
 public class ClusterController extends AbstractVerticle {
 
@@ -38,20 +52,33 @@ public class ClusterController extends AbstractVerticle {
     public static final String STRIMZI_CLUSTER_CONTROLLER_DOMAIN = "cluster.controller.strimzi.io";
     public static final String STRIMZI_CLUSTER_CONTROLLER_SERVICE_ACCOUNT = "strimzi-cluster-controller";
 
-    private static final int HEALTH_SERVER_PORT = 8080;
+    private static final int HTTP_GONE = 410;
+    private static final long WATCH_RETRY_MS = 5_000;
 
     private final KubernetesClient client;
     private final Labels selector;
     private final String namespace;
     private final long reconciliationInterval;
 
-    private Watch configMapWatch;
+    private volatile Watch configMapWatch;
+    /** The last resourceVersion of the ConfigMaps seen by this controller, from which a new watch will resume. */
+    private volatile String lastResourceVersion;
+    /** The ConfigMaps as last seen, for reconciling the differences found by relisting. */
+    private final Map<String, ConfigMap> knownConfigMaps = new ConcurrentHashMap<>();
+    /**
+     * The namespaces in which assembly ConfigMaps or other assembly resources have been seen,
+     * for periodic reconciliation of all namespaces.
+     */
+    private final Set<String> knownNamespaces = ConcurrentHashMap.newKeySet();
 
     private long reconcileTimer;
     private final KafkaAssemblyOperator kafkaAssemblyOperator;
     private final KafkaConnectAssemblyOperator kafkaConnectAssemblyOperator;
     private final KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator;
     private boolean stopping;
+    private final ControllerMetrics metrics;
+    /** Whether the watch on the ConfigMaps is open, so that changes to them will be seen. */
+    private volatile boolean watching;
 
     public ClusterController(String namespace,
                              long reconciliationInterval,
@@ -59,6 +86,21 @@ public class ClusterController extends AbstractVerticle {
                              KafkaAssemblyOperator kafkaAssemblyOperator,
                              KafkaConnectAssemblyOperator kafkaConnectAssemblyOperator,
                              KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator) {
+        this(namespace, reconciliationInterval, client, kafkaAssemblyOperator, kafkaConnectAssemblyOperator,
+                kafkaConnectS2IAssemblyOperator, new ControllerMetrics());
+    }
+
+    /**
+     * @param metrics The metrics, shared by the controllers of all namespaces,
+     *                which are exposed (along with the readiness of all the controllers) by the health server.
+     */
+    public ClusterController(String namespace,
+                             long reconciliationInterval,
+                             KubernetesClient client,
+                             KafkaAssemblyOperator kafkaAssemblyOperator,
+                             KafkaConnectAssemblyOperator kafkaConnectAssemblyOperator,
+                             KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator,
+                             ControllerMetrics metrics) {
         log.info("Creating ClusterController for namespace {}", namespace);
         this.namespace = namespace;
         this.selector = Labels.forKind("cluster");
@@ -67,18 +109,21 @@ public class ClusterController extends AbstractVerticle {
         this.kafkaAssemblyOperator = kafkaAssemblyOperator;
         this.kafkaConnectAssemblyOperator = kafkaConnectAssemblyOperator;
         this.kafkaConnectS2IAssemblyOperator = kafkaConnectS2IAssemblyOperator;
+        this.metrics = metrics;
+        ControllerMetrics.Scalar watchUp = metrics.gauge("strimzi_configmap_watch_up",
+                "Whether the watch on the assembly ConfigMaps is open (1) or not (0) by namespace", "namespace");
+        metrics.addCollector(() -> watchUp.labels(namespace).set(watching ? 1 : 0));
+        metrics.addReadinessCheck("ConfigMap watch in namespace " + namespace, () -> watching);
     }
 
     @Override
     public void start(Future<Void> start) {
         log.info("Starting ClusterController for namespace {}", namespace);
 
-        // Configure the executor here, but it is used only in other places
-        getVertx().createSharedWorkerExecutor("kubernetes-ops-pool", 10, TimeUnit.SECONDS.toNanos(120));
-
-        createConfigMapWatch(res -> {
+        createConfigMapWatch(true, res -> {
             if (res.succeeded())    {
                 configMapWatch = res.result();
+                watching = true;
 
                 log.info("Setting up periodical reconciliation for namespace {}", namespace);
                 this.reconcileTimer = vertx.setPeriodic(this.reconciliationInterval, res2 -> {
@@ -88,9 +133,6 @@ public class ClusterController extends AbstractVerticle {
 
                 log.info("ClusterController running for namespace {}", namespace);
 
-                // start the HTTP server for healthchecks
-                this.startHealthServer();
-
                 start.complete();
             } else {
                 log.error("ClusterController startup failed for namespace {}", namespace, res.cause());
@@ -102,6 +144,7 @@ public class ClusterController extends AbstractVerticle {
     @Override
     public void stop(Future<Void> stop) {
         stopping = true;
+        watching = false;
         log.info("Stopping ClusterController for namespace {}", namespace);
         vertx.cancelTimer(reconcileTimer);
         configMapWatch.close();
@@ -110,79 +153,22 @@ public class ClusterController extends AbstractVerticle {
         stop.complete();
     }
 
-    private void createConfigMapWatch(Handler<AsyncResult<Watch>> handler) {
+    /**
+     * Asynchronously open a watch on the assembly ConfigMaps.
+     * The watch resumes from the last resourceVersion we saw, so that no events are missed while the previous
+     * watch was closed. If {@code relist} (or this is the first watch) the ConfigMaps are listed first, and
+     * those which differ from what we last saw are reconciled.
+     * @param relist Whether to list the ConfigMaps before watching them.
+     * @param handler Handler for the new watch.
+     */
+    private void createConfigMapWatch(boolean relist, Handler<AsyncResult<Watch>> handler) {
         getVertx().executeBlocking(
             future -> {
-                Watch watch = client.configMaps().inNamespace(namespace).withLabels(selector.toMap()).watch(new Watcher<ConfigMap>() {
-                    @Override
-                    public void eventReceived(Action action, ConfigMap cm) {
-                        Labels labels = Labels.fromResource(cm);
-                        AssemblyType type;
-                        try {
-                            type = labels.type();
-                        } catch (IllegalArgumentException e) {
-                            log.warn("Unknown {} label {} received in Config Map {} in namespace {}",
-                                    Labels.STRIMZI_TYPE_LABEL,
-                                    cm.getMetadata().getLabels().get(Labels.STRIMZI_TYPE_LABEL),
-                                    cm.getMetadata().getName(), namespace);
-                            return;
-                        }
-
-                        final AbstractAssemblyOperator cluster;
-                        if (type == null) {
-                            log.warn("Missing label {} in Config Map {} in namespace {}", Labels.STRIMZI_TYPE_LABEL, cm.getMetadata().getName(), namespace);
-                            return;
-                        } else {
-                            switch (type) {
-                                case KAFKA:
-                                    cluster = kafkaAssemblyOperator;
-                                    break;
-                                case CONNECT:
-                                    cluster = kafkaConnectAssemblyOperator;
-                                    break;
-                                case CONNECT_S2I:
-                                    cluster = kafkaConnectS2IAssemblyOperator;
-                                    break;
-                                default:
-                                    return;
-                            }
-                        }
-                        String name = cm.getMetadata().getName();
-                        switch (action) {
-                            case ADDED:
-                            case DELETED:
-                            case MODIFIED:
-                                Reconciliation reconciliation = new Reconciliation("watch", type, namespace, name);
-                                log.info("{}: ConfigMap {} in namespace {} was {}", reconciliation, name, namespace, action);
-                                cluster.reconcileAssembly(reconciliation, result -> {
-                                    if (result.succeeded()) {
-                                        log.info("{}: assembly reconciled", reconciliation);
-                                    } else {
-                                        log.error("{}: Failed to reconcile", reconciliation);
-                                    }
-                                });
-                                break;
-                            case ERROR:
-                                log.error("Failed ConfigMap {} in namespace{} ", name, namespace);
-                                reconcileAll("watch error");
-                                break;
-                            default:
-                                log.error("Unknown action: {} in namespace {}", name, namespace);
-                                reconcileAll("watch unknown");
-                        }
-                    }
-
-                    @Override
-                    public void onClose(KubernetesClientException e) {
-                        if (e != null) {
-                            log.error("Watcher closed with exception in namespace {}", namespace, e);
-                        } else {
-                            log.info("Watcher closed in namespace {}", namespace);
-                        }
-
-                        recreateConfigMapWatch();
-                    }
-                });
+                if (relist || lastResourceVersion == null) {
+                    relistConfigMaps();
+                }
+                log.debug("Watching ConfigMaps in namespace {} from resourceVersion {}", namespace, lastResourceVersion);
+                Watch watch = configMaps().withResourceVersion(lastResourceVersion).watch(new ConfigMapWatcher());
                 future.complete(watch);
             }, res -> {
                 if (res.succeeded())    {
@@ -196,18 +182,169 @@ public class ClusterController extends AbstractVerticle {
         );
     }
 
-    private void recreateConfigMapWatch() {
+    /**
+     * The assembly ConfigMaps in this controller's namespace (or in all namespaces).
+     */
+    private FilterWatchListDeletable<ConfigMap, ConfigMapList, Boolean, Watch, Watcher<ConfigMap>> configMaps() {
+        if (ResourceCache.ANY_NAMESPACE.equals(namespace)) {
+            return client.configMaps().inAnyNamespace().withLabels(selector.toMap());
+        } else {
+            return client.configMaps().inNamespace(namespace).withLabels(selector.toMap());
+        }
+    }
+
+    private String namespaceOf(ConfigMap cm) {
+        String cmNamespace = cm.getMetadata().getNamespace();
+        return cmNamespace != null ? cmNamespace : namespace;
+    }
+
+    private String key(ConfigMap cm) {
+        return namespaceOf(cm) + "/" + cm.getMetadata().getName();
+    }
+
+    /**
+     * Watches the assembly ConfigMaps, recording the last resourceVersion seen.
+     */
+    private class ConfigMapWatcher implements Watcher<ConfigMap> {
+        @Override
+        public void eventReceived(Action action, ConfigMap cm) {
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    knownConfigMaps.put(key(cm), cm);
+                    lastResourceVersion = cm.getMetadata().getResourceVersion();
+                    reconcileConfigMap("watch", action, cm);
+                    break;
+                case DELETED:
+                    knownConfigMaps.remove(key(cm));
+                    lastResourceVersion = cm.getMetadata().getResourceVersion();
+                    reconcileConfigMap("watch", action, cm);
+                    break;
+                case ERROR:
+                    log.error("Failed ConfigMap {} in namespace{} ", cm != null ? cm.getMetadata().getName() : null, namespace);
+                    reconcileAll("watch error");
+                    break;
+                default:
+                    log.error("Unknown action: {} in namespace {}", cm != null ? cm.getMetadata().getName() : null, namespace);
+                    reconcileAll("watch unknown");
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException e) {
+            watching = false;
+            // 410 Gone means the resourceVersion is too old to resume from
+            boolean gone = e != null && e.getCode() == HTTP_GONE;
+            if (gone) {
+                log.info("ResourceVersion {} of ConfigMaps in namespace {} is too old, relisting", lastResourceVersion, namespace);
+            } else if (e != null) {
+                log.error("Watcher closed with exception in namespace {}", namespace, e);
+            } else {
+                log.info("Watcher closed in namespace {}", namespace);
+            }
+
+            recreateConfigMapWatch(gone);
+        }
+    }
+
+    /**
+     * List the assembly ConfigMaps and reconcile those which were added, modified or deleted
+     * since we last saw them, as if we had received the events we missed.
+     */
+    private void relistConfigMaps() {
+        // The first list reconciles every assembly, as a sweep would (for example when this replica has just
+        // become the leader), so it's scheduled like one rather than ahead of the changes seen by the watch
+        String trigger = lastResourceVersion == null ? "startup" : "watch";
+        ConfigMapList list = configMaps().list();
+        Set<String> listed = new HashSet<>();
+        for (ConfigMap cm : list.getItems()) {
+            String key = key(cm);
+            listed.add(key);
+            ConfigMap known = knownConfigMaps.put(key, cm);
+            if (known == null) {
+                reconcileConfigMap(trigger, Watcher.Action.ADDED, cm);
+            } else if (!Objects.equals(known.getMetadata().getResourceVersion(), cm.getMetadata().getResourceVersion())) {
+                reconcileConfigMap(trigger, Watcher.Action.MODIFIED, cm);
+            }
+        }
+        Iterator<Map.Entry<String, ConfigMap>> it = knownConfigMaps.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ConfigMap> known = it.next();
+            if (!listed.contains(known.getKey())) {
+                it.remove();
+                reconcileConfigMap(trigger, Watcher.Action.DELETED, known.getValue());
+            }
+        }
+        lastResourceVersion = list.getMetadata() != null ? list.getMetadata().getResourceVersion() : null;
+    }
+
+    /**
+     * Reconcile the assembly of the given ConfigMap, which was subject to the given {@code action}.
+     */
+    private void reconcileConfigMap(String trigger, Watcher.Action action, ConfigMap cm) {
+        String cmNamespace = namespaceOf(cm);
+        knownNamespaces.add(cmNamespace);
+        Labels labels = Labels.fromResource(cm);
+        AssemblyType type;
+        try {
+            type = labels.type();
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown {} label {} received in Config Map {} in namespace {}",
+                    Labels.STRIMZI_TYPE_LABEL,
+                    cm.getMetadata().getLabels().get(Labels.STRIMZI_TYPE_LABEL),
+                    cm.getMetadata().getName(), cmNamespace);
+            return;
+        }
+
+        final AbstractAssemblyOperator cluster;
+        if (type == null) {
+            log.warn("Missing label {} in Config Map {} in namespace {}", Labels.STRIMZI_TYPE_LABEL, cm.getMetadata().getName(), cmNamespace);
+            return;
+        } else {
+            switch (type) {
+                case KAFKA:
+                    cluster = kafkaAssemblyOperator;
+                    break;
+                case CONNECT:
+                    cluster = kafkaConnectAssemblyOperator;
+                    break;
+                case CONNECT_S2I:
+                    cluster = kafkaConnectS2IAssemblyOperator;
+                    break;
+                default:
+                    return;
+            }
+        }
+        if (cluster == null) {
+            log.warn("Assemblies of type {} are not supported in namespace {}", type, cmNamespace);
+            return;
+        }
+        String name = cm.getMetadata().getName();
+        Reconciliation reconciliation = new Reconciliation(trigger, type, cmNamespace, name);
+        log.info("{}: ConfigMap {} in namespace {} was {}", reconciliation, name, cmNamespace, action);
+        cluster.reconcileAssembly(reconciliation, result -> {
+            if (result.succeeded()) {
+                log.info("{}: assembly reconciled", reconciliation);
+            } else {
+                log.error("{}: Failed to reconcile", reconciliation);
+            }
+        });
+    }
+
+    private void recreateConfigMapWatch(boolean relist) {
         if (stopping) {
             return;
         }
         configMapWatch.close();
 
-        createConfigMapWatch(res -> {
+        createConfigMapWatch(relist, res -> {
             if (res.succeeded())    {
                 log.info("ConfigMap watch recreated in namespace {}", namespace);
                 configMapWatch = res.result();
+                watching = true;
             } else {
-                log.error("Failed to recreate ConfigMap watch in namespace {}", namespace);
+                log.error("Failed to recreate ConfigMap watch in namespace {}, retrying in {}ms", namespace, WATCH_RETRY_MS);
+                vertx.setTimer(WATCH_RETRY_MS, timerId -> recreateConfigMapWatch(true));
             }
         });
     }
@@ -216,29 +353,57 @@ public class ClusterController extends AbstractVerticle {
       Periodical reconciliation (in case we lost some event)
      */
     private void reconcileAll(String trigger) {
-        kafkaAssemblyOperator.reconcileAll(trigger, namespace, selector);
-        kafkaConnectAssemblyOperator.reconcileAll(trigger, namespace, selector);
-
+        if (!ResourceCache.ANY_NAMESPACE.equals(namespace)) {
+            reconcileAll(trigger, namespace);
+            return;
+        }
+        // Include the namespaces of assemblies whose ConfigMap was deleted while we weren't watching
+        List<Future<Set<String>>> resourceNamespaces = new ArrayList<>(3);
+        resourceNamespaces.add(kafkaAssemblyOperator.getResourceNamespaces());
+        resourceNamespaces.add(kafkaConnectAssemblyOperator.getResourceNamespaces());
         if (kafkaConnectS2IAssemblyOperator != null) {
-            kafkaConnectS2IAssemblyOperator.reconcileAll(trigger, namespace, selector);
+            resourceNamespaces.add(kafkaConnectS2IAssemblyOperator.getResourceNamespaces());
         }
+        CompositeFuture.join(new ArrayList<>(resourceNamespaces)).setHandler(ar -> {
+            for (Future<Set<String>> namespaces : resourceNamespaces) {
+                if (namespaces.succeeded()) {
+                    knownNamespaces.addAll(namespaces.result());
+                } else {
+                    log.warn("Unable to list the namespaces with assembly resources", namespaces.cause());
+                }
+            }
+            reconcileKnownNamespaces(trigger);
+        });
     }
 
-    /**
-     * Start an HTTP health server
-     */
-    private void startHealthServer() {
-
-        this.vertx.createHttpServer()
-                .requestHandler(request -> {
-
-                    if (request.path().equals("/healthy")) {
-                        request.response().setStatusCode(200).end();
-                    } else if (request.path().equals("/ready")) {
-                        request.response().setStatusCode(200).end();
+    private void reconcileKnownNamespaces(String trigger) {
+        if (stopping) {
+            return;
+        }
+        // Spread the namespaces over the interval, rather than listing everything in every namespace at once
+        List<String> namespaces = new ArrayList<>(knownNamespaces);
+        Collections.sort(namespaces);
+        long step = namespaces.isEmpty() ? 0 : Math.max(1, reconciliationInterval / namespaces.size());
+        for (int i = 0; i < namespaces.size(); i++) {
+            String ns = namespaces.get(i);
+            if (i == 0) {
+                reconcileAll(trigger, ns);
+            } else {
+                vertx.setTimer(i * step, timerId -> {
+                    if (!stopping) {
+                        reconcileAll(trigger, ns);
                     }
-                })
-                .listen(HEALTH_SERVER_PORT);
+                });
+            }
+        }
     }
 
+    private void reconcileAll(String trigger, String namespace) {
+        kafkaAssemblyOperator.reconcileAll(trigger, namespace, selector);
+        kafkaConnectAssemblyOperator.reconcileAll(trigger, namespace, selector);
+
+        if (kafkaConnectS2IAssemblyOperator != null) {
+            kafkaConnectS2IAssemblyOperator.reconcileAll(trigger, namespace, selector);
+        }
+    }
 }
@@ -4,11 +4,18 @@
  */
 package io.strimzi.controller.cluster;
 
+import io.strimzi.controller.cluster.operator.assembly.ReconciliationScheduler;
+import io.strimzi.controller.cluster.operator.resource.ResourceCache;
+
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
 
 /**
@@ -20,13 +27,24 @@ public class ClusterControllerConfig {
     public static final String STRIMZI_CONFIGMAP_LABELS = "STRIMZI_CONFIGMAP_LABELS";
     public static final String STRIMZI_FULL_RECONCILIATION_INTERVAL_MS = "STRIMZI_FULL_RECONCILIATION_INTERVAL_MS";
     public static final String STRIMZI_OPERATION_TIMEOUT_MS = "STRIMZI_OPERATION_TIMEOUT_MS";
+    public static final String STRIMZI_WORKER_POOL_SIZES = "STRIMZI_WORKER_POOL_SIZES";
+    public static final String STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS = "STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS";
+    public static final String STRIMZI_API_QPS = "STRIMZI_API_QPS";
+    public static final String STRIMZI_API_BURST = "STRIMZI_API_BURST";
 
     public static final long DEFAULT_FULL_RECONCILIATION_INTERVAL_MS = 120_000;
     public static final long DEFAULT_OPERATION_TIMEOUT_MS = 60_000;
+    public static final double DEFAULT_API_QPS = 0;
+    public static final int DEFAULT_API_BURST = 30;
 
     private final Set<String> namespaces;
     private final long reconciliationIntervalMs;
     private final long operationTimeoutMs;
+    private final Map<String, Integer> workerPoolSizes;
+    private final int maxConcurrentSweepReconciliations;
+    private final LeaderElectionConfig leaderElection;
+    private final double apiQps;
+    private final int apiBurst;
 
     /**
      * Constructor
@@ -36,9 +54,86 @@ public class ClusterControllerConfig {
      * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
      */
     public ClusterControllerConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, Collections.emptyMap());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the controller will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param workerPoolSizes    sizes of the worker pools, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}
+     */
+    public ClusterControllerConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs,
+                                   Map<String, Integer> workerPoolSizes) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, workerPoolSizes,
+                ReconciliationScheduler.DEFAULT_MAX_CONCURRENT_SWEEPS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the controller will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param workerPoolSizes    sizes of the worker pools, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}
+     * @param maxConcurrentSweepReconciliations    how many reconciliations triggered by the timer may run at once
+     */
+    public ClusterControllerConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs,
+                                   Map<String, Integer> workerPoolSizes, int maxConcurrentSweepReconciliations) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, workerPoolSizes, maxConcurrentSweepReconciliations, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the controller will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param workerPoolSizes    sizes of the worker pools, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}
+     * @param maxConcurrentSweepReconciliations    how many reconciliations triggered by the timer may run at once
+     * @param leaderElection    leader election configuration, or null if there's a single replica of the controller
+     */
+    public ClusterControllerConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs,
+                                   Map<String, Integer> workerPoolSizes, int maxConcurrentSweepReconciliations,
+                                   LeaderElectionConfig leaderElection) {
+        this(namespaces, reconciliationIntervalMs, operationTimeoutMs, workerPoolSizes, maxConcurrentSweepReconciliations,
+                leaderElection, DEFAULT_API_QPS, DEFAULT_API_BURST);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param namespaces namespace in which the controller will run and create resources
+     * @param reconciliationIntervalMs    specify every how many milliseconds the reconciliation runs
+     * @param operationTimeoutMs    timeout for internal operations specified in milliseconds
+     * @param workerPoolSizes    sizes of the worker pools, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}
+     * @param maxConcurrentSweepReconciliations    how many reconciliations triggered by the timer may run at once
+     * @param leaderElection    leader election configuration, or null if there's a single replica of the controller
+     * @param apiQps    sustained rate of requests to the Kubernetes API server per second, or 0 for no limit
+     * @param apiBurst    how many requests to the Kubernetes API server may be made at once above that rate
+     */
+    public ClusterControllerConfig(Set<String> namespaces, long reconciliationIntervalMs, long operationTimeoutMs,
+                                   Map<String, Integer> workerPoolSizes, int maxConcurrentSweepReconciliations,
+                                   LeaderElectionConfig leaderElection, double apiQps, int apiBurst) {
+        if (maxConcurrentSweepReconciliations < 1) {
+            throw new IllegalArgumentException(ClusterControllerConfig.STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS + " must be at least 1");
+        }
+        if (apiQps < 0) {
+            throw new IllegalArgumentException(ClusterControllerConfig.STRIMZI_API_QPS + " must not be negative");
+        }
+        if (apiBurst < 1) {
+            throw new IllegalArgumentException(ClusterControllerConfig.STRIMZI_API_BURST + " must be at least 1");
+        }
         this.namespaces = unmodifiableSet(new HashSet<>(namespaces));
         this.reconciliationIntervalMs = reconciliationIntervalMs;
         this.operationTimeoutMs = operationTimeoutMs;
+        this.workerPoolSizes = unmodifiableMap(new HashMap<>(workerPoolSizes));
+        this.maxConcurrentSweepReconciliations = maxConcurrentSweepReconciliations;
+        this.leaderElection = leaderElection;
+        this.apiQps = apiQps;
+        this.apiBurst = apiBurst;
     }
 
     /**
@@ -56,6 +151,10 @@ public class ClusterControllerConfig {
         } else {
             namespaces = new HashSet(asList(namespacesList.trim().split("\\s*,+\\s*")));
         }
+        if (namespaces.contains(ResourceCache.ANY_NAMESPACE)) {
+            // A single controller for all namespaces
+            namespaces = singleton(ResourceCache.ANY_NAMESPACE);
+        }
 
         long reconciliationInterval = DEFAULT_FULL_RECONCILIATION_INTERVAL_MS;
         String reconciliationIntervalEnvVar = map.get(ClusterControllerConfig.STRIMZI_FULL_RECONCILIATION_INTERVAL_MS);
@@ -69,12 +168,58 @@ public class ClusterControllerConfig {
             operationTimeout = Long.parseLong(operationTimeoutEnvVar);
         }
 
-        return new ClusterControllerConfig(namespaces, reconciliationInterval, operationTimeout);
+        Map<String, Integer> workerPoolSizes = parseWorkerPoolSizes(map.get(ClusterControllerConfig.STRIMZI_WORKER_POOL_SIZES));
+
+        int maxConcurrentSweepReconciliations = ReconciliationScheduler.DEFAULT_MAX_CONCURRENT_SWEEPS;
+        String maxConcurrentSweepReconciliationsEnvVar = map.get(ClusterControllerConfig.STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS);
+        if (maxConcurrentSweepReconciliationsEnvVar != null) {
+            maxConcurrentSweepReconciliations = Integer.parseInt(maxConcurrentSweepReconciliationsEnvVar);
+        }
+
+        double apiQps = DEFAULT_API_QPS;
+        String apiQpsEnvVar = map.get(ClusterControllerConfig.STRIMZI_API_QPS);
+        if (apiQpsEnvVar != null) {
+            apiQps = Double.parseDouble(apiQpsEnvVar);
+        }
+
+        int apiBurst = DEFAULT_API_BURST;
+        String apiBurstEnvVar = map.get(ClusterControllerConfig.STRIMZI_API_BURST);
+        if (apiBurstEnvVar != null) {
+            apiBurst = Integer.parseInt(apiBurstEnvVar);
+        }
+
+        return new ClusterControllerConfig(namespaces, reconciliationInterval, operationTimeout, workerPoolSizes,
+                maxConcurrentSweepReconciliations, LeaderElectionConfig.fromMap(map, namespaces), apiQps, apiBurst);
+    }
+
+    /**
+     * Parses worker pool sizes of the form {@code reads=10,writes=10,StatefulSet.readiness=2}
+     *
+     * @param sizes   the sizes to parse, may be null
+     * @return  the worker pool sizes
+     */
+    private static Map<String, Integer> parseWorkerPoolSizes(String sizes) {
+        Map<String, Integer> result = new HashMap<>();
+        if (sizes != null && !sizes.trim().isEmpty()) {
+            for (String entry : sizes.trim().split("\\s*,+\\s*")) {
+                String[] keyValue = entry.split("\\s*=\\s*");
+                if (keyValue.length != 2 || keyValue[0].isEmpty()) {
+                    throw new IllegalArgumentException(ClusterControllerConfig.STRIMZI_WORKER_POOL_SIZES + " has invalid entry " + entry);
+                }
+                int size = Integer.parseInt(keyValue[1]);
+                if (size < 1) {
+                    throw new IllegalArgumentException(ClusterControllerConfig.STRIMZI_WORKER_POOL_SIZES + " has invalid size for " + keyValue[0]);
+                }
+                result.put(keyValue[0], size);
+            }
+        }
+        return result;
     }
 
 
     /**
-     * @return  namespaces in which the controller runs and creates resources
+     * @return  namespaces in which the controller runs and creates resources,
+     *          or the singleton {@link ResourceCache#ANY_NAMESPACE} for all namespaces
      */
     public Set<String> getNamespaces() {
         return namespaces;
@@ -94,11 +239,51 @@ public class ClusterControllerConfig {
         return operationTimeoutMs;
     }
 
+    /**
+     * @return  sizes of the worker pools, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}
+     */
+    public Map<String, Integer> getWorkerPoolSizes() {
+        return workerPoolSizes;
+    }
+
+    /**
+     * @return  how many reconciliations triggered by the timer (rather than by a change) may run at once
+     */
+    public int getMaxConcurrentSweepReconciliations() {
+        return maxConcurrentSweepReconciliations;
+    }
+
+    /**
+     * @return  leader election configuration, or null if leader election is not enabled
+     */
+    public LeaderElectionConfig getLeaderElection() {
+        return leaderElection;
+    }
+
+    /**
+     * @return  sustained rate of requests to the Kubernetes API server per second, or 0 for no limit
+     */
+    public double getApiQps() {
+        return apiQps;
+    }
+
+    /**
+     * @return  how many requests to the Kubernetes API server may be made at once above the sustained rate
+     */
+    public int getApiBurst() {
+        return apiBurst;
+    }
+
     @Override
     public String toString() {
         return "ClusterControllerConfig(" +
                 "namespaces=" + namespaces +
                 ",reconciliationIntervalMs=" + reconciliationIntervalMs +
+                ",workerPoolSizes=" + workerPoolSizes +
+                ",maxConcurrentSweepReconciliations=" + maxConcurrentSweepReconciliations +
+                ",leaderElection=" + leaderElection +
+                ",apiQps=" + apiQps +
+                ",apiBurst=" + apiBurst +
                 ")";
     }
 }
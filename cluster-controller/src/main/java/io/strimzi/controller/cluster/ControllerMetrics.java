@@ -0,0 +1,350 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>The metrics of the controller, which are exposed in the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text format</a>
+ * on the {@code /metrics} endpoint of the health server.</p>
+ *
+ * <p>Metrics are either recorded as things happen (for example reconciliation durations),
+ * or sampled by {@linkplain #addCollector(Runnable) collectors} just before they're {@linkplain #scrape() scraped}
+ * (for example the utilisation of the worker pools).</p>
+ *
+ * <p>The metrics also hold the {@linkplain #addReadinessCheck(String, BooleanSupplier) checks}
+ * which determine whether the controller is ready, and the {@linkplain #history() history} of recent reconciliations.</p>
+ */
+public class ControllerMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(ControllerMetrics.class.getName());
+
+    /** Buckets, in seconds, suitable for the durations of Kubernetes operations and reconciliations. */
+    private static final double[] DURATION_BUCKETS = {0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600};
+
+    /**
+     * A metric, whose values (children) are keyed by their label values.
+     */
+    public abstract static class Family<C> {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<String> labelNames;
+        private final Map<List<String>, C> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type, String... labelNames) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelNames = Arrays.asList(labelNames);
+        }
+
+        /**
+         * @return The child with the given label values, which are in the order of the label names.
+         */
+        public C labels(String... labelValues) {
+            if (labelValues.length != labelNames.size()) {
+                throw new IllegalArgumentException("Metric " + name + " has labels " + labelNames + " but got " + labelValues.length + " values");
+            }
+            return children.computeIfAbsent(Arrays.asList(labelValues), k -> newChild());
+        }
+
+        /**
+         * Removes the child with the given label values, if any, so it's no longer exposed.
+         */
+        public void remove(String... labelValues) {
+            children.remove(Arrays.asList(labelValues));
+        }
+
+        protected abstract C newChild();
+
+        protected abstract void write(StringBuilder sb, List<String> labelValues, C child);
+
+        void write(StringBuilder sb) {
+            sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            Map<String, Map.Entry<List<String>, C>> sorted = new TreeMap<>();
+            for (Map.Entry<List<String>, C> entry : children.entrySet()) {
+                sorted.put(entry.getKey().toString(), entry);
+            }
+            for (Map.Entry<List<String>, C> entry : sorted.values()) {
+                write(sb, entry.getKey(), entry.getValue());
+            }
+        }
+
+        protected void sample(StringBuilder sb, String suffix, List<String> labelValues, String extraLabel, String extraValue, double value) {
+            sb.append(name).append(suffix);
+            if (!labelNames.isEmpty() || extraLabel != null) {
+                sb.append('{');
+                String sep = "";
+                for (int i = 0; i < labelNames.size(); i++) {
+                    sb.append(sep).append(labelNames.get(i)).append("=\"").append(escape(labelValues.get(i))).append('"');
+                    sep = ",";
+                }
+                if (extraLabel != null) {
+                    sb.append(sep).append(extraLabel).append("=\"").append(extraValue).append('"');
+                }
+                sb.append('}');
+            }
+            sb.append(' ').append(format(value)).append('\n');
+        }
+    }
+
+    /**
+     * A value which can be set or incremented.
+     */
+    public static class Value {
+        private double value;
+
+        /**
+         * Increments the value by one.
+         */
+        public void inc() {
+            inc(1);
+        }
+
+        /**
+         * Increments the value by the given amount.
+         */
+        public synchronized void inc(double amount) {
+            value += amount;
+        }
+
+        /**
+         * Sets the value.
+         */
+        public synchronized void set(double value) {
+            this.value = value;
+        }
+
+        /**
+         * @return The value.
+         */
+        public synchronized double get() {
+            return value;
+        }
+    }
+
+    /**
+     * A counter or gauge.
+     */
+    public static class Scalar extends Family<Value> {
+        Scalar(String name, String help, String type, String... labelNames) {
+            super(name, help, type, labelNames);
+        }
+
+        @Override
+        protected Value newChild() {
+            return new Value();
+        }
+
+        @Override
+        protected void write(StringBuilder sb, List<String> labelValues, Value child) {
+            sample(sb, "", labelValues, null, null, child.get());
+        }
+    }
+
+    /**
+     * Observations counted in buckets.
+     */
+    public static class Histogram extends Family<Histogram.Child> {
+        private final double[] buckets;
+
+        /**
+         * The observations with a given set of labels.
+         */
+        public static class Child {
+            private final double[] buckets;
+            private final long[] counts;
+            private double sum;
+            private long count;
+
+            Child(double[] buckets) {
+                this.buckets = buckets;
+                this.counts = new long[buckets.length];
+            }
+
+            /**
+             * Records an observation.
+             */
+            public synchronized void observe(double value) {
+                for (int i = 0; i < buckets.length; i++) {
+                    if (value <= buckets[i]) {
+                        counts[i]++;
+                        break;
+                    }
+                }
+                sum += value;
+                count++;
+            }
+
+            /**
+             * Records an observation of the time, in seconds, since {@code startNanos}.
+             * @param startNanos A time given by {@link System#nanoTime()}.
+             */
+            public void observeSince(long startNanos) {
+                observe((System.nanoTime() - startNanos) / 1e9);
+            }
+
+            /**
+             * @return The number of observations.
+             */
+            public synchronized long count() {
+                return count;
+            }
+        }
+
+        Histogram(String name, String help, double[] buckets, String... labelNames) {
+            super(name, help, "histogram", labelNames);
+            this.buckets = buckets.clone();
+        }
+
+        @Override
+        protected Child newChild() {
+            return new Child(buckets);
+        }
+
+        @Override
+        protected void write(StringBuilder sb, List<String> labelValues, Child child) {
+            long[] counts;
+            double sum;
+            long count;
+            synchronized (child) {
+                counts = child.counts.clone();
+                sum = child.sum;
+                count = child.count;
+            }
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += counts[i];
+                sample(sb, "_bucket", labelValues, "le", format(buckets[i]), cumulative);
+            }
+            sample(sb, "_bucket", labelValues, "le", "+Inf", count);
+            sample(sb, "_sum", labelValues, null, null, sum);
+            sample(sb, "_count", labelValues, null, null, count);
+        }
+    }
+
+    private final Map<String, Family<?>> families = new ConcurrentSkipListMap<>();
+    private final List<Runnable> collectors = new CopyOnWriteArrayList<>();
+    private final Map<String, BooleanSupplier> readinessChecks = new ConcurrentSkipListMap<>();
+    private final ReconciliationHistory history = new ReconciliationHistory();
+
+    @SuppressWarnings("unchecked")
+    private <F extends Family<?>> F register(F family) {
+        Family<?> registering = family;
+        Family<?> existing = families.putIfAbsent(registering.name, registering);
+        if (existing == null) {
+            return family;
+        } else if (existing.getClass() != registering.getClass() || !existing.labelNames.equals(registering.labelNames)) {
+            throw new IllegalArgumentException("Metric " + registering.name + " is already registered differently");
+        }
+        return (F) existing;
+    }
+
+    /**
+     * Registers (or returns the already registered) counter with the given name and labels.
+     */
+    public Scalar counter(String name, String help, String... labelNames) {
+        return register(new Scalar(name, help, "counter", labelNames));
+    }
+
+    /**
+     * Registers (or returns the already registered) gauge with the given name and labels.
+     */
+    public Scalar gauge(String name, String help, String... labelNames) {
+        return register(new Scalar(name, help, "gauge", labelNames));
+    }
+
+    /**
+     * Registers (or returns the already registered) histogram of durations in seconds
+     * with the given name and labels, using the {@link #DURATION_BUCKETS}.
+     */
+    public Histogram histogram(String name, String help, String... labelNames) {
+        return register(new Histogram(name, help, DURATION_BUCKETS, labelNames));
+    }
+
+    /**
+     * Adds a collector, which is run before each scrape to update sampled metrics.
+     */
+    public void addCollector(Runnable collector) {
+        collectors.add(collector);
+    }
+
+    /**
+     * Adds a check which must pass for the controller to be {@linkplain #isReady() ready}.
+     * @param name The name of the check, which is logged when it fails. A check with the same name is replaced.
+     * @param check The check.
+     */
+    public void addReadinessCheck(String name, BooleanSupplier check) {
+        readinessChecks.put(name, check);
+    }
+
+    /**
+     * @return Whether all the readiness checks pass.
+     */
+    public boolean isReady() {
+        List<String> failed = new ArrayList<>(0);
+        for (Map.Entry<String, BooleanSupplier> check : readinessChecks.entrySet()) {
+            if (!check.getValue().getAsBoolean()) {
+                failed.add(check.getKey());
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.debug("Not ready: {}", failed);
+        }
+        return failed.isEmpty();
+    }
+
+    /**
+     * @return The running and recently completed reconciliations.
+     */
+    public ReconciliationHistory history() {
+        return history;
+    }
+
+    /**
+     * @return The current value of all the metrics, in the Prometheus text format.
+     */
+    public String scrape() {
+        for (Runnable collector : collectors) {
+            try {
+                collector.run();
+            } catch (RuntimeException e) {
+                log.warn("Metrics collector threw", e);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Family<?> family : families.values()) {
+            family.write(sb);
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String labelValue) {
+        return String.valueOf(labelValue).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if (Double.compare(value, Math.rint(value)) == 0 && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
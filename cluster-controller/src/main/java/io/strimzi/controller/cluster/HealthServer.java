@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * The HTTP server for the liveness and readiness probes, metrics and diagnostics of the controller.
+ * There's one per controller process (rather than per {@link ClusterController}), so that a standby
+ * replica which doesn't run any {@link ClusterController}s yet still answers its probes.
+ */
+public class HealthServer {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthServer.class.getName());
+
+    public static final int HEALTH_SERVER_PORT = 8080;
+
+    private final ControllerMetrics metrics;
+
+    /**
+     * @param metrics The metrics, readiness checks and history of reconciliations to serve.
+     */
+    public HealthServer(ControllerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Start the HTTP health server
+     * @param vertx The Vertx instance.
+     */
+    public void start(Vertx vertx) {
+        vertx.createHttpServer()
+                .requestHandler(request -> {
+
+                    if (request.path().equals("/healthy")) {
+                        request.response().setStatusCode(200).end();
+                    } else if (request.path().equals("/ready")) {
+                        request.response().setStatusCode(metrics.isReady() ? 200 : 503).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response()
+                                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                                .end(metrics.scrape());
+                    } else if (request.path().equals("/reconciliations")) {
+                        serveReconciliations(request);
+                    } else {
+                        request.response().setStatusCode(404).end();
+                    }
+                })
+                .listen(HEALTH_SERVER_PORT, ar -> {
+                    if (ar.failed()) {
+                        log.error("Failed to start the health server on port {}", HEALTH_SERVER_PORT, ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * Responds with the running and recently completed reconciliations as JSON,
+     * optionally filtered by the {@code namespace}, {@code name} and {@code minDurationMs} query parameters.
+     */
+    private void serveReconciliations(HttpServerRequest request) {
+        long minDurationMs;
+        try {
+            String param = request.getParam("minDurationMs");
+            minDurationMs = param != null ? Long.parseLong(param) : 0L;
+        } catch (NumberFormatException e) {
+            request.response().setStatusCode(400).end("Invalid minDurationMs");
+            return;
+        }
+        List<Reconciliation> reconciliations = metrics.history().find(request.getParam("namespace"),
+                request.getParam("name"), minDurationMs);
+        request.response()
+                .putHeader("Content-Type", "application/json")
+                .end(ReconciliationHistory.toJson(reconciliations).encodePrettily());
+    }
+}
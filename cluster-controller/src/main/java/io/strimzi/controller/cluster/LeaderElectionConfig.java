@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.strimzi.controller.cluster.operator.resource.ResourceCache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Leader election configuration of the Cluster Controller
+ */
+public class LeaderElectionConfig {
+
+    public static final String STRIMZI_LEADER_ELECTION_LEASE_NAME = "STRIMZI_LEADER_ELECTION_LEASE_NAME";
+    public static final String STRIMZI_LEADER_ELECTION_LEASE_NAMESPACE = "STRIMZI_LEADER_ELECTION_LEASE_NAMESPACE";
+    public static final String STRIMZI_LEADER_ELECTION_IDENTITY = "STRIMZI_LEADER_ELECTION_IDENTITY";
+    public static final String STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS = "STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS";
+
+    public static final long DEFAULT_LEASE_DURATION_MS = 15_000;
+
+    private final String leaseName;
+    private final String leaseNamespace;
+    private final String identity;
+    private final long leaseDurationMs;
+
+    /**
+     * Constructor
+     *
+     * @param leaseName name of the ConfigMap used as the lease
+     * @param leaseNamespace namespace of the ConfigMap used as the lease
+     * @param identity identity of this controller replica, which must be unique among the replicas
+     * @param leaseDurationMs how many milliseconds the lease lasts for unless it's renewed
+     */
+    public LeaderElectionConfig(String leaseName, String leaseNamespace, String identity, long leaseDurationMs) {
+        if (leaseDurationMs < 1_000) {
+            throw new IllegalArgumentException(STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS + " must be at least 1000");
+        }
+        this.leaseName = leaseName;
+        this.leaseNamespace = leaseNamespace;
+        this.identity = identity;
+        this.leaseDurationMs = leaseDurationMs;
+    }
+
+    /**
+     * Loads the leader election configuration from a related map
+     *
+     * @param map   map from which loading configuration parameters
+     * @param namespaces   the namespaces the controller operates in
+     * @return  the leader election configuration, or null if leader election is not enabled
+     */
+    public static LeaderElectionConfig fromMap(Map<String, String> map, Set<String> namespaces) {
+        String leaseName = map.get(STRIMZI_LEADER_ELECTION_LEASE_NAME);
+        if (leaseName == null || leaseName.trim().isEmpty()) {
+            return null;
+        }
+
+        String leaseNamespace = map.get(STRIMZI_LEADER_ELECTION_LEASE_NAMESPACE);
+        if (leaseNamespace == null || leaseNamespace.trim().isEmpty()) {
+            if (namespaces.size() != 1 || namespaces.contains(ResourceCache.ANY_NAMESPACE)) {
+                throw new IllegalArgumentException(STRIMZI_LEADER_ELECTION_LEASE_NAMESPACE
+                        + " is required when the controller operates in more than one namespace");
+            }
+            leaseNamespace = namespaces.iterator().next();
+        }
+
+        String identity = map.get(STRIMZI_LEADER_ELECTION_IDENTITY);
+        if (identity == null || identity.trim().isEmpty()) {
+            // The pod name
+            identity = map.get("HOSTNAME");
+        }
+        if (identity == null || identity.trim().isEmpty()) {
+            identity = UUID.randomUUID().toString();
+        }
+
+        long leaseDuration = DEFAULT_LEASE_DURATION_MS;
+        String leaseDurationEnvVar = map.get(STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS);
+        if (leaseDurationEnvVar != null) {
+            leaseDuration = Long.parseLong(leaseDurationEnvVar);
+        }
+
+        return new LeaderElectionConfig(leaseName.trim(), leaseNamespace.trim(), identity.trim(), leaseDuration);
+    }
+
+    /**
+     * @return  name of the ConfigMap used as the lease
+     */
+    public String getLeaseName() {
+        return leaseName;
+    }
+
+    /**
+     * @return  namespace of the ConfigMap used as the lease
+     */
+    public String getLeaseNamespace() {
+        return leaseNamespace;
+    }
+
+    /**
+     * @return  identity of this controller replica
+     */
+    public String getIdentity() {
+        return identity;
+    }
+
+    /**
+     * @return  how many milliseconds the lease lasts for unless it's renewed
+     */
+    public long getLeaseDurationMs() {
+        return leaseDurationMs;
+    }
+
+    @Override
+    public String toString() {
+        return "LeaderElectionConfig(" +
+                "lease=" + leaseNamespace + "/" + leaseName +
+                ",identity=" + identity +
+                ",leaseDurationMs=" + leaseDurationMs +
+                ")";
+    }
+}
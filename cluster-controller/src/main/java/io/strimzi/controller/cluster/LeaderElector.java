@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.strimzi.controller.cluster.operator.resource.ApiRateLimiter;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Elects a single leader among the replicas of the controller, using a ConfigMap as a lease.</p>
+ *
+ * <p>The lease is recorded in the {@value #LEADER_ANNOTATION} annotation of the ConfigMap, in the format
+ * used by Kubernetes' own controllers. The leader renews it every {@link #retryPeriodMs()}, and the other
+ * replicas take it over once it hasn't been renewed for the lease duration. The lease duration is measured by
+ * each replica's own clock from when it saw the lease change, so clock skew between nodes doesn't matter.
+ * Updates are conditional on the ConfigMap's resourceVersion, so only one replica can acquire the lease.</p>
+ *
+ * <p>A leader which fails to renew the lease for two thirds of the lease duration stops leading,
+ * before any other replica can take over.</p>
+ */
+public class LeaderElector {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderElector.class.getName());
+
+    public static final String LEADER_ANNOTATION = "control-plane.alpha.kubernetes.io/leader";
+
+    private static final int HTTP_CONFLICT = 409;
+
+    private final Vertx vertx;
+    private final KubernetesClient client;
+    private final LeaderElectionConfig config;
+    private final long leaseDurationNanos;
+
+    private volatile boolean leader;
+    private volatile boolean stopped;
+    private volatile long timerId = -1;
+    private Handler<Void> startedLeading;
+    private Handler<Void> stoppedLeading;
+
+    /** The lease record as last seen, and when (by {@link System#nanoTime()}) it was first seen. */
+    private String observedRecord;
+    private long observedNanos;
+    private long lastRenewedNanos;
+
+    public LeaderElector(Vertx vertx, KubernetesClient client, LeaderElectionConfig config) {
+        this.vertx = vertx;
+        this.client = client;
+        this.config = config;
+        this.leaseDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getLeaseDurationMs());
+    }
+
+    /**
+     * @return How often the lease is renewed by the leader, and tried by the other replicas:
+     * about 2 seconds with the default lease duration, as for Kubernetes' own controllers.
+     */
+    long retryPeriodMs() {
+        return config.getLeaseDurationMs() / 7;
+    }
+
+    /**
+     * Starts trying to acquire the lease.
+     * @param startedLeading Called (on the event loop) when this replica becomes the leader.
+     * @param stoppedLeading Called (on the event loop) when this replica stops being the leader
+     *                       because it failed to renew the lease.
+     */
+    public void start(Handler<Void> startedLeading, Handler<Void> stoppedLeading) {
+        this.startedLeading = startedLeading;
+        this.stoppedLeading = stoppedLeading;
+        log.info("{}: Trying to acquire the lease {}/{}", config.getIdentity(), config.getLeaseNamespace(), config.getLeaseName());
+        tick();
+    }
+
+    private void tick() {
+        vertx.<Boolean>executeBlocking(
+            // Lease requests never wait behind the operators' requests in the API rate limiter
+            future -> ApiRateLimiter.runAs(ApiRateLimiter.Lane.LEASE, () -> future.complete(tryAcquireOrRenew())),
+            true,
+            ar -> {
+                if (stopped) {
+                    return;
+                }
+                if (ar.failed()) {
+                    log.warn("{}: Failed to acquire or renew the lease {}/{}", config.getIdentity(),
+                            config.getLeaseNamespace(), config.getLeaseName(), ar.cause());
+                }
+                long now = System.nanoTime();
+                if (ar.succeeded() && ar.result()) {
+                    lastRenewedNanos = now;
+                    if (!leader) {
+                        leader = true;
+                        log.info("{}: Became the leader", config.getIdentity());
+                        startedLeading.handle(null);
+                    }
+                } else if (leader && now - lastRenewedNanos > leaseDurationNanos * 2 / 3) {
+                    leader = false;
+                    log.error("{}: Failed to renew the lease, no longer the leader", config.getIdentity());
+                    stoppedLeading.handle(null);
+                }
+                timerId = vertx.setTimer(retryPeriodMs(), id -> tick());
+            });
+    }
+
+    private Resource<ConfigMap, DoneableConfigMap> lease() {
+        return client.configMaps().inNamespace(config.getLeaseNamespace()).withName(config.getLeaseName());
+    }
+
+    /**
+     * Tries to acquire the lease, or renew it if this replica already holds it. This method blocks.
+     * @return Whether this replica holds the lease.
+     */
+    synchronized boolean tryAcquireOrRenew() {
+        if (stopped) {
+            return false;
+        }
+        Resource<ConfigMap, DoneableConfigMap> lease = lease();
+        ConfigMap current = lease.get();
+        long now = System.nanoTime();
+        if (current == null) {
+            String record = record(new JsonObject());
+            return update(now, record, () -> lease.create(new ConfigMapBuilder()
+                    .withNewMetadata()
+                        .withName(config.getLeaseName())
+                        .withNamespace(config.getLeaseNamespace())
+                        .addToAnnotations(LEADER_ANNOTATION, record)
+                    .endMetadata()
+                    .build()));
+        }
+
+        Map<String, String> annotations = current.getMetadata().getAnnotations();
+        String currentRecord = annotations != null ? annotations.get(LEADER_ANNOTATION) : null;
+        if (!Objects.equals(currentRecord, observedRecord)) {
+            observedRecord = currentRecord;
+            observedNanos = now;
+        }
+        JsonObject parsed = parse(currentRecord);
+        String holder = parsed.getString("holderIdentity", "");
+        long leaseNanos = parsed.containsKey("leaseDurationSeconds")
+                ? TimeUnit.SECONDS.toNanos(parsed.getLong("leaseDurationSeconds")) : leaseDurationNanos;
+        if (!holder.isEmpty() && !holder.equals(config.getIdentity()) && now - observedNanos < leaseNanos) {
+            log.debug("{}: Lease held by {}", config.getIdentity(), holder);
+            return false;
+        }
+        if (!holder.equals(config.getIdentity())) {
+            log.info("{}: Acquiring the lease {}/{} from {}", config.getIdentity(), config.getLeaseNamespace(),
+                    config.getLeaseName(), holder.isEmpty() ? "nobody" : holder);
+        }
+        String record = record(parsed);
+        return update(now, record, () -> lease.lockResourceVersion(current.getMetadata().getResourceVersion())
+                .replace(new ConfigMapBuilder(current)
+                    .editMetadata()
+                        .addToAnnotations(LEADER_ANNOTATION, record)
+                    .endMetadata()
+                    .build()));
+    }
+
+    /**
+     * Performs the given create or update of the lease, returning false if another replica updated it first.
+     */
+    private boolean update(long now, String record, Runnable update) {
+        try {
+            update.run();
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HTTP_CONFLICT) {
+                log.debug("{}: Lease was updated by another replica", config.getIdentity());
+                return false;
+            }
+            throw e;
+        }
+        observedRecord = record;
+        observedNanos = now;
+        return true;
+    }
+
+    /**
+     * @return The lease record for this replica holding the lease, given the current record.
+     */
+    private String record(JsonObject current) {
+        String time = Instant.now().toString();
+        boolean renewing = config.getIdentity().equals(current.getString("holderIdentity"));
+        return new JsonObject()
+                .put("holderIdentity", config.getIdentity())
+                .put("leaseDurationSeconds", TimeUnit.MILLISECONDS.toSeconds(config.getLeaseDurationMs() + 999))
+                .put("acquireTime", renewing ? current.getString("acquireTime", time) : time)
+                .put("renewTime", time)
+                .put("leaderTransitions", current.getInteger("leaderTransitions", 0) + (renewing ? 0 : 1))
+                .encode();
+    }
+
+    private static JsonObject parse(String record) {
+        if (record == null || record.isEmpty()) {
+            return new JsonObject();
+        }
+        try {
+            return new JsonObject(record);
+        } catch (DecodeException | ClassCastException e) {
+            log.warn("Ignoring invalid lease record {}", record);
+            return new JsonObject();
+        }
+    }
+
+    /**
+     * @return Whether this replica is the leader.
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Stops trying to acquire or renew the lease and, if this replica holds it, releases it so that
+     * another replica can take over straight away. This method blocks.
+     */
+    public synchronized void release() {
+        stopped = true;
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+        }
+        if (!leader) {
+            return;
+        }
+        leader = false;
+        try {
+            ConfigMap current = lease().get();
+            Map<String, String> annotations = current != null ? current.getMetadata().getAnnotations() : null;
+            JsonObject record = parse(annotations != null ? annotations.get(LEADER_ANNOTATION) : null);
+            if (config.getIdentity().equals(record.getString("holderIdentity"))) {
+                record.put("holderIdentity", "").put("leaseDurationSeconds", 1).put("renewTime", Instant.now().toString());
+                lease().lockResourceVersion(current.getMetadata().getResourceVersion())
+                        .replace(new ConfigMapBuilder(current)
+                            .editMetadata()
+                                .addToAnnotations(LEADER_ANNOTATION, record.encode())
+                            .endMetadata()
+                            .build());
+                log.info("{}: Released the lease {}/{}", config.getIdentity(), config.getLeaseNamespace(), config.getLeaseName());
+            }
+        } catch (KubernetesClientException e) {
+            log.warn("{}: Failed to release the lease {}/{}", config.getIdentity(), config.getLeaseNamespace(),
+                    config.getLeaseName(), e);
+        }
+    }
+
+    /**
+     * Registers whether this replica is the leader in the given {@code metrics}.
+     * @param metrics The metrics.
+     */
+    public void registerMetrics(ControllerMetrics metrics) {
+        ControllerMetrics.Scalar isLeader = metrics.gauge("strimzi_leader",
+                "Whether this replica of the controller is the leader (1) or a standby (0)");
+        metrics.addCollector(() -> isLeader.labels().set(leader ? 1 : 0));
+    }
+}
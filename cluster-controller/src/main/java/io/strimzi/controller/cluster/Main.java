@@ -4,13 +4,19 @@
  */
 package io.strimzi.controller.cluster;
 
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
 import io.fabric8.openshift.client.OpenShiftClient;
 
 import io.strimzi.controller.cluster.operator.assembly.KafkaAssemblyOperator;
 import io.strimzi.controller.cluster.operator.assembly.KafkaConnectAssemblyOperator;
 import io.strimzi.controller.cluster.operator.assembly.KafkaConnectS2IAssemblyOperator;
+import io.strimzi.controller.cluster.operator.assembly.ReconciliationScheduler;
+import io.strimzi.controller.cluster.operator.resource.AbstractResourceOperator;
+import io.strimzi.controller.cluster.operator.resource.ApiRateLimiter;
 import io.strimzi.controller.cluster.operator.resource.KafkaSetOperator;
 import io.strimzi.controller.cluster.operator.resource.ZookeeperSetOperator;
 import io.strimzi.controller.cluster.operator.resource.BuildConfigOperator;
@@ -20,11 +26,15 @@ import io.strimzi.controller.cluster.operator.resource.DeploymentOperator;
 import io.strimzi.controller.cluster.operator.resource.ImageStreamOperator;
 import io.strimzi.controller.cluster.operator.resource.PvcOperator;
 import io.strimzi.controller.cluster.operator.resource.ServiceOperator;
+import io.strimzi.controller.cluster.operator.resource.WorkerPools;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,17 +42,23 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
 
 public class Main {
     private static final Logger log = LoggerFactory.getLogger(Main.class.getName());
 
     public static void main(String[] args) {
         Vertx vertx = Vertx.vertx();
-        KubernetesClient client = new DefaultKubernetesClient();
+        ClusterControllerConfig config = ClusterControllerConfig.fromMap(System.getenv());
+        ApiRateLimiter rateLimiter = config.getApiQps() > 0
+                ? new ApiRateLimiter(config.getApiQps(), config.getApiBurst()) : null;
+        KubernetesClient client = createClient(rateLimiter, config.getApiBurst());
 
         isOnOpenShift(vertx, client).setHandler(os -> {
             if (os.succeeded()) {
-                run(vertx, client, os.result().booleanValue(), System.getenv()).setHandler(ar -> {
+                run(vertx, client, os.result().booleanValue(), config, rateLimiter).setHandler(ar -> {
                     if (ar.failed()) {
                         log.error("Unable to start controller for 1 or more namespace", ar.cause());
                         System.exit(1);
@@ -55,18 +71,56 @@ public class Main {
         });
     }
 
-    static CompositeFuture run(Vertx vertx, KubernetesClient client, boolean isOpenShift, Map<String, String> env) {
-        ClusterControllerConfig config = ClusterControllerConfig.fromMap(env);
+    /**
+     * Creates the Kubernetes client, which multiplexes its requests over a single HTTP/2 connection to the
+     * API server where the JVM supports ALPN, and otherwise keeps up to {@code maxIdleConnections}
+     * HTTP/1.1 connections alive for reuse, rather than reconnecting for a burst of requests.
+     * @param rateLimiter The limiter of the rate of requests, or null for no limit.
+     * @param maxIdleConnections The maximum number of idle connections to keep.
+     */
+    static KubernetesClient createClient(ApiRateLimiter rateLimiter, int maxIdleConnections) {
+        Config config = new ConfigBuilder().build();
+        OkHttpClient.Builder httpClient = HttpClientUtils.createHttpClient(config).newBuilder()
+                .protocols(asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(maxIdleConnections, 5, TimeUnit.MINUTES));
+        if (rateLimiter != null) {
+            httpClient.addInterceptor(rateLimiter);
+        }
+        return new DefaultKubernetesClient(httpClient.build(), config);
+    }
+
+    static Future<Void> run(Vertx vertx, KubernetesClient client, boolean isOpenShift, Map<String, String> env) {
+        return run(vertx, client, isOpenShift, ClusterControllerConfig.fromMap(env), null);
+    }
 
+    static Future<Void> run(Vertx vertx, KubernetesClient client, boolean isOpenShift, ClusterControllerConfig config,
+                            ApiRateLimiter rateLimiter) {
+        ControllerMetrics metrics = new ControllerMetrics();
+        if (rateLimiter != null) {
+            rateLimiter.registerMetrics(metrics);
+        }
+        WorkerPools workerPools = new WorkerPools(vertx, config.getWorkerPoolSizes());
+        workerPools.registerMetrics(metrics);
         ServiceOperator serviceOperations = new ServiceOperator(vertx, client);
-        ZookeeperSetOperator zookeeperSetOperations = new ZookeeperSetOperator(vertx, client);
-        KafkaSetOperator kafkaSetOperations = new KafkaSetOperator(vertx, client);
+        ZookeeperSetOperator zookeeperSetOperations = new ZookeeperSetOperator(vertx, client, config.getOperationTimeoutMs());
+        KafkaSetOperator kafkaSetOperations = new KafkaSetOperator(vertx, client, config.getOperationTimeoutMs());
         ConfigMapOperator configMapOperations = new ConfigMapOperator(vertx, client);
         PvcOperator pvcOperations = new PvcOperator(vertx, client);
         DeploymentOperator deploymentOperations = new DeploymentOperator(vertx, client);
+        // The Kafka and ZooKeeper StatefulSets (and their pods) are served by the same caches
+        zookeeperSetOperations.useCachesOf(kafkaSetOperations);
+        use(workerPools, metrics, serviceOperations, zookeeperSetOperations, kafkaSetOperations,
+                configMapOperations, pvcOperations, deploymentOperations);
 
         KafkaAssemblyOperator kafkaClusterOperations = new KafkaAssemblyOperator(vertx, isOpenShift, config.getOperationTimeoutMs(), configMapOperations, serviceOperations, zookeeperSetOperations, kafkaSetOperations, pvcOperations, deploymentOperations);
         KafkaConnectAssemblyOperator kafkaConnectClusterOperations = new KafkaConnectAssemblyOperator(vertx, isOpenShift, configMapOperations, deploymentOperations, serviceOperations);
+        // A single scheduler caps the sweep reconciliations of all the assembly types
+        ReconciliationScheduler scheduler = new ReconciliationScheduler(config.getMaxConcurrentSweepReconciliations());
+        scheduler.registerMetrics(metrics);
+        kafkaClusterOperations.useScheduler(scheduler);
+        kafkaClusterOperations.useMetrics(metrics);
+        kafkaConnectClusterOperations.useScheduler(scheduler);
+        kafkaConnectClusterOperations.useMetrics(metrics);
 
         DeploymentConfigOperator deploymentConfigOperations = null;
         ImageStreamOperator imagesStreamOperations = null;
@@ -76,11 +130,54 @@ public class Main {
             imagesStreamOperations = new ImageStreamOperator(vertx, client.adapt(OpenShiftClient.class));
             buildConfigOperations = new BuildConfigOperator(vertx, client.adapt(OpenShiftClient.class));
             deploymentConfigOperations = new DeploymentConfigOperator(vertx, client.adapt(OpenShiftClient.class));
+            use(workerPools, metrics, imagesStreamOperations, buildConfigOperations, deploymentConfigOperations);
             kafkaConnectS2IClusterOperations = new KafkaConnectS2IAssemblyOperator(vertx, isOpenShift,
                     configMapOperations, deploymentConfigOperations,
                     serviceOperations, imagesStreamOperations, buildConfigOperations);
+            kafkaConnectS2IClusterOperations.useScheduler(scheduler);
+            kafkaConnectS2IClusterOperations.useMetrics(metrics);
+        }
+
+        List<Future> caches = new ArrayList<>();
+        for (String namespace : config.getNamespaces()) {
+            // Until a cache has synced reads go to the API server, so there's no need to wait for them
+            caches.add(startCache(namespace, "StatefulSets and Pods", kafkaSetOperations.startCache(namespace)));
+            caches.add(startCache(namespace, "Services and Endpoints", serviceOperations.startCache(namespace)));
+            caches.add(startCache(namespace, "Deployments", deploymentOperations.startCache(namespace)));
+            caches.add(startCache(namespace, "PersistentVolumeClaims", pvcOperations.startCache(namespace)));
+            caches.add(startCache(namespace, "ConfigMaps", configMapOperations.startCache(namespace)));
+        }
+        metrics.addReadinessCheck("Resource caches synced", () -> caches.stream().allMatch(Future::isComplete));
+        new HealthServer(metrics).start(vertx);
+
+        LeaderElectionConfig leaderElection = config.getLeaderElection();
+        if (leaderElection == null) {
+            return deployControllers(vertx, client, config, kafkaClusterOperations, kafkaConnectClusterOperations,
+                    kafkaConnectS2IClusterOperations, metrics);
         }
 
+        // A standby keeps its caches warm, but doesn't deploy any controllers until it becomes the leader
+        KafkaConnectS2IAssemblyOperator s2iOperations = kafkaConnectS2IClusterOperations;
+        LeaderElector elector = new LeaderElector(vertx, client, leaderElection);
+        elector.registerMetrics(metrics);
+        Runtime.getRuntime().addShutdownHook(new Thread(elector::release));
+        elector.start(
+            // Failing to deploy a controller exits, as without leader election
+            startedLeading -> deployControllers(vertx, client, config, kafkaClusterOperations,
+                    kafkaConnectClusterOperations, s2iOperations, metrics),
+            stoppedLeading -> {
+                // Another replica may already be reconciling, so stop straight away
+                log.error("Lost the leadership, exiting");
+                System.exit(1);
+            });
+        return Future.succeededFuture();
+    }
+
+    private static Future<Void> deployControllers(Vertx vertx, KubernetesClient client, ClusterControllerConfig config,
+                                                  KafkaAssemblyOperator kafkaClusterOperations,
+                                                  KafkaConnectAssemblyOperator kafkaConnectClusterOperations,
+                                                  KafkaConnectS2IAssemblyOperator kafkaConnectS2IClusterOperations,
+                                                  ControllerMetrics metrics) {
         List<Future> futures = new ArrayList<>();
         for (String namespace : config.getNamespaces()) {
             Future<String> fut = Future.future();
@@ -90,7 +187,8 @@ public class Main {
                     client,
                     kafkaClusterOperations,
                     kafkaConnectClusterOperations,
-                    kafkaConnectS2IClusterOperations);
+                    kafkaConnectS2IClusterOperations,
+                    metrics);
             vertx.deployVerticle(controller,
                 res -> {
                     if (res.succeeded()) {
@@ -102,7 +200,24 @@ public class Main {
                     fut.completer().handle(res);
                 });
         }
-        return CompositeFuture.join(futures);
+        return CompositeFuture.join(futures).mapEmpty();
+    }
+
+    private static void use(WorkerPools workerPools, ControllerMetrics metrics, AbstractResourceOperator<?, ?, ?, ?, ?, ?>... operators) {
+        for (AbstractResourceOperator<?, ?, ?, ?, ?, ?> operator : operators) {
+            operator.useWorkerPools(workerPools);
+            operator.useMetrics(metrics);
+        }
+    }
+
+    private static Future<Void> startCache(String namespace, String kinds, Future<Void> started) {
+        return started.setHandler(ar -> {
+            if (ar.succeeded()) {
+                log.info("Cache of {} in namespace {} synced", kinds, namespace);
+            } else {
+                log.warn("Cache of {} in namespace {} failed to start, reading from the API server instead", kinds, namespace, ar.cause());
+            }
+        });
     }
 
     static Future<Boolean> isOnOpenShift(Vertx vertx, KubernetesClient client)  {
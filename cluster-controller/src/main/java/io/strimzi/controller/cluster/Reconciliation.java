@@ -6,6 +6,9 @@ package io.strimzi.controller.cluster;
 
 import io.strimzi.controller.cluster.model.AssemblyType;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -14,16 +17,85 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * <p>Each instance has a unique id and a trigger (description of the event which initiated the reconciliation),
  * which are used to provide consistent context for logging.</p>
+ *
+ * <p>A reconciliation also records when it was {@linkplain #started() started} and {@linkplain #completed(Throwable) completed},
+ * and the timing of each of its named {@linkplain #startStep(String) steps}, so that the {@link #summary()} logged on
+ * completion (and the {@link ReconciliationHistory}) show where the time of a slow reconciliation went.</p>
  */
 public class Reconciliation {
 
     private static final AtomicInteger IDS = new AtomicInteger();
 
+    /**
+     * A named step of a reconciliation, such as scaling down a StatefulSet.
+     */
+    public static class Step {
+        private final String name;
+        private final long startMs;
+        private final long startNanos;
+        private volatile long durationNanos = -1;
+        private volatile boolean succeeded;
+
+        private Step(String name) {
+            this.name = name;
+            this.startMs = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records that the step has completed.
+         * @param succeeded Whether it succeeded.
+         */
+        public void completed(boolean succeeded) {
+            this.succeeded = succeeded;
+            this.durationNanos = System.nanoTime() - startNanos;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return The time the step started, in milliseconds since the epoch.
+         */
+        public long startMs() {
+            return startMs;
+        }
+
+        /**
+         * @return Whether the step has completed.
+         */
+        public boolean isComplete() {
+            return durationNanos >= 0;
+        }
+
+        /**
+         * @return Whether the step completed successfully.
+         */
+        public boolean succeeded() {
+            return succeeded;
+        }
+
+        /**
+         * @return The duration of the step in milliseconds, or the time it has been running for if it's not complete.
+         */
+        public long durationMs() {
+            long duration = durationNanos;
+            return TimeUnit.NANOSECONDS.toMillis(duration >= 0 ? duration : System.nanoTime() - startNanos);
+        }
+    }
+
     private final String trigger;
     private final AssemblyType type;
     private final String namespace;
     private final String assemblyName;
     private final int id;
+    private final long createdMs;
+    private final long createdNanos;
+    private final List<Step> steps = new ArrayList<>();
+    private volatile long startNanos = -1;
+    private volatile long durationNanos = -1;
+    private volatile Throwable failure;
 
     public Reconciliation(String trigger, AssemblyType type, String namespace, String assemblyName) {
         this.trigger = trigger;
@@ -31,6 +103,19 @@ public class Reconciliation {
         this.namespace = namespace;
         this.assemblyName = assemblyName;
         this.id = IDS.getAndIncrement();
+        this.createdMs = System.currentTimeMillis();
+        this.createdNanos = System.nanoTime();
+    }
+
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return The description of the event which initiated the reconciliation, such as {@code watch} or {@code timer}.
+     */
+    public String trigger() {
+        return trigger;
     }
 
     public AssemblyType type() {
@@ -45,6 +130,116 @@ public class Reconciliation {
         return assemblyName;
     }
 
+    /**
+     * Records that the reconciliation has started, having waited for any other reconciliations of the same assembly.
+     */
+    public void started() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records that the reconciliation has completed.
+     * @param failure The cause of its failure, or null if it succeeded.
+     */
+    public void completed(Throwable failure) {
+        this.failure = failure;
+        this.durationNanos = System.nanoTime() - (startNanos >= 0 ? startNanos : createdNanos);
+    }
+
+    /**
+     * Records that the step with the given {@code name} has started.
+     * @param name The name of the step.
+     * @return The step, which the caller should {@linkplain Step#completed(boolean) complete}.
+     */
+    public Step startStep(String name) {
+        Step step = new Step(name);
+        synchronized (steps) {
+            steps.add(step);
+        }
+        return step;
+    }
+
+    /**
+     * @return The steps of the reconciliation so far, in the order they started.
+     */
+    public List<Step> steps() {
+        synchronized (steps) {
+            return new ArrayList<>(steps);
+        }
+    }
+
+    /**
+     * @return The time the reconciliation was created (i.e. triggered), in milliseconds since the epoch.
+     */
+    public long createdMs() {
+        return createdMs;
+    }
+
+    /**
+     * @return The time, in milliseconds, the reconciliation waited for other reconciliations of the same assembly
+     * before it started, or the time it has been waiting for if it's not yet started.
+     */
+    public long waitMs() {
+        long start = startNanos;
+        return TimeUnit.NANOSECONDS.toMillis((start >= 0 ? start : System.nanoTime()) - createdNanos);
+    }
+
+    /**
+     * @return The duration, in milliseconds, of the reconciliation, or the time it has been running for if it's not complete.
+     */
+    public long durationMs() {
+        long duration = durationNanos;
+        if (duration >= 0) {
+            return TimeUnit.NANOSECONDS.toMillis(duration);
+        }
+        long start = startNanos;
+        return start >= 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) : 0;
+    }
+
+    /**
+     * @return Whether the reconciliation has completed.
+     */
+    public boolean isComplete() {
+        return durationNanos >= 0;
+    }
+
+    /**
+     * @return The cause of the reconciliation's failure, or null if it succeeded or is not complete.
+     */
+    public Throwable failure() {
+        return failure;
+    }
+
+    /**
+     * @return A one line summary of the outcome and timing of the reconciliation and its steps.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder(toString()).append(": ");
+        if (!isComplete()) {
+            sb.append("running for ");
+        } else if (failure == null) {
+            sb.append("succeeded in ");
+        } else {
+            sb.append("failed in ");
+        }
+        sb.append(durationMs()).append("ms after waiting ").append(waitMs()).append("ms");
+        List<Step> steps = steps();
+        if (!steps.isEmpty()) {
+            sb.append(" [");
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                sb.append(i == 0 ? "" : ", ").append(step.name()).append(' ').append(step.durationMs()).append("ms");
+                if (!step.isComplete()) {
+                    sb.append(" (running)");
+                } else if (!step.succeeded()) {
+                    sb.append(" (failed)");
+                }
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
     public String toString() {
         return "Reconciliation #" + id + "(" + trigger + ") " + type() + "(" + namespace() + "/" + assemblyName() + ")";
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The reconciliations which are running, and a bounded ring buffer of the most recently completed ones,
+ * with the timing of their steps.</p>
+ *
+ * <p>It is served as JSON on the {@code /reconciliations} endpoint of the health server,
+ * so that slow reconciliations can be diagnosed without enabling debug logging.</p>
+ */
+public class ReconciliationHistory {
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final int capacity;
+    private final Map<Integer, Reconciliation> running = new LinkedHashMap<>();
+    private final Deque<Reconciliation> completed;
+
+    public ReconciliationHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of completed reconciliations to keep.
+     */
+    public ReconciliationHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid reconciliation history capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.completed = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Records that the given reconciliation has started.
+     */
+    public synchronized void started(Reconciliation reconciliation) {
+        running.put(reconciliation.id(), reconciliation);
+    }
+
+    /**
+     * Records that the given reconciliation has completed, evicting the oldest completed reconciliation if the
+     * history is full.
+     */
+    public synchronized void completed(Reconciliation reconciliation) {
+        running.remove(reconciliation.id());
+        if (completed.size() == capacity) {
+            completed.removeLast();
+        }
+        completed.addFirst(reconciliation);
+    }
+
+    /**
+     * Returns the matching reconciliations: the running ones (oldest first) followed by the completed ones (newest first).
+     * @param namespace If not null, only reconciliations of assemblies in this namespace are returned.
+     * @param assemblyName If not null, only reconciliations of assemblies with this name are returned.
+     * @param minDurationMs Only reconciliations which have taken (or have been running for) at least this long are returned.
+     * @return The matching reconciliations.
+     */
+    public synchronized List<Reconciliation> find(String namespace, String assemblyName, long minDurationMs) {
+        List<Reconciliation> all = new ArrayList<>(running.values());
+        all.addAll(completed);
+        List<Reconciliation> result = new ArrayList<>();
+        for (Reconciliation reconciliation : all) {
+            if ((namespace == null || namespace.equals(reconciliation.namespace()))
+                    && (assemblyName == null || assemblyName.equals(reconciliation.assemblyName()))
+                    && reconciliation.durationMs() >= minDurationMs) {
+                result.add(reconciliation);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The given reconciliations as JSON.
+     */
+    public static JsonArray toJson(List<Reconciliation> reconciliations) {
+        JsonArray result = new JsonArray();
+        for (Reconciliation reconciliation : reconciliations) {
+            result.add(toJson(reconciliation));
+        }
+        return result;
+    }
+
+    private static JsonObject toJson(Reconciliation reconciliation) {
+        JsonObject json = new JsonObject()
+                .put("id", reconciliation.id())
+                .put("trigger", reconciliation.trigger())
+                .put("type", String.valueOf(reconciliation.type()))
+                .put("namespace", reconciliation.namespace())
+                .put("name", reconciliation.assemblyName())
+                .put("created", Instant.ofEpochMilli(reconciliation.createdMs()).toString())
+                .put("waitMs", reconciliation.waitMs())
+                .put("durationMs", reconciliation.durationMs())
+                .put("result", !reconciliation.isComplete() ? "running" : reconciliation.failure() == null ? "succeeded" : "failed");
+        if (reconciliation.failure() != null) {
+            json.put("error", String.valueOf(reconciliation.failure().getMessage()));
+        }
+        JsonArray steps = new JsonArray();
+        for (Reconciliation.Step step : reconciliation.steps()) {
+            steps.add(new JsonObject()
+                    .put("name", step.name())
+                    .put("started", Instant.ofEpochMilli(step.startMs()).toString())
+                    .put("durationMs", step.durationMs())
+                    .put("result", !step.isComplete() ? "running" : step.succeeded() ? "succeeded" : "failed"));
+        }
+        return json.put("steps", steps);
+    }
+}
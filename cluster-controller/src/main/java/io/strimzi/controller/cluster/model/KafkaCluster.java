@@ -25,7 +25,7 @@ import java.util.Map;
 
 public class KafkaCluster extends AbstractModel {
 
-    protected static final int CLIENT_PORT = 9092;
+    public static final int CLIENT_PORT = 9092;
     protected static final String CLIENT_PORT_NAME = "clients";
 
     protected static final int REPLICATION_PORT = 9091;
@@ -40,6 +40,10 @@ public class KafkaCluster extends AbstractModel {
     private int defaultReplicationFactor = DEFAULT_KAFKA_DEFAULT_REPLICATION_FACTOR;
     private int offsetsTopicReplicationFactor = DEFAULT_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR;
     private int transactionStateLogReplicationFactor = DEFAULT_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR;
+    private long reassignmentThrottle = DEFAULT_REASSIGNMENT_THROTTLE;
+    private boolean rebalanceOnScaleUp = DEFAULT_REBALANCE_ON_SCALE_UP;
+    private int rebalanceMaxMoves = DEFAULT_REBALANCE_MAX_MOVES;
+    private boolean scaleDownMovePartitions = DEFAULT_SCALE_DOWN_MOVE_PARTITIONS;
 
     // Configuration defaults
     private static final String DEFAULT_IMAGE =
@@ -49,6 +53,10 @@ public class KafkaCluster extends AbstractModel {
     private static final int DEFAULT_HEALTHCHECK_DELAY = 15;
     private static final int DEFAULT_HEALTHCHECK_TIMEOUT = 5;
     private static final boolean DEFAULT_KAFKA_METRICS_ENABLED = false;
+    public static final long DEFAULT_REASSIGNMENT_THROTTLE = 10_485_760L;
+    private static final boolean DEFAULT_REBALANCE_ON_SCALE_UP = false;
+    private static final int DEFAULT_REBALANCE_MAX_MOVES = 10;
+    private static final boolean DEFAULT_SCALE_DOWN_MOVE_PARTITIONS = true;
 
     // Kafka configuration defaults
     private static final String DEFAULT_KAFKA_ZOOKEEPER_CONNECT = "zookeeper:2181";
@@ -63,6 +71,10 @@ public class KafkaCluster extends AbstractModel {
     public static final String KEY_HEALTHCHECK_TIMEOUT = "kafka-healthcheck-timeout";
     public static final String KEY_METRICS_CONFIG = "kafka-metrics-config";
     public static final String KEY_STORAGE = "kafka-storage";
+    public static final String KEY_REASSIGNMENT_THROTTLE = "kafka-reassignment-throttle";
+    public static final String KEY_REBALANCE_ON_SCALE_UP = "kafka-rebalance-on-scale-up";
+    public static final String KEY_REBALANCE_MAX_MOVES = "kafka-rebalance-max-moves";
+    public static final String KEY_SCALE_DOWN_MOVE_PARTITIONS = "kafka-scale-down-move-partitions";
 
     // Kafka configuration keys
     public static final String KEY_KAFKA_ZOOKEEPER_CONNECT = "KAFKA_ZOOKEEPER_CONNECT";
@@ -127,6 +139,10 @@ public class KafkaCluster extends AbstractModel {
         kafka.setImage(data.getOrDefault(KEY_IMAGE, DEFAULT_IMAGE));
         kafka.setHealthCheckInitialDelay(Integer.parseInt(data.getOrDefault(KEY_HEALTHCHECK_DELAY, String.valueOf(DEFAULT_HEALTHCHECK_DELAY))));
         kafka.setHealthCheckTimeout(Integer.parseInt(data.getOrDefault(KEY_HEALTHCHECK_TIMEOUT, String.valueOf(DEFAULT_HEALTHCHECK_TIMEOUT))));
+        kafka.setReassignmentThrottle(Long.parseLong(data.getOrDefault(KEY_REASSIGNMENT_THROTTLE, String.valueOf(DEFAULT_REASSIGNMENT_THROTTLE))));
+        kafka.setRebalanceOnScaleUp(Boolean.parseBoolean(data.getOrDefault(KEY_REBALANCE_ON_SCALE_UP, String.valueOf(DEFAULT_REBALANCE_ON_SCALE_UP))));
+        kafka.setRebalanceMaxMoves(Integer.parseInt(data.getOrDefault(KEY_REBALANCE_MAX_MOVES, String.valueOf(DEFAULT_REBALANCE_MAX_MOVES))));
+        kafka.setScaleDownMovePartitions(Boolean.parseBoolean(data.getOrDefault(KEY_SCALE_DOWN_MOVE_PARTITIONS, String.valueOf(DEFAULT_SCALE_DOWN_MOVE_PARTITIONS))));
 
         kafka.setZookeeperConnect(data.getOrDefault(KEY_KAFKA_ZOOKEEPER_CONNECT, kafkaClusterCm.getMetadata().getName() + "-zookeeper:2181"));
         kafka.setDefaultReplicationFactor(Integer.parseInt(data.getOrDefault(KEY_KAFKA_DEFAULT_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_DEFAULT_REPLICATION_FACTOR))));
@@ -318,4 +334,55 @@ public class KafkaCluster extends AbstractModel {
     protected void setTransactionStateLogReplicationFactor(int transactionStateLogReplicationFactor) {
         this.transactionStateLogReplicationFactor = transactionStateLogReplicationFactor;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The rate, in bytes per second, to which the replication of partitions being moved between brokers
+     * is throttled on each broker, or 0 for no throttle.
+     */
+    public long getReassignmentThrottle() {
+        return reassignmentThrottle;
+    }
+
+    protected void setReassignmentThrottle(long reassignmentThrottle) {
+        if (reassignmentThrottle < 0) {
+            throw new IllegalArgumentException("Invalid " + KEY_REASSIGNMENT_THROTTLE + " " + reassignmentThrottle);
+        }
+        this.reassignmentThrottle = reassignmentThrottle;
+    }
+
+    /**
+     * @return Whether the partition replicas are rebalanced over the brokers after they're scaled up.
+     */
+    public boolean isRebalanceOnScaleUp() {
+        return rebalanceOnScaleUp;
+    }
+
+    protected void setRebalanceOnScaleUp(boolean rebalanceOnScaleUp) {
+        this.rebalanceOnScaleUp = rebalanceOnScaleUp;
+    }
+
+    /**
+     * @return The maximum number of partitions moved at a time by a rebalance.
+     */
+    public int getRebalanceMaxMoves() {
+        return rebalanceMaxMoves;
+    }
+
+    protected void setRebalanceMaxMoves(int rebalanceMaxMoves) {
+        if (rebalanceMaxMoves < 1) {
+            throw new IllegalArgumentException("Invalid " + KEY_REBALANCE_MAX_MOVES + " " + rebalanceMaxMoves);
+        }
+        this.rebalanceMaxMoves = rebalanceMaxMoves;
+    }
+
+    /**
+     * @return Whether the partition replicas are moved off the brokers being removed by a scale down.
+     */
+    public boolean isScaleDownMovePartitions() {
+        return scaleDownMovePartitions;
+    }
+
+    protected void setScaleDownMovePartitions(boolean scaleDownMovePartitions) {
+        this.scaleDownMovePartitions = scaleDownMovePartitions;
+    }
+}
@@ -7,21 +7,28 @@ package io.strimzi.controller.cluster.operator.assembly;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.strimzi.controller.cluster.ControllerMetrics;
 import io.strimzi.controller.cluster.Reconciliation;
+import io.strimzi.controller.cluster.ReconciliationHistory;
 import io.strimzi.controller.cluster.model.AssemblyType;
 import io.strimzi.controller.cluster.model.Labels;
+import io.strimzi.controller.cluster.operator.resource.AbstractResourceOperator;
+import io.strimzi.controller.cluster.operator.resource.ApiRateLimiter;
 import io.strimzi.controller.cluster.operator.resource.ConfigMapOperator;
+import io.strimzi.controller.cluster.operator.resource.ResourceCache;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
-import io.vertx.core.shareddata.Lock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -30,19 +37,26 @@ import java.util.stream.Collectors;
  * <p>An assembly is a collection of Kubernetes resources of various types
  * (e.g. Services, StatefulSets, Deployments etc) which operate together to provide some functionality.</p>
  *
- * <p>This class manages a per-assembly locking strategy so only one operation per assembly
- * can proceed at once.</p>
+ * <p>This class queues the reconciliations of each assembly so only one operation per assembly
+ * can proceed at once, and redundant reconciliations are merged (see {@link ReconciliationQueue}).
+ * Reconciliations of changed assemblies take priority over those of periodic sweeps (see {@link ReconciliationScheduler}).</p>
  */
 public abstract class AbstractAssemblyOperator {
 
     private static final Logger log = LoggerFactory.getLogger(AbstractAssemblyOperator.class.getName());
 
-    protected static final int LOCK_TIMEOUT = 60000;
+    /** How long to wait after a resource drifts before reconciling its assembly, so a burst of changes results in one reconciliation. */
+    static final long DRIFT_DEBOUNCE_MS = 2_000;
 
     protected final Vertx vertx;
     protected final boolean isOpenShift;
     protected final AssemblyType assemblyType;
     protected final ConfigMapOperator configMapOperations;
+    private volatile ReconciliationQueue reconciliations;
+    private final Set<String> pendingDrift = ConcurrentHashMap.newKeySet();
+    private volatile ControllerMetrics.Histogram reconcileDuration;
+    private volatile ControllerMetrics.Histogram phaseDuration;
+    private volatile ReconciliationHistory history;
 
     /**
      * @param vertx The Vertx instance
@@ -54,17 +68,7 @@ public abstract class AbstractAssemblyOperator {
         this.isOpenShift = isOpenShift;
         this.assemblyType = assemblyType;
         this.configMapOperations = configMapOperations;
-    }
-
-    /**
-     * Gets the name of the lock to be used for operating on the given {@code assemblyType}, {@code namespace} and
-     * cluster {@code name}
-     * @param assemblyType The type of cluster
-     * @param namespace The namespace containing the cluster
-     * @param name The name of the cluster
-     */
-    protected final String getLockName(AssemblyType assemblyType, String namespace, String name) {
-        return "lock::" + namespace + "::" + assemblyType + "::" + name;
+        this.reconciliations = new ReconciliationQueue(vertx, this::doReconcileAssembly);
     }
 
     /**
@@ -104,44 +108,183 @@ public abstract class AbstractAssemblyOperator {
      * <li>An assembly will be {@linkplain #createOrUpdate(Reconciliation, ConfigMap, Handler) created or updated} if ConfigMap is without same-named resources</li>
      * <li>An assembly will be {@linkplain #delete(Reconciliation, Handler) deleted} if resources without same-named ConfigMap</li>
      * </ul>
+     * If a reconciliation of the same assembly is already running the given reconciliation waits for it,
+     * and if one is already waiting the given reconciliation is merged into that one.
+     * The {@code handler} is always called, with the result of the reconciliation which was actually performed.
      */
     public final void reconcileAssembly(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
+        reconciliations.submit(reconciliation, handler);
+    }
+
+    /**
+     * Performs the given {@code reconciliation}, which the {@link #reconciliations} queue ensures
+     * is the only one running for its assembly.
+     */
+    private Future<Void> doReconcileAssembly(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
         String assemblyName = reconciliation.assemblyName();
-        final String lockName = getLockName(assemblyType, namespace, assemblyName);
-        vertx.sharedData().getLockWithTimeout(lockName, LOCK_TIMEOUT, res -> {
-            if (res.succeeded()) {
-                log.debug("{}: Lock {} acquired", reconciliation, lockName);
-                Lock lock = res.result();
-
-                try {
-                    // get ConfigMap and related resources for the specific cluster
-                    ConfigMap cm = configMapOperations.get(namespace, assemblyName);
-
-                    if (cm != null) {
-                        log.info("{}: assembly {} should be created or updated", reconciliation, assemblyName);
-                        createOrUpdate(reconciliation, cm, createResult -> {
-                            lock.release();
-                            log.debug("{}: Lock {} released", reconciliation, lockName);
-                            handler.handle(createResult);
-                        });
-                    } else {
-                        log.info("{}: assembly {} should be deleted", reconciliation, assemblyName);
-                        delete(reconciliation, deleteResult -> {
-                            lock.release();
-                            log.debug("{}: Lock {} released", reconciliation, lockName);
-                            handler.handle(deleteResult);
-                        });
-                    }
-                } catch (Throwable ex) {
-                    lock.release();
-                    log.debug("{}: Lock {} released", reconciliation, lockName);
-                    handler.handle(Future.failedFuture(ex));
-                }
+        long start = System.nanoTime();
+        reconciliation.started();
+        ReconciliationHistory history = this.history;
+        if (history != null) {
+            history.started(reconciliation);
+        }
+        // get ConfigMap and related resources for the specific cluster
+        Future<Void> reconciled = timed(reconciliation, "configMap", () -> configMapOperations.getAsync(namespace, assemblyName)).compose(cm -> {
+            Future<Void> result = Future.future();
+            if (cm != null) {
+                log.info("{}: assembly {} should be created or updated", reconciliation, assemblyName);
+                createOrUpdate(reconciliation, cm, result.completer());
             } else {
-                log.warn("{}: Failed to acquire lock {}.", reconciliation, lockName);
+                log.info("{}: assembly {} should be deleted", reconciliation, assemblyName);
+                delete(reconciliation, result.completer());
+            }
+            return result;
+        });
+        Future<Void> completed = Future.future();
+        reconciled.setHandler(ar -> {
+            reconciliation.completed(ar.cause());
+            log.info("{}", reconciliation.summary());
+            if (history != null) {
+                history.completed(reconciliation);
+            }
+            ControllerMetrics.Histogram duration = reconcileDuration;
+            if (duration != null) {
+                duration.labels(assemblyType.name, ar.succeeded() ? "success" : "failure").observeSince(start);
             }
+            completed.completer().handle(ar);
         });
+        return completed;
+    }
+
+    /**
+     * Record the durations of this operator's reconciliations (and their phases), and the state of its
+     * queue of reconciliations, in the given {@code metrics}, and its reconciliations in their
+     * {@linkplain ControllerMetrics#history() history}.
+     * @param metrics The metrics.
+     */
+    public void useMetrics(ControllerMetrics metrics) {
+        this.history = metrics.history();
+        this.reconcileDuration = metrics.histogram("strimzi_reconciliation_duration_seconds",
+                "Duration of assembly reconciliations by assembly type and result", "type", "result");
+        this.phaseDuration = metrics.histogram("strimzi_reconciliation_phase_duration_seconds",
+                "Duration of the phases of assembly reconciliations by assembly type and phase", "type", "phase");
+        ControllerMetrics.Scalar depth = metrics.gauge("strimzi_reconciliation_queue_depth",
+                "Reconciliations running or waiting to run by assembly type", "type");
+        ControllerMetrics.Scalar started = metrics.counter("strimzi_reconciliations_started_total",
+                "Reconciliations started by assembly type", "type");
+        ControllerMetrics.Scalar merged = metrics.counter("strimzi_reconciliations_merged_total",
+                "Reconciliations merged into another waiting reconciliation of the same assembly by assembly type", "type");
+        ControllerMetrics.Scalar waited = metrics.counter("strimzi_reconciliation_wait_seconds_total",
+                "Time reconciliations spent waiting for other reconciliations of the same assembly (or the sweep limit) by assembly type", "type");
+        metrics.addCollector(() -> {
+            ReconciliationQueue queue = reconciliations;
+            depth.labels(assemblyType.name).set(queue.depth());
+            started.labels(assemblyType.name).set(queue.started());
+            merged.labels(assemblyType.name).set(queue.merged());
+            waited.labels(assemblyType.name).set(queue.totalWaitMs() / 1000.0);
+        });
+    }
+
+    /**
+     * Performs the given {@code step} of the given {@code reconciliation},
+     * recording its timing in the reconciliation as the given {@code phase}, and its duration
+     * in the metrics if they're {@linkplain #useMetrics(ControllerMetrics) in use}.
+     * The step is run {@linkplain ApiRateLimiter#urgently(Supplier) urgently} if the reconciliation is of a change
+     * to the assembly.
+     * @param reconciliation The reconciliation.
+     * @param phase The phase, such as {@code kafka.scaleDown}, {@code zookeeper.rollingUpdate} or {@code deployment}.
+     * @param step The step.
+     * @return The result of the step.
+     */
+    protected <T> Future<T> timed(Reconciliation reconciliation, String phase, Supplier<Future<T>> step) {
+        ControllerMetrics.Histogram duration = phaseDuration;
+        long start = System.nanoTime();
+        Reconciliation.Step timing = reconciliation.startStep(phase);
+        Future<T> stepResult;
+        try {
+            // The reads of a change to an assembly go ahead of those of the sweeps in the API rate limiter
+            stepResult = ReconciliationScheduler.Priority.of(reconciliation.trigger()) == ReconciliationScheduler.Priority.HIGH
+                    ? ApiRateLimiter.urgently(step) : step.get();
+        } catch (RuntimeException e) {
+            timing.completed(false);
+            throw e;
+        }
+        Future<T> result = Future.future();
+        stepResult.setHandler(ar -> {
+            timing.completed(ar.succeeded());
+            if (duration != null) {
+                duration.labels(assemblyType.name, phase).observeSince(start);
+            }
+            result.completer().handle(ar);
+        });
+        return result;
+    }
+
+    /**
+     * Reconcile the owning assembly whenever a resource of the given operator's kind
+     * belonging to an assembly of this operator's type
+     * {@linkplain AbstractResourceOperator#addDriftListener(java.util.function.Consumer) drifts}
+     * from the state the controller last left it in.
+     * Subclasses call this for each kind of resource their assemblies own.
+     * @param operations The operator for the owned resources.
+     */
+    protected final void reconcileOnDrift(AbstractResourceOperator<?, ?, ?, ?, ?, ?> operations) {
+        if (operations != null) {
+            operations.addDriftListener(this::drifted);
+        }
+    }
+
+    private void drifted(HasMetadata resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (metadata == null || metadata.getLabels() == null
+                // Assembly CMs (and topic CMs) are not owned resources
+                || Labels.kind(resource) != null) {
+            return;
+        }
+        String assemblyName = Labels.cluster(resource);
+        AssemblyType type;
+        try {
+            type = Labels.type(resource);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (type != assemblyType || assemblyName == null || metadata.getNamespace() == null) {
+            return;
+        }
+        String namespace = metadata.getNamespace();
+        if (pendingDrift.add(namespace + "/" + assemblyName)) {
+            log.info("{} {} in namespace {} was changed outside of the controller, reconciling {} assembly {} in {}ms",
+                    resource.getKind(), metadata.getName(), namespace, assemblyType, assemblyName, DRIFT_DEBOUNCE_MS);
+            vertx.setTimer(DRIFT_DEBOUNCE_MS, timerId -> {
+                pendingDrift.remove(namespace + "/" + assemblyName);
+                Reconciliation reconciliation = new Reconciliation("drift", assemblyType, namespace, assemblyName);
+                reconcileAssembly(reconciliation, ar -> {
+                    if (ar.succeeded()) {
+                        log.info("{}: Assembly reconciled", reconciliation);
+                    } else {
+                        log.error("{}: Failed to reconcile", reconciliation, ar.cause());
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Use the given scheduler, which may be shared with other assembly operators, to decide when
+     * this operator's reconciliations start.
+     * This must be called before any reconciliation is submitted.
+     * @param scheduler The scheduler.
+     */
+    public void useScheduler(ReconciliationScheduler scheduler) {
+        this.reconciliations = new ReconciliationQueue(vertx, scheduler, this::doReconcileAssembly);
+    }
+
+    /**
+     * @return The queue of reconciliations of this operator's assemblies.
+     */
+    public ReconciliationQueue reconciliationQueue() {
+        return reconciliations;
     }
 
     /**
@@ -156,51 +299,81 @@ public abstract class AbstractAssemblyOperator {
      * @param trigger A description of the triggering event (timer or watch), used for logging
      * @param namespace The namespace
      * @param selector The selector
+     * @return A future which completes when all the assemblies have been reconciled.
+     * It fails if the assemblies could not be listed, or if any of them failed to reconcile.
      */
-    public final CountDownLatch reconcileAll(String trigger, String namespace, Labels selector) {
+    public final Future<Void> reconcileAll(String trigger, String namespace, Labels selector) {
         Labels selectorWithCluster = selector.withType(assemblyType);
 
         // get ConfigMaps with kind=cluster&type=kafka (or connect, or connect-s2i) for the corresponding cluster type
-        List<ConfigMap> cms = configMapOperations.list(namespace, selectorWithCluster);
-        Set<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toSet());
-        log.debug("reconcileAll({}, {}): ConfigMaps with labels {}: {}", assemblyType, trigger, selectorWithCluster, cmsNames);
-
+        Future<List<ConfigMap>> cmsFuture = configMapOperations.listAsync(namespace, selectorWithCluster);
         // get resources with kind=cluster&type=kafka (or connect, or connect-s2i)
-        List<? extends HasMetadata> resources = getResources(namespace);
-        // now extract the cluster name from those
-        Set<String> resourceNames = resources.stream()
-                .filter(r -> Labels.kind(r) == null) // exclude Cluster CM, which won't have a cluster label
-                .map(Labels::cluster)
-                .collect(Collectors.toSet());
-        log.debug("reconcileAll({}, {}): Other resources with labels {}: {}", assemblyType, trigger, selectorWithCluster, resourceNames);
-
-        cmsNames.addAll(resourceNames);
-
-        // We use a latch so that callers (specifically, test callers) know when the reconciliation is complete
-        // Using futures would be more complex for no benefit
-        CountDownLatch latch = new CountDownLatch(cmsNames.size());
-
-        for (String name: cmsNames) {
-            Reconciliation reconciliation = new Reconciliation(trigger, assemblyType, namespace, name);
-            reconcileAssembly(reconciliation, result -> {
-                if (result.succeeded()) {
-                    log.info("{}: Assembly reconciled", reconciliation);
-                } else {
-                    log.error("{}: Failed to reconcile", reconciliation);
-                }
-                latch.countDown();
-            });
-        }
+        Future<List<HasMetadata>> resourcesFuture = getResources(namespace);
+
+        return CompositeFuture.all(cmsFuture, resourcesFuture).compose(ignored -> {
+            Set<String> cmsNames = cmsFuture.result().stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toSet());
+            log.debug("reconcileAll({}, {}): ConfigMaps with labels {}: {}", assemblyType, trigger, selectorWithCluster, cmsNames);
 
-        return latch;
+            // now extract the cluster name from those
+            Set<String> resourceNames = resourcesFuture.result().stream()
+                    .filter(r -> Labels.kind(r) == null) // exclude Cluster CM, which won't have a cluster label
+                    .map(Labels::cluster)
+                    .collect(Collectors.toSet());
+            log.debug("reconcileAll({}, {}): Other resources with labels {}: {}", assemblyType, trigger, selectorWithCluster, resourceNames);
+
+            cmsNames.addAll(resourceNames);
+
+            List<Future> reconciled = new ArrayList<>(cmsNames.size());
+            for (String name: cmsNames) {
+                Reconciliation reconciliation = new Reconciliation(trigger, assemblyType, namespace, name);
+                Future<Void> result = Future.future();
+                reconcileAssembly(reconciliation, result.completer());
+                reconciled.add(result.setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        log.info("{}: Assembly reconciled", reconciliation);
+                    } else {
+                        log.error("{}: Failed to reconcile", reconciliation);
+                    }
+                }));
+            }
+            return CompositeFuture.join(reconciled).map((Void) null);
+        });
+    }
+
+    /**
+     * Gets the namespaces which have assembly resources (including assembly ConfigMaps) of this type,
+     * so that the resources left behind by an assembly whose ConfigMap was deleted while the controller
+     * wasn't watching are found by the periodic reconciliation of all namespaces.
+     * @return A future for the namespaces.
+     */
+    public final Future<Set<String>> getResourceNamespaces() {
+        return getResources(ResourceCache.ANY_NAMESPACE).map(resources -> resources.stream()
+                .map(r -> r.getMetadata().getNamespace())
+                .collect(Collectors.toSet()));
     }
 
     /**
      * Gets all the assembly resources (for all assemblies) in the given namespace.
      * Assembly CMs may be included in the result.
-     * @param namespace The namespace
-     * @return The matching resources.
+     * @param namespace The namespace, or {@link ResourceCache#ANY_NAMESPACE} for all namespaces
+     * @return A future for the matching resources.
+     */
+    protected abstract Future<List<HasMetadata>> getResources(String namespace);
+
+    /**
+     * Concatenates the results of the given list futures into a single list.
+     * @param lists Futures for the lists of resources
+     * @return A future for the concatenated resources, which fails if any of the given futures fails.
      */
-    protected abstract List<HasMetadata> getResources(String namespace);
+    @SuppressWarnings("unchecked")
+    protected static Future<List<HasMetadata>> concat(List<Future> lists) {
+        return CompositeFuture.all(lists).map(cf -> {
+            List<HasMetadata> result = new ArrayList<>();
+            for (int i = 0; i < cf.size(); i++) {
+                result.addAll(cf.<List<HasMetadata>>resultAt(i));
+            }
+            return result;
+        });
+    }
 
 }
@@ -79,48 +79,90 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
         this.pvcOperations = pvcOperations;
         this.deploymentOperations = deploymentOperations;
         this.kafkaSetOperations = kafkaSetOperations;
+        reconcileOnDrift(configMapOperations);
+        reconcileOnDrift(serviceOperations);
+        reconcileOnDrift(zkSetOperations);
+        reconcileOnDrift(kafkaSetOperations);
+        reconcileOnDrift(deploymentOperations);
     }
 
+    /**
+     * Creates or updates the assembly, running independent steps concurrently:
+     * <ul>
+     *     <li>The ZooKeeper cluster is reconciled at the same time as the Kafka Services and metrics ConfigMap,
+     *     which don't depend on it.</li>
+     *     <li>The Kafka StatefulSet is scaled down and reconciled once both of those are done,
+     *     because moving partitions off the removed brokers needs ZooKeeper to be ready.</li>
+     *     <li>The topic controller is reconciled as soon as the brokers are up,
+     *     at the same time as we wait for the Kafka endpoints.</li>
+     * </ul>
+     * The assembly ConfigMap is parsed before anything is changed, so an invalid ConfigMap changes nothing.
+     */
     @Override
     public void createOrUpdate(Reconciliation reconciliation, ConfigMap assemblyCm, Handler<AsyncResult<Void>> handler) {
         Future<Void> f = Future.<Void>future().setHandler(handler);
-        createOrUpdateZk(reconciliation, assemblyCm)
-            .compose(i -> createOrUpdateKafka(reconciliation, assemblyCm))
-            .compose(i -> createOrUpdateTopicController(reconciliation, assemblyCm))
+        ZookeeperCluster zk = ZookeeperCluster.fromConfigMap(assemblyCm);
+        KafkaCluster kafka = KafkaCluster.fromConfigMap(assemblyCm);
+        TopicController topicController = TopicController.fromConfigMap(assemblyCm);
+        CompositeFuture.join(createOrUpdateZk(reconciliation, assemblyCm, zk), createOrUpdateKafkaServices(reconciliation, assemblyCm, kafka))
+            .compose(i -> createOrUpdateKafkaBrokers(reconciliation, assemblyCm, kafka))
+            .compose(i -> CompositeFuture.join(
+                    timed(reconciliation, "kafka.readiness", () -> endpointReadiness(assemblyCm, kafka.generateService(), kafka.generateHeadlessService())),
+                    timed(reconciliation, "topicController", () -> createOrUpdateTopicController(reconciliation, assemblyCm, topicController))))
             .compose(ar -> f.complete(), f);
     }
 
-    private final Future<Void> createOrUpdateKafka(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    /**
+     * Returns a future which completes when the endpoints of both the given services are ready.
+     */
+    private final Future<CompositeFuture> endpointReadiness(ConfigMap assemblyCm, Service service, Service headlessService) {
+        String namespace = assemblyCm.getMetadata().getNamespace();
+        return CompositeFuture.join(
+                serviceOperations.endpointReadiness(namespace, service, 1_000, operationTimeoutMs),
+                serviceOperations.endpointReadiness(namespace, headlessService, 1_000, operationTimeoutMs));
+    }
+
+    /**
+     * Reconciles the Kafka resources which don't depend on ZooKeeper: the Services and the metrics ConfigMap.
+     */
+    private final Future<CompositeFuture> createOrUpdateKafkaServices(Reconciliation reconciliation, ConfigMap assemblyCm, KafkaCluster kafka) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.info("{}: create/update kafka {}", reconciliation, name);
-        KafkaCluster kafka = KafkaCluster.fromConfigMap(assemblyCm);
-        Service service = kafka.generateService();
-        Service headlessService = kafka.generateHeadlessService();
-        ConfigMap metricsConfigMap = kafka.generateMetricsConfigMap();
-        StatefulSet statefulSet = kafka.generateStatefulSet(isOpenShift);
+        return timed(reconciliation, "kafka.services", () -> CompositeFuture.join(
+                serviceOperations.reconcile(namespace, kafka.getName(), kafka.generateService()),
+                serviceOperations.reconcile(namespace, kafka.getHeadlessName(), kafka.generateHeadlessService()),
+                configMapOperations.reconcile(namespace, kafka.getMetricsConfigName(), kafka.generateMetricsConfigMap())));
+    }
 
-        Future<Void> chainFuture = Future.future();
-        kafkaSetOperations.scaleDown(namespace, kafka.getName(), kafka.getReplicas())
-                .compose(scale -> serviceOperations.reconcile(namespace, kafka.getName(), service))
-                .compose(i -> serviceOperations.reconcile(namespace, kafka.getHeadlessName(), headlessService))
-                .compose(i -> configMapOperations.reconcile(namespace, kafka.getMetricsConfigName(), metricsConfigMap))
-                .compose(i -> kafkaSetOperations.reconcile(namespace, kafka.getName(), statefulSet))
+    /**
+     * Reconciles the Kafka StatefulSet, scaling it down, rolling and scaling it up as necessary, and rebalancing the partitions
+     * after a scale up if that's enabled.
+     */
+    private final Future<Integer> createOrUpdateKafkaBrokers(Reconciliation reconciliation, ConfigMap assemblyCm, KafkaCluster kafka) {
+        String namespace = assemblyCm.getMetadata().getNamespace();
+        log.debug("{}: create/update kafka brokers {}", reconciliation, kafka.getName());
+        return timed(reconciliation, "kafka.scaleDown", () -> kafkaSetOperations.scaleDown(namespace, kafka.getName(), kafka.getReplicas(),
+                kafka.getReassignmentThrottle(), kafka.isScaleDownMovePartitions()))
+                .compose(scale -> timed(reconciliation, "kafka.statefulSet", () -> kafkaSetOperations.reconcile(namespace, kafka.getName(), kafka.generateStatefulSet(isOpenShift))))
                 .compose(diffs -> {
                     if (diffs instanceof ReconcileResult.Patched
                             && ((ReconcileResult.Patched<Boolean>) diffs).differences()) {
-                        return kafkaSetOperations.rollingUpdate(namespace, kafka.getName());
+                        return timed(reconciliation, "kafka.rollingUpdate", () -> kafkaSetOperations.rollingUpdate(namespace, kafka.getName()));
                     } else {
                         return Future.succeededFuture();
                     }
                 })
-                .compose(i -> kafkaSetOperations.scaleUp(namespace, kafka.getName(), kafka.getReplicas()))
-                .compose(scale -> serviceOperations.endpointReadiness(namespace, service, 1_000, operationTimeoutMs))
-                .compose(i -> serviceOperations.endpointReadiness(namespace, headlessService, 1_000, operationTimeoutMs))
-                .compose(chainFuture::complete, chainFuture);
-
-        return chainFuture;
-    };
+                .compose(i -> timed(reconciliation, "kafka.scaleUp", () -> kafkaSetOperations.scaleUp(namespace, kafka.getName(), kafka.getReplicas())))
+                .compose(scale -> {
+                    if (kafka.isRebalanceOnScaleUp()) {
+                        return timed(reconciliation, "kafka.rebalance", () -> kafkaSetOperations.rebalance(namespace, kafka.getName(),
+                                kafka.getReassignmentThrottle(), kafka.getRebalanceMaxMoves())).map(scale);
+                    } else {
+                        return Future.succeededFuture(scale);
+                    }
+                });
+    }
 
     private final Future<CompositeFuture> deleteKafka(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
@@ -148,32 +190,30 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
         return CompositeFuture.join(result);
     };
 
-    private final Future<Void> createOrUpdateZk(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    private final Future<Void> createOrUpdateZk(Reconciliation reconciliation, ConfigMap assemblyCm, ZookeeperCluster zk) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.info("{}: create/update zookeeper {}", reconciliation, name);
-        ZookeeperCluster zk = ZookeeperCluster.fromConfigMap(assemblyCm);
         Service service = zk.generateService();
         Service headlessService = zk.generateHeadlessService();
         Future<Void> chainFuture = Future.future();
-        zkSetOperations.scaleDown(namespace, zk.getName(), zk.getReplicas())
-                .compose(scale -> serviceOperations.reconcile(namespace, zk.getName(), service))
-                .compose(i -> serviceOperations.reconcile(namespace, zk.getHeadlessName(), headlessService))
-                .compose(i -> configMapOperations.reconcile(namespace, zk.getMetricsConfigName(), zk.generateMetricsConfigMap()))
-                .compose(i -> zkSetOperations.reconcile(namespace, zk.getName(), zk.generateStatefulSet(isOpenShift)))
-                //.compose(i -> zkSetOperations.rollingUpdate(namespace, zk.getName()))
+        timed(reconciliation, "zookeeper.scaleDown", () -> zkSetOperations.scaleDown(namespace, zk.getName(), zk.getReplicas()))
+                .compose(scale -> timed(reconciliation, "zookeeper.services", () -> CompositeFuture.join(
+                        serviceOperations.reconcile(namespace, zk.getName(), service),
+                        serviceOperations.reconcile(namespace, zk.getHeadlessName(), headlessService),
+                        configMapOperations.reconcile(namespace, zk.getMetricsConfigName(), zk.generateMetricsConfigMap()))))
+                .compose(i -> timed(reconciliation, "zookeeper.statefulSet", () -> zkSetOperations.reconcile(namespace, zk.getName(), zk.generateStatefulSet(isOpenShift))))
                 .compose(diffs -> {
                     if (diffs instanceof ReconcileResult.Patched
                             && ((ReconcileResult.Patched<Boolean>) diffs).differences()) {
-                        return zkSetOperations.rollingUpdate(namespace, zk.getName());
+                        return timed(reconciliation, "zookeeper.rollingUpdate", () -> zkSetOperations.rollingUpdate(namespace, zk.getName()));
                     } else {
                         return Future.succeededFuture();
                     }
                 })
-                .compose(i -> zkSetOperations.scaleUp(namespace, zk.getName(), zk.getReplicas()))
-                .compose(scale -> serviceOperations.endpointReadiness(namespace, service, 1_000, operationTimeoutMs))
-                .compose(i -> serviceOperations.endpointReadiness(namespace, headlessService, 1_000, operationTimeoutMs))
-                .compose(chainFuture::complete, chainFuture);
+                .compose(i -> timed(reconciliation, "zookeeper.scaleUp", () -> zkSetOperations.scaleUp(namespace, zk.getName(), zk.getReplicas())))
+                .compose(scale -> timed(reconciliation, "zookeeper.readiness", () -> endpointReadiness(assemblyCm, service, headlessService)))
+                .compose(i -> chainFuture.complete(), chainFuture);
         return chainFuture;
     };
 
@@ -201,11 +241,10 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
         return CompositeFuture.join(result);
     };
 
-    private final Future<ReconcileResult<Void>> createOrUpdateTopicController(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    private final Future<ReconcileResult<Void>> createOrUpdateTopicController(Reconciliation reconciliation, ConfigMap assemblyCm, TopicController topicController) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.info("{}: create/update topic controller {}", reconciliation, name);
-        TopicController topicController = TopicController.fromConfigMap(assemblyCm);
         Deployment deployment = topicController != null ? topicController.generateDeployment() : null;
         return deploymentOperations.reconcile(namespace, topicControllerName(name), deployment);
     };
@@ -220,20 +259,21 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
     @Override
     protected void delete(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
         Future<Void> f = Future.<Void>future().setHandler(handler);
-        deleteTopicController(reconciliation)
-                .compose(i -> deleteKafka(reconciliation))
-                .compose(i -> deleteZk(reconciliation))
+        timed(reconciliation, "topicController.delete", () -> deleteTopicController(reconciliation))
+                .compose(i -> timed(reconciliation, "kafka.delete", () -> deleteKafka(reconciliation)))
+                .compose(i -> timed(reconciliation, "zookeeper.delete", () -> deleteZk(reconciliation)))
                 .compose(ar -> f.complete(), f);
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
-        result.addAll(kafkaSetOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(zkSetOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(deploymentOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(serviceOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(configMapOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        return result;
+    protected Future<List<HasMetadata>> getResources(String namespace) {
+        Labels selector = Labels.forType(AssemblyType.KAFKA);
+        List<Future> result = new ArrayList<>(5);
+        result.add(kafkaSetOperations.listAsync(namespace, selector));
+        result.add(zkSetOperations.listAsync(namespace, selector));
+        result.add(deploymentOperations.listAsync(namespace, selector));
+        result.add(serviceOperations.listAsync(namespace, selector));
+        result.add(configMapOperations.listAsync(namespace, selector));
+        return concat(result);
     }
 }
\ No newline at end of file
@@ -50,6 +50,8 @@ public class KafkaConnectAssemblyOperator extends AbstractAssemblyOperator {
         super(vertx, isOpenShift, AssemblyType.CONNECT, configMapOperations);
         this.serviceOperations = serviceOperations;
         this.deploymentOperations = deploymentOperations;
+        reconcileOnDrift(deploymentOperations);
+        reconcileOnDrift(serviceOperations);
     }
 
     @Override
@@ -60,10 +62,10 @@ public class KafkaConnectAssemblyOperator extends AbstractAssemblyOperator {
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(assemblyCm);
         log.info("{}: Updating Kafka Connect cluster", reconciliation, name, namespace);
         Future<Void> chainFuture = Future.future();
-        deploymentOperations.scaleDown(namespace, connect.getName(), connect.getReplicas())
-                .compose(scale -> serviceOperations.reconcile(namespace, connect.getName(), connect.generateService()))
-                .compose(i -> deploymentOperations.reconcile(namespace, connect.getName(), connect.generateDeployment()))
-                .compose(i -> deploymentOperations.scaleUp(namespace, connect.getName(), connect.getReplicas()).map((Void) null))
+        timed(reconciliation, "scaleDown", () -> deploymentOperations.scaleDown(namespace, connect.getName(), connect.getReplicas()))
+                .compose(scale -> timed(reconciliation, "services", () -> serviceOperations.reconcile(namespace, connect.getName(), connect.generateService())))
+                .compose(i -> timed(reconciliation, "deployment", () -> deploymentOperations.reconcile(namespace, connect.getName(), connect.generateDeployment())))
+                .compose(i -> timed(reconciliation, "scaleUp", () -> deploymentOperations.scaleUp(namespace, connect.getName(), connect.getReplicas())).map((Void) null))
                 .compose(chainFuture::complete, chainFuture);
         chainFuture.setHandler(handler);
     }
@@ -79,10 +81,11 @@ public class KafkaConnectAssemblyOperator extends AbstractAssemblyOperator {
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
-        result.addAll(serviceOperations.list(namespace, Labels.forType(AssemblyType.CONNECT)));
-        result.addAll(deploymentOperations.list(namespace, Labels.forType(AssemblyType.CONNECT)));
-        return result;
+    protected Future<List<HasMetadata>> getResources(String namespace) {
+        Labels selector = Labels.forType(AssemblyType.CONNECT);
+        List<Future> result = new ArrayList<>(2);
+        result.add(serviceOperations.listAsync(namespace, selector));
+        result.add(deploymentOperations.listAsync(namespace, selector));
+        return concat(result);
     }
 }
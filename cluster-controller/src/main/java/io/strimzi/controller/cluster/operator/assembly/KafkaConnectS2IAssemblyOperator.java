@@ -62,6 +62,8 @@ public class KafkaConnectS2IAssemblyOperator extends AbstractAssemblyOperator {
         this.deploymentConfigOperations = deploymentConfigOperations;
         this.imagesStreamOperations = imagesStreamOperations;
         this.buildConfigOperations = buildConfigOperations;
+        reconcileOnDrift(deploymentConfigOperations);
+        reconcileOnDrift(serviceOperations);
     }
 
     @Override
@@ -71,13 +73,14 @@ public class KafkaConnectS2IAssemblyOperator extends AbstractAssemblyOperator {
             KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(assemblyCm);
             Future<Void> chainFuture = Future.future();
 
-            deploymentConfigOperations.scaleDown(namespace, connect.getName(), connect.getReplicas())
-                    .compose(scale -> serviceOperations.reconcile(namespace, connect.getName(), connect.generateService()))
-                    .compose(i -> deploymentConfigOperations.reconcile(namespace, connect.getName(), connect.generateDeploymentConfig()))
-                    .compose(i -> imagesStreamOperations.reconcile(namespace, connect.getSourceImageStreamName(), connect.generateSourceImageStream()))
-                    .compose(i -> imagesStreamOperations.reconcile(namespace, connect.getName(), connect.generateTargetImageStream()))
-                    .compose(i -> buildConfigOperations.reconcile(namespace, connect.getName(), connect.generateBuildConfig()))
-                    .compose(i -> deploymentConfigOperations.scaleUp(namespace, connect.getName(), connect.getReplicas()).map((Void) null))
+            timed(reconciliation, "scaleDown", () -> deploymentConfigOperations.scaleDown(namespace, connect.getName(), connect.getReplicas()))
+                    .compose(scale -> timed(reconciliation, "services", () -> serviceOperations.reconcile(namespace, connect.getName(), connect.generateService())))
+                    .compose(i -> timed(reconciliation, "deployment", () -> deploymentConfigOperations.reconcile(namespace, connect.getName(), connect.generateDeploymentConfig())))
+                    .compose(i -> timed(reconciliation, "imageStreams", () ->
+                            imagesStreamOperations.reconcile(namespace, connect.getSourceImageStreamName(), connect.generateSourceImageStream())
+                                    .compose(j -> imagesStreamOperations.reconcile(namespace, connect.getName(), connect.generateTargetImageStream()))))
+                    .compose(i -> timed(reconciliation, "buildConfig", () -> buildConfigOperations.reconcile(namespace, connect.getName(), connect.generateBuildConfig())))
+                    .compose(i -> timed(reconciliation, "scaleUp", () -> deploymentConfigOperations.scaleUp(namespace, connect.getName(), connect.getReplicas())).map((Void) null))
                     .compose(chainFuture::complete, chainFuture);
             chainFuture.setHandler(handler);
         } else {
@@ -103,13 +106,14 @@ public class KafkaConnectS2IAssemblyOperator extends AbstractAssemblyOperator {
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
-        result.addAll(serviceOperations.list(namespace, Labels.forType(AssemblyType.CONNECT_S2I)));
-        result.addAll(deploymentConfigOperations.list(namespace, Labels.forType(AssemblyType.CONNECT_S2I)));
-        result.addAll(imagesStreamOperations.list(namespace, Labels.forType(AssemblyType.CONNECT_S2I)));
-        result.addAll(buildConfigOperations.list(namespace, Labels.forType(AssemblyType.CONNECT_S2I)));
-        return result;
+    protected Future<List<HasMetadata>> getResources(String namespace) {
+        Labels selector = Labels.forType(AssemblyType.CONNECT_S2I);
+        List<Future> result = new ArrayList<>(4);
+        result.add(serviceOperations.listAsync(namespace, selector));
+        result.add(deploymentConfigOperations.listAsync(namespace, selector));
+        result.add(imagesStreamOperations.listAsync(namespace, selector));
+        result.add(buildConfigOperations.listAsync(namespace, selector));
+        return concat(result);
     }
 
 }
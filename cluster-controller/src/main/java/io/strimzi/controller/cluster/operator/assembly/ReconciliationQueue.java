@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.assembly;
+
+import io.strimzi.controller.cluster.Reconciliation;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>Serializes the reconciliations of each assembly, identified by its (type, namespace, name).</p>
+ *
+ * <p>Per assembly there is at most one running reconciliation and at most one pending one.
+ * A reconciliation submitted while another is running becomes the pending one, or, if there is already
+ * a pending one, is merged into it: since a reconciliation always reads the current state of the
+ * assembly when it starts, running the pending one once satisfies every trigger merged into it.
+ * For the same reason a reconciliation submitted while another is ready to run but hasn't yet been
+ * started by the {@link ReconciliationScheduler} is merged into that one.
+ * The handlers of merged reconciliations are all called with the result of the one they were merged into,
+ * which gets the highest priority of the reconciliations merged into it.</p>
+ */
+public class ReconciliationQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationQueue.class.getName());
+
+    private static class Waiter {
+        private final String trigger;
+        private final long submittedNanos;
+        private final Handler<AsyncResult<Void>> handler;
+
+        Waiter(String trigger, long submittedNanos, Handler<AsyncResult<Void>> handler) {
+            this.trigger = trigger;
+            this.submittedNanos = submittedNanos;
+            this.handler = handler;
+        }
+    }
+
+    private class Entry {
+        private final Reconciliation reconciliation;
+        private final long enqueuedNanos;
+        private final ReconciliationScheduler.Ticket ticket;
+        private final List<Waiter> waiters = new ArrayList<>(1);
+
+        Entry(Reconciliation reconciliation, long enqueuedNanos, Handler<AsyncResult<Void>> handler) {
+            this.reconciliation = reconciliation;
+            this.enqueuedNanos = enqueuedNanos;
+            this.ticket = new ReconciliationScheduler.Ticket(
+                    ReconciliationScheduler.Priority.of(reconciliation.trigger()), () -> start(this));
+            this.waiters.add(new Waiter(reconciliation.trigger(), enqueuedNanos, handler));
+        }
+    }
+
+    private static class Slot {
+        private Entry running;
+        private Entry pending;
+    }
+
+    private final Vertx vertx;
+    private final ReconciliationScheduler scheduler;
+    private final Function<Reconciliation, Future<Void>> work;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private int depth;
+    private long started;
+    private long merged;
+    private long totalWaitNanos;
+
+    /**
+     * A queue with a scheduler of its own.
+     * @param vertx The Vertx instance, on whose event loop reconciliations are started.
+     * @param work The function which performs a reconciliation.
+     */
+    public ReconciliationQueue(Vertx vertx, Function<Reconciliation, Future<Void>> work) {
+        this(vertx, new ReconciliationScheduler(ReconciliationScheduler.DEFAULT_MAX_CONCURRENT_SWEEPS), work);
+    }
+
+    /**
+     * @param vertx The Vertx instance, on whose event loop reconciliations are started.
+     * @param scheduler The scheduler which decides when reconciliations which are ready to run start.
+     * @param work The function which performs a reconciliation.
+     */
+    public ReconciliationQueue(Vertx vertx, ReconciliationScheduler scheduler, Function<Reconciliation, Future<Void>> work) {
+        this.vertx = vertx;
+        this.scheduler = scheduler;
+        this.work = work;
+    }
+
+    private static String key(Reconciliation reconciliation) {
+        return reconciliation.type() + "::" + reconciliation.namespace() + "::" + reconciliation.assemblyName();
+    }
+
+    /**
+     * Submits the given {@code reconciliation}, to be performed once no other reconciliation
+     * of the same assembly is running and the scheduler allows.
+     * @param reconciliation The reconciliation
+     * @param handler Called with the result of the reconciliation which satisfied this one
+     * (which is this reconciliation itself, unless it got merged into another one).
+     */
+    public void submit(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
+        Entry toSchedule = null;
+        Entry mergedInto = null;
+        synchronized (this) {
+            String key = key(reconciliation);
+            Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+            long now = System.nanoTime();
+            if (slot.running == null) {
+                toSchedule = new Entry(reconciliation, now, handler);
+                slot.running = toSchedule;
+                depth++;
+            } else if (!scheduler.started(slot.running.ticket)) {
+                mergedInto = slot.running;
+            } else if (slot.pending == null) {
+                slot.pending = new Entry(reconciliation, now, handler);
+                depth++;
+                log.debug("{}: Queued behind {}", reconciliation, slot.running.reconciliation);
+            } else {
+                mergedInto = slot.pending;
+            }
+            if (mergedInto != null) {
+                mergedInto.waiters.add(new Waiter(reconciliation.trigger(), now, handler));
+                merged++;
+                log.debug("{}: Merged into {}", reconciliation, mergedInto.reconciliation);
+            }
+        }
+        if (toSchedule != null) {
+            scheduler.schedule(toSchedule.ticket);
+        } else if (mergedInto != null
+                && ReconciliationScheduler.Priority.of(reconciliation.trigger()) == ReconciliationScheduler.Priority.HIGH) {
+            scheduler.promote(mergedInto.ticket);
+        }
+    }
+
+    private void start(Entry entry) {
+        long waitNanos = System.nanoTime() - entry.enqueuedNanos;
+        synchronized (this) {
+            started++;
+            totalWaitNanos += waitNanos;
+        }
+        log.debug("{}: Starting after waiting {}ms", entry.reconciliation, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        vertx.runOnContext(ignored -> {
+            Future<Void> result;
+            try {
+                result = work.apply(entry.reconciliation);
+            } catch (Throwable t) {
+                result = Future.failedFuture(t);
+            }
+            result.setHandler(ar -> finished(entry, ar));
+        });
+    }
+
+    private void finished(Entry entry, AsyncResult<Void> result) {
+        scheduler.finished(entry.ticket);
+        Entry next;
+        List<Waiter> waiters;
+        synchronized (this) {
+            String key = key(entry.reconciliation);
+            Slot slot = slots.get(key);
+            depth--;
+            next = slot.pending;
+            slot.pending = null;
+            slot.running = next;
+            if (next == null) {
+                slots.remove(key);
+            }
+            waiters = new ArrayList<>(entry.waiters);
+        }
+        long now = System.nanoTime();
+        for (Waiter waiter : waiters) {
+            scheduler.completed(entry.reconciliation, waiter.trigger, now - waiter.submittedNanos);
+            try {
+                waiter.handler.handle(result);
+            } catch (Throwable t) {
+                log.error("{}: Completion handler threw", entry.reconciliation, t);
+            }
+        }
+        if (next != null) {
+            scheduler.schedule(next.ticket);
+        }
+    }
+
+    /**
+     * @return The scheduler used by this queue.
+     */
+    public ReconciliationScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The number of reconciliations which are running or pending.
+     */
+    public synchronized int depth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of reconciliations which have been started.
+     */
+    public synchronized long started() {
+        return started;
+    }
+
+    /**
+     * @return The number of reconciliations which have been merged into another one.
+     */
+    public synchronized long merged() {
+        return merged;
+    }
+
+    /**
+     * @return The total time, in milliseconds, that started reconciliations spent waiting to start.
+     */
+    public synchronized long totalWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+    }
+}
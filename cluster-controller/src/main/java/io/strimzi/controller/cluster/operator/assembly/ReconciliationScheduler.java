@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.assembly;
+
+import io.strimzi.controller.cluster.ControllerMetrics;
+import io.strimzi.controller.cluster.Reconciliation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Decides when reconciliations which are ready to run (because no other reconciliation of the same
+ * assembly is running, see {@link ReconciliationQueue}) actually start.</p>
+ *
+ * <p>Reconciliations triggered by a change to an assembly (a watch event on its ConfigMap or
+ * drift of one of its resources) have {@link Priority#HIGH high priority} and start straight away.
+ * Reconciliations triggered by a periodic or recovery sweep of all the assemblies have
+ * {@link Priority#LOW low priority}, and at most {@link #maxConcurrentSweeps()} of them run at once,
+ * so that a sweep doesn't delay the changes users make while it's running.</p>
+ *
+ * <p>A single scheduler is shared by the queues of all the assembly types.
+ * It also keeps track of the latency of reconciliations (from their submission to their completion) per trigger.</p>
+ */
+public class ReconciliationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationScheduler.class.getName());
+
+    public static final int DEFAULT_MAX_CONCURRENT_SWEEPS = 4;
+
+    /**
+     * The priority of a reconciliation.
+     */
+    public enum Priority {
+        HIGH,
+        LOW;
+
+        /**
+         * @return The priority of reconciliations with the given trigger:
+         * {@link #HIGH} for {@code watch} and {@code drift}, {@link #LOW} for the sweeps
+         * (such as {@code timer}) which reconcile all the assemblies.
+         */
+        public static Priority of(String trigger) {
+            return "watch".equals(trigger) || "drift".equals(trigger) ? HIGH : LOW;
+        }
+    }
+
+    /**
+     * A reconciliation which is ready to start.
+     */
+    static class Ticket {
+        private final Runnable start;
+        private Priority priority;
+        private boolean started;
+        private boolean permit;
+
+        Ticket(Priority priority, Runnable start) {
+            this.priority = priority;
+            this.start = start;
+        }
+    }
+
+    /**
+     * The latency of the reconciliations with some trigger.
+     */
+    public static class Latency {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Latency() {
+        }
+
+        private Latency(Latency other) {
+            this.count = other.count;
+            this.totalNanos = other.totalNanos;
+            this.maxNanos = other.maxNanos;
+        }
+
+        /**
+         * @return The number of completed reconciliations.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return The total latency, in milliseconds, of the completed reconciliations.
+         */
+        public long totalMs() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        /**
+         * @return The highest latency, in milliseconds, of a completed reconciliation.
+         */
+        public long maxMs() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+    }
+
+    private final int maxConcurrentSweeps;
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+    private final Map<String, Latency> latencies = new TreeMap<>();
+    private int runningSweeps;
+    private volatile ControllerMetrics.Histogram latencyHistogram;
+
+    /**
+     * @param maxConcurrentSweeps The maximum number of low priority reconciliations which may run at once.
+     */
+    public ReconciliationScheduler(int maxConcurrentSweeps) {
+        if (maxConcurrentSweeps < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of concurrent sweep reconciliations: " + maxConcurrentSweeps);
+        }
+        this.maxConcurrentSweeps = maxConcurrentSweeps;
+    }
+
+    /**
+     * Starts the given ticket now, if its priority allows, or later.
+     */
+    void schedule(Ticket ticket) {
+        boolean startNow;
+        synchronized (this) {
+            if (ticket.priority == Priority.HIGH) {
+                startNow = true;
+            } else if (runningSweeps < maxConcurrentSweeps) {
+                runningSweeps++;
+                ticket.permit = true;
+                startNow = true;
+            } else {
+                waiting.add(ticket);
+                startNow = false;
+            }
+            ticket.started = startNow;
+        }
+        if (startNow) {
+            ticket.start.run();
+        }
+    }
+
+    /**
+     * Raises the priority of the given ticket to {@link Priority#HIGH},
+     * starting it straight away if it was waiting.
+     * @return false if the ticket had already started.
+     */
+    boolean promote(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.started) {
+                return false;
+            }
+            ticket.priority = Priority.HIGH;
+            if (!waiting.remove(ticket)) {
+                // Not yet scheduled
+                return true;
+            }
+            ticket.started = true;
+        }
+        ticket.start.run();
+        return true;
+    }
+
+    /**
+     * @return Whether the given ticket has started.
+     */
+    synchronized boolean started(Ticket ticket) {
+        return ticket.started;
+    }
+
+    /**
+     * Releases the concurrency permit of the given ticket (if it had one), starting a waiting ticket.
+     */
+    void finished(Ticket ticket) {
+        Ticket next = null;
+        synchronized (this) {
+            if (ticket.permit) {
+                ticket.permit = false;
+                next = waiting.poll();
+                if (next == null) {
+                    runningSweeps--;
+                } else {
+                    next.permit = true;
+                    next.started = true;
+                }
+            }
+        }
+        if (next != null) {
+            next.start.run();
+        }
+    }
+
+    /**
+     * Records that a reconciliation with the given {@code trigger} completed {@code latencyNanos} after it was submitted.
+     */
+    void completed(Reconciliation reconciliation, String trigger, long latencyNanos) {
+        synchronized (this) {
+            Latency latency = latencies.computeIfAbsent(trigger, t -> new Latency());
+            latency.count++;
+            latency.totalNanos += latencyNanos;
+            latency.maxNanos = Math.max(latency.maxNanos, latencyNanos);
+        }
+        ControllerMetrics.Histogram histogram = latencyHistogram;
+        if (histogram != null) {
+            histogram.labels(trigger).observe(latencyNanos / 1e9);
+        }
+        log.debug("{}: Completed {}ms after being triggered by {}", reconciliation, TimeUnit.NANOSECONDS.toMillis(latencyNanos), trigger);
+    }
+
+    /**
+     * Registers the latency of reconciliations, and the number of sweep reconciliations running and waiting,
+     * in the given {@code metrics}.
+     * @param metrics The metrics.
+     */
+    public void registerMetrics(ControllerMetrics metrics) {
+        this.latencyHistogram = metrics.histogram("strimzi_reconciliation_latency_seconds",
+                "Time from a reconciliation being triggered to its completion by trigger", "trigger");
+        ControllerMetrics.Scalar running = metrics.gauge("strimzi_sweep_reconciliations_running",
+                "Reconciliations of a sweep of all the assemblies which are running");
+        ControllerMetrics.Scalar waitingSweeps = metrics.gauge("strimzi_sweep_reconciliations_waiting",
+                "Reconciliations of a sweep of all the assemblies which are waiting for others to finish");
+        metrics.addCollector(() -> {
+            running.labels().set(runningSweeps());
+            waitingSweeps.labels().set(waitingSweeps());
+        });
+    }
+
+    /**
+     * @return The maximum number of low priority reconciliations which may run at once.
+     */
+    public int maxConcurrentSweeps() {
+        return maxConcurrentSweeps;
+    }
+
+    /**
+     * @return The number of low priority reconciliations which are running.
+     */
+    public synchronized int runningSweeps() {
+        return runningSweeps;
+    }
+
+    /**
+     * @return The number of low priority reconciliations which are ready but waiting for others to finish.
+     */
+    public synchronized int waitingSweeps() {
+        return waiting.size();
+    }
+
+    /**
+     * @return A snapshot of the latency of reconciliations, keyed by trigger.
+     */
+    public synchronized Map<String, Latency> latencies() {
+        Map<String, Latency> result = new TreeMap<>();
+        for (Map.Entry<String, Latency> entry : latencies.entrySet()) {
+            result.put(entry.getKey(), new Latency(entry.getValue()));
+        }
+        return result;
+    }
+}
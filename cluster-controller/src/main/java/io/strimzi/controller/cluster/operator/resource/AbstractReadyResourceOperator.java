@@ -8,6 +8,7 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.internal.readiness.Readiness;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -43,20 +44,26 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
     /**
      * Returns a future that completes when the resource identified by the given {@code namespace} and {@code name}
      * is ready.
+     * If the resources in the namespace are cached the future is completed from the cache's watch events,
+     * otherwise the API server is polled.
      *
      * @param namespace The namespace.
      * @param name The resource name.
-     * @param pollIntervalMs The poll interval in milliseconds.
+     * @param pollIntervalMs The poll interval in milliseconds, used only when the namespace is not cached.
      * @param timeoutMs The timeout, in milliseconds.
      */
     public Future<Void> readiness(String namespace, String name, long pollIntervalMs, long timeoutMs) {
+        ResourceCache<T> cache = cache(namespace);
+        if (cache != null) {
+            return new ReadinessWatch(cache, namespace, name).start(timeoutMs);
+        }
         Future<Void> fut = Future.future();
         log.debug("Waiting for {} resource {} in namespace {} to get ready", resourceKind, name, namespace);
         long deadline = System.currentTimeMillis() + timeoutMs;
         Handler<Long> handler = new Handler<Long>() {
             @Override
             public void handle(Long timerId) {
-                vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+                workerPool(WorkerPools.Purpose.READINESS).executeBlocking(
                     future -> {
                         try {
                             if (isReady(namespace, name))   {
@@ -103,6 +110,10 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
      * @param name The resource name.
      */
     public boolean isReady(String namespace, String name) {
+        ResourceCache<T> cache = cache(namespace);
+        if (cache != null) {
+            return isReady(cache.get(namespace, name));
+        }
         R resourceOp = operation().inNamespace(namespace).withName(name);
         T resource = resourceOp.get();
         if (resource != null)   {
@@ -115,4 +126,63 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
             return false;
         }
     }
+
+    private static boolean isReady(HasMetadata resource) {
+        return resource != null
+                && (!Readiness.isReadinessApplicable(resource) || Readiness.isReady(resource));
+    }
+
+    /**
+     * Waits for a cached resource to become ready by re-checking it each time the cache reports a change to it,
+     * rather than polling.
+     */
+    private class ReadinessWatch implements Runnable {
+        private final ResourceCache<T> cache;
+        private final String namespace;
+        private final String name;
+        private final Context context = vertx.getOrCreateContext();
+        private final Future<Void> fut = Future.future();
+        private long timerId;
+
+        ReadinessWatch(ResourceCache<T> cache, String namespace, String name) {
+            this.cache = cache;
+            this.namespace = namespace;
+            this.name = name;
+        }
+
+        Future<Void> start(long timeoutMs) {
+            log.debug("Waiting for {} resource {} in namespace {} to get ready", resourceKind, name, namespace);
+            timerId = vertx.setTimer(timeoutMs, ignored -> {
+                if (!fut.isComplete()) {
+                    log.error("Exceeded timeoutMs of {} ms while waiting for {} {} in namespace {} to be ready", timeoutMs, resourceKind, name, namespace);
+                    cache.removeListener(namespace, name, this);
+                    fut.fail(new TimeoutException());
+                }
+            });
+            cache.addListener(namespace, name, this);
+            // Check the current state too, in case it was ready before we started listening
+            run();
+            return fut;
+        }
+
+        /** Called by the cache, on the watch thread, when the resource changes. */
+        @Override
+        public void run() {
+            context.runOnContext(ignored -> check());
+        }
+
+        private void check() {
+            if (fut.isComplete() || !cache.isSynced()) {
+                return;
+            }
+            if (isReady(cache.get(namespace, name))) {
+                log.debug("{} {} in namespace {} is ready", resourceKind, name, namespace);
+                cache.removeListener(namespace, name, this);
+                vertx.cancelTimer(timerId);
+                fut.complete();
+            } else {
+                log.trace("{} {} in namespace {} is not ready", resourceKind, name, namespace);
+            }
+        }
+    }
 }
@@ -8,6 +8,7 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.strimzi.controller.cluster.ControllerMetrics;
 import io.strimzi.controller.cluster.model.Labels;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -15,6 +16,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Abstract resource creation, for a generic resource type {@code R}.
@@ -35,6 +40,10 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
     protected final Vertx vertx;
     protected final C client;
     protected final String resourceKind;
+    private volatile Map<String, ResourceCache<T>> caches = new ConcurrentHashMap<>();
+    private volatile WorkerPools workerPools;
+    private volatile List<Consumer<T>> driftListeners = new CopyOnWriteArrayList<>();
+    private volatile ControllerMetrics.Scalar reconcileResults;
 
     /**
      * Constructor.
@@ -46,10 +55,129 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
         this.vertx = vertx;
         this.client = client;
         this.resourceKind = resourceKind;
+        this.workerPools = new WorkerPools(vertx);
     }
 
     protected abstract MixedOperation<T, L, D, R> operation();
 
+    /**
+     * Asynchronously start a cache of the Strimzi-labelled resources of this kind in the given {@code namespace},
+     * returning a future which completes once the cache has synced.
+     * Once synced, {@link #get(String, String)} and {@link #list(String, Labels)} are served from the cache
+     * (unless {@link #cacheServesReads()} is false) and only writes go to the API server.
+     * The cache is also used to detect {@linkplain #addDriftListener(Consumer) drift}.
+     * @param namespace The namespace, or {@link ResourceCache#ANY_NAMESPACE} for a single cache of all namespaces.
+     */
+    public Future<Void> startCache(String namespace) {
+        ResourceCache<T> cache;
+        if (ResourceCache.ANY_NAMESPACE.equals(namespace)) {
+            cache = new ResourceCache<>(vertx, workerPool(WorkerPools.Purpose.READ), resourceKind, namespace,
+                () -> operation().inAnyNamespace().withLabel(Labels.STRIMZI_CLUSTER_LABEL).list(),
+                (resourceVersion, watcher) -> operation().inAnyNamespace().withLabel(Labels.STRIMZI_CLUSTER_LABEL).withResourceVersion(resourceVersion).watch(watcher));
+        } else {
+            cache = new ResourceCache<>(vertx, workerPool(WorkerPools.Purpose.READ), resourceKind, namespace,
+                () -> operation().inNamespace(namespace).withLabel(Labels.STRIMZI_CLUSTER_LABEL).list(),
+                (resourceVersion, watcher) -> operation().inNamespace(namespace).withLabel(Labels.STRIMZI_CLUSTER_LABEL).withResourceVersion(resourceVersion).watch(watcher));
+        }
+        cache.onDrift(this::drifted);
+        ResourceCache<T> old = caches.put(namespace, cache);
+        if (old != null) {
+            old.stop();
+        }
+        return cache.start();
+    }
+
+    /**
+     * Share the caches (and drift listeners) of the given {@code other} operator, which must be for the same
+     * kind of resource, so that a single cache per kind and namespace serves all the operators for that kind.
+     * @param other The operator whose caches should be used.
+     */
+    public void useCachesOf(AbstractResourceOperator<?, T, ?, ?, ?, ?> other) {
+        this.caches = other.caches;
+        other.driftListeners.addAll(this.driftListeners);
+        this.driftListeners = other.driftListeners;
+    }
+
+    /**
+     * Adds a listener to be called when a resource of this kind in a {@linkplain #startCache(String) cached}
+     * namespace is changed or deleted by something other than the controller.
+     * The next {@link #reconcile(String, String, HasMetadata) reconcile} of a drifted resource compares
+     * it with the desired resource, even if it still has the desired {@linkplain ResourceFingerprint fingerprint}.
+     * @param listener The listener, which is called on the watch thread with the changed
+     *                 (or the last seen deleted) resource.
+     */
+    public void addDriftListener(Consumer<T> listener) {
+        driftListeners.add(listener);
+    }
+
+    private void drifted(T resource) {
+        for (Consumer<T> listener : driftListeners) {
+            listener.accept(resource);
+        }
+    }
+
+    /**
+     * Whether a synced cache may serve {@link #get(String, String)} and {@link #list(String, Labels)}.
+     * Kinds whose cache can't hold every resource the controller reads (because it only holds the
+     * Strimzi-labelled resources) override this so their cache is used only to detect drift.
+     */
+    protected boolean cacheServesReads() {
+        return true;
+    }
+
+    /**
+     * Use the given {@code workerPools} for the blocking operations of this operator
+     * (rather than pools of the default sizes).
+     * @param workerPools The worker pools.
+     */
+    public void useWorkerPools(WorkerPools workerPools) {
+        this.workerPools = workerPools;
+    }
+
+    /**
+     * Record the results of this operator's {@linkplain #reconcile(String, String, HasMetadata) reconciliations}
+     * in the given {@code metrics}.
+     * @param metrics The metrics.
+     */
+    public void useMetrics(ControllerMetrics metrics) {
+        this.reconcileResults = metrics.counter("strimzi_resource_reconciliations_total",
+                "Reconciliations of Kubernetes resources by kind and result (noop, created, patched, deleted or failed)",
+                "kind", "result");
+    }
+
+    /**
+     * The worker pool to use for blocking operations on this kind of resource for the given {@code purpose}.
+     */
+    protected WorkerPool workerPool(WorkerPools.Purpose purpose) {
+        return workerPools.pool(resourceKind, purpose);
+    }
+
+    /**
+     * The cache for the given {@code namespace}, or null if there's no cache which has synced.
+     */
+    protected ResourceCache<T> cache(String namespace) {
+        ResourceCache<T> cache = anyCache(namespace);
+        return cache != null && cache.isSynced() && cacheServesReads() ? cache : null;
+    }
+
+    /**
+     * The cache for the given {@code namespace} (or for all namespaces), whether or not it has synced.
+     */
+    private ResourceCache<T> anyCache(String namespace) {
+        ResourceCache<T> cache = caches.get(namespace);
+        return cache != null ? cache : caches.get(ResourceCache.ANY_NAMESPACE);
+    }
+
+    /**
+     * Update the cache for the given {@code namespace} (if any) with the given resource, as returned by a write.
+     */
+    protected void cached(String namespace, T resource) {
+        ResourceCache<T> cache = anyCache(namespace);
+        if (cache != null) {
+            cache.put(resource);
+        }
+    }
+
     /**
      * Asynchronously create or update the given {@code resource} depending on whether it already exists,
      * returning a future for the outcome.
@@ -66,6 +194,11 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
     /**
      * Asynchronously reconciles the resource with the given namespace and name to match the given
      * desired resource, returning a future for the result.
+     * The desired resource is stamped with its {@linkplain ResourceFingerprint fingerprint}, and if the
+     * current resource already has the same fingerprint (and hasn't {@linkplain #addDriftListener(Consumer) drifted}
+     * since it was last reconciled, and {@linkplain #isSettled(String, HasMetadata) is settled}) it is not patched.
+     * The fingerprint is only trusted while there's a {@linkplain #startCache(String) synced cache} to detect drift,
+     * so without one the resource is always patched.
      */
     public Future<ReconcileResult<P>> reconcile(String namespace, String name, T desired) {
         if (desired != null && !namespace.equals(desired.getMetadata().getNamespace())) {
@@ -75,13 +208,21 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
         }
 
         Future<ReconcileResult<P>> fut = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        workerPool(WorkerPools.Purpose.WRITE).<ReconcileResult<P>>executeBlocking(
             future -> {
-                T current = operation().inNamespace(namespace).withName(name).get();
+                T current = get(namespace, name);
+                boolean trusted = isFingerprintTrusted(namespace, name);
                 if (desired != null) {
+                    // Read the current fingerprint first: current and desired might be the same object
+                    String currentFingerprint = ResourceFingerprint.of(current);
+                    String fingerprint = ResourceFingerprint.stamp(desired);
                     if (current == null) {
                         log.debug("{} {}/{} does not exist, creating it", resourceKind, namespace, name);
                         internalCreate(namespace, name, desired).setHandler(future);
+                    } else if (trusted && fingerprint != null && fingerprint.equals(currentFingerprint)
+                            && isSettled(namespace, current)) {
+                        log.debug("{} {}/{} already has the desired state, noop", resourceKind, namespace, name);
+                        future.complete(ReconcileResult.noop());
                     } else {
                         log.debug("{} {}/{} already exists, patching it", resourceKind, namespace, name);
                         internalPatch(namespace, name, current, desired).setHandler(future);
@@ -99,11 +240,36 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
 
             },
             false,
-            fut.completer()
+            ar -> {
+                ControllerMetrics.Scalar results = reconcileResults;
+                if (results != null) {
+                    results.labels(resourceKind, ar.succeeded() ? ar.result().kind() : "failed").inc();
+                }
+                fut.completer().handle(ar);
+            }
         );
         return fut;
     }
 
+    /**
+     * Whether the fingerprint of the resource with the given namespace and name can be trusted, because a synced
+     * cache is watching it and it hasn't drifted since it was last reconciled. Clears its drift.
+     */
+    private boolean isFingerprintTrusted(String namespace, String name) {
+        ResourceCache<T> cache = anyCache(namespace);
+        boolean drifted = cache != null && cache.clearDrift(namespace, name);
+        return cache != null && cache.isSynced() && !drifted;
+    }
+
+    /**
+     * Whether the given current resource, which already has the desired {@linkplain ResourceFingerprint fingerprint},
+     * is also settled in the state it describes, so that reconciling it again would do nothing.
+     * This is the case unless a subclass overrides it.
+     */
+    protected boolean isSettled(String namespace, T current) {
+        return true;
+    }
+
     /**
      * Deletes the resource with the given namespace and name
      * and completes the given future accordingly
@@ -111,6 +277,10 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
     protected Future<ReconcileResult<P>> internalDelete(String namespace, String name) {
         try {
             operation().inNamespace(namespace).withName(name).delete();
+            ResourceCache<T> cache = anyCache(namespace);
+            if (cache != null) {
+                cache.remove(namespace, name);
+            }
             log.debug("{} {} in namespace {} has been deleted", resourceKind, name, namespace);
             return Future.succeededFuture(ReconcileResult.deleted());
         } catch (Exception e) {
@@ -125,7 +295,7 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
      */
     protected Future<ReconcileResult<P>> internalPatch(String namespace, String name, T current, T desired) {
         try {
-            operation().inNamespace(namespace).withName(name).cascading(true).patch(desired);
+            cached(namespace, operation().inNamespace(namespace).withName(name).cascading(true).patch(desired));
             log.debug("{} {} in namespace {} has been patched", resourceKind, name, namespace);
             return Future.succeededFuture(ReconcileResult.patched(null));
         } catch (Exception e) {
@@ -140,7 +310,7 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
      */
     protected Future<ReconcileResult<P>> internalCreate(String namespace, String name, T desired) {
         try {
-            operation().inNamespace(namespace).withName(name).create(desired);
+            cached(namespace, operation().inNamespace(namespace).withName(name).create(desired));
             log.debug("{} {} in namespace {} has been created", resourceKind, name, namespace);
             return Future.succeededFuture(ReconcileResult.created());
         } catch (Exception e) {
@@ -150,23 +320,72 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
     }
 
     /**
-     * Synchronously gets the resource with the given {@code name} in the given {@code namespace}.
+     * Synchronously gets the resource with the given {@code name} in the given {@code namespace},
+     * from the cache if there is one.
      * @param namespace The namespace.
      * @param name The name.
      * @return The resource, or null if it doesn't exist.
      */
     public T get(String namespace, String name) {
+        ResourceCache<T> cache = cache(namespace);
+        if (cache != null) {
+            return cache.get(namespace, name);
+        }
         return operation().inNamespace(namespace).withName(name).get();
     }
 
     /**
-     * Synchronously list the resources in the given {@code namespace} with the given {@code selector}.
-     * @param namespace The namespace.
+     * Synchronously list the resources in the given {@code namespace} with the given {@code selector},
+     * from the cache if there is one and the selector only matches Strimzi resources.
+     * @param namespace The namespace, or {@link ResourceCache#ANY_NAMESPACE} for all namespaces.
      * @param selector The selector.
      * @return A list of matching resources.
      */
     @SuppressWarnings("unchecked")
     public List<T> list(String namespace, Labels selector) {
+        ResourceCache<T> cache = cache(namespace);
+        Map<String, String> selectorMap = selector.toMap();
+        if (cache != null
+                && (selectorMap.containsKey(Labels.STRIMZI_CLUSTER_LABEL) || selectorMap.containsKey(Labels.STRIMZI_TYPE_LABEL))) {
+            return cache.list(namespace, selector);
+        }
+        if (ResourceCache.ANY_NAMESPACE.equals(namespace)) {
+            return operation().inAnyNamespace().withLabels(selector.toMap()).list().getItems();
+        }
         return operation().inNamespace(namespace).withLabels(selector.toMap()).list().getItems();
     }
+
+    /**
+     * Asynchronously gets the resource with the given {@code name} in the given {@code namespace},
+     * using the worker pool so the event loop never blocks on the API server.
+     * @param namespace The namespace.
+     * @param name The name.
+     * @return A future for the resource, which will be null if it doesn't exist.
+     */
+    public Future<T> getAsync(String namespace, String name) {
+        Future<T> fut = Future.future();
+        workerPool(WorkerPools.Purpose.READ).executeBlocking(
+            future -> future.complete(get(namespace, name)),
+            false,
+            fut.completer()
+        );
+        return fut;
+    }
+
+    /**
+     * Asynchronously lists the resources in the given {@code namespace} with the given {@code selector},
+     * using the worker pool so the event loop never blocks on the API server.
+     * @param namespace The namespace.
+     * @param selector The selector.
+     * @return A future for the list of matching resources.
+     */
+    public Future<List<T>> listAsync(String namespace, Labels selector) {
+        Future<List<T>> fut = Future.future();
+        workerPool(WorkerPools.Purpose.READ).executeBlocking(
+            future -> future.complete(list(namespace, selector)),
+            false,
+            fut.completer()
+        );
+        return fut;
+    }
 }
@@ -52,13 +52,13 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
      */
     public Future<Integer> scaleUp(String namespace, String name, int scaleTo) {
         Future<Integer> fut = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        workerPool(WorkerPools.Purpose.WRITE).executeBlocking(
             future -> {
                 try {
                     Integer currentScale = currentScale(namespace, name);
                     if (currentScale != null && currentScale < scaleTo) {
                         log.info("Scaling up to {} replicas", scaleTo);
-                        resource(namespace, name).scale(scaleTo, true);
+                        cached(namespace, resource(namespace, name).scale(scaleTo, true));
                         currentScale = scaleTo;
                     }
                     future.complete(currentScale);
@@ -88,7 +88,7 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
      */
     public Future<Integer> scaleDown(String namespace, String name, int scaleTo) {
         Future<Integer> fut = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        workerPool(WorkerPools.Purpose.WRITE).executeBlocking(
             future -> {
                 try {
                     Integer nextReplicas = currentScale(namespace, name);
@@ -96,7 +96,7 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
                         while (nextReplicas > scaleTo) {
                             nextReplicas--;
                             log.info("Scaling down from {} to {}", nextReplicas + 1, nextReplicas);
-                            resource(namespace, name).scale(nextReplicas, true);
+                            cached(namespace, resource(namespace, name).scale(nextReplicas, true));
                         }
                     }
                     future.complete(nextReplicas);
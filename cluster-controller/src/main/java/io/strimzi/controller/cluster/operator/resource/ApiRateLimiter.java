@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.strimzi.controller.cluster.ControllerMetrics;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>A token bucket which limits the rate of the requests made to the Kubernetes API server, as an
+ * interceptor of the Kubernetes client's HTTP client.</p>
+ *
+ * <p>Tokens are added at a rate of {@code qps} per second, up to {@code burst} tokens, and each request
+ * waits for (and takes) a token. Requests wait in {@linkplain Lane lanes}, and no request takes a token while
+ * one of a higher lane is waiting. The lane of a request made by a {@link WorkerPool} task follows from the
+ * {@link WorkerPools.Purpose} of the pool, except that the reads of a task submitted while running
+ * {@link #urgently(Supplier)} are in lane {@link Lane#WATCH WATCH}, ahead of the reads of the periodic sweeps.
+ * Other requests are lane {@code WRITE} if they modify a resource and {@code READ} otherwise.
+ * Requests in lane {@link Lane#LEASE LEASE} never wait, and watches are not limited at all,
+ * because they're long lived.</p>
+ *
+ * <p>A request which gets a 429 (Too Many Requests) response is retried, after the delay the API server
+ * asks for, a few times before the response is returned.</p>
+ */
+public class ApiRateLimiter implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiRateLimiter.class.getName());
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int MAX_RETRIES = 3;
+    private static final long MAX_RETRY_AFTER_MS = 10_000;
+
+    /**
+     * The lanes in which requests wait for a token, highest priority first.
+     */
+    public enum Lane {
+        /**
+         * Leader election. These requests take a token without waiting for one, so that the leader
+         * can always renew its lease in time.
+         */
+        LEASE("lease"),
+        /** Creates, patches, deletes and scaling. */
+        WRITE("writes"),
+        /** The reads of reconciliations triggered by a change to an assembly (a watch event or drift). */
+        WATCH("watch"),
+        /** Other reads, such as those of the periodic sweeps. */
+        READ("reads"),
+        /** Polling for resources to become ready (or be deleted). */
+        READINESS("readiness");
+
+        private final String key;
+
+        Lane(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return The label of the lane in the metrics.
+         */
+        public String key() {
+            return key;
+        }
+
+        /**
+         * @param purpose The purpose of the worker pool running the task.
+         * @param urgent Whether the task was submitted while running {@link ApiRateLimiter#urgently(Supplier)}.
+         * @return The lane of the requests of the task.
+         */
+        static Lane of(WorkerPools.Purpose purpose, boolean urgent) {
+            switch (purpose) {
+                case WRITE:
+                    return WRITE;
+                case READINESS:
+                    return READINESS;
+                default:
+                    return urgent ? WATCH : READ;
+            }
+        }
+    }
+
+    /** The lane of the requests made on the current thread, if set. */
+    private static final ThreadLocal<Lane> LANE = new ThreadLocal<>();
+
+    /** Whether worker pool tasks submitted on the current thread are urgent. */
+    private static final ThreadLocal<Boolean> URGENT = new ThreadLocal<>();
+
+    private final double qps;
+    private final int burst;
+    private final long nanosPerToken;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private final Map<Lane, Integer> waiting = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicLong> requests = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicLong> waitNanos = new EnumMap<>(Lane.class);
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param qps The sustained number of requests per second.
+     * @param burst The number of requests which may be made at once after a quiet period.
+     */
+    public ApiRateLimiter(double qps, int burst) {
+        if (qps <= 0) {
+            throw new IllegalArgumentException("Invalid rate limit " + qps);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Invalid burst " + burst);
+        }
+        this.qps = qps;
+        this.burst = burst;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / qps);
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        for (Lane lane : Lane.values()) {
+            waiting.put(lane, 0);
+            requests.put(lane, new AtomicLong());
+            waitNanos.put(lane, new AtomicLong());
+        }
+    }
+
+    /**
+     * Runs the given task on the current thread, with its requests in the given lane.
+     */
+    public static void runAs(Lane lane, Runnable task) {
+        Lane previous = LANE.get();
+        LANE.set(lane);
+        try {
+            task.run();
+        } finally {
+            LANE.set(previous);
+        }
+    }
+
+    /**
+     * Runs the given task on the current thread, such that the reads of the worker pool tasks
+     * it submits are in lane {@link Lane#WATCH WATCH}.
+     * @return The result of the task.
+     */
+    public static <T> T urgently(Supplier<T> task) {
+        Boolean previous = URGENT.get();
+        URGENT.set(Boolean.TRUE);
+        try {
+            return task.get();
+        } finally {
+            URGENT.set(previous);
+        }
+    }
+
+    /**
+     * @return Whether the current thread is running {@link #urgently(Supplier)}.
+     */
+    static boolean isUrgent() {
+        return Boolean.TRUE.equals(URGENT.get());
+    }
+
+    /**
+     * @return The lane of the given request, when made on the current thread.
+     */
+    static Lane laneOf(Request request) {
+        Lane lane = LANE.get();
+        if (lane != null) {
+            return lane;
+        }
+        return "GET".equals(request.method()) || "HEAD".equals(request.method())
+                ? Lane.READ : Lane.WRITE;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if ("true".equals(request.url().queryParameter("watch"))) {
+            return chain.proceed(request);
+        }
+        Lane lane = laneOf(request);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                acquire(lane);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the API rate limiter");
+            }
+            Response response = chain.proceed(request);
+            if (response.code() != HTTP_TOO_MANY_REQUESTS || attempt == MAX_RETRIES) {
+                return response;
+            }
+            throttled.incrementAndGet();
+            long retryAfterMs = retryAfterMs(response);
+            if (response.body() != null) {
+                response.body().close();
+            }
+            log.debug("{} {} was throttled by the API server, retrying in {}ms", request.method(), request.url(), retryAfterMs);
+            try {
+                Thread.sleep(retryAfterMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry a throttled request");
+            }
+        }
+    }
+
+    private static long retryAfterMs(Response response) {
+        String retryAfter = response.header("Retry-After");
+        try {
+            return retryAfter != null
+                    ? Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())), MAX_RETRY_AFTER_MS)
+                    : 1_000;
+        } catch (NumberFormatException e) {
+            return 1_000;
+        }
+    }
+
+    /**
+     * Waits for a token in the given lane, and takes it.
+     * @param lane The lane.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    synchronized void acquire(Lane lane) throws InterruptedException {
+        long start = System.nanoTime();
+        if (lane == Lane.LEASE) {
+            // Take the token even if there isn't one, so the other lanes wait for it to be repaid
+            refill();
+            tokens -= 1;
+            requests.get(lane).incrementAndGet();
+            return;
+        }
+        waiting.put(lane, waiting.get(lane) + 1);
+        try {
+            while (true) {
+                refill();
+                boolean next = noHigherLaneWaiting(lane);
+                if (next && tokens >= 1) {
+                    tokens -= 1;
+                    break;
+                }
+                if (next) {
+                    long sleepNanos = (long) ((1 - tokens) * nanosPerToken);
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.max(sleepNanos, 1));
+                } else {
+                    // Woken when a request of a higher lane has taken its token
+                    wait();
+                }
+            }
+        } finally {
+            waiting.put(lane, waiting.get(lane) - 1);
+            notifyAll();
+        }
+        requests.get(lane).incrementAndGet();
+        waitNanos.get(lane).addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * @return Whether no request of a higher lane than the given lane is waiting.
+     */
+    private boolean noHigherLaneWaiting(Lane lane) {
+        for (Lane higher : Lane.values()) {
+            if (higher == lane) {
+                return true;
+            }
+            if (waiting.get(higher) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (double) (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * @return The sustained number of requests per second.
+     */
+    public double qps() {
+        return qps;
+    }
+
+    /**
+     * @return The number of requests which may be made at once after a quiet period.
+     */
+    public int burst() {
+        return burst;
+    }
+
+    /**
+     * @return The total time, in milliseconds, which requests in the given lane have waited for a token.
+     */
+    public long totalWaitMs(Lane lane) {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get(lane).get());
+    }
+
+    /**
+     * Registers the requests and waits of each lane in the given {@code metrics}.
+     * @param metrics The metrics.
+     */
+    public void registerMetrics(ControllerMetrics metrics) {
+        ControllerMetrics.Scalar requestsTotal = metrics.counter("strimzi_api_requests_total",
+                "Requests to the Kubernetes API server (other than watches), by rate limiter lane", "lane");
+        ControllerMetrics.Scalar waitSeconds = metrics.counter("strimzi_api_rate_limiter_wait_seconds_total",
+                "Time requests to the Kubernetes API server spent waiting for the rate limiter, by lane", "lane");
+        ControllerMetrics.Scalar waitingRequests = metrics.gauge("strimzi_api_rate_limiter_waiting_requests",
+                "Requests to the Kubernetes API server waiting for the rate limiter, by lane", "lane");
+        ControllerMetrics.Scalar throttledTotal = metrics.counter("strimzi_api_throttled_requests_total",
+                "Requests to the Kubernetes API server which got a 429 (Too Many Requests) response");
+        metrics.addCollector(() -> {
+            for (Lane lane : Lane.values()) {
+                requestsTotal.labels(lane.key()).set(requests.get(lane).get());
+                waitSeconds.labels(lane.key()).set(waitNanos.get(lane).get() / 1e9);
+                synchronized (this) {
+                    waitingRequests.labels(lane.key()).set(waiting.get(lane));
+                }
+            }
+            throttledTotal.labels().set(throttled.get());
+        });
+    }
+}
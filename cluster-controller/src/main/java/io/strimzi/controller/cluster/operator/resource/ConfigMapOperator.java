@@ -25,6 +25,15 @@ public class ConfigMapOperator extends AbstractResourceOperator<KubernetesClient
         super(vertx, client, "ConfigMap");
     }
 
+    /**
+     * The cache holds only the ConfigMaps labelled with a cluster, not the assembly ConfigMaps themselves,
+     * so it's used only to detect drift.
+     */
+    @Override
+    protected boolean cacheServesReads() {
+        return false;
+    }
+
     @Override
     protected MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> operation() {
         return client.configMaps();
@@ -4,13 +4,47 @@
  */
 package io.strimzi.controller.cluster.operator.resource;
 
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.strimzi.controller.cluster.ControllerMetrics;
+import io.strimzi.controller.cluster.model.AbstractModel;
+import io.strimzi.controller.cluster.model.KafkaCluster;
+import io.strimzi.controller.cluster.model.Labels;
+import io.strimzi.controller.cluster.model.ZookeeperCluster;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntPredicate;
+
 /**
  * Specialization of {@link StatefulSetOperator} for StatefulSets of Kafka brokers
  */
@@ -18,6 +52,28 @@ public class KafkaSetOperator extends StatefulSetOperator<Boolean> {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaSetOperator.class);
 
+    /** How often the progress of partition reassignments is checked. */
+    private static final long REASSIGNMENT_POLL_INTERVAL_MS = 5_000;
+
+    /** The replicas left on each broker being removed, by broker id, for each StatefulSet ("namespace/name") being scaled down. */
+    private final Map<String, Map<Integer, Integer>> drainProgress = new ConcurrentHashMap<>();
+    private volatile ControllerMetrics.Scalar drainRemaining;
+
+    /**
+     * The number of brokers at which each StatefulSet ("namespace/name") was last found to be balanced, so the
+     * cluster is only checked again once its brokers change, or after the cluster controller restarts.
+     */
+    private final Map<String, Integer> balanced = new ConcurrentHashMap<>();
+
+    /** The StatefulSets ("namespace/name") with a rebalance which was started, but hasn't yet completed. */
+    private final Set<String> rebalancing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The throttles set by reassignments which didn't succeed, for each StatefulSet ("namespace/name"),
+     * to be cleared by the next reassignment of its brokers which does.
+     */
+    private final Map<String, PartitionReassigner.Throttled> pendingThrottles = new ConcurrentHashMap<>();
+
     /**
      * Constructor
      *
@@ -25,7 +81,792 @@ public class KafkaSetOperator extends StatefulSetOperator<Boolean> {
      * @param client The Kubernetes client
      */
     public KafkaSetOperator(Vertx vertx, KubernetesClient client) {
-        super(vertx, client);
+        this(vertx, client, 60_000L);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx  The Vertx instance
+     * @param client The Kubernetes client
+     * @param operationTimeoutMs The maximum time to wait for a restarted broker to be ready and back in sync
+     */
+    public KafkaSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs) {
+        super(vertx, client, operationTimeoutMs);
+    }
+
+    /**
+     * Asynchronously perform a rolling update of the brokers in the StatefulSet identified by the given
+     * {@code namespace} and {@code name}, taking the health of the Kafka cluster into account:
+     * <ul>
+     *     <li>Brokers whose pods were already created from the current template are not restarted.</li>
+     *     <li>The active controller is restarted last, so the controller role moves only once.</li>
+     *     <li>After each restart we wait, for at most the operation timeout, until the pod is ready
+     *     <em>and</em> the broker is back in the ISR of all the partitions it replicates,
+     *     before restarting the next broker.</li>
+     * </ul>
+     * If the cluster cannot be reached with an AdminClient (for example because it's entirely down)
+     * this falls back to waiting for pod readiness only.
+     */
+    @Override
+    public Future<Void> rollingUpdate(String namespace, String name) {
+        Future<Void> result = Future.future();
+        workerPool(WorkerPools.Purpose.READ).<RollingPlan>executeBlocking(
+            future -> {
+                try {
+                    future.complete(plan(namespace, name));
+                } catch (Throwable t) {
+                    future.fail(t);
+                }
+            }, true,
+            planResult -> {
+                if (planResult.failed()) {
+                    result.fail(planResult.cause());
+                    return;
+                }
+                RollingPlan plan = planResult.result();
+                Future<Void> f = Future.succeededFuture();
+                for (int broker : plan.brokers) {
+                    f = f.compose(ignored -> describeReplicatedTopics(namespace, name, broker, plan.adminClient))
+                        .compose(topics -> restartPod(namespace, name,
+                            podName -> isRolled(namespace, broker, plan.adminClient, topics, podName),
+                            getPodName(name, broker)));
+                }
+                f.setHandler(rollingResult -> close(plan.adminClient, rollingResult, result));
+            });
+        return result;
+    }
+
+    private void close(AdminClient adminClient, AsyncResult<Void> rollingResult, Future<Void> result) {
+        if (adminClient == null) {
+            result.handle(rollingResult);
+            return;
+        }
+        workerPool(WorkerPools.Purpose.READ).executeBlocking(
+            future -> {
+                adminClient.close(operationTimeoutMs, TimeUnit.MILLISECONDS);
+                future.complete();
+            }, true,
+            closeResult -> result.handle(rollingResult));
+    }
+
+    private static class RollingPlan {
+        private final List<Integer> brokers;
+        private final AdminClient adminClient;
+
+        RollingPlan(List<Integer> brokers, AdminClient adminClient) {
+            this.brokers = brokers;
+            this.adminClient = adminClient;
+        }
+    }
+
+    /**
+     * Work out which brokers need restarting, and in which order. Blocking.
+     */
+    private RollingPlan plan(String namespace, String name) {
+        StatefulSet ss = get(namespace, name);
+        int replicas = ss.getSpec().getReplicas();
+        String updateRevision = updateRevision(ss);
+        AdminClient adminClient = null;
+        Integer controller = null;
+        try {
+            adminClient = adminClient(bootstrap(namespace, name));
+            controller = controller(adminClient);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Roll {}/{}: Unable to connect to the Kafka cluster, rolling without checking partition health", namespace, name, e);
+            if (adminClient != null) {
+                adminClient.close(operationTimeoutMs, TimeUnit.MILLISECONDS);
+                adminClient = null;
+            }
+        }
+        List<Integer> brokers = rollingOrder(replicas, controller, broker -> {
+            if (updateRevision == null) {
+                return false;
+            }
+            Pod pod = podOperations.get(namespace, getPodName(name, broker));
+            boolean upToDate = pod != null && updateRevision.equals(revision(pod));
+            if (upToDate) {
+                log.debug("Roll {}/{}: Pod {} already has revision {}", namespace, name, pod.getMetadata().getName(), updateRevision);
+            }
+            return upToDate;
+        });
+        log.info("Roll {}/{}: Rolling brokers {} (controller is {})", namespace, name, brokers, controller);
+        return new RollingPlan(brokers, adminClient);
+    }
+
+    /**
+     * The id of the controller of the cluster, or null if it has none. Blocking.
+     */
+    private Integer controller(AdminClient adminClient) throws Exception {
+        Node controller = adminClient.describeCluster().controller().get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        return controller != null ? controller.id() : null;
+    }
+
+    /**
+     * The brokers [0..replicas-1] for which {@code upToDate} is false, in order, except that the given
+     * {@code controller} (if any) comes last.
+     */
+    static List<Integer> rollingOrder(int replicas, Integer controller, IntPredicate upToDate) {
+        List<Integer> result = new ArrayList<>(replicas);
+        boolean rollController = false;
+        for (int broker = 0; broker < replicas; broker++) {
+            if (upToDate.test(broker)) {
+                continue;
+            }
+            if (controller != null && controller == broker) {
+                rollController = true;
+            } else {
+                result.add(broker);
+            }
+        }
+        if (rollController) {
+            result.add(controller);
+        }
+        return result;
+    }
+
+    /**
+     * The names of the topics with a partition replicated by the given broker, described once before it is
+     * restarted so that polling it back into sync only describes those. Null if we can't talk to the cluster.
+     */
+    private Future<Set<String>> describeReplicatedTopics(String namespace, String name, int broker, AdminClient adminClient) {
+        if (adminClient == null) {
+            return Future.succeededFuture();
+        }
+        Future<Set<String>> result = Future.future();
+        workerPool(WorkerPools.Purpose.READ).<Set<String>>executeBlocking(
+            future -> {
+                try {
+                    future.complete(replicatedTopics(broker, describeTopics(adminClient)));
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    log.warn("Roll {}/{}: Unable to describe topics, so not waiting for broker {} to be in sync",
+                            namespace, name, broker, e);
+                    future.complete(null);
+                }
+            }, true,
+            result.completer());
+        return result;
+    }
+
+    /**
+     * Whether the restarted pod is ready and, if we can talk to the cluster, the broker is back in sync
+     * in the given topics. Blocking.
+     */
+    private boolean isRolled(String namespace, int broker, AdminClient adminClient, Set<String> topics, String podName) {
+        boolean rolled = podOperations.isReady(namespace, podName);
+        if (rolled && topics != null && !topics.isEmpty()) {
+            try {
+                rolled = isInSync(broker, describeTopics(adminClient, topics));
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.debug("Unable to describe topics while waiting for broker {} to be in sync", broker, e);
+                rolled = false;
+            }
+        }
+        return rolled;
+    }
+
+    /**
+     * Whether the given {@code broker} is in the ISR of every partition, in the given topics, which it replicates.
+     */
+    static boolean isInSync(int broker, Collection<TopicDescription> topics) {
+        for (TopicDescription topic : topics) {
+            for (TopicPartitionInfo partition : topic.partitions()) {
+                if (contains(partition.replicas(), broker) && !contains(partition.isr(), broker)) {
+                    log.trace("Broker {} not yet in ISR of partition {}-{}", broker, topic.name(), partition.partition());
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The names of those of the given topics with a partition which the given {@code broker} replicates.
+     */
+    static Set<String> replicatedTopics(int broker, Collection<TopicDescription> topics) {
+        Set<String> result = new HashSet<>();
+        for (TopicDescription topic : topics) {
+            for (TopicPartitionInfo partition : topic.partitions()) {
+                if (contains(partition.replicas(), broker)) {
+                    result.add(topic.name());
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(List<Node> nodes, int id) {
+        for (Node node : nodes) {
+            if (node.id() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void useMetrics(ControllerMetrics metrics) {
+        super.useMetrics(metrics);
+        this.drainRemaining = metrics.gauge("strimzi_kafka_broker_drain_remaining_replicas",
+                "Partition replicas still to be moved off a Kafka broker before it is removed by a scale down",
+                "namespace", "name", "broker");
+    }
+
+    /**
+     * Like {@link #scaleDown(String, String, int, long)}, throttling the reassignments to
+     * {@link KafkaCluster#DEFAULT_REASSIGNMENT_THROTTLE}.
+     */
+    @Override
+    public Future<Integer> scaleDown(String namespace, String name, int scaleTo) {
+        return scaleDown(namespace, name, scaleTo, KafkaCluster.DEFAULT_REASSIGNMENT_THROTTLE);
+    }
+
+    /**
+     * Asynchronously scale down the brokers in the StatefulSet identified by the given {@code namespace}
+     * and {@code name}, first moving all the partition replicas off the brokers being removed:
+     * <ul>
+     *     <li>Each replica on a removed broker is reassigned to the remaining broker with the fewest replicas
+     *     (see {@link ReassignmentPlanner#drain(Map, Collection, Collection)}), with its replication
+     *     throttled to {@code throttleBytesPerSec} on each broker.</li>
+     *     <li>We wait, for at most the operation timeout, until no removed broker replicates any partition,
+     *     and only then shrink the StatefulSet and remove the throttles.</li>
+     * </ul>
+     * If the wait times out the reassignment carries on, and the next scale down picks up where this one left off.
+     * The replicas left on each broker are available from {@link #drainProgress()}.
+     * If the cluster cannot be reached (for example because it's entirely down) the scale down fails, without
+     * removing any broker, so that the next reconciliation tries again.
+     * @param namespace The namespace of the StatefulSet.
+     * @param name The name of the StatefulSet.
+     * @param scaleTo The desired number of brokers.
+     * @param throttleBytesPerSec The replication throttle, or 0 for none.
+     * @return A future for the number of brokers after the scale down, as for {@link #scaleDown(String, String, int)}.
+     */
+    public Future<Integer> scaleDown(String namespace, String name, int scaleTo, long throttleBytesPerSec) {
+        return scaleDown(namespace, name, scaleTo, throttleBytesPerSec, true);
+    }
+
+    /**
+     * Like {@link #scaleDown(String, String, int, long)}, but if {@code movePartitions} is false the brokers
+     * are removed without first moving their partition replicas (as they are when removing all the brokers).
+     * @param namespace The namespace of the StatefulSet.
+     * @param name The name of the StatefulSet.
+     * @param scaleTo The desired number of brokers.
+     * @param throttleBytesPerSec The replication throttle, or 0 for none.
+     * @param movePartitions Whether to move the partition replicas off the brokers being removed.
+     * @return A future for the number of brokers after the scale down, as for {@link #scaleDown(String, String, int)}.
+     */
+    public Future<Integer> scaleDown(String namespace, String name, int scaleTo, long throttleBytesPerSec, boolean movePartitions) {
+        Future<Reassignment> started = Future.future();
+        workerPool(WorkerPools.Purpose.WRITE).<Reassignment>executeBlocking(
+            future -> {
+                try {
+                    future.complete(startDrain(namespace, name, scaleTo, throttleBytesPerSec, movePartitions));
+                } catch (Throwable t) {
+                    future.fail(t);
+                }
+            }, true,
+            started.completer());
+        return started
+            .compose(drain -> drain == null ? Future.<Void>succeededFuture() : await(drain))
+            .compose(ignored -> super.scaleDown(namespace, name, scaleTo));
+    }
+
+    /**
+     * Asynchronously rebalance the partition replicas of the brokers in the StatefulSet identified by the given
+     * {@code namespace} and {@code name} after they have been {@linkplain #scaleUp(String, String, int) scaled up},
+     * so that the added brokers take their share of the replicas:
+     * <ul>
+     *     <li>Once all the brokers are alive, replicas are moved from the brokers with the most replicas to those
+     *     with the fewest (see {@link ReassignmentPlanner#rebalance(Map, Collection, int)}), at most
+     *     {@code maxMoves} partitions at a time, with their replication throttled to {@code throttleBytesPerSec}
+     *     on each broker.</li>
+     *     <li>We wait, for at most the operation timeout, until the replicas are balanced and every broker is in
+     *     the ISR of all the partitions it replicates, and then remove the throttles.</li>
+     * </ul>
+     * If the wait times out the reassignment carries on, and the next rebalance picks up where this one left off.
+     * Whether a rebalance is needed is determined from the cluster: it is if any broker replicates far fewer
+     * partitions than the others (see {@link ReassignmentPlanner#isUnbalanced(Map, Collection)}). Once the brokers
+     * are found to be balanced this does nothing until their number changes, so a rebalance interrupted by a
+     * restart is resumed if it's still needed. If the cluster cannot be reached the rebalance is left to the next call.
+     * @param namespace The namespace of the StatefulSet.
+     * @param name The name of the StatefulSet.
+     * @param throttleBytesPerSec The replication throttle, or 0 for none.
+     * @param maxMoves The maximum number of partitions to move at a time.
+     * @return A future which completes when the replicas have been rebalanced.
+     */
+    public Future<Void> rebalance(String namespace, String name, long throttleBytesPerSec, int maxMoves) {
+        Future<Reassignment> started = Future.future();
+        workerPool(WorkerPools.Purpose.WRITE).<Reassignment>executeBlocking(
+            future -> {
+                try {
+                    future.complete(startRebalance(namespace, name, throttleBytesPerSec, maxMoves));
+                } catch (Throwable t) {
+                    future.fail(t);
+                }
+            }, true,
+            started.completer());
+        return started.compose(rebalance -> rebalance == null ? Future.<Void>succeededFuture() : await(rebalance));
+    }
+
+    /**
+     * The replicas left on each broker being removed, by broker id, for each StatefulSet
+     * ({@code namespace/name}) being scaled down.
+     */
+    public Map<String, Map<Integer, Integer>> drainProgress() {
+        return Collections.unmodifiableMap(drainProgress);
+    }
+
+    /**
+     * Partition reassignments, made in steps, towards some goal for the brokers of a StatefulSet.
+     */
+    private abstract class Reassignment {
+        protected final String namespace;
+        protected final String name;
+        private final String action;
+        private final long throttleBytesPerSec;
+        private AdminClient adminClient;
+        private PartitionReassigner reassigner;
+
+        Reassignment(String action, String namespace, String name, long throttleBytesPerSec) {
+            this.action = action;
+            this.namespace = namespace;
+            this.name = name;
+            this.throttleBytesPerSec = throttleBytesPerSec;
+        }
+
+        /**
+         * The partitions to move next, given the current assignment and live brokers: empty if there are none,
+         * or null if we need to wait before planning.
+         */
+        abstract Map<TopicPartition, List<Integer>> plan(Map<TopicPartition, List<Integer>> assignment, Set<Integer> live);
+
+        /**
+         * Whether the goal has been reached, once there are no partitions left to move.
+         */
+        abstract boolean isComplete(Collection<TopicDescription> topics);
+
+        /**
+         * Called after the current assignment has been described.
+         */
+        void progress(Map<TopicPartition, List<Integer>> assignment) {
+        }
+
+        /**
+         * Called, blocking, once the reassignment has finished, successfully or not.
+         */
+        void finished(boolean succeeded, Throwable cause) {
+        }
+
+        String key() {
+            return namespace + "/" + name;
+        }
+
+        @Override
+        public String toString() {
+            return action + " " + key();
+        }
+    }
+
+    private static List<Integer> brokers(int from, int to) {
+        List<Integer> brokers = new ArrayList<>(Math.max(to - from, 0));
+        for (int broker = from; broker < to; broker++) {
+            brokers.add(broker);
+        }
+        return brokers;
+    }
+
+    private class Drain extends Reassignment {
+        private final List<Integer> removed;
+        private final List<Integer> remaining;
+
+        Drain(String namespace, String name, int scaleFrom, int scaleTo, long throttleBytesPerSec) {
+            super("Scale down", namespace, name, throttleBytesPerSec);
+            this.removed = brokers(scaleTo, scaleFrom);
+            this.remaining = brokers(0, scaleTo);
+        }
+
+        @Override
+        Map<TopicPartition, List<Integer>> plan(Map<TopicPartition, List<Integer>> assignment, Set<Integer> live) {
+            return ReassignmentPlanner.drain(assignment, removed, remaining);
+        }
+
+        @Override
+        boolean isComplete(Collection<TopicDescription> topics) {
+            return true;
+        }
+
+        @Override
+        void progress(Map<TopicPartition, List<Integer>> assignment) {
+            Map<Integer, Integer> left = ReassignmentPlanner.load(assignment, removed);
+            drainProgress.put(key(), Collections.unmodifiableMap(left));
+            if (drainRemaining != null) {
+                for (Map.Entry<Integer, Integer> broker : left.entrySet()) {
+                    drainRemaining.labels(namespace, name, String.valueOf(broker.getKey())).set(broker.getValue());
+                }
+            }
+            log.debug("{}: Replicas left to move off brokers: {}", this, left);
+        }
+
+        @Override
+        void finished(boolean succeeded, Throwable cause) {
+            // Progress is kept after a timeout, because the reassignment carries on
+            if (!(cause instanceof TimeoutException)) {
+                drainProgress.remove(key());
+                if (drainRemaining != null) {
+                    for (Integer broker : removed) {
+                        drainRemaining.remove(namespace, name, String.valueOf(broker));
+                    }
+                }
+            }
+        }
+    }
+
+    private class Rebalance extends Reassignment {
+        private final List<Integer> brokers;
+        private final int maxMoves;
+
+        Rebalance(String namespace, String name, int replicas, long throttleBytesPerSec, int maxMoves) {
+            super("Rebalance", namespace, name, throttleBytesPerSec);
+            this.brokers = brokers(0, replicas);
+            this.maxMoves = maxMoves;
+        }
+
+        @Override
+        Map<TopicPartition, List<Integer>> plan(Map<TopicPartition, List<Integer>> assignment, Set<Integer> live) {
+            if (!live.containsAll(brokers)) {
+                log.debug("{}: Waiting for brokers {} to be alive (alive are {})", this, brokers, live);
+                return null;
+            }
+            return ReassignmentPlanner.rebalance(assignment, brokers, maxMoves);
+        }
+
+        @Override
+        boolean isComplete(Collection<TopicDescription> topics) {
+            for (Integer broker : brokers) {
+                if (!isInSync(broker, topics)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void finished(boolean succeeded, Throwable cause) {
+            if (succeeded) {
+                rebalancing.remove(key());
+                balanced.put(key(), brokers.size());
+            }
+        }
+    }
+
+    /**
+     * Start draining the brokers being removed, unless there are none or their partitions aren't to be moved. Blocking.
+     * @return The drain, or null if the StatefulSet should be scaled down without one.
+     * @throws IllegalStateException If the cluster can't be reached to move the partitions.
+     */
+    private Reassignment startDrain(String namespace, String name, int scaleTo, long throttleBytesPerSec, boolean movePartitions) {
+        Integer currentScale = currentScale(namespace, name);
+        if (currentScale == null || currentScale <= scaleTo) {
+            return null;
+        }
+        if (scaleTo == 0) {
+            log.info("Scale down {}/{}: Removing all brokers, so not moving partitions", namespace, name);
+            return null;
+        }
+        if (!movePartitions) {
+            log.warn("Scale down {}/{}: Removing brokers {}..{} without moving their partitions, as configured",
+                    namespace, name, scaleTo, currentScale - 1);
+            return null;
+        }
+        Reassignment drain = new Drain(namespace, name, currentScale, scaleTo, throttleBytesPerSec);
+        if (!connect(drain)) {
+            throw new IllegalStateException("Scale down " + namespace + "/" + name
+                    + ": Unable to connect to the Kafka cluster to move partitions off brokers "
+                    + scaleTo + ".." + (currentScale - 1) + ", not removing them");
+        }
+        log.info("Scale down {}/{}: Moving partitions off brokers {}..{}", namespace, name, scaleTo, currentScale - 1);
+        return drain;
+    }
+
+    /**
+     * Start rebalancing, unless the StatefulSet no longer exists, its brokers are balanced,
+     * or the cluster can't be reached. Blocking.
+     * @return The rebalance, or null if there's nothing to do now.
+     */
+    private Reassignment startRebalance(String namespace, String name, long throttleBytesPerSec, int maxMoves) {
+        String key = namespace + "/" + name;
+        Integer replicas = currentScale(namespace, name);
+        if (replicas == null) {
+            balanced.remove(key);
+            rebalancing.remove(key);
+            return null;
+        }
+        if (replicas.equals(balanced.get(key))) {
+            return null;
+        }
+        try {
+            // Once started, a rebalance carries on until the brokers are as balanced as they can be
+            if (!rebalancing.contains(key) && !isUnbalanced(namespace, name, replicas)) {
+                log.debug("Rebalance {}/{}: Brokers 0..{} are balanced", namespace, name, replicas - 1);
+                balanced.put(key, replicas);
+                return null;
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Rebalance {}/{}: Unable to describe the Kafka cluster, leaving the rebalance to the next reconciliation",
+                    namespace, name, e);
+            return null;
+        }
+        Reassignment rebalance = new Rebalance(namespace, name, replicas, throttleBytesPerSec, maxMoves);
+        if (!connect(rebalance)) {
+            log.warn("Rebalance {}/{}: Leaving the rebalance to the next reconciliation", namespace, name);
+            return null;
+        }
+        log.info("Rebalance {}/{}: Rebalancing partitions over brokers 0..{}", namespace, name, replicas - 1);
+        rebalancing.add(key);
+        return rebalance;
+    }
+
+    /**
+     * Whether the partition replicas of brokers 0..{@code replicas}-1 of the given StatefulSet need rebalancing. Blocking.
+     */
+    private boolean isUnbalanced(String namespace, String name, int replicas) throws Exception {
+        AdminClient adminClient = adminClient(bootstrap(namespace, name));
+        try {
+            return ReassignmentPlanner.isUnbalanced(assignment(describeTopics(adminClient)), brokers(0, replicas));
+        } finally {
+            adminClient.close(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The bootstrap address of the brokers of the given StatefulSet.
+     */
+    private static String bootstrap(String namespace, String name) {
+        return name + "." + namespace + ".svc:" + KafkaCluster.CLIENT_PORT;
+    }
+
+    /**
+     * Connect the given reassignment to the Kafka cluster and its ZooKeeper. Blocking.
+     * @return Whether the cluster could be reached.
+     */
+    private boolean connect(Reassignment reassignment) {
+        String namespace = reassignment.namespace;
+        String name = reassignment.name;
+        try {
+            reassignment.adminClient = adminClient(name + "." + namespace + ".svc:" + KafkaCluster.CLIENT_PORT);
+            reassignment.reassigner = reassigner(zookeeperConnect(get(namespace, name)));
+            PartitionReassigner.Throttled pending = pendingThrottles.remove(reassignment.key());
+            if (pending != null) {
+                // Set by an earlier attempt, whose reassignment may still be in progress
+                reassignment.reassigner.throttled().addAll(pending);
+            }
+            return true;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("{}: Unable to connect to the Kafka cluster", reassignment, e);
+            if (reassignment.adminClient != null) {
+                reassignment.adminClient.close(operationTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The ZooKeeper connection string of the brokers of the given StatefulSet.
+     */
+    private static String zookeeperConnect(StatefulSet ss) {
+        Container container = ss.getSpec().getTemplate().getSpec().getContainers().get(0);
+        return AbstractModel.containerEnvVars(container).getOrDefault(KafkaCluster.KEY_KAFKA_ZOOKEEPER_CONNECT,
+                ZookeeperCluster.zookeeperClusterName(Labels.cluster(ss)) + ":2181");
+    }
+
+    /**
+     * Create a PartitionReassigner for the given ZooKeeper connection string.
+     */
+    protected PartitionReassigner reassigner(String zookeeperConnect) throws IOException {
+        return new PartitionReassigner(zookeeperConnect, operationTimeoutMs);
+    }
+
+    /**
+     * Poll the given reassignment until it's complete, or until the operation timeout.
+     */
+    private Future<Void> await(Reassignment reassignment) {
+        Future<Void> result = Future.future();
+        long deadline = System.currentTimeMillis() + operationTimeoutMs;
+        Handler<Long> poll = new Handler<Long>() {
+            @Override
+            public void handle(Long timerId) {
+                workerPool(WorkerPools.Purpose.READINESS).<Boolean>executeBlocking(
+                    future -> {
+                        try {
+                            future.complete(step(reassignment));
+                        } catch (Throwable t) {
+                            future.fail(t);
+                        }
+                    }, true,
+                    res -> {
+                        if (res.failed()) {
+                            finish(reassignment, res.cause(), result);
+                        } else if (res.result()) {
+                            finish(reassignment, null, result);
+                        } else if (System.currentTimeMillis() >= deadline) {
+                            finish(reassignment, new TimeoutException(reassignment + " not complete after "
+                                    + operationTimeoutMs + "ms"), result);
+                        } else {
+                            vertx.setTimer(REASSIGNMENT_POLL_INTERVAL_MS, this);
+                        }
+                    });
+            }
+        };
+        poll.handle(null);
+        return result;
+    }
+
+    /**
+     * Whether the given reassignment is complete. If not, and no reassignment is in progress,
+     * start reassigning the next partitions. Blocking.
+     * @throws IllegalStateException If the partitions can't be reassigned as planned.
+     */
+    private boolean step(Reassignment reassignment) throws Exception {
+        Collection<TopicDescription> topics;
+        Set<Integer> live;
+        try {
+            topics = describeTopics(reassignment.adminClient);
+            live = new HashSet<>();
+            for (Node node : reassignment.adminClient.describeCluster().nodes().get(operationTimeoutMs, TimeUnit.MILLISECONDS)) {
+                live.add(node.id());
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                throw e;
+            }
+            log.debug("{}: Unable to describe the cluster", reassignment, e);
+            return false;
+        }
+        Map<TopicPartition, List<Integer>> assignment = assignment(topics);
+        reassignment.progress(assignment);
+        Map<TopicPartition, List<Integer>> moves = reassignment.plan(assignment, live);
+        if (moves == null) {
+            return false;
+        }
+        if (reassignment.reassigner.isReassigning()) {
+            return false;
+        }
+        if (moves.isEmpty()) {
+            return reassignment.isComplete(topics);
+        }
+        if (reassignment.reassigner.reassign(assignment, moves, reassignment.throttleBytesPerSec)) {
+            log.info("{}: Moving partitions {}", reassignment, moves);
+        }
+        return false;
+    }
+
+    /**
+     * The descriptions of all the topics of the cluster. Blocking.
+     */
+    private Collection<TopicDescription> describeTopics(AdminClient adminClient) throws Exception {
+        Set<String> topics = adminClient.listTopics(new ListTopicsOptions().listInternal(true)).names()
+                .get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        return adminClient.describeTopics(topics).all()
+                .get(operationTimeoutMs, TimeUnit.MILLISECONDS).values();
+    }
+
+    /**
+     * The descriptions of those of the given topics which still exist. Blocking.
+     */
+    private Collection<TopicDescription> describeTopics(AdminClient adminClient, Set<String> topics) throws Exception {
+        List<TopicDescription> result = new ArrayList<>(topics.size());
+        for (KafkaFuture<TopicDescription> topic : adminClient.describeTopics(topics).values().values()) {
+            try {
+                result.add(topic.get(operationTimeoutMs, TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The replicas of every partition of the given topics.
+     */
+    static Map<TopicPartition, List<Integer>> assignment(Collection<TopicDescription> topics) {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        for (TopicDescription topic : topics) {
+            for (TopicPartitionInfo partition : topic.partitions()) {
+                List<Integer> replicas = new ArrayList<>(partition.replicas().size());
+                for (Node node : partition.replicas()) {
+                    replicas.add(node.id());
+                }
+                assignment.put(new TopicPartition(topic.name(), partition.partition()), replicas);
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Remove the throttles if the reassignment succeeded, otherwise keep them for the next attempt, and close the clients.
+     */
+    private void finish(Reassignment reassignment, Throwable cause, Future<Void> result) {
+        workerPool(WorkerPools.Purpose.WRITE).executeBlocking(
+            future -> {
+                try {
+                    if (cause == null) {
+                        reassignment.reassigner.clearThrottles();
+                        log.info("{}: Complete", reassignment);
+                    }
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    log.warn("{}: Unable to remove replication throttles", reassignment, e);
+                } finally {
+                    PartitionReassigner.Throttled throttled = reassignment.reassigner.throttled();
+                    if (!throttled.isEmpty()) {
+                        pendingThrottles.merge(reassignment.key(), throttled, (pending, more) -> {
+                            pending.addAll(more);
+                            return pending;
+                        });
+                    }
+                    reassignment.reassigner.close();
+                    reassignment.adminClient.close(operationTimeoutMs, TimeUnit.MILLISECONDS);
+                }
+                reassignment.finished(cause == null, cause);
+                future.complete();
+            }, true,
+            closeResult -> {
+                if (cause != null) {
+                    result.fail(cause);
+                } else {
+                    result.complete();
+                }
+            });
+    }
+
+    /**
+     * Create an AdminClient for the given bootstrap address.
+     */
+    protected AdminClient adminClient(String bootstrap) {
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.setProperty(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, Long.toString(operationTimeoutMs));
+        return AdminClient.create(props);
     }
 
     @Override
@@ -34,12 +875,14 @@ public class KafkaSetOperator extends StatefulSetOperator<Boolean> {
         if (diff.changesVolumeClaimTemplates()) {
             log.warn("Ignoring change to volumeClaim");
             desired.getSpec().setVolumeClaimTemplates(current.getSpec().getVolumeClaimTemplates());
-            diff = new StatefulSetDiff(current, desired);
+            diff = diff.withoutVolumeClaimTemplates();
         }
+        boolean rolledOut = isSettled(namespace, current);
         if (diff.isEmpty()) {
-            return Future.succeededFuture(ReconcileResult.noop());
+            // An earlier rolling update may have failed
+            return Future.succeededFuture(rolledOut ? ReconcileResult.noop() : ReconcileResult.patched(true));
         } else {
-            boolean different = needsRollingUpdate(diff);
+            boolean different = needsRollingUpdate(diff) || !rolledOut;
             return super.internalPatch(namespace, name, current, desired).map(r -> {
                 if (r instanceof ReconcileResult.Patched) {
                     return ReconcileResult.patched(different);
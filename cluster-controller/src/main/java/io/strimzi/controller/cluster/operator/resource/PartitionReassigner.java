@@ -0,0 +1,288 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>Reassigns partitions of a Kafka cluster through its ZooKeeper, as {@code kafka-reassign-partitions.sh} does:
+ * the Kafka controller carries out the reassignment written to {@value #REASSIGN_PARTITIONS_PATH},
+ * and deletes it once all the partitions have been reassigned.</p>
+ *
+ * <p>The replication traffic of a reassignment can be throttled: the existing replicas of the moving partitions
+ * are throttled as leaders and the new ones as followers, to the given rate on each broker. Only the throttles
+ * {@linkplain #throttled() recorded} as set by the reassigner are cleared, leaving those set by anyone else.</p>
+ *
+ * <p>All the methods block.</p>
+ */
+public class PartitionReassigner implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionReassigner.class.getName());
+
+    static final String REASSIGN_PARTITIONS_PATH = "/admin/reassign_partitions";
+    private static final String TOPIC_CONFIG_PATH = "/config/topics";
+    private static final String BROKER_CONFIG_PATH = "/config/brokers";
+    private static final String CONFIG_CHANGE_PATH = "/config/changes/config_change_";
+
+    static final String LEADER_THROTTLED_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_THROTTLED_RATE = "follower.replication.throttled.rate";
+    static final String LEADER_THROTTLED_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_THROTTLED_REPLICAS = "follower.replication.throttled.replicas";
+
+    private final ZooKeeper zk;
+    private final Throttled throttled = new Throttled();
+
+    /**
+     * Connects to the given ZooKeeper.
+     * @param zookeeperConnect The ZooKeeper connection string of the Kafka cluster.
+     * @param timeoutMs The session timeout, and how long to wait for the connection.
+     * @throws IOException If the connection could not be established in time.
+     */
+    public PartitionReassigner(String zookeeperConnect, long timeoutMs) throws IOException {
+        CountDownLatch connected = new CountDownLatch(1);
+        this.zk = new ZooKeeper(zookeeperConnect, (int) timeoutMs, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        try {
+            if (!connected.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                close();
+                throw new IOException("Timed out connecting to ZooKeeper at " + zookeeperConnect);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("Interrupted while connecting to ZooKeeper at " + zookeeperConnect, e);
+        }
+    }
+
+    /**
+     * @return Whether a reassignment (not necessarily one started by this class) is in progress.
+     */
+    public boolean isReassigning() throws KeeperException, InterruptedException {
+        return zk.exists(REASSIGN_PARTITIONS_PATH, false) != null;
+    }
+
+    /**
+     * Starts reassigning the given partitions, throttling their replication to {@code throttleBytesPerSec}
+     * on each broker unless it is 0.
+     * @param current The current replicas of the partitions being reassigned (at least).
+     * @param target The new replicas of the partitions being reassigned.
+     * @param throttleBytesPerSec The replication throttle, or 0 for none.
+     * @return Whether the reassignment was started. It is not if another is already in progress.
+     */
+    public boolean reassign(Map<TopicPartition, List<Integer>> current, Map<TopicPartition, List<Integer>> target,
+                            long throttleBytesPerSec) throws KeeperException, InterruptedException {
+        if (isReassigning()) {
+            return false;
+        }
+        if (throttleBytesPerSec > 0) {
+            throttle(current, target, throttleBytesPerSec);
+        }
+        try {
+            zk.create(REASSIGN_PARTITIONS_PATH, reassignmentJson(target).getBytes(StandardCharsets.UTF_8),
+                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+        } catch (KeeperException.NodeExistsException e) {
+            return false;
+        }
+        log.info("Started reassigning {} partitions", target.size());
+        return true;
+    }
+
+    private void throttle(Map<TopicPartition, List<Integer>> current, Map<TopicPartition, List<Integer>> target,
+                          long throttleBytesPerSec) throws KeeperException, InterruptedException {
+        Map<String, String[]> throttledReplicas = throttledReplicas(current, target);
+        for (Map.Entry<String, String[]> topic : throttledReplicas.entrySet()) {
+            throttled.topics.add(topic.getKey());
+            updateConfig(TOPIC_CONFIG_PATH, "topics", topic.getKey(), config -> {
+                config.put(LEADER_THROTTLED_REPLICAS, topic.getValue()[0]);
+                config.put(FOLLOWER_THROTTLED_REPLICAS, topic.getValue()[1]);
+            });
+        }
+        Set<Integer> brokers = new TreeSet<>();
+        for (Map.Entry<TopicPartition, List<Integer>> partition : target.entrySet()) {
+            brokers.addAll(current.get(partition.getKey()));
+            brokers.addAll(partition.getValue());
+        }
+        for (Integer broker : brokers) {
+            throttled.brokers.add(broker);
+            updateConfig(BROKER_CONFIG_PATH, "brokers", String.valueOf(broker), config -> {
+                config.put(LEADER_THROTTLED_RATE, String.valueOf(throttleBytesPerSec));
+                config.put(FOLLOWER_THROTTLED_RATE, String.valueOf(throttleBytesPerSec));
+            });
+        }
+    }
+
+    /**
+     * @return The topics and brokers throttled by this reassigner, and not yet cleared. A reassigner which
+     * carries on from another can {@linkplain Throttled#addAll(Throttled) add} the other's to them.
+     */
+    Throttled throttled() {
+        return throttled;
+    }
+
+    /**
+     * Removes the replication throttles from the topics and brokers which were {@linkplain #throttled() throttled}.
+     */
+    public void clearThrottles() throws KeeperException, InterruptedException {
+        for (Iterator<String> topics = throttled.topics.iterator(); topics.hasNext();) {
+            updateConfig(TOPIC_CONFIG_PATH, "topics", topics.next(), config -> {
+                config.remove(LEADER_THROTTLED_REPLICAS);
+                config.remove(FOLLOWER_THROTTLED_REPLICAS);
+            });
+            topics.remove();
+        }
+        for (Iterator<Integer> brokers = throttled.brokers.iterator(); brokers.hasNext();) {
+            updateConfig(BROKER_CONFIG_PATH, "brokers", String.valueOf(brokers.next()), config -> {
+                config.remove(LEADER_THROTTLED_RATE);
+                config.remove(FOLLOWER_THROTTLED_RATE);
+            });
+            brokers.remove();
+        }
+    }
+
+    /**
+     * The topics and brokers whose replication throttles were set by a reassigner.
+     */
+    static class Throttled {
+        final Set<String> topics = new TreeSet<>();
+        final Set<Integer> brokers = new TreeSet<>();
+
+        void addAll(Throttled other) {
+            topics.addAll(other.topics);
+            brokers.addAll(other.brokers);
+        }
+
+        boolean isEmpty() {
+            return topics.isEmpty() && brokers.isEmpty();
+        }
+    }
+
+    /**
+     * Updates the dynamic config of the given entity with the given {@code update} and, if it changed,
+     * notifies the brokers of the change.
+     */
+    private void updateConfig(String parent, String entityType, String entity, Consumer<JsonObject> update)
+            throws KeeperException, InterruptedException {
+        String path = parent + "/" + entity;
+        while (true) {
+            Stat stat = new Stat();
+            JsonObject data;
+            try {
+                data = new JsonObject(new String(zk.getData(path, false, stat), StandardCharsets.UTF_8));
+            } catch (KeeperException.NoNodeException e) {
+                stat = null;
+                data = new JsonObject().put("version", 1).put("config", new JsonObject());
+            }
+            JsonObject config = data.getJsonObject("config");
+            JsonObject updated = config.copy();
+            update.accept(updated);
+            if (updated.equals(config)) {
+                return;
+            }
+            data.put("config", updated);
+            byte[] bytes = data.encode().getBytes(StandardCharsets.UTF_8);
+            try {
+                if (stat == null) {
+                    zk.create(path, bytes, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                } else {
+                    zk.setData(path, bytes, stat.getVersion());
+                }
+            } catch (KeeperException.NodeExistsException | KeeperException.BadVersionException e) {
+                // Changed concurrently, so try again
+                continue;
+            }
+            zk.create(CONFIG_CHANGE_PATH,
+                    new JsonObject().put("version", 2).put("entity_path", entityType + "/" + entity).encode()
+                            .getBytes(StandardCharsets.UTF_8),
+                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
+            return;
+        }
+    }
+
+    /**
+     * @return The reassignment of the given partitions in the format of {@value #REASSIGN_PARTITIONS_PATH}.
+     */
+    static String reassignmentJson(Map<TopicPartition, List<Integer>> target) {
+        JsonArray partitions = new JsonArray();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : ReassignmentPlanner.sorted(target).entrySet()) {
+            partitions.add(new JsonObject()
+                    .put("topic", entry.getKey().topic())
+                    .put("partition", entry.getKey().partition())
+                    .put("replicas", new JsonArray(entry.getValue())));
+        }
+        return new JsonObject().put("version", 1).put("partitions", partitions).encode();
+    }
+
+    /**
+     * @return The values of {@value #LEADER_THROTTLED_REPLICAS} and {@value #FOLLOWER_THROTTLED_REPLICAS}
+     * (in that order) for each topic with partitions being reassigned: the existing replicas lead, and the new
+     * replicas follow.
+     */
+    static Map<String, String[]> throttledReplicas(Map<TopicPartition, List<Integer>> current,
+                                                   Map<TopicPartition, List<Integer>> target) {
+        Map<String, StringBuilder[]> builders = new TreeMap<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : ReassignmentPlanner.sorted(target).entrySet()) {
+            TopicPartition partition = entry.getKey();
+            StringBuilder[] sbs = builders.computeIfAbsent(partition.topic(),
+                k -> new StringBuilder[] {new StringBuilder(), new StringBuilder()});
+            Collection<Integer> existing = current.get(partition);
+            Set<Integer> added = new HashSet<>(entry.getValue());
+            added.removeAll(existing);
+            for (Integer broker : existing) {
+                append(sbs[0], partition.partition(), broker);
+            }
+            for (Integer broker : new TreeSet<>(added)) {
+                append(sbs[1], partition.partition(), broker);
+            }
+        }
+        Map<String, String[]> result = new TreeMap<>();
+        for (Map.Entry<String, StringBuilder[]> entry : builders.entrySet()) {
+            result.put(entry.getKey(), new String[] {entry.getValue()[0].toString(), entry.getValue()[1].toString()});
+        }
+        return result;
+    }
+
+    private static void append(StringBuilder sb, int partition, int broker) {
+        if (sb.length() > 0) {
+            sb.append(',');
+        }
+        sb.append(partition).append(':').append(broker);
+    }
+
+    @Override
+    public void close() {
+        try {
+            zk.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plans the reassignments of partition replicas between Kafka brokers.
+ */
+public class ReassignmentPlanner {
+
+    private ReassignmentPlanner() {
+    }
+
+    /**
+     * Plans moving all the replicas off the given {@code removed} brokers and onto the given {@code remaining} ones.
+     * Each replica on a removed broker is replaced, in the same position of the partition's replicas (so
+     * preferred leadership moves with it), by the remaining broker with the fewest replicas which doesn't already
+     * replicate the partition. The order of the partitions, and the broker ids, break ties, so the plan is stable.
+     *
+     * @param assignment The current replicas of each partition.
+     * @param removed The brokers to move all replicas off.
+     * @param remaining The brokers to move the replicas on to.
+     * @return The new replicas of the partitions which need to move, which is empty if none do.
+     * @throws IllegalStateException If a partition has more replicas than there are remaining brokers.
+     */
+    public static Map<TopicPartition, List<Integer>> drain(Map<TopicPartition, List<Integer>> assignment,
+                                                           Collection<Integer> removed, Collection<Integer> remaining) {
+        Map<Integer, Integer> load = load(assignment, remaining);
+        Map<TopicPartition, List<Integer>> moves = new LinkedHashMap<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : sorted(assignment).entrySet()) {
+            List<Integer> replicas = entry.getValue();
+            if (!containsAny(replicas, removed)) {
+                continue;
+            }
+            if (replicas.size() > remaining.size()) {
+                throw new IllegalStateException("Partition " + entry.getKey() + " has " + replicas.size()
+                        + " replicas, which can't all be moved on to the " + remaining.size() + " remaining brokers");
+            }
+            List<Integer> target = new ArrayList<>(replicas);
+            for (int i = 0; i < target.size(); i++) {
+                if (removed.contains(target.get(i))) {
+                    Integer broker = leastLoaded(load, target);
+                    target.set(i, broker);
+                    load.merge(broker, 1, Integer::sum);
+                }
+            }
+            moves.put(entry.getKey(), target);
+        }
+        return moves;
+    }
+
+    /**
+     * Plans moving replicas from the given {@code brokers} with the most replicas to those with the fewest, until
+     * no broker has more than one replica more than any other, no replica of the most loaded broker can be moved,
+     * or {@code maxMoves} partitions would move.
+     * Each move replaces a replica of the most loaded broker, in the same position of the partition's replicas
+     * (so preferred leadership moves with it), by the least loaded broker which doesn't already replicate the
+     * partition. The order of the partitions, and the broker ids, break ties, so the plan is stable.
+     * Replicas on brokers other than the given ones aren't moved.
+     *
+     * @param assignment The current replicas of each partition.
+     * @param brokers The brokers to balance the replicas over.
+     * @param maxMoves The maximum number of partitions to move.
+     * @return The new replicas of the partitions which need to move, which is empty if the replicas are balanced.
+     */
+    public static Map<TopicPartition, List<Integer>> rebalance(Map<TopicPartition, List<Integer>> assignment,
+                                                               Collection<Integer> brokers, int maxMoves) {
+        Map<Integer, Integer> load = load(assignment, brokers);
+        Map<TopicPartition, List<Integer>> current = sorted(assignment);
+        Map<TopicPartition, List<Integer>> moves = new LinkedHashMap<>();
+        while (moves.size() < maxMoves && load.size() > 1) {
+            Integer most = mostLoaded(load);
+            TopicPartition partition = null;
+            Integer to = null;
+            for (Map.Entry<TopicPartition, List<Integer>> entry : current.entrySet()) {
+                if (entry.getValue().contains(most)) {
+                    Integer least = leastLoaded(load, entry.getValue());
+                    if (least != null && load.get(most) - load.get(least) > 1
+                            && (to == null || load.get(least) < load.get(to))) {
+                        partition = entry.getKey();
+                        to = least;
+                    }
+                }
+            }
+            if (partition == null) {
+                break;
+            }
+            List<Integer> target = new ArrayList<>(current.get(partition));
+            target.set(target.indexOf(most), to);
+            current.put(partition, target);
+            moves.put(partition, target);
+            load.merge(most, -1, Integer::sum);
+            load.merge(to, 1, Integer::sum);
+        }
+        return moves;
+    }
+
+    /**
+     * Whether the given {@code brokers} need {@linkplain #rebalance(Map, Collection, int) rebalancing}, because one
+     * of them replicates fewer than half as many partitions as the most loaded one (as a newly added broker does).
+     * Smaller differences, such as those left by creating topics, don't start a rebalance.
+     *
+     * @param assignment The current replicas of each partition.
+     * @param brokers The brokers to balance the replicas over.
+     * @return Whether the replicas are unbalanced.
+     */
+    public static boolean isUnbalanced(Map<TopicPartition, List<Integer>> assignment, Collection<Integer> brokers) {
+        Map<Integer, Integer> load = load(assignment, brokers);
+        if (load.isEmpty()) {
+            return false;
+        }
+        int most = Collections.max(load.values());
+        int least = Collections.min(load.values());
+        return most - least > 1 && least * 2 < most;
+    }
+
+    /**
+     * @return The broker in {@code load} with the most replicas.
+     */
+    private static Integer mostLoaded(Map<Integer, Integer> load) {
+        Integer result = null;
+        for (Map.Entry<Integer, Integer> broker : load.entrySet()) {
+            if (result == null || broker.getValue() > load.get(result)) {
+                result = broker.getKey();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of replicas on each of the given {@code brokers}, by broker id.
+     */
+    static Map<Integer, Integer> load(Map<TopicPartition, List<Integer>> assignment, Collection<Integer> brokers) {
+        Map<Integer, Integer> load = new TreeMap<>();
+        for (Integer broker : brokers) {
+            load.put(broker, 0);
+        }
+        for (List<Integer> replicas : assignment.values()) {
+            for (Integer broker : replicas) {
+                load.computeIfPresent(broker, (b, n) -> n + 1);
+            }
+        }
+        return load;
+    }
+
+    /**
+     * @return The broker in {@code load} with the fewest replicas which isn't one of the given {@code replicas}.
+     */
+    private static Integer leastLoaded(Map<Integer, Integer> load, List<Integer> replicas) {
+        Integer result = null;
+        for (Map.Entry<Integer, Integer> broker : load.entrySet()) {
+            if (!replicas.contains(broker.getKey())
+                    && (result == null || broker.getValue() < load.get(result))) {
+                result = broker.getKey();
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsAny(List<Integer> replicas, Collection<Integer> brokers) {
+        for (Integer broker : replicas) {
+            if (brokers.contains(broker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The given assignment, ordered by topic and partition.
+     */
+    static Map<TopicPartition, List<Integer>> sorted(Map<TopicPartition, List<Integer>> assignment) {
+        Map<TopicPartition, List<Integer>> sorted = new TreeMap<>((a, b) -> {
+            int cmp = a.topic().compareTo(b.topic());
+            return cmp != 0 ? cmp : Integer.compare(a.partition(), b.partition());
+        });
+        sorted.putAll(assignment);
+        return sorted;
+    }
+}
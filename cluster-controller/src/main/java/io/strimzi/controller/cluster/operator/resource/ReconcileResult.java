@@ -5,17 +5,17 @@
 package io.strimzi.controller.cluster.operator.resource;
 
 public class ReconcileResult<D> {
-    private static final ReconcileResult CREATED = new ReconcileResult() {
+    private static final ReconcileResult CREATED = new ReconcileResult("created") {
         public String toString() {
             return "CREATED";
         }
     };
-    private static final ReconcileResult DELETED = new ReconcileResult() {
+    private static final ReconcileResult DELETED = new ReconcileResult("deleted") {
         public String toString() {
             return "DELETED";
         }
     };
-    private static final ReconcileResult NOOP = new ReconcileResult() {
+    private static final ReconcileResult NOOP = new ReconcileResult("noop") {
         public String toString() {
             return "NOOP";
         }
@@ -25,6 +25,7 @@ public class ReconcileResult<D> {
         private final D differences;
 
         private Patched(D differences) {
+            super("patched");
             this.differences = differences;
         }
 
@@ -53,5 +54,17 @@ public class ReconcileResult<D> {
     public static final <P> ReconcileResult<P> noop() {
         return NOOP;
     }
-    private ReconcileResult() {}
+
+    private final String kind;
+
+    private ReconcileResult(String kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @return The kind of result: {@code noop}, {@code created}, {@code patched} or {@code deleted}.
+     */
+    public String kind() {
+        return kind;
+    }
 }
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.strimzi.controller.cluster.model.Labels;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory cache of the resources of one kind in one namespace (or in {@linkplain #ANY_NAMESPACE all namespaces}),
+ * kept up to date by a list followed by a watch from the resourceVersion of the list.
+ * If the watch is closed with an error the cache stops serving reads and re-lists until it has caught up again.
+ * Listeners can be registered to be told when a resource of a given name changes.
+ * Changes to resources which were not made through {@link #put(HasMetadata)} or {@link #remove(String, String)}
+ * (that is, by something other than the controller) are recorded as <em>drift</em>.
+ * @param <T> The Kubernetes resource type.
+ */
+public class ResourceCache<T extends HasMetadata> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceCache.class.getName());
+
+    /** The namespace of a cache of the resources in all namespaces. */
+    public static final String ANY_NAMESPACE = "*";
+
+    private static final long RELIST_DELAY_MS = 5_000;
+
+    private final Vertx vertx;
+    private final WorkerPool workerPool;
+    private final String resourceKind;
+    private final String namespace;
+    private final Supplier<KubernetesResourceList> lister;
+    private final BiFunction<String, Watcher<T>, Watch> watcher;
+    private final ConcurrentHashMap<String, T> resources = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    private volatile boolean synced = false;
+    private volatile boolean closed = false;
+    private volatile Watch watch;
+    private final Set<String> drifted = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<T> driftListener;
+
+    /**
+     * Constructor.
+     * @param vertx The Vertx instance.
+     * @param resourceKind The kind of Kubernetes resource (used for logging).
+     * @param namespace The namespace.
+     * @param lister Lists the resources.
+     * @param watcher Watches the resources from the given resourceVersion with the given watcher.
+     */
+    public ResourceCache(Vertx vertx, String resourceKind, String namespace,
+                         Supplier<KubernetesResourceList> lister,
+                         BiFunction<String, Watcher<T>, Watch> watcher) {
+        this(vertx, new WorkerPools(vertx).pool(resourceKind, WorkerPools.Purpose.READ), resourceKind, namespace, lister, watcher);
+    }
+
+    /**
+     * Constructor.
+     * @param vertx The Vertx instance.
+     * @param workerPool The worker pool used for listing.
+     * @param resourceKind The kind of Kubernetes resource (used for logging).
+     * @param namespace The namespace.
+     * @param lister Lists the resources.
+     * @param watcher Watches the resources from the given resourceVersion with the given watcher.
+     */
+    public ResourceCache(Vertx vertx, WorkerPool workerPool, String resourceKind, String namespace,
+                         Supplier<KubernetesResourceList> lister,
+                         BiFunction<String, Watcher<T>, Watch> watcher) {
+        this.vertx = vertx;
+        this.workerPool = workerPool;
+        this.resourceKind = resourceKind;
+        this.namespace = namespace;
+        this.lister = lister;
+        this.watcher = watcher;
+    }
+
+    public String namespace() {
+        return namespace;
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    private String key(T resource) {
+        String resourceNamespace = resource.getMetadata().getNamespace();
+        return key(resourceNamespace != null ? resourceNamespace : namespace, resource.getMetadata().getName());
+    }
+
+    /**
+     * @return Whether the cache has caught up with the API server, and can therefore serve reads.
+     */
+    public boolean isSynced() {
+        return synced && !closed;
+    }
+
+    /**
+     * Asynchronously list and start watching the resources, returning a future which completes once the cache
+     * is {@linkplain #isSynced() synced}.
+     */
+    public Future<Void> start() {
+        Future<Void> fut = Future.future();
+        workerPool.executeBlocking(
+            future -> {
+                try {
+                    listAndWatch();
+                    future.complete();
+                } catch (Throwable t) {
+                    log.warn("Unable to start cache of {} in namespace {}", resourceKind, namespace, t);
+                    future.fail(t);
+                }
+            },
+            false,
+            fut.completer()
+        );
+        return fut;
+    }
+
+    /**
+     * Stop watching the resources. The cache will no longer serve reads.
+     */
+    public void stop() {
+        closed = true;
+        Watch watch = this.watch;
+        if (watch != null) {
+            watch.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listAndWatch() {
+        KubernetesResourceList list = lister.get();
+        Map<String, T> listed = new HashMap<>();
+        for (Object item : list.getItems()) {
+            T resource = (T) item;
+            listed.put(key(resource), resource);
+        }
+        // Changes made while we weren't watching (but not before we first listed) are drift too
+        for (Map.Entry<String, T> entry : resources.entrySet()) {
+            T current = listed.get(entry.getKey());
+            if (current == null) {
+                drifted(entry.getKey(), entry.getValue());
+            } else if (isDrift(entry.getValue(), current)) {
+                drifted(entry.getKey(), current);
+            }
+        }
+        resources.keySet().retainAll(listed.keySet());
+        resources.putAll(listed);
+        String resourceVersion = list.getMetadata() != null ? list.getMetadata().getResourceVersion() : null;
+        log.debug("Listed {} {} in namespace {} at resourceVersion {}", listed.size(), resourceKind, namespace, resourceVersion);
+        this.watch = watcher.apply(resourceVersion, new Watcher<T>() {
+            @Override
+            public void eventReceived(Action action, T resource) {
+                String key = key(resource);
+                T previous;
+                switch (action) {
+                    case ADDED:
+                    case MODIFIED:
+                        previous = resources.get(key);
+                        if (previous != null && isOlder(resource, previous)) {
+                            // The controller has already put a later version, from the response to its own write
+                            break;
+                        }
+                        previous = resources.put(key, resource);
+                        changed(key);
+                        if (previous != null && isDrift(previous, resource)) {
+                            drifted(key, resource);
+                        }
+                        break;
+                    case DELETED:
+                        previous = resources.remove(key);
+                        changed(key);
+                        if (previous != null) {
+                            drifted(key, previous);
+                        }
+                        break;
+                    default:
+                        log.warn("Unexpected action {} in cache of {} in namespace {}", action, resourceKind, namespace);
+                }
+            }
+
+            @Override
+            public void onClose(KubernetesClientException e) {
+                if (e != null && !closed) {
+                    log.warn("Watch for cache of {} in namespace {} closed, re-listing", resourceKind, namespace, e);
+                    synced = false;
+                    relist();
+                }
+            }
+        });
+        synced = true;
+        // We may have missed events while we weren't watching
+        for (String key : listeners.keySet()) {
+            changed(key);
+        }
+    }
+
+    /**
+     * Whether the change from {@code previous} to {@code current} is one the controller didn't make.
+     * Writes by the controller are {@linkplain #put(HasMetadata) put} in the cache, so their watch event has the
+     * resourceVersion already cached. Changes only to the status don't change the generation of resources which have one.
+     */
+    private static boolean isDrift(HasMetadata previous, HasMetadata current) {
+        ObjectMeta was = previous.getMetadata();
+        ObjectMeta is = current.getMetadata();
+        if (Objects.equals(was.getResourceVersion(), is.getResourceVersion())) {
+            return false;
+        }
+        if (was.getGeneration() != null && is.getGeneration() != null) {
+            return !was.getGeneration().equals(is.getGeneration())
+                    || !Objects.equals(was.getLabels(), is.getLabels())
+                    || !Objects.equals(was.getAnnotations(), is.getAnnotations());
+        }
+        return true;
+    }
+
+    private void drifted(String key, T resource) {
+        log.debug("{} {} changed by something other than the controller", resourceKind, key);
+        drifted.add(key);
+        Consumer<T> listener = driftListener;
+        if (listener != null) {
+            try {
+                listener.accept(resource);
+            } catch (Throwable t) {
+                log.warn("Drift listener for {} {} threw", resourceKind, key, t);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener to be called (on the watch thread) with a resource which has drifted,
+     * or with the resource as last seen, if it was deleted.
+     */
+    public void onDrift(Consumer<T> listener) {
+        this.driftListener = listener;
+    }
+
+    /**
+     * Clears the drift of the resource with the given namespace and name.
+     * @return Whether the resource had drifted since its drift was last cleared.
+     */
+    public boolean clearDrift(String namespace, String name) {
+        return drifted.remove(key(namespace, name));
+    }
+
+    private void relist() {
+        vertx.setTimer(RELIST_DELAY_MS, timerId -> {
+            if (closed) {
+                return;
+            }
+            start().setHandler(ar -> {
+                if (ar.failed()) {
+                    relist();
+                }
+            });
+        });
+    }
+
+    /**
+     * Updates the cache with the given resource, as returned by a write to the API server,
+     * so that a read which follows a write doesn't have to wait for the watch.
+     */
+    public void put(T resource) {
+        if (resource != null && resource.getMetadata() != null) {
+            String key = key(resource);
+            T cached = resources.merge(key, resource, (current, incoming) -> isOlder(incoming, current) ? current : incoming);
+            if (cached == resource) {
+                changed(key);
+            }
+        }
+    }
+
+    /**
+     * Whether {@code resource} is an earlier version than {@code cached}, as when the watch lags behind a write.
+     * resourceVersions are opaque, but the API server issues them in increasing order; if either isn't a number
+     * the resource is assumed not to be older.
+     */
+    static boolean isOlder(HasMetadata resource, HasMetadata cached) {
+        try {
+            return Long.parseLong(resource.getMetadata().getResourceVersion())
+                    < Long.parseLong(cached.getMetadata().getResourceVersion());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the resource with the given namespace and name from the cache, following its deletion from the API server.
+     */
+    public void remove(String namespace, String name) {
+        String key = key(namespace, name);
+        resources.remove(key);
+        changed(key);
+    }
+
+    /**
+     * Registers a listener to be run (on the thread which observed the change) whenever the resource
+     * with the given namespace and name is added, modified or deleted, and whenever the cache re-syncs.
+     */
+    public void addListener(String namespace, String name, Runnable listener) {
+        listeners.computeIfAbsent(key(namespace, name), k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(String, String, Runnable)}.
+     */
+    public void removeListener(String namespace, String name, Runnable listener) {
+        listeners.computeIfPresent(key(namespace, name), (k, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private void changed(String key) {
+        List<Runnable> list = listeners.get(key);
+        if (list != null) {
+            for (Runnable listener : list) {
+                try {
+                    listener.run();
+                } catch (Throwable t) {
+                    log.warn("Listener for {} {} threw", resourceKind, key, t);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The resource with the given namespace and name, or null if there is no such resource.
+     */
+    public T get(String namespace, String name) {
+        return resources.get(key(namespace, name));
+    }
+
+    /**
+     * @return The resources in the given namespace (or in any namespace, given {@link #ANY_NAMESPACE})
+     * having all the given labels.
+     */
+    public List<T> list(String namespace, Labels selector) {
+        Map<String, String> selectorMap = selector.toMap();
+        List<T> result = new ArrayList<>();
+        for (Map.Entry<String, T> entry : resources.entrySet()) {
+            if (!ANY_NAMESPACE.equals(namespace) && !entry.getKey().startsWith(namespace + "/")) {
+                continue;
+            }
+            T resource = entry.getValue();
+            Map<String, String> labels = resource.getMetadata().getLabels();
+            if (labels != null && labels.entrySet().containsAll(selectorMap.entrySet())) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.strimzi.controller.cluster.ClusterController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.fabric8.kubernetes.client.internal.PatchUtils.patchMapper;
+
+/**
+ * A fingerprint of the desired state of a resource, which the controller stamps as an annotation
+ * on the resources it creates and patches.
+ * If the fingerprint of a newly generated desired state equals the annotation on the live resource then
+ * the controller's last write already established that state, and the resource needn't be diffed or patched.
+ */
+public final class ResourceFingerprint {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceFingerprint.class.getName());
+
+    /** The annotation holding the fingerprint of the desired state last written by the controller. */
+    public static final String ANNOTATION = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, "desired-state-hash");
+
+    private static final ObjectWriter WRITER = patchMapper().writer()
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ResourceFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of the given {@code desired} resource (ignoring any existing fingerprint annotation),
+     * and stamps it on the resource.
+     * @return The fingerprint, or null if it couldn't be computed (in which case the resource is not stamped).
+     */
+    public static String stamp(HasMetadata desired) {
+        // Copy the annotations, since the generated resource might use an immutable map
+        Map<String, String> annotations = desired.getMetadata().getAnnotations();
+        if (annotations != null && annotations.containsKey(ANNOTATION)) {
+            annotations = new HashMap<>(annotations);
+            annotations.remove(ANNOTATION);
+            desired.getMetadata().setAnnotations(annotations);
+        }
+        String fingerprint;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(WRITER.writeValueAsBytes(desired));
+            fingerprint = hex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            log.warn("Unable to compute fingerprint of {} {}", desired.getKind(), desired.getMetadata().getName(), e);
+            return null;
+        }
+        annotations = annotations == null ? new HashMap<>(1) : new HashMap<>(annotations);
+        annotations.put(ANNOTATION, fingerprint);
+        desired.getMetadata().setAnnotations(annotations);
+        return fingerprint;
+    }
+
+    /**
+     * @return The fingerprint annotation on the given resource, or null if it doesn't have one.
+     */
+    public static String of(HasMetadata resource) {
+        if (resource == null || resource.getMetadata() == null || resource.getMetadata().getAnnotations() == null) {
+            return null;
+        }
+        return resource.getMetadata().getAnnotations().get(ANNOTATION);
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(result);
+    }
+}
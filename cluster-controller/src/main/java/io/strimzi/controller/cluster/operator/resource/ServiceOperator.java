@@ -10,6 +10,7 @@ import io.fabric8.kubernetes.api.model.ServiceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
@@ -34,6 +35,27 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
         return client.services();
     }
 
+    /**
+     * Also starts a cache of the endpoints in the given {@code namespace}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<Void> startCache(String namespace) {
+        return CompositeFuture.join(super.startCache(namespace), endpointOperations.startCache(namespace)).map((Void) null);
+    }
+
+    /**
+     * Also uses the given pools for endpoint operations.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void useWorkerPools(WorkerPools workerPools) {
+        super.useWorkerPools(workerPools);
+        endpointOperations.useWorkerPools(workerPools);
+    }
+
     public Future<Void> endpointReadiness(String namespace, Service desired, long pollInterval, long operationTimeoutMs) {
         return endpointOperations.readiness(namespace, desired.getMetadata().getName(), 1_000, operationTimeoutMs);
     }
@@ -5,88 +5,226 @@
 package io.strimzi.controller.cluster.operator.resource;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
-import io.fabric8.zjsonpatch.JsonDiff;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
 
 import static io.fabric8.kubernetes.client.internal.PatchUtils.patchMapper;
 import static java.util.Arrays.asList;
 
+/**
+ * The differences between a current and a desired StatefulSet which matter to the controller.
+ * Only the labels, the annotations and the spec are compared. Metadata which is set by the
+ * API server (resourceVersion, uid etc.) and the status are not.
+ * The specs are compared by walking their JSON trees in step, using a trie of paths to skip
+ * ignorable subtrees and to classify each difference, rather than computing a full JSON patch.
+ */
 public class StatefulSetDiff {
 
     private static final Logger log = LoggerFactory.getLogger(StatefulSetDiff.class.getName());
 
-    private Set<String> ignorablePaths = new HashSet<>(asList(
-        "/spec/revisionHistoryLimit",
-        "/spec/template/spec/containers/0/imagePullPolicy",
-        "/spec/template/spec/containers/0/livenessProbe/failureThreshold",
-        "/spec/template/spec/containers/0/livenessProbe/periodSeconds",
-        "/spec/template/spec/containers/0/livenessProbe/successThreshold",
-        "/spec/template/spec/containers/0/readinessProbe/failureThreshold",
-        "/spec/template/spec/containers/0/readinessProbe/periodSeconds",
-        "/spec/template/spec/containers/0/readinessProbe/successThreshold",
-        "/spec/template/spec/containers/0/resources",
-        "/spec/template/spec/containers/0/terminationMessagePath",
-        "/spec/template/spec/containers/0/terminationMessagePolicy",
-        "/spec/template/spec/dnsPolicy",
-        "/spec/template/spec/restartPolicy",
-        "/spec/template/spec/schedulerName",
-        "/spec/template/spec/securityContext",
-        "/spec/template/spec/terminationGracePeriodSeconds",
-        "/spec/template/spec/volumes/1/configMap/defaultMode",
-        "/status"));
-
-    private static boolean containsPathOrChild(Iterable<String> paths, String path) {
-        for (String pathValue : paths) {
-            if (pathValue.equals(path)
-                    || pathValue.startsWith(path + "/")) {
-                return true;
+    private static final ObjectMapper MAPPER = patchMapper();
+
+    private static final int REPLICAS = 1;
+    private static final int TEMPLATE_SPEC = 1 << 1;
+    private static final int VOLUME_CLAIM_TEMPLATES = 1 << 2;
+
+    /**
+     * Paths (relative to /spec) whose subtrees are defaulted or otherwise changed by Kubernetes,
+     * so differences in them are ignored.
+     */
+    private static final PathTrie SPEC_PATHS = new PathTrie();
+    static {
+        for (String ignorable : asList(
+                "/revisionHistoryLimit",
+                "/template/spec/containers/0/imagePullPolicy",
+                "/template/spec/containers/0/livenessProbe/failureThreshold",
+                "/template/spec/containers/0/livenessProbe/periodSeconds",
+                "/template/spec/containers/0/livenessProbe/successThreshold",
+                "/template/spec/containers/0/readinessProbe/failureThreshold",
+                "/template/spec/containers/0/readinessProbe/periodSeconds",
+                "/template/spec/containers/0/readinessProbe/successThreshold",
+                "/template/spec/containers/0/resources",
+                "/template/spec/containers/0/terminationMessagePath",
+                "/template/spec/containers/0/terminationMessagePolicy",
+                "/template/spec/dnsPolicy",
+                "/template/spec/restartPolicy",
+                "/template/spec/schedulerName",
+                "/template/spec/securityContext",
+                "/template/spec/terminationGracePeriodSeconds",
+                "/template/spec/volumes/1/configMap/defaultMode")) {
+            SPEC_PATHS.add(ignorable).ignored = true;
+        }
+        SPEC_PATHS.add("/replicas").category = REPLICAS;
+        SPEC_PATHS.add("/template/spec").category = TEMPLATE_SPEC;
+        SPEC_PATHS.add("/volumeClaimTemplates").category = VOLUME_CLAIM_TEMPLATES;
+    }
+
+    /** Array index path segments, so walking arrays doesn't allocate. */
+    private static final String[] INDICES = new String[16];
+    static {
+        for (int i = 0; i < INDICES.length; i++) {
+            INDICES[i] = Integer.toString(i);
+        }
+    }
+
+    /**
+     * A trie of path segments.
+     */
+    private static class PathTrie {
+        private final Map<String, PathTrie> children = new HashMap<>();
+        private boolean ignored;
+        private int category;
+
+        PathTrie add(String path) {
+            PathTrie node = this;
+            for (String segment : path.substring(1).split("/")) {
+                node = node.children.computeIfAbsent(segment, k -> new PathTrie());
             }
+            return node;
+        }
+
+        PathTrie child(String segment) {
+            return children.get(segment);
         }
-        return false;
     }
 
-    private final boolean changesVolumeClaimTemplate;
-    private final boolean isEmpty;
-    private final boolean changesSpecTemplateSpec;
+    private final String namespace;
+    private final String name;
     private final boolean changesLabels;
-    private final boolean changesSpecReplicas;
+    private final int otherDifferences;
+    private final int volumeClaimTemplateDifferences;
+    private final int categories;
+
+    // Mutable state used only during construction
+    private int walkedDifferences;
+    private int walkedVolumeClaimTemplateDifferences;
+    private int walkedCategories;
 
     public StatefulSetDiff(StatefulSet current, StatefulSet updated) {
-        JsonNode diff = JsonDiff.asJson(patchMapper().valueToTree(current), patchMapper().valueToTree(updated));
-        Set<String> paths = new HashSet<>();
-        for (JsonNode d : diff) {
-            String pathValue = d.get("path").asText();
-            if (ignorablePaths.contains(pathValue)) {
-                log.debug("StatefulSet {}/{} ignoring diff {}", current.getMetadata().getNamespace(), current.getMetadata().getName(), d);
-                continue;
+        this.namespace = current.getMetadata().getNamespace();
+        this.name = current.getMetadata().getName();
+        this.changesLabels = !Objects.equals(orEmpty(current.getMetadata().getLabels()), orEmpty(updated.getMetadata().getLabels()));
+        boolean changesAnnotations = !Objects.equals(orEmpty(current.getMetadata().getAnnotations()), orEmpty(updated.getMetadata().getAnnotations()));
+        if (changesLabels) {
+            log.debug("StatefulSet {}/{} differs at path /metadata/labels", namespace, name);
+        }
+        if (changesAnnotations) {
+            log.debug("StatefulSet {}/{} differs at path /metadata/annotations", namespace, name);
+        }
+        StringBuilder path = new StringBuilder(64).append("/spec");
+        walk(MAPPER.valueToTree(current.getSpec()), MAPPER.valueToTree(updated.getSpec()), SPEC_PATHS, 0, path);
+        this.otherDifferences = walkedDifferences - walkedVolumeClaimTemplateDifferences
+                + (changesLabels ? 1 : 0) + (changesAnnotations ? 1 : 0);
+        this.volumeClaimTemplateDifferences = walkedVolumeClaimTemplateDifferences;
+        this.categories = walkedCategories;
+    }
+
+    private StatefulSetDiff(StatefulSetDiff diff) {
+        this.namespace = diff.namespace;
+        this.name = diff.name;
+        this.changesLabels = diff.changesLabels;
+        this.otherDifferences = diff.otherDifferences;
+        this.volumeClaimTemplateDifferences = 0;
+        this.categories = diff.categories & ~VOLUME_CLAIM_TEMPLATES;
+    }
+
+    /**
+     * The diff there would be if the updated StatefulSet had the same volumeClaimTemplates as the current one,
+     * computed without diffing again.
+     */
+    public StatefulSetDiff withoutVolumeClaimTemplates() {
+        return new StatefulSetDiff(this);
+    }
+
+    private static Map<String, String> orEmpty(Map<String, String> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+
+    private void walk(JsonNode current, JsonNode updated, PathTrie node, int categories, StringBuilder path) {
+        if (node != null) {
+            if (node.ignored) {
+                if (log.isDebugEnabled() && !Objects.equals(current, updated)) {
+                    log.debug("StatefulSet {}/{} ignoring diff at path {}", namespace, name, path);
+                }
+                return;
+            }
+            categories |= node.category;
+        }
+        if (current == null || updated == null || current.getNodeType() != updated.getNodeType()) {
+            if (current != null || updated != null) {
+                difference(categories, path);
+            }
+            return;
+        }
+        switch (current.getNodeType()) {
+            case OBJECT:
+                walkObject(current, updated, node, categories, path);
+                break;
+            case ARRAY:
+                if (current.size() != updated.size()) {
+                    difference(categories, path);
+                } else {
+                    for (int i = 0; i < current.size(); i++) {
+                        walkChild(current.get(i), updated.get(i), node, categories, path, i < INDICES.length ? INDICES[i] : Integer.toString(i));
+                    }
+                }
+                break;
+            default:
+                if (!current.equals(updated)) {
+                    difference(categories, path);
+                }
+        }
+    }
+
+    private void walkObject(JsonNode current, JsonNode updated, PathTrie node, int categories, StringBuilder path) {
+        Iterator<String> names = current.fieldNames();
+        while (names.hasNext()) {
+            String field = names.next();
+            walkChild(current.get(field), updated.get(field), node, categories, path, field);
+        }
+        names = updated.fieldNames();
+        while (names.hasNext()) {
+            String field = names.next();
+            if (!current.has(field)) {
+                walkChild(null, updated.get(field), node, categories, path, field);
             }
-            log.debug("StatefulSet {}/{} differs at path {}", current.getMetadata().getNamespace(), current.getMetadata().getName(), pathValue);
-            paths.add(pathValue);
         }
-        isEmpty = paths.isEmpty();
-        changesVolumeClaimTemplate = containsPathOrChild(paths, "/spec/volumeClaimTemplates");
-        // Change changes to /spec/template/spec, except to imagePullPolicy, which gets changed
-        // by k8s
-        changesSpecTemplateSpec = containsPathOrChild(paths, "/spec/template/spec");
-        changesLabels = containsPathOrChild(paths, "/metadata/labels");
-        changesSpecReplicas = containsPathOrChild(paths, "/spec/replicas");
+    }
+
+    private void walkChild(JsonNode current, JsonNode updated, PathTrie node, int categories, StringBuilder path, String segment) {
+        int length = path.length();
+        path.append('/').append(segment);
+        walk(current, updated, node != null ? node.child(segment) : null, categories, path);
+        path.setLength(length);
+    }
+
+    private void difference(int categories, StringBuilder path) {
+        walkedDifferences++;
+        walkedCategories |= categories;
+        if ((categories & VOLUME_CLAIM_TEMPLATES) != 0) {
+            walkedVolumeClaimTemplateDifferences++;
+        }
+        log.debug("StatefulSet {}/{} differs at path {}", namespace, name, path);
     }
 
     public boolean isEmpty() {
-        return isEmpty;
+        return otherDifferences == 0 && volumeClaimTemplateDifferences == 0;
     }
 
     public boolean changesVolumeClaimTemplates() {
-        return changesVolumeClaimTemplate;
+        return (categories & VOLUME_CLAIM_TEMPLATES) != 0;
     }
 
     public boolean changesSpecTemplateSpec() {
-        return changesSpecTemplateSpec;
+        return (categories & TEMPLATE_SPEC) != 0;
     }
 
     public boolean changesLabels() {
@@ -94,6 +232,6 @@ public class StatefulSetDiff {
     }
 
     public boolean changesSpecReplicas() {
-        return changesSpecReplicas;
+        return (categories & REPLICAS) != 0;
     }
 }
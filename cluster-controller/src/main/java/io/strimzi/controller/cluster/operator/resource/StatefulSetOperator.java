@@ -31,7 +31,12 @@ import java.util.function.Predicate;
 public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<KubernetesClient, StatefulSet, StatefulSetList, DoneableStatefulSet, RollableScalableResource<StatefulSet, DoneableStatefulSet>, P> {
 
     private static final Logger log = LoggerFactory.getLogger(StatefulSetOperator.class.getName());
-    private final PodOperator podOperations;
+
+    /** The label with which the StatefulSet controller records the revision of the template a pod was created from. */
+    private static final String REVISION_LABEL = "controller-revision-hash";
+
+    protected final PodOperator podOperations;
+    protected final long operationTimeoutMs;
 
     /**
      * Constructor
@@ -39,8 +44,19 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
      * @param client The Kubernetes client
      */
     public StatefulSetOperator(Vertx vertx, KubernetesClient client) {
+        this(vertx, client, 60_000L);
+    }
+
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param operationTimeoutMs The maximum time to wait for pods to be deleted and to become ready
+     */
+    public StatefulSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs) {
         super(vertx, client, "StatefulSet");
         this.podOperations = new PodOperator(vertx, client);
+        this.operationTimeoutMs = operationTimeoutMs;
     }
 
     @Override
@@ -61,7 +77,7 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
 
     private Future<Integer> getReplicas(String namespace, String name) {
         Future<Integer> result = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        workerPool(WorkerPools.Purpose.READ).executeBlocking(
             future -> {
                 try {
                     Integer replicas = get(namespace, name).getSpec().getReplicas();
@@ -80,6 +96,8 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
      * is complete. Starting with pod 0, each pod will be deleted and re-created automatically by the ReplicaSet,
      * once the pod has been recreated then given {@code isReady} function will be polled until it returns true,
      * before the process proceeds with the pod with the next higher number.
+     * If any pod is not deleted and ready again within the operation timeout, the rolling update fails
+     * with a {@link TimeoutException}.
      */
     public Future<Void> rollingUpdate(String namespace, String name, Predicate<String> isReady) {
         Future<Void> rollingUpdateFuture = Future.future();
@@ -88,7 +106,7 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
             Future<Void> f = Future.succeededFuture();
             // Then for each replicas, restart it
             for (int i = 0; i < replicas; i++) {
-                String podName = name + "-" + i;
+                String podName = getPodName(name, i);
                 f = f.compose(ignored -> restartPod(namespace, name, isReady, podName));
             }
             return f;
@@ -100,7 +118,7 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
 
     private <T> Future<Boolean> p(Predicate<T> isReady, T argument) {
         Future<Boolean> result = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        workerPool(WorkerPools.Purpose.READINESS).executeBlocking(
             future -> {
                 try {
                     future.complete(isReady.test(argument));
@@ -112,17 +130,28 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
         return result;
     }
 
-    private Future<Void> restartPod(String namespace, String name, Predicate<String> isReady, String podName) {
+    /**
+     * Asynchronously delete the given pod of the StatefulSet identified by the given {@code namespace} and {@code name},
+     * returning a Future that will complete once the pod has been re-created and the given {@code isReady}
+     * function returns true for it.
+     * The Future fails with a {@link TimeoutException} if that doesn't happen within the operation timeout.
+     */
+    protected Future<Void> restartPod(String namespace, String name, Predicate<String> isReady, String podName) {
         Future<Void> result = Future.future();
         log.info("Roll {}/{}: Rolling pod {}", namespace, name, podName);
+        long start = System.currentTimeMillis();
+        long deadline = start + operationTimeoutMs;
         Future<Void> deleted = Future.future();
         Future<CompositeFuture> deleteFinished = Future.future();
         Watcher<Pod> watcher = new RollingUpdateWatcher(deleted);
         Watch watch = podOperations.watch(namespace, podName, watcher);
+        long deletionTimer = vertx.setTimer(operationTimeoutMs, timerId ->
+            deleted.tryFail(new TimeoutException("Timed out after " + operationTimeoutMs + "ms waiting for pod " + podName + " to be deleted")));
         // Delete the pod
         log.debug("Roll {}/{}: Waiting for pod {} to be deleted", namespace, name, podName);
         Future podReconcileFuture = podOperations.reconcile(namespace, podName, null);
         CompositeFuture.join(podReconcileFuture, deleted).setHandler(deleteResult -> {
+            vertx.cancelTimer(deletionTimer);
             watch.close();
             if (deleteResult.succeeded()) {
                 log.debug("Roll {}/{}: Pod {} was deleted", namespace, name, podName);
@@ -132,25 +161,74 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
         deleteFinished.compose(ix -> {
             log.debug("Roll {}/{}: Waiting for new pod {} to get ready", namespace, name, podName);
             Future<Void> readyFuture = Future.future();
-            vertx.setPeriodic(1_000, timerId -> {
-                p(isReady, podName).setHandler(x -> {
-                    if (x.succeeded()) {
-                        if (x.result()) {
-                            vertx.cancelTimer(timerId);
-                            readyFuture.complete();
-                        }
-                        // else not ready
-                    } else {
-                        vertx.cancelTimer(timerId);
-                        readyFuture.fail(x.cause());
-                    }
-                });
-            });
+            awaitReady(isReady, podName, deadline, readyFuture);
             return readyFuture;
-        }).setHandler(result);
+        }).setHandler(ar -> {
+            long duration = System.currentTimeMillis() - start;
+            if (ar.succeeded()) {
+                log.info("Roll {}/{}: Pod {} restarted in {}ms", namespace, name, podName, duration);
+            } else {
+                log.error("Roll {}/{}: Pod {} failed to restart after {}ms", namespace, name, podName, duration, ar.cause());
+            }
+            result.handle(ar);
+        });
         return result;
     }
 
+    /**
+     * Poll the given {@code isReady} function every second until it returns true, or until the given deadline.
+     */
+    private void awaitReady(Predicate<String> isReady, String podName, long deadline, Future<Void> readyFuture) {
+        p(isReady, podName).setHandler(x -> {
+            if (x.failed()) {
+                readyFuture.fail(x.cause());
+            } else if (x.result()) {
+                readyFuture.complete();
+            } else {
+                long timeLeft = deadline - System.currentTimeMillis();
+                if (timeLeft <= 0) {
+                    readyFuture.fail(new TimeoutException("Timed out after " + operationTimeoutMs + "ms waiting for pod " + podName + " to get ready"));
+                } else {
+                    vertx.setTimer(Math.min(1_000, timeLeft), timerId -> awaitReady(isReady, podName, deadline, readyFuture));
+                }
+            }
+        });
+    }
+
+    /**
+     * Also starts a cache of the pods in the given {@code namespace}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<Void> startCache(String namespace) {
+        return CompositeFuture.join(super.startCache(namespace), podOperations.startCache(namespace)).map((Void) null);
+    }
+
+    /**
+     * Also shares the pod caches of the given operator, if it's a {@code StatefulSetOperator}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void useCachesOf(AbstractResourceOperator<?, StatefulSet, ?, ?, ?, ?> other) {
+        super.useCachesOf(other);
+        if (other instanceof StatefulSetOperator) {
+            podOperations.useCachesOf(((StatefulSetOperator<?>) other).podOperations);
+        }
+    }
+
+    /**
+     * Also uses the given pools for pod operations.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void useWorkerPools(WorkerPools workerPools) {
+        super.useWorkerPools(workerPools);
+        podOperations.useWorkerPools(workerPools);
+    }
+
     @Override
     protected Integer currentScale(String namespace, String name) {
         StatefulSet statefulSet = get(namespace, name);
@@ -175,7 +253,7 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
             switch (action) {
                 case DELETED:
                     log.info("Pod {} has been deleted", podName);
-                    deleted.complete();
+                    deleted.tryComplete();
                     break;
                 case ADDED:
                 case MODIFIED:
@@ -193,15 +271,64 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
         public void onClose(KubernetesClientException e) {
             if (e != null && !deleted.isComplete()) {
                 log.error("Kubernetes watcher has been closed with exception!", e);
-                deleted.fail(e);
+                deleted.tryFail(e);
             } else {
                 log.info("Kubernetes watcher has been closed!");
             }
         }
     }
 
+    /**
+     * The revision of the template of the given StatefulSet which its pods should be running,
+     * or null if the StatefulSet controller hasn't yet observed the latest change to it.
+     */
+    protected static String updateRevision(StatefulSet ss) {
+        if (ss.getStatus() == null
+                || ss.getStatus().getObservedGeneration() == null
+                || ss.getMetadata().getGeneration() == null
+                || ss.getStatus().getObservedGeneration() < ss.getMetadata().getGeneration()) {
+            return null;
+        }
+        return ss.getStatus().getUpdateRevision();
+    }
+
+    /**
+     * The revision of the template of its StatefulSet which the given pod was created from, or null if it isn't known.
+     */
+    protected static String revision(Pod pod) {
+        return pod.getMetadata().getLabels() != null ? pod.getMetadata().getLabels().get(REVISION_LABEL) : null;
+    }
+
+    /**
+     * Overridden so that a StatefulSet with the desired fingerprint, but some of whose pods weren't rolled
+     * to its current revision (for example because a rolling update timed out), is patched again.
+     * Pods which don't exist will be created from the current revision, so don't count.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isSettled(String namespace, StatefulSet current) {
+        String updateRevision = updateRevision(current);
+        if (updateRevision == null) {
+            return true;
+        }
+        for (int i = 0; i < current.getSpec().getReplicas(); i++) {
+            Pod pod = podOperations.get(namespace, getPodName(current, i));
+            if (pod != null && !updateRevision.equals(revision(pod))) {
+                log.debug("{} {}/{}: Pod {} has not been rolled to revision {}", resourceKind, namespace,
+                        current.getMetadata().getName(), pod.getMetadata().getName(), updateRevision);
+                return false;
+            }
+        }
+        return true;
+    }
+
     public String getPodName(StatefulSet desired, int podId) {
-        return desired.getMetadata().getName() + "-" + podId;
+        return getPodName(desired.getMetadata().getName(), podId);
+    }
+
+    public String getPodName(String name, int podId) {
+        return name + "-" + podId;
     }
 
     @Override
@@ -210,8 +337,6 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
         Future<ReconcileResult<P>> result = Future.future();
         Future<ReconcileResult<P>> crt = super.internalCreate(namespace, name, desired);
 
-        long operationTimeoutMs = 60_000L;
-
         // ... then wait for the SS to be ready...
         crt.compose(res -> readiness(namespace, desired.getMetadata().getName(), 1_000, operationTimeoutMs).map(res))
         // ... then wait for all the pods to be ready
@@ -247,7 +372,7 @@ public class StatefulSetOperator<P> extends AbstractScalableResourceOperator<Kub
         } else {
             log.debug("Patching {} {}/{}", resourceKind, namespace, name);
         }
-        operation().inNamespace(namespace).withName(name).cascading(false).patch(desired);
+        cached(namespace, operation().inNamespace(namespace).withName(name).cascading(false).patch(desired));
         log.debug("Patched {} {}/{}", resourceKind, namespace, name);
         return Future.succeededFuture(ReconcileResult.patched(null));
     }
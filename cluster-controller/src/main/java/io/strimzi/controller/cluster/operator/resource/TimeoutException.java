@@ -8,4 +8,12 @@ package io.strimzi.controller.cluster.operator.resource;
  * Thrown to indicate that timeout has been exceeded.
  */
 public class TimeoutException extends RuntimeException {
+
+    public TimeoutException() {
+        super();
+    }
+
+    public TimeoutException(String message) {
+        super(message);
+    }
 }
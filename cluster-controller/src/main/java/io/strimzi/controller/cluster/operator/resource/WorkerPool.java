@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size pool of worker threads for blocking Kubernetes operations,
+ * which keeps track of its utilisation and of how long tasks wait for a thread.
+ */
+public class WorkerPool {
+
+    private final String name;
+    private final WorkerPools.Purpose purpose;
+    private final int size;
+    private final WorkerExecutor executor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    WorkerPool(String name, WorkerPools.Purpose purpose, int size, WorkerExecutor executor) {
+        this.name = name;
+        this.purpose = purpose;
+        this.size = size;
+        this.executor = executor;
+    }
+
+    /**
+     * Like {@link WorkerExecutor#executeBlocking(Handler, boolean, Handler)}.
+     */
+    public <T> void executeBlocking(Handler<Future<T>> blockingCodeHandler, boolean ordered, Handler<AsyncResult<T>> resultHandler) {
+        long submitted = System.nanoTime();
+        ApiRateLimiter.Lane lane = ApiRateLimiter.Lane.of(purpose, ApiRateLimiter.isUrgent());
+        queued.incrementAndGet();
+        executor.executeBlocking(future -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            totalWaitNanos.addAndGet(System.nanoTime() - submitted);
+            try {
+                // The requests of the task wait in the rate limiter's lane for the pool's purpose
+                ApiRateLimiter.runAs(lane, () -> blockingCodeHandler.handle(future));
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }, ordered, resultHandler);
+    }
+
+    /**
+     * Like {@link WorkerExecutor#executeBlocking(Handler, Handler)}.
+     */
+    public <T> void executeBlocking(Handler<Future<T>> blockingCodeHandler, Handler<AsyncResult<T>> resultHandler) {
+        executeBlocking(blockingCodeHandler, true, resultHandler);
+    }
+
+    /**
+     * @return The name of the pool.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return The number of threads in the pool.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of tasks waiting for a thread.
+     */
+    public int queued() {
+        return queued.get();
+    }
+
+    /**
+     * @return The number of threads currently running a task.
+     */
+    public int active() {
+        return active.get();
+    }
+
+    /**
+     * @return The number of tasks which have completed.
+     */
+    public long completed() {
+        return completed.get();
+    }
+
+    /**
+     * @return The total time, in milliseconds, which tasks have spent waiting for a thread.
+     */
+    public long totalWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.strimzi.controller.cluster.ControllerMetrics;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The worker pools used by the resource operators for blocking Kubernetes operations.</p>
+ *
+ * <p>Operations are bulkheaded by {@link Purpose}, so that (for example) long readiness waits
+ * for one assembly cannot starve the reads and writes of other assemblies.
+ * By default there is a single pool per purpose, shared by all kinds of resource.
+ * A kind can be given pools of its own by configuring a size for {@code <Kind>.<purpose>}
+ * (for example {@code StatefulSet.readiness}).</p>
+ */
+public class WorkerPools {
+
+    /**
+     * The purpose of an operation.
+     */
+    public enum Purpose {
+        /** Gets and lists. */
+        READ("reads", 10),
+        /** Creates, patches, deletes and scaling. */
+        WRITE("writes", 10),
+        /** Waiting for resources to become ready (or be deleted). */
+        READINESS("readiness", 5);
+
+        private final String key;
+        private final int defaultSize;
+
+        Purpose(String key, int defaultSize) {
+            this.key = key;
+            this.defaultSize = defaultSize;
+        }
+
+        /**
+         * @return The key used to configure the size of the pool(s) for this purpose.
+         */
+        public String key() {
+            return key;
+        }
+    }
+
+    /** How long a task may run before vertx warns about a blocked thread. */
+    private static final long MAX_EXECUTE_TIME_NS = TimeUnit.SECONDS.toNanos(120);
+
+    private final Vertx vertx;
+    private final Map<String, Integer> sizes;
+    private final Map<String, WorkerPool> pools = new LinkedHashMap<>();
+
+    /**
+     * Pools of the default sizes.
+     * @param vertx The vertx instance.
+     */
+    public WorkerPools(Vertx vertx) {
+        this(vertx, Collections.emptyMap());
+    }
+
+    /**
+     * @param vertx The vertx instance.
+     * @param sizes The pool sizes, keyed by {@code <purpose>} or {@code <Kind>.<purpose>}.
+     * Purposes without a configured size get their default size.
+     */
+    public WorkerPools(Vertx vertx, Map<String, Integer> sizes) {
+        this.vertx = vertx;
+        this.sizes = new HashMap<>(sizes);
+        for (Map.Entry<String, Integer> size : this.sizes.entrySet()) {
+            if (size.getValue() == null || size.getValue() < 1) {
+                throw new IllegalArgumentException("Invalid size for worker pool " + size.getKey() + ": " + size.getValue());
+            }
+        }
+    }
+
+    /**
+     * The pool to use for operations on the given {@code kind} of resource for the given {@code purpose}.
+     * @param kind The kind of resource.
+     * @param purpose The purpose of the operations.
+     */
+    public synchronized WorkerPool pool(String kind, Purpose purpose) {
+        String key = kind + "." + purpose.key();
+        if (!sizes.containsKey(key)) {
+            key = purpose.key();
+        }
+        return pools.computeIfAbsent(key, k -> {
+            int size = sizes.getOrDefault(k, purpose.defaultSize);
+            String name = "kubernetes-ops-" + k;
+            return new WorkerPool(name, purpose, size, vertx.createSharedWorkerExecutor(name, size, MAX_EXECUTE_TIME_NS));
+        });
+    }
+
+    /**
+     * @return The pools which have been used so far.
+     */
+    public synchronized Collection<WorkerPool> pools() {
+        return new ArrayList<>(pools.values());
+    }
+
+    /**
+     * Registers the utilisation of the pools in the given {@code metrics}.
+     * @param metrics The metrics.
+     */
+    public void registerMetrics(ControllerMetrics metrics) {
+        ControllerMetrics.Scalar threads = metrics.gauge("strimzi_worker_pool_threads",
+                "Threads in the worker pool", "pool");
+        ControllerMetrics.Scalar active = metrics.gauge("strimzi_worker_pool_active_threads",
+                "Threads of the worker pool running a task", "pool");
+        ControllerMetrics.Scalar queued = metrics.gauge("strimzi_worker_pool_queued_tasks",
+                "Tasks waiting for a thread of the worker pool", "pool");
+        ControllerMetrics.Scalar completed = metrics.counter("strimzi_worker_pool_completed_tasks_total",
+                "Tasks completed by the worker pool", "pool");
+        ControllerMetrics.Scalar waited = metrics.counter("strimzi_worker_pool_wait_seconds_total",
+                "Time tasks spent waiting for a thread of the worker pool", "pool");
+        metrics.addCollector(() -> {
+            for (WorkerPool pool : pools()) {
+                threads.labels(pool.name()).set(pool.size());
+                active.labels(pool.name()).set(pool.active());
+                queued.labels(pool.name()).set(pool.queued());
+                completed.labels(pool.name()).set(pool.completed());
+                waited.labels(pool.name()).set(pool.totalWaitMs() / 1000.0);
+            }
+        });
+    }
+}
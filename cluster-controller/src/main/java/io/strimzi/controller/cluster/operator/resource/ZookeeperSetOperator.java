@@ -28,18 +28,31 @@ public class ZookeeperSetOperator extends StatefulSetOperator<Boolean> {
         super(vertx, client);
     }
 
+    /**
+     * Constructor
+     *
+     * @param vertx  The Vertx instance
+     * @param client The Kubernetes client
+     * @param operationTimeoutMs The maximum time to wait for a restarted node to be ready
+     */
+    public ZookeeperSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs) {
+        super(vertx, client, operationTimeoutMs);
+    }
+
     @Override
     protected Future<ReconcileResult<Boolean>> internalPatch(String namespace, String name, StatefulSet current, StatefulSet desired) {
         StatefulSetDiff diff = new StatefulSetDiff(current, desired);
         if (diff.changesVolumeClaimTemplates()) {
             log.warn("Ignoring change to volumeClaim");
             desired.getSpec().setVolumeClaimTemplates(current.getSpec().getVolumeClaimTemplates());
-            diff = new StatefulSetDiff(current, desired);
+            diff = diff.withoutVolumeClaimTemplates();
         }
+        boolean rolledOut = isSettled(namespace, current);
         if (diff.isEmpty()) {
-            return Future.succeededFuture(ReconcileResult.noop());
+            // An earlier rolling update may have failed
+            return Future.succeededFuture(rolledOut ? ReconcileResult.noop() : ReconcileResult.patched(true));
         } else {
-            boolean different = needsRollingUpdate(diff);
+            boolean different = needsRollingUpdate(diff) || !rolledOut;
             return super.internalPatch(namespace, name, current, desired).map(r -> {
                 if (r instanceof ReconcileResult.Patched) {
                     return ReconcileResult.patched(different);
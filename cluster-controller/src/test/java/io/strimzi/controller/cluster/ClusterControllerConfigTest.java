@@ -5,6 +5,7 @@
 package io.strimzi.controller.cluster;
 
 import io.strimzi.controller.cluster.model.Labels;
+import io.strimzi.controller.cluster.operator.assembly.ReconciliationScheduler;
 import org.junit.Test;
 
 import java.util.Collections;
@@ -15,6 +16,7 @@ import java.util.Map;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class ClusterControllerConfigTest {
 
@@ -90,6 +92,16 @@ public class ClusterControllerConfigTest {
         assertEquals(30_000, config.getOperationTimeoutMs());
     }
 
+    @Test
+    public void testAllNamespaces() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_NAMESPACE, "foo, *");
+
+        ClusterControllerConfig config = ClusterControllerConfig.fromMap(envVars);
+        assertEquals(singleton("*"), config.getNamespaces());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testNoNamespace() {
 
@@ -99,6 +111,113 @@ public class ClusterControllerConfigTest {
         ClusterControllerConfig.fromMap(envVars);
     }
 
+    @Test
+    public void testWorkerPoolSizes() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_WORKER_POOL_SIZES, "reads=20, StatefulSet.readiness = 2");
+
+        ClusterControllerConfig config = ClusterControllerConfig.fromMap(envVars);
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("reads", 20);
+        expected.put("StatefulSet.readiness", 2);
+        assertEquals(expected, config.getWorkerPoolSizes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWorkerPoolSize() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_WORKER_POOL_SIZES, "reads=0");
+
+        ClusterControllerConfig.fromMap(envVars);
+    }
+
+    @Test
+    public void testMaxConcurrentSweepReconciliations() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        assertEquals(ReconciliationScheduler.DEFAULT_MAX_CONCURRENT_SWEEPS, ClusterControllerConfig.fromMap(envVars).getMaxConcurrentSweepReconciliations());
+
+        envVars.put(ClusterControllerConfig.STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS, "2");
+        assertEquals(2, ClusterControllerConfig.fromMap(envVars).getMaxConcurrentSweepReconciliations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxConcurrentSweepReconciliations() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_MAX_CONCURRENT_SWEEP_RECONCILIATIONS, "0");
+
+        ClusterControllerConfig.fromMap(envVars);
+    }
+
+    @Test
+    public void testApiRateLimit() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        ClusterControllerConfig config = ClusterControllerConfig.fromMap(envVars);
+        // Not limited unless asked for
+        assertEquals(0.0, config.getApiQps(), 0.0);
+        assertEquals(ClusterControllerConfig.DEFAULT_API_BURST, config.getApiBurst());
+
+        envVars.put(ClusterControllerConfig.STRIMZI_API_QPS, "2.5");
+        envVars.put(ClusterControllerConfig.STRIMZI_API_BURST, "5");
+        config = ClusterControllerConfig.fromMap(envVars);
+        assertEquals(2.5, config.getApiQps(), 0.0);
+        assertEquals(5, config.getApiBurst());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidApiBurst() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_API_BURST, "0");
+
+        ClusterControllerConfig.fromMap(envVars);
+    }
+
+    @Test
+    public void testLeaderElection() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        assertNull(ClusterControllerConfig.fromMap(envVars).getLeaderElection());
+
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_LEASE_NAME, "strimzi-cluster-controller");
+        envVars.put("HOSTNAME", "strimzi-cluster-controller-1234");
+        LeaderElectionConfig leaderElection = ClusterControllerConfig.fromMap(envVars).getLeaderElection();
+        assertEquals("strimzi-cluster-controller", leaderElection.getLeaseName());
+        assertEquals("namespace", leaderElection.getLeaseNamespace());
+        assertEquals("strimzi-cluster-controller-1234", leaderElection.getIdentity());
+        assertEquals(LeaderElectionConfig.DEFAULT_LEASE_DURATION_MS, leaderElection.getLeaseDurationMs());
+
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_IDENTITY, "foo");
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS, "5000");
+        leaderElection = ClusterControllerConfig.fromMap(envVars).getLeaderElection();
+        assertEquals("foo", leaderElection.getIdentity());
+        assertEquals(5_000, leaderElection.getLeaseDurationMs());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLeaderElectionRequiresLeaseNamespace() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(ClusterControllerConfig.STRIMZI_NAMESPACE, "namespace1, namespace2");
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_LEASE_NAME, "strimzi-cluster-controller");
+
+        ClusterControllerConfig.fromMap(envVars);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLeaseDuration() {
+
+        Map<String, String> envVars = new HashMap<>(ClusterControllerConfigTest.envVars);
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_LEASE_NAME, "strimzi-cluster-controller");
+        envVars.put(LeaderElectionConfig.STRIMZI_LEADER_ELECTION_LEASE_DURATION_MS, "500");
+
+        ClusterControllerConfig.fromMap(envVars);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testEmptyEnvVars() {
 
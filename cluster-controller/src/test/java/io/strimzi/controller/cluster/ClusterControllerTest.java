@@ -4,10 +4,27 @@
  */
 package io.strimzi.controller.cluster;
 
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.strimzi.controller.cluster.model.AssemblyType;
+import io.strimzi.controller.cluster.model.Labels;
+import io.strimzi.controller.cluster.operator.assembly.KafkaAssemblyOperator;
+import io.strimzi.controller.cluster.operator.assembly.KafkaConnectAssemblyOperator;
+import io.strimzi.controller.cluster.operator.resource.ConfigMapOperator;
+import io.strimzi.controller.cluster.operator.resource.DeploymentOperator;
+import io.strimzi.controller.cluster.operator.resource.KafkaSetOperator;
+import io.strimzi.controller.cluster.operator.resource.PvcOperator;
+import io.strimzi.controller.cluster.operator.resource.ServiceOperator;
+import io.strimzi.controller.cluster.operator.resource.ZookeeperSetOperator;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
@@ -21,12 +38,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(VertxUnitRunner.class)
@@ -69,6 +94,8 @@ public class ClusterControllerTest {
         for (String namespace: namespaceList) {
 
             MixedOperation mockNamespacedCms = mock(MixedOperation.class);
+            when(mockNamespacedCms.list()).thenReturn(new ConfigMapListBuilder().build());
+            when(mockNamespacedCms.withResourceVersion(any())).thenReturn(mockNamespacedCms);
             when(mockNamespacedCms.watch(any())).thenAnswer(invo -> {
                 numWatchers.incrementAndGet();
                 Watch mockWatch = mock(Watch.class);
@@ -115,4 +142,189 @@ public class ClusterControllerTest {
         }
     }
 
+    private static ConfigMap kafkaConfigMap(String name, String resourceVersion) {
+        return kafkaConfigMap("namespace", name, resourceVersion);
+    }
+
+    private static ConfigMap kafkaConfigMap(String namespace, String name, String resourceVersion) {
+        return new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(name)
+                    .withResourceVersion(resourceVersion)
+                    .withLabels(Labels.forKind("cluster").withType(AssemblyType.KAFKA).toMap())
+                .endMetadata()
+                .build();
+    }
+
+    private void waitFor(TestContext context, BooleanSupplier condition) {
+        Async async = context.async();
+        vertx.setPeriodic(10, timer -> {
+            if (condition.getAsBoolean()) {
+                vertx.cancelTimer(timer);
+                async.complete();
+            }
+        });
+        async.await();
+    }
+
+    /**
+     * Does the CC resume watching from the last seen resourceVersion when the watch closes,
+     * and relist (reconciling what changed) when that resourceVersion is too old?
+     */
+    @Test
+    public void testWatchResumption(TestContext context) {
+        List<String> watchedFrom = new CopyOnWriteArrayList<>();
+        AtomicReference<Watcher<ConfigMap>> watcher = new AtomicReference<>();
+        KubernetesClient client = mock(KubernetesClient.class);
+        MixedOperation mockCms = mock(MixedOperation.class);
+        MixedOperation mockNamespacedCms = mock(MixedOperation.class);
+        when(client.configMaps()).thenReturn(mockCms);
+        when(mockCms.inNamespace("namespace")).thenReturn(mockNamespacedCms);
+        when(mockNamespacedCms.withLabels(any())).thenReturn(mockNamespacedCms);
+        when(mockNamespacedCms.list()).thenReturn(
+                new ConfigMapListBuilder().withNewMetadata().withResourceVersion("1").endMetadata()
+                        .withItems(kafkaConfigMap("foo", "1")).build(),
+                new ConfigMapListBuilder().withNewMetadata().withResourceVersion("8").endMetadata()
+                        .withItems(kafkaConfigMap("foo", "7")).build());
+        when(mockNamespacedCms.withResourceVersion(anyString())).thenAnswer(invocation -> {
+            watchedFrom.add(invocation.getArgument(0));
+            return mockNamespacedCms;
+        });
+        when(mockNamespacedCms.watch(any())).thenAnswer(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
+
+        // Record which assemblies get reconciled
+        List<String> reconciled = new CopyOnWriteArrayList<>();
+        ConfigMapOperator mockCmOps = mock(ConfigMapOperator.class);
+        when(mockCmOps.getAsync(anyString(), anyString())).thenAnswer(invocation -> {
+            reconciled.add(invocation.getArgument(1));
+            return Future.failedFuture("Not reconciling in this test");
+        });
+        KafkaAssemblyOperator kafkaOps = new KafkaAssemblyOperator(vertx, true, 1_000, mockCmOps,
+                mock(ServiceOperator.class), mock(ZookeeperSetOperator.class), mock(KafkaSetOperator.class),
+                mock(PvcOperator.class), mock(DeploymentOperator.class));
+        KafkaConnectAssemblyOperator connectOps = new KafkaConnectAssemblyOperator(vertx, true, mockCmOps,
+                mock(DeploymentOperator.class), mock(ServiceOperator.class));
+        ClusterController controller = new ClusterController("namespace", 120_000, client, kafkaOps, connectOps, null);
+
+        Async deployed = context.async();
+        vertx.deployVerticle(controller, context.asyncAssertSuccess(id -> deployed.complete()));
+        deployed.await();
+
+        // The initial list reconciles everything, and the watch starts from the list's resourceVersion
+        waitFor(context, () -> reconciled.contains("foo"));
+        context.assertEquals(asList("1"), watchedFrom);
+
+        // Events advance the resourceVersion, and a closed watch resumes from it without relisting
+        watcher.get().eventReceived(Watcher.Action.ADDED, kafkaConfigMap("bar", "5"));
+        waitFor(context, () -> reconciled.contains("bar"));
+        watcher.get().onClose(new KubernetesClientException("Connection reset"));
+        waitFor(context, () -> watchedFrom.size() == 2);
+        context.assertEquals("5", watchedFrom.get(1));
+        verify(mockNamespacedCms, times(1)).list();
+
+        // On 410 Gone we relist, reconciling the modified foo and the deleted bar
+        reconciled.clear();
+        watcher.get().onClose(new KubernetesClientException("Gone", 410, null));
+        waitFor(context, () -> watchedFrom.size() == 3);
+        context.assertEquals("8", watchedFrom.get(2));
+        waitFor(context, () -> reconciled.contains("foo") && reconciled.contains("bar"));
+        verify(mockNamespacedCms, times(2)).list();
+    }
+
+    /**
+     * Does a CC for all namespaces use a single watch, and reconcile assemblies in the namespace of their ConfigMap?
+     */
+    @Test
+    public void testAllNamespaces(TestContext context) {
+        KubernetesClient client = mock(KubernetesClient.class);
+        MixedOperation mockCms = mock(MixedOperation.class);
+        MixedOperation mockAllCms = mock(MixedOperation.class);
+        when(client.configMaps()).thenReturn(mockCms);
+        when(mockCms.inAnyNamespace()).thenReturn(mockAllCms);
+        when(mockAllCms.withLabels(any())).thenReturn(mockAllCms);
+        when(mockAllCms.list()).thenReturn(new ConfigMapListBuilder().withNewMetadata().withResourceVersion("3").endMetadata()
+                .withItems(kafkaConfigMap("ns1", "foo", "1"), kafkaConfigMap("ns2", "foo", "2")).build());
+        when(mockAllCms.withResourceVersion(anyString())).thenReturn(mockAllCms);
+        when(mockAllCms.watch(any())).thenReturn(mock(Watch.class));
+
+        List<String> reconciled = new CopyOnWriteArrayList<>();
+        ConfigMapOperator mockCmOps = mock(ConfigMapOperator.class);
+        when(mockCmOps.getAsync(anyString(), anyString())).thenAnswer(invocation -> {
+            reconciled.add(invocation.getArgument(0) + "/" + invocation.getArgument(1));
+            return Future.failedFuture("Not reconciling in this test");
+        });
+        KafkaAssemblyOperator kafkaOps = new KafkaAssemblyOperator(vertx, true, 1_000, mockCmOps,
+                mock(ServiceOperator.class), mock(ZookeeperSetOperator.class), mock(KafkaSetOperator.class),
+                mock(PvcOperator.class), mock(DeploymentOperator.class));
+        KafkaConnectAssemblyOperator connectOps = new KafkaConnectAssemblyOperator(vertx, true, mockCmOps,
+                mock(DeploymentOperator.class), mock(ServiceOperator.class));
+        ClusterController controller = new ClusterController("*", 120_000, client, kafkaOps, connectOps, null);
+
+        Async deployed = context.async();
+        vertx.deployVerticle(controller, context.asyncAssertSuccess(id -> deployed.complete()));
+        deployed.await();
+
+        waitFor(context, () -> reconciled.contains("ns1/foo") && reconciled.contains("ns2/foo"));
+        verify(mockAllCms, times(1)).watch(any());
+        verify(mockCms, times(0)).inNamespace(anyString());
+    }
+
+    /**
+     * Does a CC for all namespaces periodically reconcile namespaces which have assembly resources,
+     * but no assembly ConfigMap (for example because it was deleted while the CC wasn't running)?
+     */
+    @Test
+    public void testAllNamespacesFindsOrphans(TestContext context) {
+        KubernetesClient client = mock(KubernetesClient.class);
+        MixedOperation mockCms = mock(MixedOperation.class);
+        MixedOperation mockAllCms = mock(MixedOperation.class);
+        when(client.configMaps()).thenReturn(mockCms);
+        when(mockCms.inAnyNamespace()).thenReturn(mockAllCms);
+        when(mockAllCms.withLabels(any())).thenReturn(mockAllCms);
+        when(mockAllCms.list()).thenReturn(new ConfigMapListBuilder().withNewMetadata().withResourceVersion("3").endMetadata().build());
+        when(mockAllCms.withResourceVersion(anyString())).thenReturn(mockAllCms);
+        when(mockAllCms.watch(any())).thenReturn(mock(Watch.class));
+
+        List<String> reconciled = new CopyOnWriteArrayList<>();
+        ConfigMapOperator mockCmOps = mock(ConfigMapOperator.class);
+        when(mockCmOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(emptyList()));
+        when(mockCmOps.getAsync(anyString(), anyString())).thenAnswer(invocation -> {
+            reconciled.add(invocation.getArgument(0) + "/" + invocation.getArgument(1));
+            return Future.failedFuture("Not reconciling in this test");
+        });
+        // The only trace of the assembly is its service
+        Service orphan = new ServiceBuilder()
+                .withNewMetadata()
+                    .withNamespace("ns3")
+                    .withName("bar-kafka")
+                    .withLabels(Labels.forCluster("bar").withType(AssemblyType.KAFKA).toMap())
+                .endMetadata()
+                .build();
+        ServiceOperator mockServiceOps = mock(ServiceOperator.class);
+        when(mockServiceOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(singletonList(orphan)));
+        ZookeeperSetOperator mockZkSetOps = mock(ZookeeperSetOperator.class);
+        when(mockZkSetOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(emptyList()));
+        KafkaSetOperator mockKafkaSetOps = mock(KafkaSetOperator.class);
+        when(mockKafkaSetOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(emptyList()));
+        DeploymentOperator mockDeploymentOps = mock(DeploymentOperator.class);
+        when(mockDeploymentOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(emptyList()));
+        ServiceOperator mockConnectServiceOps = mock(ServiceOperator.class);
+        when(mockConnectServiceOps.listAsync(anyString(), any())).thenAnswer(invocation -> Future.succeededFuture(emptyList()));
+
+        KafkaAssemblyOperator kafkaOps = new KafkaAssemblyOperator(vertx, true, 1_000, mockCmOps,
+                mockServiceOps, mockZkSetOps, mockKafkaSetOps, mock(PvcOperator.class), mockDeploymentOps);
+        KafkaConnectAssemblyOperator connectOps = new KafkaConnectAssemblyOperator(vertx, true, mockCmOps,
+                mockDeploymentOps, mockConnectServiceOps);
+        ClusterController controller = new ClusterController("*", 200, client, kafkaOps, connectOps, null);
+
+        Async deployed = context.async();
+        vertx.deployVerticle(controller, context.asyncAssertSuccess(id -> deployed.complete()));
+        deployed.await();
+
+        waitFor(context, () -> reconciled.contains("ns3/bar"));
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ControllerMetricsTest {
+
+    @Test
+    public void testCounterAndGauge() {
+        ControllerMetrics metrics = new ControllerMetrics();
+        ControllerMetrics.Scalar counter = metrics.counter("test_total", "A counter", "kind", "result");
+        counter.labels("Service", "noop").inc();
+        counter.labels("Service", "noop").inc();
+        counter.labels("Service", "created").inc();
+        assertSame(counter, metrics.counter("test_total", "A counter", "kind", "result"));
+
+        AtomicInteger sampled = new AtomicInteger(3);
+        ControllerMetrics.Scalar gauge = metrics.gauge("test_gauge", "A \"gauge\"");
+        metrics.addCollector(() -> gauge.labels().set(sampled.get()));
+
+        assertEquals("# HELP test_gauge A \"gauge\"\n" +
+                "# TYPE test_gauge gauge\n" +
+                "test_gauge 3\n" +
+                "# HELP test_total A counter\n" +
+                "# TYPE test_total counter\n" +
+                "test_total{kind=\"Service\",result=\"created\"} 1\n" +
+                "test_total{kind=\"Service\",result=\"noop\"} 2\n",
+                metrics.scrape());
+
+        sampled.set(5);
+        assertTrue(metrics.scrape().contains("test_gauge 5\n"));
+    }
+
+    @Test
+    public void testHistogram() {
+        ControllerMetrics metrics = new ControllerMetrics();
+        ControllerMetrics.Histogram histogram = metrics.histogram("test_seconds", "A histogram", "phase");
+        histogram.labels("scale\"Up").observe(0.03125);
+        histogram.labels("scale\"Up").observe(0.5);
+        histogram.labels("scale\"Up").observe(1000);
+
+        String scraped = metrics.scrape();
+        assertTrue(scraped.contains("# TYPE test_seconds histogram\n"));
+        assertTrue(scraped.contains("test_seconds_bucket{phase=\"scale\\\"Up\",le=\"0.01\"} 0\n"));
+        assertTrue(scraped.contains("test_seconds_bucket{phase=\"scale\\\"Up\",le=\"0.05\"} 1\n"));
+        assertTrue(scraped.contains("test_seconds_bucket{phase=\"scale\\\"Up\",le=\"0.5\"} 2\n"));
+        assertTrue(scraped.contains("test_seconds_bucket{phase=\"scale\\\"Up\",le=\"600\"} 2\n"));
+        assertTrue(scraped.contains("test_seconds_bucket{phase=\"scale\\\"Up\",le=\"+Inf\"} 3\n"));
+        assertTrue(scraped.contains("test_seconds_sum{phase=\"scale\\\"Up\"} 1000.53125\n"));
+        assertTrue(scraped.contains("test_seconds_count{phase=\"scale\\\"Up\"} 3\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfLabels() {
+        new ControllerMetrics().counter("test_total", "A counter", "kind").labels("Service", "noop");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConflictingRegistration() {
+        ControllerMetrics metrics = new ControllerMetrics();
+        metrics.counter("test_total", "A counter", "kind");
+        metrics.histogram("test_total", "A histogram", "kind");
+    }
+
+    @Test
+    public void testReadiness() {
+        ControllerMetrics metrics = new ControllerMetrics();
+        assertTrue(metrics.isReady());
+        AtomicBoolean watching = new AtomicBoolean(true);
+        metrics.addReadinessCheck("watch", watching::get);
+        assertTrue(metrics.isReady());
+        watching.set(false);
+        assertFalse(metrics.isReady());
+    }
+}
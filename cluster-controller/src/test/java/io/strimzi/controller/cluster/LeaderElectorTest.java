@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Replaceable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class LeaderElectorTest {
+
+    private static final String NAMESPACE = "namespace";
+    private static final String LEASE = "strimzi-cluster-controller";
+
+    private Vertx vertx;
+    private KubernetesClient client;
+    /** The lease ConfigMap, as stored by the API server */
+    private final AtomicReference<ConfigMap> lease = new AtomicReference<>();
+
+    @Before
+    public void before() {
+        vertx = Vertx.vertx();
+        client = mockClient();
+    }
+
+    @After
+    public void after() {
+        vertx.close();
+    }
+
+    /**
+     * A client whose create and (resourceVersion-locked) replace of the lease fail with a conflict,
+     * as the API server's would, if the lease was changed in the meantime.
+     */
+    @SuppressWarnings("unchecked")
+    private KubernetesClient mockClient() {
+        Resource<ConfigMap, DoneableConfigMap> resource = mock(Resource.class);
+        when(resource.get()).thenAnswer(invocation -> lease.get());
+        when(resource.create(any(ConfigMap.class))).thenAnswer(invocation -> {
+            ConfigMap cm = invocation.getArgument(0);
+            if (!lease.compareAndSet(null, withResourceVersion(cm, 1))) {
+                throw new KubernetesClientException("Already exists", 409, null);
+            }
+            return lease.get();
+        });
+        when(resource.lockResourceVersion(anyString())).thenAnswer(lock -> {
+            Replaceable<ConfigMap, ConfigMap> replaceable = mock(Replaceable.class);
+            when(replaceable.replace(any())).thenAnswer(invocation -> {
+                ConfigMap current = lease.get();
+                String resourceVersion = lock.getArgument(0);
+                if (current == null || !resourceVersion.equals(current.getMetadata().getResourceVersion())
+                        || !lease.compareAndSet(current, withResourceVersion(invocation.getArgument(0),
+                                Integer.parseInt(resourceVersion) + 1))) {
+                    throw new KubernetesClientException("Conflict", 409, null);
+                }
+                return lease.get();
+            });
+            return replaceable;
+        });
+        MixedOperation configMaps = mock(MixedOperation.class);
+        when(configMaps.inNamespace(NAMESPACE)).thenReturn(configMaps);
+        when(configMaps.withName(LEASE)).thenReturn(resource);
+        KubernetesClient client = mock(KubernetesClient.class);
+        when(client.configMaps()).thenReturn(configMaps);
+        return client;
+    }
+
+    private static ConfigMap withResourceVersion(ConfigMap cm, int resourceVersion) {
+        return new ConfigMapBuilder(cm).editMetadata().withResourceVersion(String.valueOf(resourceVersion)).endMetadata().build();
+    }
+
+    private LeaderElector elector(String identity, long leaseDurationMs) {
+        return new LeaderElector(vertx, client, new LeaderElectionConfig(LEASE, NAMESPACE, identity, leaseDurationMs));
+    }
+
+    private JsonObject record() {
+        return new JsonObject(lease.get().getMetadata().getAnnotations().get(LeaderElector.LEADER_ANNOTATION));
+    }
+
+    @Test
+    public void testOnlyOneLeader() {
+        LeaderElector a = elector("a", 15_000);
+        LeaderElector b = elector("b", 15_000);
+
+        assertTrue(a.tryAcquireOrRenew());
+        assertFalse(b.tryAcquireOrRenew());
+        assertEquals("a", record().getString("holderIdentity"));
+        assertEquals(15, (long) record().getLong("leaseDurationSeconds"));
+        assertEquals(1, (int) record().getInteger("leaderTransitions"));
+
+        // Renewing keeps the acquire time and doesn't count as a transition
+        String acquireTime = record().getString("acquireTime");
+        assertTrue(a.tryAcquireOrRenew());
+        assertFalse(b.tryAcquireOrRenew());
+        assertEquals("a", record().getString("holderIdentity"));
+        assertEquals(acquireTime, record().getString("acquireTime"));
+        assertEquals(1, (int) record().getInteger("leaderTransitions"));
+    }
+
+    @Test
+    public void testTakeOverExpiredLease() throws InterruptedException {
+        LeaderElector a = elector("a", 1_000);
+        LeaderElector b = elector("b", 1_000);
+
+        assertTrue(a.tryAcquireOrRenew());
+        assertFalse(b.tryAcquireOrRenew());
+
+        // b measures the lease from when it first saw it, so it takes over once a has stopped renewing for that long
+        Thread.sleep(1_100);
+        assertTrue(b.tryAcquireOrRenew());
+        assertEquals("b", record().getString("holderIdentity"));
+        assertEquals(2, (int) record().getInteger("leaderTransitions"));
+        assertFalse(a.tryAcquireOrRenew());
+    }
+
+    @Test
+    public void testReleasedLeaseIsTakenOverImmediately(TestContext context) {
+        LeaderElector a = elector("a", 15_000);
+        LeaderElector b = elector("b", 15_000);
+
+        Async started = context.async();
+        a.start(v -> started.complete(), v -> context.fail("Didn't expect to lose the leadership"));
+        started.await();
+        assertTrue(a.isLeader());
+        assertFalse(b.tryAcquireOrRenew());
+
+        a.release();
+        assertFalse(a.isLeader());
+        assertEquals("", record().getString("holderIdentity"));
+        assertTrue(b.tryAcquireOrRenew());
+        assertEquals("b", record().getString("holderIdentity"));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster;
+
+import io.strimzi.controller.cluster.model.AssemblyType;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReconciliationHistoryTest {
+
+    private Reconciliation completed(ReconciliationHistory history, String namespace, String name, Throwable failure) {
+        Reconciliation reconciliation = new Reconciliation("test", AssemblyType.KAFKA, namespace, name);
+        reconciliation.started();
+        history.started(reconciliation);
+        reconciliation.startStep("kafka.scaleDown").completed(true);
+        reconciliation.startStep("kafka.statefulSet").completed(failure == null);
+        reconciliation.completed(failure);
+        history.completed(reconciliation);
+        return reconciliation;
+    }
+
+    @Test
+    public void testSummary() {
+        Reconciliation reconciliation = new Reconciliation("test", AssemblyType.KAFKA, "ns", "foo");
+        reconciliation.started();
+        reconciliation.startStep("kafka.scaleDown").completed(true);
+        reconciliation.startStep("kafka.statefulSet").completed(false);
+        reconciliation.startStep("kafka.readiness");
+        assertTrue(reconciliation.summary().matches(
+                "Reconciliation #\\d+\\(test\\) kafka\\(ns/foo\\): running for \\d+ms after waiting \\d+ms " +
+                "\\[kafka.scaleDown \\d+ms, kafka.statefulSet \\d+ms \\(failed\\), kafka.readiness \\d+ms \\(running\\)]"));
+
+        reconciliation.completed(new RuntimeException("boom"));
+        assertTrue(reconciliation.isComplete());
+        assertTrue(reconciliation.summary().contains("): failed in "));
+    }
+
+    @Test
+    public void testBoundedAndFiltered() {
+        ReconciliationHistory history = new ReconciliationHistory(2);
+        completed(history, "ns", "foo", null);
+        Reconciliation bar = completed(history, "ns", "bar", null);
+        Reconciliation baz = completed(history, "other", "baz", new RuntimeException("boom"));
+        Reconciliation running = new Reconciliation("test", AssemblyType.CONNECT, "ns", "qux");
+        running.started();
+        history.started(running);
+
+        List<Reconciliation> all = history.find(null, null, 0);
+        assertEquals(3, all.size());
+        // Running first, then completed newest first, with the oldest evicted
+        assertEquals(running, all.get(0));
+        assertEquals(baz, all.get(1));
+        assertEquals(bar, all.get(2));
+
+        assertEquals(2, history.find("ns", null, 0).size());
+        assertEquals(1, history.find(null, "baz", 0).size());
+        assertTrue(history.find(null, null, 60_000).isEmpty());
+    }
+
+    @Test
+    public void testJson() {
+        ReconciliationHistory history = new ReconciliationHistory();
+        Reconciliation reconciliation = completed(history, "ns", "foo", new RuntimeException("boom"));
+
+        JsonArray json = ReconciliationHistory.toJson(history.find(null, null, 0));
+        assertEquals(1, json.size());
+        JsonObject object = json.getJsonObject(0);
+        assertEquals(reconciliation.id(), (int) object.getInteger("id"));
+        assertEquals("kafka", object.getString("type"));
+        assertEquals("ns", object.getString("namespace"));
+        assertEquals("foo", object.getString("name"));
+        assertEquals("failed", object.getString("result"));
+        assertEquals("boom", object.getString("error"));
+        JsonArray steps = object.getJsonArray("steps");
+        assertEquals(2, steps.size());
+        assertEquals("kafka.scaleDown", steps.getJsonObject(0).getString("name"));
+        assertEquals("succeeded", steps.getJsonObject(0).getString("result"));
+        assertEquals("failed", steps.getJsonObject(1).getString("result"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new ReconciliationHistory(0);
+    }
+}
@@ -12,6 +12,8 @@ import org.junit.Test;
 
 import static io.strimzi.controller.cluster.ResourceUtils.labels;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class KafkaClusterTest {
 
@@ -134,4 +136,43 @@ public class KafkaClusterTest {
         }
     }
 
+    @Test
+    public void testReassignmentThrottle() {
+        assertEquals(KafkaCluster.DEFAULT_REASSIGNMENT_THROTTLE, kc.getReassignmentThrottle());
+
+        cm.getData().put(KafkaCluster.KEY_REASSIGNMENT_THROTTLE, "1048576");
+        assertEquals(1048576L, KafkaCluster.fromConfigMap(cm).getReassignmentThrottle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidReassignmentThrottle() {
+        cm.getData().put(KafkaCluster.KEY_REASSIGNMENT_THROTTLE, "-1");
+        KafkaCluster.fromConfigMap(cm);
+    }
+
+    @Test
+    public void testRebalance() {
+        assertFalse(kc.isRebalanceOnScaleUp());
+        assertEquals(10, kc.getRebalanceMaxMoves());
+
+        cm.getData().put(KafkaCluster.KEY_REBALANCE_ON_SCALE_UP, "true");
+        cm.getData().put(KafkaCluster.KEY_REBALANCE_MAX_MOVES, "5");
+        KafkaCluster kafka = KafkaCluster.fromConfigMap(cm);
+        assertTrue(kafka.isRebalanceOnScaleUp());
+        assertEquals(5, kafka.getRebalanceMaxMoves());
+    }
+
+    @Test
+    public void testScaleDownMovePartitions() {
+        assertTrue(kc.isScaleDownMovePartitions());
+
+        cm.getData().put(KafkaCluster.KEY_SCALE_DOWN_MOVE_PARTITIONS, "false");
+        assertFalse(KafkaCluster.fromConfigMap(cm).isScaleDownMovePartitions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRebalanceMaxMoves() {
+        cm.getData().put(KafkaCluster.KEY_REBALANCE_MAX_MOVES, "0");
+        KafkaCluster.fromConfigMap(cm);
+    }
 }
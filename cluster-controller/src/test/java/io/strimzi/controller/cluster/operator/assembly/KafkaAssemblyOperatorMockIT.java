@@ -661,7 +661,12 @@ public class KafkaAssemblyOperatorMockIT {
         mockClient.configMaps().inNamespace(NAMESPACE).withName(CLUSTER_NAME).delete();
 
         LOGGER.info("reconcileAll after CM deletion -> All resources should be deleted");
-        kco.reconcileAll("test-trigger", NAMESPACE, Labels.forKind("cluster")).await();
+        Async reconcileAsync = context.async();
+        kco.reconcileAll("test-trigger", NAMESPACE, Labels.forKind("cluster")).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            reconcileAsync.complete();
+        });
+        reconcileAsync.await();
 
         // Assert no CMs, Services, StatefulSets, Deployments are left
         context.assertTrue(mockClient.configMaps().inNamespace(NAMESPACE).list().getItems().isEmpty());
@@ -49,8 +49,10 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -175,9 +177,10 @@ public class KafkaAssemblyOperatorTest {
         when(mockZsOps.rollingUpdate(anyString(), anyString())).thenReturn(Future.succeededFuture());
         when(mockZsOps.scaleUp(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(42));
         when(mockKsOps.reconcile(anyString(), anyString(), ssCaptor.capture())).thenReturn(Future.succeededFuture(ReconcileResult.created()));
-        when(mockKsOps.scaleDown(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(null));
+        when(mockKsOps.scaleDown(anyString(), anyString(), anyInt(), anyLong(), anyBoolean())).thenReturn(Future.succeededFuture(null));
         when(mockKsOps.rollingUpdate(anyString(), anyString())).thenReturn(Future.succeededFuture());
         when(mockKsOps.scaleUp(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(42));
+        when(mockKsOps.rebalance(anyString(), anyString(), anyLong(), anyInt())).thenReturn(Future.succeededFuture());
         ArgumentCaptor<Deployment> depCaptor = ArgumentCaptor.forClass(Deployment.class);
         when(mockDepOps.reconcile(anyString(), anyString(), depCaptor.capture())).thenReturn(Future.succeededFuture(ReconcileResult.created()));
 
@@ -565,9 +568,10 @@ public class KafkaAssemblyOperatorTest {
         when(mockKsOps.scaleUp(anyString(), scaledUpCaptor.capture(), anyInt())).thenReturn(
                 Future.succeededFuture(42)
         );
+        when(mockKsOps.rebalance(anyString(), anyString(), anyLong(), anyInt())).thenReturn(Future.succeededFuture());
         // Mock StatefulSet scaleDown
         //ArgumentCaptor<String> scaledDownCaptor = ArgumentCaptor.forClass(String.class);
-        when(mockKsOps.scaleDown(anyString(), scaledDownCaptor.capture(), anyInt())).thenReturn(
+        when(mockKsOps.scaleDown(anyString(), scaledDownCaptor.capture(), anyInt(), anyLong(), anyBoolean())).thenReturn(
                 Future.succeededFuture(42)
         );
         when(mockKsOps.rollingUpdate(anyString(), anyString())).thenAnswer(i -> {
@@ -613,6 +617,40 @@ public class KafkaAssemblyOperatorTest {
         });
     }
 
+    @Test
+    public void testKafkaScaleDownWaitsForZookeeper(TestContext context) {
+        ConfigMap clusterCm = getConfigMap("foo");
+        ConfigMapOperator mockCmOps = mock(ConfigMapOperator.class);
+        ServiceOperator mockServiceOps = mock(ServiceOperator.class);
+        ZookeeperSetOperator mockZsOps = mock(ZookeeperSetOperator.class);
+        KafkaSetOperator mockKsOps = mock(KafkaSetOperator.class);
+        PvcOperator mockPvcOps = mock(PvcOperator.class);
+        DeploymentOperator mockDepOps = mock(DeploymentOperator.class);
+
+        when(mockCmOps.reconcile(anyString(), anyString(), any())).thenReturn(Future.succeededFuture(ReconcileResult.created()));
+        when(mockServiceOps.reconcile(anyString(), anyString(), any())).thenReturn(Future.succeededFuture(ReconcileResult.created()));
+        when(mockZsOps.scaleDown(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(null));
+        when(mockZsOps.reconcile(anyString(), anyString(), any())).thenReturn(Future.succeededFuture(ReconcileResult.created()));
+        // ZooKeeper never comes up
+        when(mockZsOps.scaleUp(anyString(), anyString(), anyInt())).thenReturn(Future.failedFuture("ZooKeeper not ready"));
+        when(mockKsOps.scaleDown(anyString(), anyString(), anyInt(), anyLong(), anyBoolean())).thenReturn(Future.succeededFuture(null));
+
+        KafkaAssemblyOperator ops = new KafkaAssemblyOperator(vertx, openShift,
+                ClusterControllerConfig.DEFAULT_OPERATION_TIMEOUT_MS,
+                mockCmOps,
+                mockServiceOps, mockZsOps, mockKsOps,
+                mockPvcOps, mockDepOps);
+
+        Async async = context.async();
+        ops.createOrUpdate(new Reconciliation("test-trigger", AssemblyType.KAFKA, clusterCm.getMetadata().getNamespace(), clusterCm.getMetadata().getName()), clusterCm, createResult -> {
+            context.assertTrue(createResult.failed());
+            // Kafka isn't scaled down while ZooKeeper isn't ready, but its Services are still reconciled
+            verify(mockKsOps, never()).scaleDown(anyString(), anyString(), anyInt(), anyLong(), anyBoolean());
+            verify(mockServiceOps).reconcile(anyString(), eq(KafkaCluster.kafkaClusterName(clusterCm.getMetadata().getName())), any());
+            async.complete();
+        });
+    }
+
     @Test
     public void testReconcile(TestContext context) {
         Async async = context.async(3);
@@ -630,31 +668,33 @@ public class KafkaAssemblyOperatorTest {
         ConfigMap foo = getConfigMap("foo");
         ConfigMap bar = getConfigMap("bar");
         ConfigMap baz = getConfigMap("baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(
-            asList(foo, bar)
-        );
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(
+                asList(foo, bar)));
         // when requested ConfigMap for a specific Kafka cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("baz"))).thenReturn(Future.succeededFuture(null));
 
 
         // providing the list of ALL StatefulSets for all the Kafka clusters
         Labels newLabels = Labels.forType(AssemblyType.KAFKA);
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaCluster.fromConfigMap(bar).generateStatefulSet(openShift),
-                        KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))
-        );
+                        KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))));
 
         // providing the list StatefulSets for already "existing" Kafka clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
-                asList(KafkaCluster.fromConfigMap(bar).generateStatefulSet(openShift))
-        );
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaCluster.fromConfigMap(bar).generateStatefulSet(openShift))));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
-                asList(KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))
-        );
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))));
+
+        // the other resources are not needed for this test
+        when(mockServiceOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockZsOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockDepOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         Set<String> createdOrUpdated = new HashSet<>();
         Set<String> deleted = new HashSet<>();
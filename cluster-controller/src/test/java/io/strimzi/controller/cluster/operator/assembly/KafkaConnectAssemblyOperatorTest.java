@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -411,27 +412,29 @@ public class KafkaConnectAssemblyOperatorTest {
         ConfigMap foo = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "foo");
         ConfigMap bar = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "bar");
         ConfigMap baz = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(asList(foo, bar));
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(asList(foo, bar)));
         // when requested ConfigMap for a specific Kafka Connect cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("baz"))).thenReturn(Future.succeededFuture(null));
 
         // providing the list of ALL Deployments for all the Kafka Connect clusters
         Labels newLabels = Labels.forType(AssemblyType.CONNECT);
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectCluster.fromConfigMap(bar).generateDeployment(),
-                        KafkaConnectCluster.fromConfigMap(baz).generateDeployment()));
+                        KafkaConnectCluster.fromConfigMap(baz).generateDeployment())));
 
         // providing the list Deployments for already "existing" Kafka Connect clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
-                asList(KafkaConnectCluster.fromConfigMap(bar).generateDeployment())
-        );
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaConnectCluster.fromConfigMap(bar).generateDeployment())));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
-                asList(KafkaConnectCluster.fromConfigMap(baz).generateDeployment())
-        );
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaConnectCluster.fromConfigMap(baz).generateDeployment())));
+
+        // the other resources are not needed for this test
+        when(mockServiceOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         Set<String> createdOrUpdated = new HashSet<>();
         Set<String> deleted = new HashSet<>();
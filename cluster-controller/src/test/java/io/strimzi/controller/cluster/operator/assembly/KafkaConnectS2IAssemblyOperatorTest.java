@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -570,27 +571,31 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         ConfigMap foo = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "foo");
         ConfigMap bar = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "bar");
         ConfigMap baz = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(asList(foo, bar));
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(asList(foo, bar)));
         // when requested ConfigMap for a specific Kafka Connect S2I cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("baz"))).thenReturn(Future.succeededFuture(null));
 
         // providing the list of ALL DeploymentConfigs for all the Kafka Connect S2I clusters
         Labels newLabels = Labels.forType(AssemblyType.CONNECT_S2I);
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectS2ICluster.fromConfigMap(bar).generateDeploymentConfig(),
-                        KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig()));
+                        KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig())));
 
         // providing the list DeploymentConfigs for already "existing" Kafka Connect S2I clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
-                asList(KafkaConnectS2ICluster.fromConfigMap(bar).generateDeploymentConfig())
-        );
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaConnectS2ICluster.fromConfigMap(bar).generateDeploymentConfig())));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
-                asList(KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig())
-        );
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
+                asList(KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig())));
+
+        // the other resources are not needed for this test
+        when(mockServiceOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockIsOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockBcOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         Set<String> createdOrUpdated = new HashSet<>();
         Set<String> deleted = new HashSet<>();
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.assembly;
+
+import io.strimzi.controller.cluster.Reconciliation;
+import io.strimzi.controller.cluster.model.AssemblyType;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@RunWith(VertxUnitRunner.class)
+public class ReconciliationQueueTest {
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static Reconciliation reconciliation(String name) {
+        return reconciliation("test", name);
+    }
+
+    private static Reconciliation reconciliation(String trigger, String name) {
+        return new Reconciliation(trigger, AssemblyType.KAFKA, "test", name);
+    }
+
+    @Test
+    public void testCoalescing(TestContext context) {
+        List<Reconciliation> performed = new CopyOnWriteArrayList<>();
+        List<Future<Void>> results = new CopyOnWriteArrayList<>();
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, r -> {
+            performed.add(r);
+            Future<Void> result = Future.future();
+            results.add(result);
+            return result;
+        });
+
+        Async async = context.async(4);
+        Reconciliation first = reconciliation("foo");
+        queue.submit(first, ar -> {
+            context.assertTrue(ar.succeeded());
+            async.countDown();
+        });
+        // These three should result in a single further reconciliation of foo
+        for (int i = 0; i < 3; i++) {
+            queue.submit(reconciliation("foo"), ar -> {
+                context.assertTrue(ar.failed());
+                async.countDown();
+            });
+        }
+        context.assertEquals(2, queue.depth());
+        context.assertEquals(2L, queue.merged());
+
+        vertx.setPeriodic(10, timer -> {
+            if (performed.size() == 1 && results.size() == 1) {
+                context.assertEquals(first, performed.get(0));
+                results.get(0).complete();
+            } else if (performed.size() == 2 && results.size() == 2) {
+                vertx.cancelTimer(timer);
+                results.get(1).fail("Failed");
+            }
+        });
+        async.await();
+        context.assertEquals(2, performed.size());
+        context.assertEquals(0, queue.depth());
+        context.assertEquals(2L, queue.started());
+    }
+
+    @Test
+    public void testDifferentAssembliesRunConcurrently(TestContext context) {
+        List<Reconciliation> performed = new CopyOnWriteArrayList<>();
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, r -> {
+            performed.add(r);
+            return Future.future();
+        });
+        queue.submit(reconciliation("foo"), ar -> { });
+        queue.submit(reconciliation("bar"), ar -> { });
+        Async async = context.async();
+        vertx.setPeriodic(10, timer -> {
+            if (performed.size() == 2) {
+                vertx.cancelTimer(timer);
+                context.assertEquals(2, queue.depth());
+                async.complete();
+            }
+        });
+    }
+
+    @Test
+    public void testThrowingReconciliationCompletesHandler(TestContext context) {
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, r -> {
+            throw new RuntimeException("Boom");
+        });
+        Async async = context.async();
+        queue.submit(reconciliation("foo"), ar -> {
+            context.assertTrue(ar.failed());
+            context.assertEquals("Boom", ar.cause().getMessage());
+            context.assertEquals(0, queue.depth());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testWatchTakesPriorityOverTimer(TestContext context) {
+        List<String> performed = new CopyOnWriteArrayList<>();
+        List<Future<Void>> results = new CopyOnWriteArrayList<>();
+        ReconciliationScheduler scheduler = new ReconciliationScheduler(1);
+        ReconciliationQueue queue = new ReconciliationQueue(vertx, scheduler, r -> {
+            performed.add(r.assemblyName() + "/" + r.trigger());
+            Future<Void> result = Future.future();
+            results.add(result);
+            return result;
+        });
+
+        Async async = context.async(5);
+        queue.submit(reconciliation("timer", "foo"), ar -> async.countDown());
+        queue.submit(reconciliation("timer", "bar"), ar -> async.countDown());
+        queue.submit(reconciliation("timer", "baz"), ar -> async.countDown());
+        // Only one sweep reconciliation may run, but watch-triggered ones don't wait for it
+        context.assertEquals(1, scheduler.runningSweeps());
+        context.assertEquals(2, scheduler.waitingSweeps());
+        queue.submit(reconciliation("watch", "qux"), ar -> async.countDown());
+        // A watch event for a waiting assembly is merged into, and promotes, its reconciliation
+        queue.submit(reconciliation("watch", "baz"), ar -> async.countDown());
+        context.assertEquals(1, scheduler.waitingSweeps());
+        context.assertEquals(1L, queue.merged());
+
+        vertx.setPeriodic(10, timer -> {
+            if (performed.size() == 3) {
+                context.assertTrue(performed.contains("foo/timer"));
+                context.assertTrue(performed.contains("qux/watch"));
+                context.assertTrue(performed.contains("baz/timer"));
+                context.assertFalse(performed.contains("bar/timer"));
+                // Completing the running sweep reconciliation lets the waiting one start
+                results.get(performed.indexOf("foo/timer")).tryComplete();
+                results.get(performed.indexOf("qux/watch")).tryComplete();
+                results.get(performed.indexOf("baz/timer")).tryComplete();
+            } else if (performed.size() == 4) {
+                vertx.cancelTimer(timer);
+                context.assertEquals("bar/timer", performed.get(3));
+                results.get(3).complete();
+            }
+        });
+        async.await();
+        context.assertEquals(0, scheduler.runningSweeps());
+        Map<String, ReconciliationScheduler.Latency> latencies = scheduler.latencies();
+        context.assertEquals(3L, latencies.get("timer").count());
+        context.assertEquals(2L, latencies.get("watch").count());
+    }
+}
@@ -7,6 +7,8 @@ package io.strimzi.controller.cluster.operator.resource;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
@@ -20,9 +22,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.matches;
 import static org.mockito.Mockito.mock;
@@ -107,6 +111,78 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
         });
     }
 
+    @Test
+    public void existsWithSameFingerprintIsNoop(TestContext context) {
+        T current = resource();
+        ResourceFingerprint.stamp(current);
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(current);
+        when(mockResource.cascading(anyBoolean())).thenReturn(mockResource);
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(current.getMetadata().getName()))).thenReturn(mockResource);
+        KubernetesResourceList mockList = mock(KubernetesResourceList.class);
+        when(mockList.getItems()).thenReturn(singletonList(current));
+        FilterWatchListDeletable mockLabelled = mock(FilterWatchListDeletable.class);
+        when(mockLabelled.list()).thenReturn(mockList);
+        when(mockLabelled.withResourceVersion(any())).thenReturn(mockLabelled);
+        when(mockLabelled.watch(any())).thenReturn(mock(Watch.class));
+        when(mockNameable.withLabel(any())).thenReturn(mockLabelled);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(current.getMetadata().getNamespace()))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R, P> op = createResourceOperations(vertx, mockClient);
+
+        // Subclasses may start other caches too, whose clients aren't mocked, so don't require success
+        Async synced = context.async();
+        op.startCache(current.getMetadata().getNamespace()).setHandler(ar -> synced.complete());
+        synced.await();
+
+        Async async = context.async();
+        // Once a synced cache is watching for drift, a resource with the desired fingerprint isn't patched,
+        // even though this controller didn't write it
+        op.createOrUpdate(resource()).setHandler(ar -> {
+            assertTrue(ar.succeeded());
+            assertEquals(ReconcileResult.noop(), ar.result());
+            verify(mockResource, never()).patch(any());
+            verify(mockResource, never()).create(any());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void existsWithSameFingerprintButNoCacheIsAPatch(TestContext context) {
+        T current = resource();
+        ResourceFingerprint.stamp(current);
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(current);
+        when(mockResource.cascading(anyBoolean())).thenReturn(mockResource);
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(current.getMetadata().getName()))).thenReturn(mockResource);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(current.getMetadata().getNamespace()))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R, P> op = createResourceOperations(vertx, mockClient);
+
+        Async async = context.async();
+        // Without a cache drift can't be detected, so the fingerprint isn't trusted
+        op.createOrUpdate(resource()).setHandler(ar -> {
+            assertTrue(ar.succeeded());
+            verify(mockResource).patch(any());
+            verify(mockResource, never()).create(any());
+            async.complete();
+        });
+    }
+
     @Test
     public void existenceCheckThrows(TestContext context) {
         T resource = resource();
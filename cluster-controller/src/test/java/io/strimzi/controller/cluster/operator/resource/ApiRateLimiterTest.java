@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.strimzi.controller.cluster.operator.resource.ApiRateLimiter.Lane;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ApiRateLimiterTest {
+
+    private static Request request(String method, String url) {
+        return new Request.Builder().url(url).method(method, null).build();
+    }
+
+    private static Response response(Request request, int code, String retryAfter) {
+        Response.Builder builder = new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(code).message("");
+        if (retryAfter != null) {
+            builder.header("Retry-After", retryAfter);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testBurstThenRate() throws InterruptedException {
+        ApiRateLimiter limiter = new ApiRateLimiter(10, 2);
+        long start = System.nanoTime();
+        limiter.acquire(Lane.READ);
+        limiter.acquire(Lane.READ);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+
+        // The third waits for a token
+        limiter.acquire(Lane.READ);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 80);
+        assertTrue(limiter.totalWaitMs(Lane.READ) >= 80);
+    }
+
+    @Test
+    public void testHigherLanesFirst() throws InterruptedException {
+        ApiRateLimiter limiter = new ApiRateLimiter(5, 1);
+        limiter.acquire(Lane.READ);
+
+        List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (Lane lane : asList(Lane.READINESS, Lane.READ, Lane.WATCH, Lane.WRITE)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire(lane);
+                    order.add(lane);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            // Each lane starts waiting before the next, and well before the next token (after 200ms)
+            Thread.sleep(30);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(asList(Lane.WRITE, Lane.WATCH, Lane.READ, Lane.READINESS), order);
+    }
+
+    @Test
+    public void testLeaseDoesNotWait() throws InterruptedException {
+        ApiRateLimiter limiter = new ApiRateLimiter(10, 1);
+        limiter.acquire(Lane.READ);
+        long start = System.nanoTime();
+        limiter.acquire(Lane.LEASE);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+
+        // The lease's token is repaid before the next read gets one
+        limiter.acquire(Lane.READ);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+    }
+
+    @Test
+    public void testLaneOfTask() {
+        assertEquals(Lane.WRITE, Lane.of(WorkerPools.Purpose.WRITE, true));
+        assertEquals(Lane.READINESS, Lane.of(WorkerPools.Purpose.READINESS, true));
+        assertEquals(Lane.READ, Lane.of(WorkerPools.Purpose.READ, ApiRateLimiter.isUrgent()));
+        assertEquals(Lane.WATCH, ApiRateLimiter.urgently(() -> Lane.of(WorkerPools.Purpose.READ, ApiRateLimiter.isUrgent())));
+    }
+
+    @Test
+    public void testLaneOfRequest() {
+        assertEquals(Lane.READ, ApiRateLimiter.laneOf(request("GET", "https://kubernetes/api/v1/pods")));
+        assertEquals(Lane.WRITE, ApiRateLimiter.laneOf(request("DELETE", "https://kubernetes/api/v1/pods/foo")));
+        ApiRateLimiter.runAs(Lane.READINESS,
+            () -> assertEquals(Lane.READINESS, ApiRateLimiter.laneOf(request("GET", "https://kubernetes/api/v1/pods/foo"))));
+    }
+
+    @Test
+    public void testRetriesTooManyRequests() throws Exception {
+        ApiRateLimiter limiter = new ApiRateLimiter(100, 10);
+        Request request = request("GET", "https://kubernetes/api/v1/pods");
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        AtomicInteger attempts = new AtomicInteger();
+        when(chain.proceed(any())).thenAnswer(invocation ->
+                response(request, attempts.incrementAndGet() < 3 ? 429 : 200, "0"));
+
+        assertEquals(200, limiter.intercept(chain).code());
+        verify(chain, times(3)).proceed(request);
+    }
+
+    @Test
+    public void testWatchesAreNotLimited() throws Exception {
+        ApiRateLimiter limiter = new ApiRateLimiter(1, 1);
+        Request request = request("GET", "https://kubernetes/api/v1/pods?watch=true");
+        Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(any())).thenAnswer(invocation -> response(request, 200, null));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.intercept(chain);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertEquals(0, limiter.totalWaitMs(Lane.READ));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBurst() {
+        new ApiRateLimiter(10, 0);
+    }
+}
@@ -7,21 +7,38 @@ package io.strimzi.controller.cluster.operator.resource;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.EnvVar;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.client.KubernetesClient;
 import io.strimzi.controller.cluster.ResourceUtils;
 import io.strimzi.controller.cluster.model.KafkaCluster;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static io.strimzi.controller.cluster.model.AbstractModel.containerEnvVars;
 import static io.strimzi.controller.cluster.model.KafkaCluster.KEY_KAFKA_DEFAULT_REPLICATION_FACTOR;
 import static io.strimzi.controller.cluster.model.KafkaCluster.KEY_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR;
 import static io.strimzi.controller.cluster.model.KafkaCluster.KEY_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR;
 import static io.strimzi.controller.cluster.model.KafkaCluster.KEY_KAFKA_ZOOKEEPER_CONNECT;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class KafkaSetOperatorTest {
 
@@ -133,4 +150,88 @@ public class KafkaSetOperatorTest {
                 "foo", null));
         assertTrue(KafkaSetOperator.needsRollingUpdate(diff()));
     }
+
+    @Test
+    public void testRollingOrderControllerLast() {
+        assertEquals(asList(0, 2, 1), KafkaSetOperator.rollingOrder(3, 1, broker -> false));
+        assertEquals(asList(0, 1, 2), KafkaSetOperator.rollingOrder(3, null, broker -> false));
+        // A controller which isn't one of our brokers (e.g. during scale down) doesn't change the order
+        assertEquals(asList(0, 1, 2), KafkaSetOperator.rollingOrder(3, 5, broker -> false));
+    }
+
+    @Test
+    public void testRollingOrderSkipsUpToDate() {
+        assertEquals(asList(0, 2), KafkaSetOperator.rollingOrder(3, 2, broker -> broker == 1));
+        assertEquals(singletonList(2), KafkaSetOperator.rollingOrder(3, 0, broker -> broker != 2));
+        assertEquals(asList(), KafkaSetOperator.rollingOrder(3, 0, broker -> true));
+    }
+
+    private static List<Node> nodes(int... ids) {
+        Node[] nodes = new Node[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nodes[i] = new Node(ids[i], "broker-" + ids[i], 9092);
+        }
+        return asList(nodes);
+    }
+
+    @Test
+    public void testIsInSync() {
+        TopicDescription topic = new TopicDescription("foo", false, asList(
+                new TopicPartitionInfo(0, nodes(0).get(0), nodes(0, 1), nodes(0, 1)),
+                new TopicPartitionInfo(1, nodes(2).get(0), nodes(2, 0), nodes(2))));
+        // Broker 0 replicates partition 1 but isn't in its ISR
+        assertFalse(KafkaSetOperator.isInSync(0, singletonList(topic)));
+        assertTrue(KafkaSetOperator.isInSync(1, singletonList(topic)));
+        assertTrue(KafkaSetOperator.isInSync(2, singletonList(topic)));
+        // Broker 3 replicates nothing
+        assertTrue(KafkaSetOperator.isInSync(3, singletonList(topic)));
+    }
+
+    @Test
+    public void testReplicatedTopics() {
+        TopicDescription foo = new TopicDescription("foo", false, asList(
+                new TopicPartitionInfo(0, nodes(0).get(0), nodes(0, 1), nodes(0, 1)),
+                new TopicPartitionInfo(1, nodes(2).get(0), nodes(2, 0), nodes(2))));
+        TopicDescription bar = new TopicDescription("bar", false, singletonList(
+                new TopicPartitionInfo(0, nodes(1).get(0), nodes(1, 2), nodes(1, 2))));
+        assertEquals(singleton("foo"), KafkaSetOperator.replicatedTopics(0, asList(foo, bar)));
+        assertEquals(new HashSet<>(asList("foo", "bar")), KafkaSetOperator.replicatedTopics(2, asList(foo, bar)));
+        assertTrue(KafkaSetOperator.replicatedTopics(3, asList(foo, bar)).isEmpty());
+    }
+
+    @Test
+    public void testAssignment() {
+        TopicDescription topic = new TopicDescription("foo", false, asList(
+                new TopicPartitionInfo(0, nodes(0).get(0), nodes(0, 1), nodes(0, 1)),
+                new TopicPartitionInfo(1, nodes(2).get(0), nodes(2, 0), nodes(2))));
+        Map<TopicPartition, List<Integer>> assignment = KafkaSetOperator.assignment(singletonList(topic));
+        assertEquals(2, assignment.size());
+        assertEquals(asList(0, 1), assignment.get(new TopicPartition("foo", 0)));
+        assertEquals(asList(2, 0), assignment.get(new TopicPartition("foo", 1)));
+    }
+
+    @Test
+    public void testScaleDownFailsWhenClusterUnreachable() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            KafkaSetOperator op = new KafkaSetOperator(vertx, mock(KubernetesClient.class), 1_000L) {
+                @Override
+                protected Integer currentScale(String namespace, String name) {
+                    return 3;
+                }
+
+                @Override
+                protected AdminClient adminClient(String bootstrap) {
+                    throw new KafkaException("Unreachable");
+                }
+            };
+            CompletableFuture<Throwable> result = new CompletableFuture<>();
+            op.scaleDown("test", "foo", 2, 0L).setHandler(ar -> result.complete(ar.cause()));
+            Throwable cause = result.get(10, TimeUnit.SECONDS);
+            // The brokers mustn't be removed with their partitions still on them
+            assertTrue(String.valueOf(cause), cause instanceof IllegalStateException);
+        } finally {
+            vertx.close();
+        }
+    }
 }
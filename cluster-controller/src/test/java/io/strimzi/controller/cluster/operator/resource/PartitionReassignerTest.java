@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionReassignerTest {
+
+    private ServerCnxnFactory factory;
+    private String zookeeperConnect;
+
+    @Before
+    public void startZookeeper() throws Exception {
+        File dir = Files.createTempDirectory("partition-reassigner-test").toFile();
+        factory = ServerCnxnFactory.createFactory(0, 10);
+        factory.startup(new ZooKeeperServer(dir, dir, 2_000));
+        zookeeperConnect = "localhost:" + factory.getLocalPort();
+    }
+
+    @After
+    public void stopZookeeper() {
+        factory.shutdown();
+    }
+
+    private static JsonObject config(ZooKeeper zk, String path) throws Exception {
+        return new JsonObject(new String(zk.getData(path, false, null), StandardCharsets.UTF_8)).getJsonObject("config");
+    }
+
+    @Test
+    public void testClearThrottlesOnlyClearsItsOwn() throws Exception {
+        try (PartitionReassigner reassigner = new PartitionReassigner(zookeeperConnect, 10_000)) {
+            ZooKeeper zk = new ZooKeeper(zookeeperConnect, 10_000, event -> { });
+            try {
+                // Throttles set by someone else
+                zk.create("/admin", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config/topics", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config/brokers", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config/changes", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config/topics/bar", new JsonObject().put("version", 1).put("config", new JsonObject()
+                        .put(PartitionReassigner.LEADER_THROTTLED_REPLICAS, "*")).encode().getBytes(StandardCharsets.UTF_8),
+                        ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                zk.create("/config/brokers/5", new JsonObject().put("version", 1).put("config", new JsonObject()
+                        .put(PartitionReassigner.LEADER_THROTTLED_RATE, "1000")).encode().getBytes(StandardCharsets.UTF_8),
+                        ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+
+                Map<TopicPartition, List<Integer>> current = new HashMap<>();
+                current.put(new TopicPartition("foo", 0), asList(0, 1));
+                Map<TopicPartition, List<Integer>> target = Collections.singletonMap(new TopicPartition("foo", 0), asList(0, 2));
+                assertTrue(reassigner.reassign(current, target, 5000));
+                assertEquals("0:0,0:1", config(zk, "/config/topics/foo").getString(PartitionReassigner.LEADER_THROTTLED_REPLICAS));
+                assertEquals("5000", config(zk, "/config/brokers/2").getString(PartitionReassigner.FOLLOWER_THROTTLED_RATE));
+                assertEquals(asList("foo"), asList(reassigner.throttled().topics.toArray()));
+                assertEquals(asList(0, 1, 2), asList(reassigner.throttled().brokers.toArray()));
+
+                reassigner.clearThrottles();
+                assertTrue(reassigner.throttled().isEmpty());
+                assertFalse(config(zk, "/config/topics/foo").containsKey(PartitionReassigner.LEADER_THROTTLED_REPLICAS));
+                assertFalse(config(zk, "/config/brokers/2").containsKey(PartitionReassigner.FOLLOWER_THROTTLED_RATE));
+                assertEquals("*", config(zk, "/config/topics/bar").getString(PartitionReassigner.LEADER_THROTTLED_REPLICAS));
+                assertEquals("1000", config(zk, "/config/brokers/5").getString(PartitionReassigner.LEADER_THROTTLED_RATE));
+            } finally {
+                zk.close();
+            }
+        }
+    }
+}
@@ -8,22 +8,33 @@ import io.fabric8.kubernetes.api.model.DoneablePod;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
 import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.openshift.client.server.mock.OpenShiftServer;
 import io.strimzi.controller.cluster.model.Labels;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PodOperatorTest extends
@@ -83,6 +94,46 @@ public class PodOperatorTest extends
         });
     }
 
+    @Test
+    public void testReadinessFromCache(TestContext context) {
+        AtomicReference<Watcher<Pod>> watcher = new AtomicReference<>();
+        FilterWatchListDeletable mockFiltered = mock(FilterWatchListDeletable.class);
+        when(mockFiltered.list()).thenReturn(new PodListBuilder().withItems(resource()).build());
+        when(mockFiltered.withResourceVersion(any())).thenReturn(mockFiltered);
+        when(mockFiltered.watch(any())).then(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
+        Resource mockResource = mock(resourceType());
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withLabel(Labels.STRIMZI_CLUSTER_LABEL)).thenReturn(mockFiltered);
+        when(mockNameable.withName(RESOURCE_NAME)).thenReturn(mockResource);
+        MixedOperation mockPods = mock(MixedOperation.class);
+        when(mockPods.inNamespace(NAMESPACE)).thenReturn(mockNameable);
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        mocker(mockClient, mockPods);
+
+        PodOperator op = createResourceOperations(vertx, mockClient);
+        Async async = context.async();
+        op.startCache(NAMESPACE).compose(v -> {
+            context.assertFalse(op.isReady(NAMESPACE, RESOURCE_NAME));
+            Future<Void> readiness = op.readiness(NAMESPACE, RESOURCE_NAME, 1_000, 5_000);
+            Pod ready = new PodBuilder(resource())
+                    .withNewStatus()
+                        .addNewCondition().withType("Ready").withStatus("True").endCondition()
+                    .endStatus()
+                    .build();
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, ready);
+            return readiness;
+        }).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            // Served entirely from the cache, without polling the API server
+            verify(mockResource, never()).get();
+            verify(mockResource, never()).isReady();
+            async.complete();
+        });
+    }
+
     @Override
     protected Class clientType() {
         return KubernetesClient.class;
@@ -50,6 +50,18 @@ public class PvcOperatorTest extends AbstractResourceOperatorTest<KubernetesClie
         super.createWhenExistsIsAPatch(context);
     }
 
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void existsWithSameFingerprintIsNoop(TestContext context) {
+        super.existsWithSameFingerprintIsNoop(context);
+    }
+
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void existsWithSameFingerprintButNoCacheIsAPatch(TestContext context) {
+        super.existsWithSameFingerprintButNoCacheIsAPatch(context);
+    }
+
     @Override
     @Test(expected = UnsupportedOperationException.class)
     public void successfulCreation(TestContext context) {
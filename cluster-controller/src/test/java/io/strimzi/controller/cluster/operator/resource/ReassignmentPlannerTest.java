@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReassignmentPlannerTest {
+
+    private static TopicPartition tp(String topic, int partition) {
+        return new TopicPartition(topic, partition);
+    }
+
+    @Test
+    public void testDrainSpreadsReplicasOverRemainingBrokers() {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        assignment.put(tp("foo", 0), asList(0, 3));
+        assignment.put(tp("foo", 1), asList(3, 1));
+        assignment.put(tp("foo", 2), asList(4, 3));
+        assignment.put(tp("bar", 0), asList(1, 2));
+
+        Map<TopicPartition, List<Integer>> moves = ReassignmentPlanner.drain(assignment, asList(3, 4), asList(0, 1, 2));
+
+        // Untouched partitions don't move
+        assertFalse(moves.containsKey(tp("bar", 0)));
+        // Replacements keep the position of the replica they replace, so leadership moves with it,
+        // and go to the least loaded broker (lowest id on a tie)
+        assertEquals(asList(0, 2), moves.get(tp("foo", 0)));
+        assertEquals(asList(0, 1), moves.get(tp("foo", 1)));
+        assertEquals(asList(0, 1), moves.get(tp("foo", 2)));
+        assertEquals(3, moves.size());
+
+        Map<TopicPartition, List<Integer>> after = new HashMap<>(assignment);
+        after.putAll(moves);
+        Map<Integer, Integer> load = ReassignmentPlanner.load(after, asList(0, 1, 2, 3, 4));
+        assertEquals(0, (int) load.get(3));
+        assertEquals(0, (int) load.get(4));
+        assertEquals(8, load.get(0) + load.get(1) + load.get(2));
+        assertTrue(ReassignmentPlanner.drain(after, asList(3, 4), asList(0, 1, 2)).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDrainWithTooFewRemainingBrokers() {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        assignment.put(tp("foo", 0), asList(0, 1, 2));
+        ReassignmentPlanner.drain(assignment, asList(2), asList(0, 1));
+    }
+
+    @Test
+    public void testRebalanceOntoNewBrokers() {
+        // 6 partitions with 2 replicas on brokers 0..2; brokers 3 and 4 have just been added
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        for (int p = 0; p < 6; p++) {
+            assignment.put(tp("foo", p), asList(p % 3, (p + 1) % 3));
+        }
+        List<Integer> brokers = asList(0, 1, 2, 3, 4);
+
+        Map<TopicPartition, List<Integer>> moves = ReassignmentPlanner.rebalance(assignment, brokers, 100);
+        Map<TopicPartition, List<Integer>> after = new HashMap<>(assignment);
+        after.putAll(moves);
+        Map<Integer, Integer> load = ReassignmentPlanner.load(after, brokers);
+        for (int replicas : load.values()) {
+            assertTrue("Unbalanced: " + load, replicas == 2 || replicas == 3);
+        }
+        for (List<Integer> replicas : after.values()) {
+            assertEquals(2, replicas.size());
+            assertFalse(replicas.get(0).equals(replicas.get(1)));
+        }
+        // Balanced, so there's nothing more to do
+        assertTrue(ReassignmentPlanner.rebalance(after, brokers, 100).isEmpty());
+    }
+
+    @Test
+    public void testRebalanceMovesAtMostMaxMoves() {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        for (int p = 0; p < 6; p++) {
+            assignment.put(tp("foo", p), asList(p % 2));
+        }
+        List<Integer> brokers = asList(0, 1, 2, 3);
+
+        Map<TopicPartition, List<Integer>> moves = ReassignmentPlanner.rebalance(assignment, brokers, 1);
+        assertEquals(1, moves.size());
+        Map<TopicPartition, List<Integer>> after = new HashMap<>(assignment);
+        after.putAll(moves);
+        assertEquals(1, ReassignmentPlanner.rebalance(after, brokers, 1).size());
+    }
+
+    @Test
+    public void testRebalanceBalanced() {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        assignment.put(tp("foo", 0), asList(0, 1));
+        assignment.put(tp("foo", 1), asList(1, 2));
+        assignment.put(tp("foo", 2), asList(2, 0));
+        assertTrue(ReassignmentPlanner.rebalance(assignment, asList(0, 1, 2), 10).isEmpty());
+    }
+
+    @Test
+    public void testIsUnbalanced() {
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        assignment.put(tp("foo", 0), asList(0, 1));
+        assignment.put(tp("foo", 1), asList(1, 2));
+        assignment.put(tp("foo", 2), asList(2, 0));
+        assignment.put(tp("bar", 0), asList(0, 1));
+        assertFalse(ReassignmentPlanner.isUnbalanced(assignment, asList(0, 1, 2)));
+        // A new broker with no replicas
+        assertTrue(ReassignmentPlanner.isUnbalanced(assignment, asList(0, 1, 2, 3)));
+        // Broker 2 has 3 replicas, against 5 and 6, which isn't worth a rebalance
+        assignment.put(tp("bar", 1), asList(0, 1));
+        assignment.put(tp("bar", 2), asList(0, 1));
+        assignment.put(tp("bar", 3), asList(1, 2));
+        assertFalse(ReassignmentPlanner.isUnbalanced(assignment, asList(0, 1, 2)));
+        // But with 2 replicas it is
+        assignment.put(tp("bar", 3), asList(1, 0));
+        assertTrue(ReassignmentPlanner.isUnbalanced(assignment, asList(0, 1, 2)));
+        assertFalse(ReassignmentPlanner.isUnbalanced(new HashMap<>(), asList(0, 1, 2)));
+    }
+
+    @Test
+    public void testReassignmentJson() {
+        Map<TopicPartition, List<Integer>> target = new HashMap<>();
+        target.put(tp("foo", 1), asList(0, 1));
+        target.put(tp("bar", 0), asList(2));
+        assertEquals("{\"version\":1,\"partitions\":["
+                + "{\"topic\":\"bar\",\"partition\":0,\"replicas\":[2]},"
+                + "{\"topic\":\"foo\",\"partition\":1,\"replicas\":[0,1]}]}",
+                PartitionReassigner.reassignmentJson(target));
+    }
+
+    @Test
+    public void testThrottledReplicas() {
+        Map<TopicPartition, List<Integer>> current = new HashMap<>();
+        current.put(tp("foo", 0), asList(0, 3));
+        current.put(tp("foo", 1), asList(3, 4));
+        Map<TopicPartition, List<Integer>> target = new HashMap<>();
+        target.put(tp("foo", 0), asList(0, 2));
+        target.put(tp("foo", 1), asList(1, 0));
+
+        Map<String, String[]> throttled = PartitionReassigner.throttledReplicas(current, target);
+        assertEquals(1, throttled.size());
+        // The existing replicas lead, the new ones follow
+        assertEquals("0:0,0:3,1:3,1:4", throttled.get("foo")[0]);
+        assertEquals("0:2,1:0,1:1", throttled.get("foo")[1]);
+    }
+}
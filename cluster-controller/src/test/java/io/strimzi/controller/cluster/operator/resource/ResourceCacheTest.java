@@ -0,0 +1,260 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.strimzi.controller.cluster.model.Labels;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(VertxUnitRunner.class)
+public class ResourceCacheTest {
+
+    private static final String NAMESPACE = "test";
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static Service service(String name, String cluster) {
+        return service(NAMESPACE, name, cluster);
+    }
+
+    private static Service service(String namespace, String name, String cluster) {
+        return new ServiceBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(name)
+                    .withLabels(singletonMap(Labels.STRIMZI_CLUSTER_LABEL, cluster))
+                .endMetadata()
+                .build();
+    }
+
+    @Test
+    public void testListThenWatch(TestContext context) {
+        AtomicReference<String> watchedFrom = new AtomicReference<>();
+        AtomicReference<Watcher<Service>> watcher = new AtomicReference<>();
+        Watch watch = mock(Watch.class);
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> new ServiceListBuilder()
+                    .withNewMetadata().withResourceVersion("42").endMetadata()
+                    .withItems(service("foo", "my-cluster"), service("bar", "other-cluster"))
+                    .build(),
+            (resourceVersion, w) -> {
+                watchedFrom.set(resourceVersion);
+                watcher.set(w);
+                return watch;
+            });
+        context.assertFalse(cache.isSynced());
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertTrue(cache.isSynced());
+            context.assertEquals("42", watchedFrom.get());
+            context.assertNotNull(cache.get(NAMESPACE, "foo"));
+            context.assertEquals(1, cache.list(NAMESPACE, Labels.forCluster("my-cluster")).size());
+
+            watcher.get().eventReceived(Watcher.Action.ADDED, service("baz", "my-cluster"));
+            context.assertEquals(2, cache.list(NAMESPACE, Labels.forCluster("my-cluster")).size());
+
+            watcher.get().eventReceived(Watcher.Action.DELETED, service("foo", "my-cluster"));
+            context.assertNull(cache.get(NAMESPACE, "foo"));
+            context.assertEquals(1, cache.list(NAMESPACE, Labels.forCluster("my-cluster")).size());
+
+            cache.stop();
+            context.assertFalse(cache.isSynced());
+            verify(watch).close();
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testWatchErrorUnsyncs(TestContext context) {
+        AtomicReference<Watcher<Service>> watcher = new AtomicReference<>();
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> new ServiceListBuilder().withItems(service("foo", "my-cluster")).build(),
+            (resourceVersion, w) -> {
+                watcher.set(w);
+                return mock(Watch.class);
+            });
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertTrue(cache.isSynced());
+            watcher.get().onClose(new KubernetesClientException("Gone"));
+            context.assertFalse(cache.isSynced());
+            cache.stop();
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testListFailure(TestContext context) {
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> {
+                throw new KubernetesClientException("Forbidden");
+            },
+            (resourceVersion, w) -> mock(Watch.class));
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.failed());
+            context.assertFalse(cache.isSynced());
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testAnyNamespace(TestContext context) {
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", ResourceCache.ANY_NAMESPACE,
+            () -> new ServiceListBuilder()
+                    .withItems(service("ns1", "foo", "my-cluster"), service("ns2", "foo", "my-cluster"), service("ns2", "bar", "my-cluster"))
+                    .build(),
+            (resourceVersion, w) -> mock(Watch.class));
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals("ns1", cache.get("ns1", "foo").getMetadata().getNamespace());
+            context.assertEquals("ns2", cache.get("ns2", "foo").getMetadata().getNamespace());
+            context.assertNull(cache.get("ns1", "bar"));
+            context.assertEquals(1, cache.list("ns1", Labels.forCluster("my-cluster")).size());
+            context.assertEquals(2, cache.list("ns2", Labels.forCluster("my-cluster")).size());
+            cache.stop();
+            async.complete();
+        });
+    }
+
+    private static Service serviceAtVersion(String name, String cluster, String resourceVersion) {
+        Service service = service(name, cluster);
+        service.getMetadata().setResourceVersion(resourceVersion);
+        return service;
+    }
+
+    @Test
+    public void testDrift(TestContext context) {
+        AtomicReference<Watcher<Service>> watcher = new AtomicReference<>();
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> new ServiceListBuilder().withItems(serviceAtVersion("foo", "my-cluster", "1")).build(),
+            (resourceVersion, w) -> {
+                watcher.set(w);
+                return mock(Watch.class);
+            });
+        List<Service> drifted = new CopyOnWriteArrayList<>();
+        cache.onDrift(drifted::add);
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+
+            // The event for a change made by the controller itself is not drift
+            cache.put(serviceAtVersion("foo", "my-cluster", "2"));
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, serviceAtVersion("foo", "my-cluster", "2"));
+            context.assertTrue(drifted.isEmpty());
+            context.assertFalse(cache.clearDrift(NAMESPACE, "foo"));
+
+            // Nor is a new resource
+            watcher.get().eventReceived(Watcher.Action.ADDED, serviceAtVersion("bar", "my-cluster", "3"));
+            context.assertTrue(drifted.isEmpty());
+
+            // But a change made by someone else is
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, serviceAtVersion("foo", "my-cluster", "4"));
+            context.assertEquals(1, drifted.size());
+            context.assertTrue(cache.clearDrift(NAMESPACE, "foo"));
+            context.assertFalse(cache.clearDrift(NAMESPACE, "foo"));
+
+            // As is a deletion
+            watcher.get().eventReceived(Watcher.Action.DELETED, serviceAtVersion("bar", "my-cluster", "5"));
+            context.assertEquals(2, drifted.size());
+            context.assertEquals("bar", drifted.get(1).getMetadata().getName());
+            context.assertTrue(cache.clearDrift(NAMESPACE, "bar"));
+            cache.stop();
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testOlderVersionsAreIgnored(TestContext context) {
+        AtomicReference<Watcher<Service>> watcher = new AtomicReference<>();
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> new ServiceListBuilder().withItems(serviceAtVersion("foo", "my-cluster", "1")).build(),
+            (resourceVersion, w) -> {
+                watcher.set(w);
+                return mock(Watch.class);
+            });
+        List<Service> drifted = new CopyOnWriteArrayList<>();
+        cache.onDrift(drifted::add);
+
+        Async async = context.async();
+        cache.start().setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+
+            // The watch lags behind the controller's own write
+            cache.put(serviceAtVersion("foo", "my-cluster", "10"));
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, serviceAtVersion("foo", "my-cluster", "9"));
+            context.assertEquals("10", cache.get(NAMESPACE, "foo").getMetadata().getResourceVersion());
+            context.assertTrue(drifted.isEmpty());
+
+            // The response to a write arrives after the watch has seen a later change
+            watcher.get().eventReceived(Watcher.Action.MODIFIED, serviceAtVersion("foo", "my-cluster", "12"));
+            cache.put(serviceAtVersion("foo", "my-cluster", "11"));
+            context.assertEquals("12", cache.get(NAMESPACE, "foo").getMetadata().getResourceVersion());
+            cache.stop();
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testDriftWhileNotWatching(TestContext context) {
+        AtomicReference<List<Service>> items = new AtomicReference<>(asList(
+                serviceAtVersion("foo", "my-cluster", "1"), serviceAtVersion("bar", "my-cluster", "2")));
+        ResourceCache<Service> cache = new ResourceCache<>(vertx, "Service", NAMESPACE,
+            () -> new ServiceListBuilder().withItems(items.get()).build(),
+            (resourceVersion, w) -> mock(Watch.class));
+        List<Service> drifted = new CopyOnWriteArrayList<>();
+        cache.onDrift(drifted::add);
+
+        Async async = context.async();
+        cache.start().compose(ignored -> {
+            context.assertTrue(drifted.isEmpty());
+            // Changed and deleted while the watch was down, so seen only when re-listing
+            items.set(singletonList(serviceAtVersion("foo", "my-cluster", "3")));
+            return cache.start();
+        }).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(2, drifted.size());
+            context.assertTrue(cache.clearDrift(NAMESPACE, "foo"));
+            context.assertTrue(cache.clearDrift(NAMESPACE, "bar"));
+            context.assertNull(cache.get(NAMESPACE, "bar"));
+            cache.stop();
+            async.complete();
+        });
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import org.junit.Test;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ResourceFingerprintTest {
+
+    private static Service service(int port) {
+        return new ServiceBuilder()
+                .withNewMetadata()
+                    .withNamespace("test")
+                    .withName("foo")
+                    .withAnnotations(singletonMap("foo", "bar"))
+                .endMetadata()
+                .withNewSpec()
+                    .addNewPort().withPort(port).endPort()
+                .endSpec()
+                .build();
+    }
+
+    @Test
+    public void testStamp() {
+        Service service = service(9092);
+        assertNull(ResourceFingerprint.of(service));
+        String fingerprint = ResourceFingerprint.stamp(service);
+        assertNotNull(fingerprint);
+        assertEquals(fingerprint, ResourceFingerprint.of(service));
+        // Other annotations are kept
+        assertEquals("bar", service.getMetadata().getAnnotations().get("foo"));
+    }
+
+    @Test
+    public void testStampIsStable() {
+        Service service = service(9092);
+        String fingerprint = ResourceFingerprint.stamp(service);
+        assertEquals(fingerprint, ResourceFingerprint.stamp(service(9092)));
+        // Re-stamping ignores the existing fingerprint
+        assertEquals(fingerprint, ResourceFingerprint.stamp(service));
+    }
+
+    @Test
+    public void testStampChangesWithDesiredState() {
+        assertNotEquals(ResourceFingerprint.stamp(service(9092)), ResourceFingerprint.stamp(service(9093)));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetStatusBuilder;
+import io.strimzi.controller.cluster.ResourceUtils;
+import io.strimzi.controller.cluster.model.KafkaCluster;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatefulSetDiffTest {
+
+    private StatefulSet current;
+    private StatefulSet desired;
+
+    private static StatefulSet statefulSet() {
+        return KafkaCluster.fromConfigMap(ResourceUtils.createKafkaClusterConfigMap("test", "foo", 3, "bar", 120, 30,
+                "{\"foo\":\"bar\"}",
+                "{\"type\": \"persistent-claim\", \"size\": \"123\", \"class\": \"foo\", \"delete-claim\": true}"))
+                .generateStatefulSet(true);
+    }
+
+    @Before
+    public void before() {
+        current = statefulSet();
+        desired = statefulSet();
+    }
+
+    @Test
+    public void testIdentical() {
+        assertTrue(new StatefulSetDiff(current, desired).isEmpty());
+    }
+
+    @Test
+    public void testServerStateIgnored() {
+        current.getMetadata().setResourceVersion("42");
+        current.getMetadata().setUid("abc");
+        current.setStatus(new StatefulSetStatusBuilder().withReplicas(3).withObservedGeneration(2L).build());
+        assertTrue(new StatefulSetDiff(current, desired).isEmpty());
+    }
+
+    @Test
+    public void testIgnorableSubtree() {
+        current.getSpec().getTemplate().getSpec().getContainers().get(0).setResources(new ResourceRequirementsBuilder()
+                .withLimits(singletonMap("cpu", new Quantity("1"))).build());
+        current.getSpec().setRevisionHistoryLimit(10);
+        assertTrue(new StatefulSetDiff(current, desired).isEmpty());
+    }
+
+    @Test
+    public void testReplicas() {
+        current.getSpec().setReplicas(desired.getSpec().getReplicas() + 1);
+        StatefulSetDiff diff = new StatefulSetDiff(current, desired);
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.changesSpecReplicas());
+        assertFalse(diff.changesSpecTemplateSpec());
+        assertFalse(diff.changesLabels());
+        assertFalse(diff.changesVolumeClaimTemplates());
+    }
+
+    @Test
+    public void testAnnotations() {
+        desired.getMetadata().setAnnotations(singletonMap("foo", "bar"));
+        StatefulSetDiff diff = new StatefulSetDiff(current, desired);
+        assertFalse(diff.isEmpty());
+        assertFalse(diff.changesLabels());
+        assertFalse(diff.changesSpecTemplateSpec());
+    }
+
+    @Test
+    public void testWithoutVolumeClaimTemplates() {
+        desired.getSpec().getVolumeClaimTemplates().get(0).getSpec().setStorageClassName("other");
+        StatefulSetDiff diff = new StatefulSetDiff(current, desired);
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.changesVolumeClaimTemplates());
+        diff = diff.withoutVolumeClaimTemplates();
+        assertTrue(diff.isEmpty());
+        assertFalse(diff.changesVolumeClaimTemplates());
+
+        desired.getSpec().getTemplate().getSpec().getContainers().get(0).setImage("other");
+        diff = new StatefulSetDiff(current, desired).withoutVolumeClaimTemplates();
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.changesSpecTemplateSpec());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class StatefulSetOperatorRestartTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String NAME = "my-cluster-kafka";
+    private static final String POD_NAME = NAME + "-0";
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    /**
+     * A client whose pod {@code POD_NAME} doesn't exist, and whose watch reports its deletion
+     * only if {@code reportDeletion}.
+     */
+    private KubernetesClient mockClient(boolean reportDeletion) {
+        PodResource mockPod = mock(PodResource.class);
+        when(mockPod.watch(any())).then(invocation -> {
+            if (reportDeletion) {
+                Watcher<Pod> watcher = invocation.getArgument(0);
+                watcher.eventReceived(Watcher.Action.DELETED, new PodBuilder()
+                        .withNewMetadata().withNamespace(NAMESPACE).withName(POD_NAME).endMetadata().build());
+            }
+            return mock(Watch.class);
+        });
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(POD_NAME)).thenReturn(mockPod);
+        MixedOperation mockPods = mock(MixedOperation.class);
+        when(mockPods.inNamespace(NAMESPACE)).thenReturn(mockNameable);
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        when(mockClient.pods()).thenReturn(mockPods);
+        return mockClient;
+    }
+
+    @Test
+    public void testRestartTimesOutWaitingForDeletion(TestContext context) {
+        StatefulSetOperator<Boolean> op = new StatefulSetOperator<>(vertx, mockClient(false), 200);
+        Async async = context.async();
+        op.restartPod(NAMESPACE, NAME, podName -> true, POD_NAME).setHandler(ar -> {
+            context.assertTrue(ar.failed());
+            context.assertTrue(ar.cause() instanceof TimeoutException);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testRestartTimesOutWaitingForReadiness(TestContext context) {
+        StatefulSetOperator<Boolean> op = new StatefulSetOperator<>(vertx, mockClient(true), 200);
+        Async async = context.async();
+        op.restartPod(NAMESPACE, NAME, podName -> false, POD_NAME).setHandler(ar -> {
+            context.assertTrue(ar.failed());
+            context.assertTrue(ar.cause() instanceof TimeoutException);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testRestartSucceeds(TestContext context) {
+        StatefulSetOperator<Boolean> op = new StatefulSetOperator<>(vertx, mockClient(true), 5_000);
+        Async async = context.async();
+        op.restartPod(NAMESPACE, NAME, podName -> true, POD_NAME).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+    }
+
+    private static StatefulSet statefulSet(long observedGeneration, String updateRevision) {
+        return new StatefulSetBuilder()
+                .withNewMetadata().withNamespace(NAMESPACE).withName(NAME).withGeneration(2L).endMetadata()
+                .withNewSpec().withReplicas(1).endSpec()
+                .withNewStatus().withObservedGeneration(observedGeneration).withUpdateRevision(updateRevision).endStatus()
+                .build();
+    }
+
+    @Test
+    public void testIsSettledOnceThePodsHaveBeenRolled() {
+        KubernetesClient client = mockClient(false);
+        PodResource mockPod = client.pods().inNamespace(NAMESPACE).withName(POD_NAME);
+        when(mockPod.get()).thenReturn(new PodBuilder()
+                .withNewMetadata().withNamespace(NAMESPACE).withName(POD_NAME)
+                    .withLabels(singletonMap("controller-revision-hash", "rev-1")).endMetadata()
+                .build());
+        StatefulSetOperator<Boolean> op = new StatefulSetOperator<>(vertx, client, 5_000);
+
+        assertTrue(op.isSettled(NAMESPACE, statefulSet(2, "rev-1")));
+        // For example the rolling update timed out
+        assertFalse(op.isSettled(NAMESPACE, statefulSet(2, "rev-2")));
+        // The StatefulSet controller hasn't caught up, so we can't tell
+        assertTrue(op.isSettled(NAMESPACE, statefulSet(1, "rev-2")));
+    }
+}
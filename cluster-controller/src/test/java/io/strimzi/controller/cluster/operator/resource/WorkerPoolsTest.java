@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.cluster.operator.resource;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(VertxUnitRunner.class)
+public class WorkerPoolsTest {
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testPoolsPerPurposeAndKind(TestContext context) {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("reads", 3);
+        sizes.put("StatefulSet.readiness", 2);
+        WorkerPools pools = new WorkerPools(vertx, sizes);
+
+        WorkerPool serviceReads = pools.pool("Service", WorkerPools.Purpose.READ);
+        context.assertEquals(3, serviceReads.size());
+        context.assertTrue(serviceReads == pools.pool("StatefulSet", WorkerPools.Purpose.READ));
+
+        WorkerPool statefulSetReadiness = pools.pool("StatefulSet", WorkerPools.Purpose.READINESS);
+        context.assertEquals(2, statefulSetReadiness.size());
+        WorkerPool serviceReadiness = pools.pool("Service", WorkerPools.Purpose.READINESS);
+        context.assertFalse(statefulSetReadiness == serviceReadiness);
+        context.assertEquals(5, serviceReadiness.size());
+
+        WorkerPool writes = pools.pool("Service", WorkerPools.Purpose.WRITE);
+        context.assertEquals(10, writes.size());
+
+        context.assertEquals(4, pools.pools().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("writes", 0);
+        new WorkerPools(vertx, sizes);
+    }
+
+    @Test
+    public void testMetrics(TestContext context) {
+        WorkerPool pool = new WorkerPools(vertx).pool("Service", WorkerPools.Purpose.WRITE);
+        Async async = context.async();
+        pool.<String>executeBlocking(
+            future -> {
+                context.assertEquals(1, pool.active());
+                context.assertEquals(0, pool.queued());
+                future.complete("done");
+            },
+            false,
+            ar -> {
+                context.assertTrue(ar.succeeded());
+                // The worker thread might still be finishing the task
+                vertx.setPeriodic(10, timer -> {
+                    if (pool.completed() == 1L) {
+                        vertx.cancelTimer(timer);
+                        context.assertEquals(0, pool.active());
+                        async.complete();
+                    }
+                });
+            });
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmarks {@link Controller#reconcile(ConfigMap, TopicName, io.vertx.core.Handler)}
+ * end to end against {@link MockKafka}, {@link MockK8s} and {@link MockTopicStore},
+ * for topics which are already in sync (the common case for the periodic reconciliation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ControllerReconcileBenchmark {
+
+    @Param({"1", "100"})
+    public int numTopics;
+
+    private final LabelPredicate cmPredicate = LabelPredicate.fromString("kind=topic,app=strimzi");
+
+    private Vertx vertx;
+
+    private Controller controller;
+
+    private TopicName[] topicNames;
+
+    private ConfigMap[] cms;
+
+    private int next;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        vertx = Vertx.vertx();
+        MockKafka mockKafka = new MockKafka();
+        MockK8s mockK8s = new MockK8s();
+        MockTopicStore mockTopicStore = new MockTopicStore();
+
+        Map<String, String> config = new HashMap<>();
+        config.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        config.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        config.put(Config.NAMESPACE.key, "default");
+        controller = new Controller(vertx, mockKafka, mockK8s, mockTopicStore, cmPredicate,
+                "default", new Config(config));
+
+        topicNames = new TopicName[numTopics];
+        cms = new ConfigMap[numTopics];
+        Map<TopicName, TopicMetadata> metadata = new HashMap<>(numTopics);
+        CountDownLatch created = new CountDownLatch(numTopics);
+        for (int i = 0; i < numTopics; i++) {
+            Topic topic = Topics.topic("topic-" + i, 12, (short) 3, 3);
+            topicNames[i] = topic.getTopicName();
+            cms[i] = TopicSerialization.toConfigMap(topic, cmPredicate);
+            metadata.put(topic.getTopicName(), Utils.getTopicMetadata(topic));
+            mockTopicStore.setCreateTopicResponse(topic.getTopicName(), null);
+            mockTopicStore.create(topic, ar -> created.countDown());
+        }
+        created.await();
+        mockKafka.setTopicMetadataResponse(topicName -> Future.succeededFuture(metadata.get(topicName)));
+    }
+
+    @TearDown
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public AsyncResult<Void> reconcile() throws InterruptedException {
+        int i = next;
+        next = (i + 1) % numTopics;
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncResult<Void>> result = new AtomicReference<>();
+        controller.reconcile(cms[i], topicNames[i], ar -> {
+            result.set(ar);
+            latch.countDown();
+        });
+        latch.await();
+        if (result.get().failed()) {
+            throw new RuntimeException(result.get().cause());
+        }
+        return result.get();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link InFlight#enqueue(Object, io.vertx.core.Handler, io.vertx.core.Handler)}
+ * from several threads at once.
+ * With a single key every action is serialized behind the others;
+ * with many keys the threads mostly contend on the map itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class InFlightBenchmark {
+
+    @Param({"1", "1000"})
+    public int keys;
+
+    private Vertx vertx;
+
+    private InFlight<String> inFlight;
+
+    private String[] keyNames;
+
+    @Setup
+    public void setup() {
+        vertx = Vertx.vertx();
+        inFlight = new InFlight<>(vertx);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "topic-" + i;
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public void enqueue() throws InterruptedException {
+        String key = keyNames[ThreadLocalRandom.current().nextInt(keys)];
+        CountDownLatch latch = new CountDownLatch(1);
+        inFlight.enqueue(key, fut -> fut.complete(), ar -> latch.countDown());
+        latch.await();
+    }
+}
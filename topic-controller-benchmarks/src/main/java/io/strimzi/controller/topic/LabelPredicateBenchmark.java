@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link LabelPredicate#test(io.fabric8.kubernetes.api.model.HasMetadata)},
+ * which is evaluated for every ConfigMap event in the namespace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LabelPredicateBenchmark {
+
+    private final LabelPredicate cmPredicate = LabelPredicate.fromString("kind=topic,app=strimzi");
+
+    private ConfigMap matching;
+
+    private ConfigMap nonMatching;
+
+    @Setup
+    public void setup() {
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", "strimzi");
+        labels.put("kind", "topic");
+        labels.put("release", "my-release");
+        labels.put("heritage", "Tiller");
+        matching = new ConfigMapBuilder().withNewMetadata().withName("matching").withLabels(labels).endMetadata().build();
+
+        Map<String, String> otherLabels = new HashMap<>(labels);
+        otherLabels.put("kind", "cluster");
+        nonMatching = new ConfigMapBuilder().withNewMetadata().withName("non-matching").withLabels(otherLabels).endMetadata().build();
+    }
+
+    @Benchmark
+    public boolean testMatching() {
+        return cmPredicate.test(matching);
+    }
+
+    @Benchmark
+    public boolean testNonMatching() {
+        return cmPredicate.test(nonMatching);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the 3-way diff/merge/apply done by {@link Controller} when all
+ * of Kafka, Kubernetes and the topic store know about a topic.
+ * The Kafka side changes the partition count, the Kubernetes side changes the config,
+ * so the diffs are non-empty but don't conflict.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopicDiffBenchmark {
+
+    @Param({"0", "5"})
+    public int configEntries;
+
+    private Topic privateTopic;
+
+    private Topic kafkaTopic;
+
+    private Topic k8sTopic;
+
+    private TopicDiff oursKafka;
+
+    private TopicDiff oursK8s;
+
+    private TopicDiff merged;
+
+    @Setup
+    public void setup() {
+        privateTopic = Topics.topic("my-topic", 12, (short) 3, configEntries);
+        kafkaTopic = new Topic.Builder(privateTopic).withNumPartitions(24).build();
+        k8sTopic = new Topic.Builder(privateTopic).withConfigEntry("retention.bytes", "1000000").build();
+        oursKafka = TopicDiff.diff(privateTopic, kafkaTopic);
+        oursK8s = TopicDiff.diff(privateTopic, k8sTopic);
+        merged = oursKafka.merge(oursK8s);
+    }
+
+    @Benchmark
+    public TopicDiff diffIdentical() {
+        return TopicDiff.diff(privateTopic, privateTopic);
+    }
+
+    @Benchmark
+    public TopicDiff diff() {
+        return TopicDiff.diff(privateTopic, k8sTopic);
+    }
+
+    @Benchmark
+    public TopicDiff merge() {
+        return oursKafka.merge(oursK8s);
+    }
+
+    @Benchmark
+    public Topic apply() {
+        return merged.apply(privateTopic);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversions done by {@link TopicSerialization} for every
+ * ConfigMap event and every write to the topic store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopicSerializationBenchmark {
+
+    @Param({"0", "5"})
+    public int configEntries;
+
+    private final LabelPredicate cmPredicate = LabelPredicate.fromString("kind=topic,app=strimzi");
+
+    private Topic topic;
+
+    private ConfigMap cm;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        topic = Topics.topic("my-topic", 12, (short) 3, configEntries);
+        cm = TopicSerialization.toConfigMap(topic, cmPredicate);
+        json = TopicSerialization.toJson(topic);
+    }
+
+    @Benchmark
+    public Topic fromConfigMap() {
+        return TopicSerialization.fromConfigMap(cm);
+    }
+
+    @Benchmark
+    public ConfigMap toConfigMap() {
+        return TopicSerialization.toConfigMap(topic, cmPredicate);
+    }
+
+    @Benchmark
+    public Topic fromJson() {
+        return TopicSerialization.fromJson(json);
+    }
+
+    @Benchmark
+    public byte[] toJson() {
+        return TopicSerialization.toJson(topic);
+    }
+}
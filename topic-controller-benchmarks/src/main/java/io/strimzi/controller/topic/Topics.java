@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Factory for the topics used as benchmark inputs.
+ */
+class Topics {
+
+    private static final String[][] CONFIGS = {
+        {"cleanup.policy", "compact"},
+        {"retention.ms", "604800000"},
+        {"segment.bytes", "1073741824"},
+        {"min.insync.replicas", "2"},
+        {"compression.type", "producer"},
+        {"max.message.bytes", "1000012"},
+        {"flush.messages", "9223372036854775807"},
+        {"unclean.leader.election.enable", "false"}
+    };
+
+    private Topics() {
+    }
+
+    /**
+     * The first {@code configEntries} entries of a fixed set of valid topic configs.
+     */
+    static Map<String, String> config(int configEntries) {
+        if (configEntries > CONFIGS.length) {
+            throw new IllegalArgumentException("At most " + CONFIGS.length + " config entries are supported");
+        }
+        Map<String, String> config = new HashMap<>(configEntries);
+        for (int i = 0; i < configEntries; i++) {
+            config.put(CONFIGS[i][0], CONFIGS[i][1]);
+        }
+        return config;
+    }
+
+    static Topic topic(String name, int numPartitions, short numReplicas, int configEntries) {
+        return new Topic.Builder(name, numPartitions, numReplicas, config(configEntries))
+                .withMapName(name)
+                .build();
+    }
+}
@@ -4,8 +4,12 @@
  */
 package io.strimzi.controller.topic;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Encapsulates computing delays for an exponential back-off.
+ * With "full jitter" each delay is chosen uniformly between zero and the exponential delay,
+ * so that many clients which started backing off at the same time don't all retry at the same time.
  */
 public class BackOff {
 
@@ -16,6 +20,7 @@ public class BackOff {
     private final long scaleMs;
     private final int base;
     private final int maxAttempts;
+    private final boolean fullJitter;
     private int attempt = 0;
 
     public BackOff() {
@@ -26,7 +31,15 @@ public class BackOff {
         this(DEFAULT_SCALE_MS, DEFAULT_BASE, maxAttempts);
     }
 
+    public BackOff(int maxAttempts, boolean fullJitter) {
+        this(DEFAULT_SCALE_MS, DEFAULT_BASE, maxAttempts, fullJitter);
+    }
+
     public BackOff(long scaleMs, int base, int maxAttempts) {
+        this(scaleMs, base, maxAttempts, false);
+    }
+
+    public BackOff(long scaleMs, int base, int maxAttempts, boolean fullJitter) {
         if (scaleMs <= 0) {
             throw new IllegalArgumentException();
         }
@@ -39,16 +52,22 @@ public class BackOff {
         this.scaleMs = scaleMs;
         this.base = base;
         this.maxAttempts = maxAttempts;
+        this.fullJitter = fullJitter;
     }
 
     /**
      * Return the next delay to use, in milliseconds.
      * The first delay is always zero, the 2nd delay is scaleMs, and the delay increases exponentially from there.
+     * With full jitter the delay is a random value between zero and that exponential delay.
      * @throws MaxAttemptsExceededException if the next attempt would exceed the configured number of attempts.
      */
     public long delayMs() {
         int n = attempt++;
-        return delay(n);
+        long delay = delay(n);
+        if (fullJitter && delay > 0) {
+            return ThreadLocalRandom.current().nextLong(delay + 1);
+        }
+        return delay;
     }
 
     private long delay(int n) {
@@ -65,6 +84,10 @@ public class BackOff {
         return scaleMs * pow;
     }
 
+    /**
+     * The sum of the delays for all the permitted attempts.
+     * With full jitter this is an upper bound on the total delay.
+     */
     public long totalDelayMs() {
         long total = 0;
         for (int i = 0; i < maxAttempts; i++) {
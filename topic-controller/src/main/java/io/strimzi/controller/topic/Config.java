@@ -98,6 +98,11 @@ public class Config {
     public static final String TC_REASSIGN_THROTTLE = "STRIMZI_REASSIGN_THROTTLE";
     public static final String TC_REASSIGN_VERIFY_INTERVAL_MS = "STRIMZI_REASSIGN_VERIFY_INTERVAL_MS";
     public static final String TC_TOPIC_METADATA_MAX_ATTEMPTS = "STRIMZI_TOPIC_METADATA_MAX_ATTEMPTS";
+    public static final String TC_RETRY_BUDGET_CAPACITY = "STRIMZI_RETRY_BUDGET_CAPACITY";
+    public static final String TC_RETRY_BUDGET_REFILL_PER_SECOND = "STRIMZI_RETRY_BUDGET_REFILL_PER_SECOND";
+    public static final String TC_STARTUP_RECONCILIATION_CONCURRENCY = "STRIMZI_STARTUP_RECONCILIATION_CONCURRENCY";
+    public static final String TC_ORPHAN_SWEEP_BATCH_SIZE = "STRIMZI_ORPHAN_SWEEP_BATCH_SIZE";
+    public static final String TC_ORPHAN_SWEEP_INTERVAL_MS = "STRIMZI_ORPHAN_SWEEP_INTERVAL_MS";
 
     private static final Map<String, Value<?>> CONFIG_VALUES = new HashMap<>();
 
@@ -131,6 +136,21 @@ public class Config {
     /** The maximum number of retries for getting topic metadata from the Kafka cluster */
     public static final Value<Integer> TOPIC_METADATA_MAX_ATTEMPTS = new Value<>(TC_TOPIC_METADATA_MAX_ATTEMPTS, POSITIVE_INTEGER, "6");
 
+    /** The maximum burst of retries permitted across the whole controller */
+    public static final Value<Integer> RETRY_BUDGET_CAPACITY = new Value<>(TC_RETRY_BUDGET_CAPACITY, POSITIVE_INTEGER, "100");
+
+    /** The sustained rate of retries permitted across the whole controller */
+    public static final Value<Integer> RETRY_BUDGET_REFILL_PER_SECOND = new Value<>(TC_RETRY_BUDGET_REFILL_PER_SECOND, POSITIVE_INTEGER, "10");
+
+    /** The maximum number of topics reconciled concurrently during startup */
+    public static final Value<Integer> STARTUP_RECONCILIATION_CONCURRENCY = new Value<>(TC_STARTUP_RECONCILIATION_CONCURRENCY, POSITIVE_INTEGER, "16");
+
+    /** The maximum number of orphaned topics deleted from the topic store in one batch */
+    public static final Value<Integer> ORPHAN_SWEEP_BATCH_SIZE = new Value<>(TC_ORPHAN_SWEEP_BATCH_SIZE, POSITIVE_INTEGER, "50");
+
+    /** The pause between batches of orphaned topics deleted from the topic store */
+    public static final Value<Long> ORPHAN_SWEEP_INTERVAL_MS = new Value<>(TC_ORPHAN_SWEEP_INTERVAL_MS, DURATION, "1000");
+
     static {
         Map<String, Value<?>> configValues = CONFIG_VALUES;
         addConfigValue(configValues, LABELS);
@@ -142,6 +162,11 @@ public class Config {
         addConfigValue(configValues, REASSIGN_THROTTLE);
         addConfigValue(configValues, REASSIGN_VERIFY_INTERVAL_MS);
         addConfigValue(configValues, TOPIC_METADATA_MAX_ATTEMPTS);
+        addConfigValue(configValues, RETRY_BUDGET_CAPACITY);
+        addConfigValue(configValues, RETRY_BUDGET_REFILL_PER_SECOND);
+        addConfigValue(configValues, STARTUP_RECONCILIATION_CONCURRENCY);
+        addConfigValue(configValues, ORPHAN_SWEEP_BATCH_SIZE);
+        addConfigValue(configValues, ORPHAN_SWEEP_INTERVAL_MS);
     }
 
     static void addConfigValue(Map<String, Value<?>> configValues, Value<?> cv) {
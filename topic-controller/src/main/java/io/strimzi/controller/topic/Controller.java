@@ -12,6 +12,7 @@ import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.apache.kafka.common.errors.RetriableException;
 import org.apache.kafka.common.errors.TopicExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +34,7 @@ public class Controller {
     private TopicStore topicStore;
     private final InFlight<TopicName> inFlight;
     private final Config config;
+    private final RetryBudget retryBudget;
 
     enum EventType {
         INFO("Info"),
@@ -332,6 +334,8 @@ public class Controller {
         this.inFlight = new InFlight<>(vertx);
         this.namespace = namespace;
         this.config = config;
+        this.retryBudget = new RetryBudget(config.get(Config.RETRY_BUDGET_CAPACITY),
+                config.get(Config.RETRY_BUDGET_REFILL_PER_SECOND));
     }
 
     void reconcile(ConfigMap cm, TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
@@ -632,7 +636,7 @@ public class Controller {
                 // getting topic information from the private store
                 topicStore.read(topicName, topicResult -> {
 
-                    TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff()) {
+                    TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff(), retryBudget) {
                         @Override
                         public void handle(AsyncResult<TopicMetadata> metadataResult) {
 
@@ -649,6 +653,8 @@ public class Controller {
                                     Controller.this.reconcileOnTopicChange(topicName, kafkaTopic, fut.completer());
                                 }
 
+                            } else if (metadataResult.cause() instanceof RetriableException) {
+                                retry();
                             } else {
                                 fut.fail(metadataResult.cause());
                             }
@@ -728,7 +734,7 @@ public class Controller {
             @Override
             public void handle(Future<Void> fut) {
 
-                TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff()) {
+                TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff(), retryBudget) {
 
                     @Override
                     public void handle(AsyncResult<TopicMetadata> metadataResult) {
@@ -745,6 +751,9 @@ public class Controller {
                                 Topic kafkaTopic = TopicSerialization.fromTopicMetadata(metadataResult.result());
                                 reconcileOnTopicChange(topicName, kafkaTopic, fut);
                             }
+                        } else if (metadataResult.cause() instanceof RetriableException) {
+                            // For example, the Kafka controller is failing over
+                            retry();
                         } else {
                             fut.handle(metadataResult.map((Void) null));
                         }
@@ -948,10 +957,17 @@ public class Controller {
     }
 
     /**
-     * @return a new instance of BackOff with configured topic metadata max attempts
+     * @return the budget shared by all the retries done by this controller
+     */
+    RetryBudget retryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * @return a new instance of full jitter BackOff with configured topic metadata max attempts
      */
     private BackOff topicMetadataBackOff() {
-        return new BackOff(config.get(Config.TOPIC_METADATA_MAX_ATTEMPTS));
+        return new BackOff(config.get(Config.TOPIC_METADATA_MAX_ATTEMPTS), true);
     }
 
     /**
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket shared by all the retry sites of a {@link Controller} (of which there is one per process).
+ * Every retry must first take a token; tokens are replenished at a fixed rate, up to a capacity.
+ * This bounds the rate of retries when many operations fail at once
+ * (for example when the Kafka controller fails over), rather than each of them retrying
+ * independently against the recovering cluster.
+ */
+public class RetryBudget {
+
+    private final int capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final AtomicLong exhausted = new AtomicLong();
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param capacity The maximum number of tokens, which is the largest burst of retries permitted.
+     * @param refillPerSecond The rate at which tokens are replenished.
+     */
+    public RetryBudget(int capacity, int refillPerSecond) {
+        this(capacity, refillPerSecond, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock The monotonic clock, in nanoseconds, which tokens are replenished by.
+     */
+    RetryBudget(int capacity, int refillPerSecond, LongSupplier nanoClock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        if (now - lastRefillNanos > 0) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+
+    /**
+     * Take a token from the budget, if one is available.
+     * @return true if the caller may retry, false if the budget is exhausted.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        exhausted.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * The number of whole tokens currently available.
+     */
+    public synchronized int available() {
+        refill();
+        return (int) tokens;
+    }
+
+    /**
+     * The number of times a retry has been refused because the budget was exhausted.
+     */
+    public long exhaustedCount() {
+        return exhausted.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget(capacity=" + capacity + ", refillPerSecond=" + tokensPerNano * TimeUnit.SECONDS.toNanos(1) + ")";
+    }
+}
@@ -0,0 +1,11 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+/**
+ * Thrown to indicate a retry was not permitted because the controller's {@link RetryBudget} was exhausted.
+ */
+public class RetryBudgetExhaustedException extends MaxAttemptsExceededException {
+}
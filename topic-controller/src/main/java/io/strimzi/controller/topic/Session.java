@@ -5,10 +5,13 @@
 package io.strimzi.controller.topic;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
 import io.strimzi.controller.topic.zk.Zk;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.http.HttpServer;
 import org.apache.kafka.clients.admin.AdminClient;
@@ -16,6 +19,11 @@ import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -34,14 +42,17 @@ public class Session extends AbstractVerticle {
 
     ControllerAssignedKafkaImpl kafka;
     AdminClient adminClient;
-    K8sImpl k8s;
+    K8s k8s;
     Controller controller;
-    Watch topicCmWatch;
+    volatile Watch topicCmWatch;
     TopicsWatcher topicsWatcher;
     TopicConfigsWatcher topicConfigsWatcher;
     TopicWatcher topicWatcher;
     private volatile boolean stopped = false;
     private Zk zk;
+    private TopicStore topicStore;
+    private TopicStoreSweeper sweeper;
+    private volatile boolean ready = false;
     private volatile HttpServer healthServer;
 
     public Session(KubernetesClient kubeClient, Config config) {
@@ -65,7 +76,10 @@ public class Session extends AbstractVerticle {
             long timeout = 120_000L;
             LOGGER.info("Stopping");
             LOGGER.debug("Stopping kube watch");
-            topicCmWatch.close();
+            Watch topicCmWatch = this.topicCmWatch;
+            if (topicCmWatch != null) {
+                topicCmWatch.close();
+            }
             LOGGER.debug("Stopping zk watches");
             topicsWatcher.stop();
 
@@ -105,6 +119,7 @@ public class Session extends AbstractVerticle {
     @Override
     public void start() {
         LOGGER.info("Starting");
+        long t0 = System.currentTimeMillis();
         Properties adminClientProps = new Properties();
         adminClientProps.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, config.get(Config.KAFKA_BOOTSTRAP_SERVERS));
         this.adminClient = AdminClient.create(adminClientProps);
@@ -115,114 +130,348 @@ public class Session extends AbstractVerticle {
 
         String namespace = config.get(Config.NAMESPACE);
         LOGGER.debug("Using namespace {}", namespace);
-        this.k8s = new K8sImpl(vertx, kubeClient, cmPredicate, namespace);
+        this.k8s = createK8s(cmPredicate, namespace);
         LOGGER.debug("Using k8s {}", k8s);
 
         this.zk = Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT), this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue());
         LOGGER.debug("Using ZooKeeper {}", zk);
 
-        ZkTopicStore topicStore = new ZkTopicStore(zk);
+        this.topicStore = new ZkTopicStore(zk);
         LOGGER.debug("Using TopicStore {}", topicStore);
 
         this.controller = new Controller(vertx, kafka, k8s, topicStore, cmPredicate, namespace, config);
         LOGGER.debug("Using Controller {}", controller);
 
+        this.sweeper = new TopicStoreSweeper(vertx, topicStore, () -> stopped || controller.isWorkInflight(),
+                config.get(Config.ORPHAN_SWEEP_BATCH_SIZE), config.get(Config.ORPHAN_SWEEP_INTERVAL_MS));
+
         this.topicConfigsWatcher = new TopicConfigsWatcher(controller);
         LOGGER.debug("Using TopicConfigsWatcher {}", topicConfigsWatcher);
         this.topicWatcher = new TopicWatcher(controller);
         LOGGER.debug("Using TopicWatcher {}", topicWatcher);
         this.topicsWatcher = new TopicsWatcher(controller, topicConfigsWatcher, topicWatcher);
         LOGGER.debug("Using TopicsWatcher {}", topicsWatcher);
-        topicsWatcher.start(zk);
 
-        Thread configMapThread = new Thread(() -> {
-            LOGGER.debug("Watching configmaps matching {}", cmPredicate);
-            Session.this.topicCmWatch = kubeClient.configMaps().inNamespace(kubeClient.getNamespace()).watch(new ConfigMapWatcher(controller, cmPredicate));
-            LOGGER.debug("Watching setup");
+        // start the HTTP server for healthchecks, which reports not ready until the initial reconciliation is done
+        healthServer = this.startHealthServer();
+
+        // Reconcile initially, and only then start watching for changes
+        initialReconciliation(cmPredicate, namespace).setHandler(ar -> {
+            Collection<String> observedTopics = null;
+            String resourceVersion = null;
+            if (ar.succeeded()) {
+                observedTopics = ar.result().kafkaTopics;
+                resourceVersion = ar.result().resourceVersion;
+            } else {
+                LOGGER.error("Error performing initial reconciliation, starting watches without it", ar.cause());
+            }
+            startWatches(cmPredicate, namespace, observedTopics, resourceVersion);
+            ready = true;
+            LOGGER.info("Ready in {}ms", System.currentTimeMillis() - t0);
+            // And periodically after that, so a periodic reconciliation can't overlap the initial one
+            vertx.setPeriodic(this.config.get(Config.FULL_RECONCILIATION_INTERVAL_MS),
+                timerId -> {
+                    if (stopped) {
+                        vertx.cancelTimer(timerId);
+                        return;
+                    }
+                    reconcileTopics("periodic");
+                });
+        });
+        LOGGER.info("Started");
+    }
 
-            // start the HTTP server for healthchecks
-            healthServer = this.startHealthServer();
+    /**
+     * The state observed by the initial reconciliation, from which the watches are started.
+     */
+    private static class Observed {
+        private final Set<String> kafkaTopics;
+        private final String resourceVersion;
 
+        Observed(Set<String> kafkaTopics, String resourceVersion) {
+            this.kafkaTopics = kafkaTopics;
+            this.resourceVersion = resourceVersion;
+        }
+    }
+
+    /**
+     * List the topics in Kafka, the topic ConfigMaps and the topics in the private store in parallel,
+     * then reconcile each topic found in any of them exactly once,
+     * with at most {@link Config#STARTUP_RECONCILIATION_CONCURRENCY} reconciliations in flight.
+     * The Kafka topics are listed again once that is done, so that the topics the reconciliation
+     * itself created or deleted are observed as they now are.
+     */
+    private Future<Observed> initialReconciliation(LabelPredicate cmPredicate, String namespace) {
+        LOGGER.info("Starting initial reconciliation");
+        Future<Set<String>> kafkaFuture = Future.future();
+        kafka.listTopics(kafkaFuture.completer());
+        Future<ConfigMapList> cmFuture = Future.future();
+        vertx.executeBlocking(fut -> {
+            fut.complete(listConfigMaps(cmPredicate, namespace));
+        }, cmFuture.completer());
+        Future<Set<TopicName>> storeFuture = Future.future();
+        topicStore.list(storeFuture.completer());
+
+        return CompositeFuture.all(kafkaFuture, cmFuture, storeFuture).compose(ignored -> {
+            Set<String> kafkaTopics = kafkaFuture.result();
+            ConfigMapList cmList = cmFuture.result();
+            Set<TopicName> storeTopics = storeFuture.result();
+
+            Map<TopicName, ConfigMap> cmsByTopic = new HashMap<>();
+            for (ConfigMap cm : cmList.getItems()) {
+                try {
+                    cmsByTopic.put(new TopicName(cm), cm);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Ignoring ConfigMap {} with an invalid topic name", Controller.logConfigMap(cm), e);
+                }
+            }
+            Set<TopicName> topicNames = new LinkedHashSet<>();
+            for (String name : kafkaTopics) {
+                topicNames.add(new TopicName(name));
+            }
+            topicNames.addAll(cmsByTopic.keySet());
+            topicNames.addAll(storeTopics);
+            LOGGER.info("Initial reconciliation of {} topics: {} in Kafka, {} ConfigMaps, {} in the topic store",
+                    topicNames.size(), kafkaTopics.size(), cmsByTopic.size(), storeTopics.size());
+
+            Future<Void> reconciled = Future.future();
+            new BoundedReconciliation(topicNames.iterator(), cmsByTopic, reconciled)
+                    .start(config.get(Config.STARTUP_RECONCILIATION_CONCURRENCY));
+            String resourceVersion = cmList.getMetadata() != null ? cmList.getMetadata().getResourceVersion() : null;
+            return reconciled.compose(v -> {
+                Future<Set<String>> reconciledFuture = Future.future();
+                kafka.listTopics(reconciledFuture.completer());
+                return reconciledFuture;
+            }).map(reconciledTopics -> {
+                // A topic which wasn't reconciled was created since the first listing, and is still to be notified
+                Set<String> observed = new HashSet<>(reconciledTopics.size());
+                for (String name : reconciledTopics) {
+                    if (topicNames.contains(new TopicName(name))) {
+                        observed.add(name);
+                    }
+                }
+                return new Observed(observed, resourceVersion);
+            });
+        });
+    }
+
+    /**
+     * Reconciles the given topics, keeping at most a given number of reconciliations in flight,
+     * and completes the given future once they have all finished.
+     */
+    private class BoundedReconciliation {
+        private final Context context = vertx.getOrCreateContext();
+        private final Iterator<TopicName> topics;
+        private final Map<TopicName, ConfigMap> cmsByTopic;
+        private final Future<Void> done;
+        private int inFlight = 0;
+        private int failures = 0;
+
+        BoundedReconciliation(Iterator<TopicName> topics, Map<TopicName, ConfigMap> cmsByTopic, Future<Void> done) {
+            this.topics = topics;
+            this.cmsByTopic = cmsByTopic;
+            this.done = done;
+        }
+
+        synchronized void start(int concurrency) {
+            for (int i = 0; i < concurrency && topics.hasNext(); i++) {
+                reconcile(topics.next());
+            }
+            if (inFlight == 0) {
+                done.tryComplete();
+            }
+        }
+
+        private void reconcile(TopicName topicName) {
+            inFlight++;
+            ConfigMap cm = cmsByTopic.get(topicName);
+            LOGGER.debug("initial reconciliation of topic {}", topicName);
+            controller.reconcile(cm, topicName, reconcileResult -> {
+                if (reconcileResult.succeeded()) {
+                    LOGGER.info("Success initial reconciling ConfigMap {} topic {}",
+                            Controller.logConfigMap(cm), topicName);
+                } else {
+                    LOGGER.error("Error initial reconciling ConfigMap {} topic {}",
+                            Controller.logConfigMap(cm), topicName, reconcileResult.cause());
+                }
+                // Continue on the context, so a reconciliation which completes synchronously can't recurse
+                context.runOnContext(v -> reconciled(reconcileResult.succeeded()));
+            });
+        }
+
+        private synchronized void reconciled(boolean succeeded) {
+            inFlight--;
+            if (!succeeded) {
+                failures++;
+            }
+            if (topics.hasNext()) {
+                reconcile(topics.next());
+            } else if (inFlight == 0) {
+                if (failures > 0) {
+                    LOGGER.warn("{} topics failed initial reconciliation and will be retried by the periodic reconciliation", failures);
+                }
+                done.tryComplete();
+            }
+        }
+    }
+
+    /**
+     * Start the ZooKeeper and ConfigMap watches, beginning from the given observed state
+     * so that changes made during the initial reconciliation are not missed.
+     */
+    private void startWatches(LabelPredicate cmPredicate, String namespace, Collection<String> observedTopics, String resourceVersion) {
+        if (stopped) {
+            return;
+        }
+        topicsWatcher.start(zk, observedTopics);
+
+        Thread configMapThread = new Thread(() -> {
+            LOGGER.debug("Watching configmaps matching {} from resourceVersion {}", cmPredicate, resourceVersion);
+            ConfigMapWatcher watcher = new ConfigMapWatcher(controller, cmPredicate);
+            Session.this.topicCmWatch = watchConfigMaps(namespace, resourceVersion, watcher);
+            LOGGER.debug("Watching setup");
         }, "configmap-watcher");
         LOGGER.debug("Starting {}", configMapThread);
         configMapThread.start();
+    }
 
-        // Reconcile initially
-        reconcileTopics("initial");
-        // And periodically after that
-        vertx.setPeriodic(this.config.get(Config.FULL_RECONCILIATION_INTERVAL_MS),
-            timerId -> {
-                if (stopped) {
-                    vertx.cancelTimer(timerId);
-                    return;
-                }
-                reconcileTopics("periodic");
-            });
-        LOGGER.info("Started");
+    /**
+     * The K8s through which the controller reads and writes the topic ConfigMaps.
+     */
+    K8s createK8s(LabelPredicate cmPredicate, String namespace) {
+        return new K8sImpl(vertx, kubeClient, cmPredicate, namespace);
+    }
+
+    /**
+     * List the topic ConfigMaps. Blocking.
+     */
+    ConfigMapList listConfigMaps(LabelPredicate cmPredicate, String namespace) {
+        return kubeClient.configMaps().inNamespace(namespace).withLabels(cmPredicate.labels()).list();
+    }
+
+    /**
+     * Watch the ConfigMaps from the given resourceVersion, or from now if it is null. Blocking.
+     */
+    Watch watchConfigMaps(String namespace, String resourceVersion, ConfigMapWatcher watcher) {
+        if (resourceVersion != null) {
+            return kubeClient.configMaps().inNamespace(namespace).withResourceVersion(resourceVersion).watch(watcher);
+        } else {
+            return kubeClient.configMaps().inNamespace(namespace).watch(watcher);
+        }
+    }
+
+    /**
+     * Whether the initial reconciliation is done and the watches have been started.
+     */
+    boolean isReady() {
+        return ready;
     }
 
     void reconcileTopics(String reconciliationType) {
         LOGGER.info("Starting {} reconciliation", reconciliationType);
-        kafka.listTopics(arx -> {
-            if (arx.succeeded()) {
-                Set<String> kafkaTopics = arx.result();
-                LOGGER.debug("Reconciling kafka topics {}", kafkaTopics);
-                // First reconcile the topics in kafka
-                for (String name : kafkaTopics) {
-                    LOGGER.debug("{} reconciliation of topic {}", reconciliationType, name);
-                    TopicName topicName = new TopicName(name);
-                    k8s.getFromName(topicName.asMapName(), ar -> {
-                        ConfigMap cm = ar.result();
-
-                        controller.reconcile(cm, topicName, reconcileResult -> {
-                            if (reconcileResult.succeeded()) {
-                                LOGGER.info("Success {} reconciling ConfigMap {} topic {}",
-                                        reconciliationType, Controller.logConfigMap(cm), topicName);
-                            } else {
-                                LOGGER.error("Error {} reconciling ConfigMap {} topic {}",
-                                        reconciliationType, Controller.logConfigMap(cm), topicName, reconcileResult.cause());
-                            }
-                        });
-                    });
-                }
+        // List the private store first, so that a topic which is created after the listing can't look like an orphan
+        topicStore.list(storeResult -> {
+            if (storeResult.failed()) {
+                LOGGER.error("Unable to list the topic store", storeResult.cause());
+            }
+            kafka.listTopics(arx -> {
+                if (arx.succeeded()) {
+                    Set<String> kafkaTopics = arx.result();
+                    LOGGER.debug("Reconciling kafka topics {}", kafkaTopics);
+                    // First reconcile the topics in kafka
+                    for (String name : kafkaTopics) {
+                        LOGGER.debug("{} reconciliation of topic {}", reconciliationType, name);
+                        TopicName topicName = new TopicName(name);
+                        k8s.getFromName(topicName.asMapName(), ar -> {
+                            ConfigMap cm = ar.result();
 
-                LOGGER.debug("Reconciling configmaps");
-                // Then those in k8s which aren't in kafka
-                k8s.listMaps(ar -> {
-                    if (ar.succeeded()) {
-                        List<ConfigMap> configMaps = ar.result();
-                        Map<String, ConfigMap> configMapsMap = configMaps.stream().collect(Collectors.toMap(
-                            cm -> cm.getMetadata().getName(),
-                            cm -> cm));
-                        configMapsMap.keySet().removeAll(kafkaTopics);
-                        LOGGER.debug("Reconciling configmaps: {}", configMapsMap.keySet());
-                        for (ConfigMap cm : configMapsMap.values()) {
-                            LOGGER.debug("{} reconciliation of configmap {}", reconciliationType, cm.getMetadata().getName());
-
-                            TopicName topicName = new TopicName(cm);
                             controller.reconcile(cm, topicName, reconcileResult -> {
                                 if (reconcileResult.succeeded()) {
-                                    LOGGER.info("Success {} reconciling ConfigMap {}",
-                                            reconciliationType, Controller.logConfigMap(cm));
+                                    LOGGER.info("Success {} reconciling ConfigMap {} topic {}",
+                                            reconciliationType, Controller.logConfigMap(cm), topicName);
                                 } else {
-                                    LOGGER.error("Error {} reconciling ConfigMap {}",
-                                            reconciliationType, Controller.logConfigMap(cm), reconcileResult.cause());
+                                    LOGGER.error("Error {} reconciling ConfigMap {} topic {}",
+                                            reconciliationType, Controller.logConfigMap(cm), topicName, reconcileResult.cause());
                                 }
                             });
-                        }
-                    } else {
-                        LOGGER.error("Unable to list ConfigMaps", ar.cause());
+                        });
                     }
 
-                    // Finally those in private store which we've not dealt with so far...
-                    // TODO ^^
-                });
-            } else {
-                LOGGER.error("Error performing {} reconciliation", reconciliationType, arx.cause());
+                    LOGGER.debug("Reconciling configmaps");
+                    // Then those in k8s which aren't in kafka
+                    k8s.listMaps(ar -> {
+                        if (ar.succeeded()) {
+                            List<ConfigMap> configMaps = ar.result();
+                            Map<String, ConfigMap> configMapsMap = configMaps.stream().collect(Collectors.toMap(
+                                cm -> cm.getMetadata().getName(),
+                                cm -> cm));
+                            configMapsMap.keySet().removeAll(kafkaTopics);
+                            LOGGER.debug("Reconciling configmaps: {}", configMapsMap.keySet());
+                            for (ConfigMap cm : configMapsMap.values()) {
+                                LOGGER.debug("{} reconciliation of configmap {}", reconciliationType, cm.getMetadata().getName());
+
+                                TopicName topicName = new TopicName(cm);
+                                controller.reconcile(cm, topicName, reconcileResult -> {
+                                    if (reconcileResult.succeeded()) {
+                                        LOGGER.info("Success {} reconciling ConfigMap {}",
+                                                reconciliationType, Controller.logConfigMap(cm));
+                                    } else {
+                                        LOGGER.error("Error {} reconciling ConfigMap {}",
+                                                reconciliationType, Controller.logConfigMap(cm), reconcileResult.cause());
+                                    }
+                                });
+                            }
+
+                            // Finally those in private store which exist in neither kafka nor k8s
+                            if (storeResult.succeeded()) {
+                                sweepOrphans(storeResult.result(), kafkaTopics, configMaps);
+                            }
+                        } else {
+                            LOGGER.error("Unable to list ConfigMaps", ar.cause());
+                        }
+                    });
+                } else {
+                    LOGGER.error("Error performing {} reconciliation", reconciliationType, arx.cause());
+                }
+            });
+        });
+    }
+
+    private void sweepOrphans(Set<TopicName> storeTopics, Set<String> kafkaTopics, List<ConfigMap> configMaps) {
+        Set<TopicName> kafkaTopicNames = new HashSet<>(kafkaTopics.size());
+        for (String name : kafkaTopics) {
+            kafkaTopicNames.add(new TopicName(name));
+        }
+        Set<TopicName> cmTopicNames = new HashSet<>(configMaps.size());
+        for (ConfigMap cm : configMaps) {
+            try {
+                cmTopicNames.add(new TopicName(cm));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Ignoring ConfigMap {} with an invalid topic name", Controller.logConfigMap(cm), e);
+            }
+        }
+        Set<TopicName> orphans = TopicStoreSweeper.orphans(storeTopics, kafkaTopicNames, cmTopicNames);
+        LOGGER.debug("Orphans in the topic store: {}", orphans);
+        sweeper.sweep(orphans, ar -> {
+            if (ar.failed()) {
+                LOGGER.error("Error sweeping orphans from the topic store", ar.cause());
             }
         });
     }
 
+    /**
+     * The controller's metrics, in the Prometheus text format.
+     */
+    private String metrics() {
+        RetryBudget retryBudget = controller.retryBudget();
+        return "# HELP strimzi_topic_controller_retry_budget_exhausted_total Retries refused because the retry budget was exhausted\n"
+                + "# TYPE strimzi_topic_controller_retry_budget_exhausted_total counter\n"
+                + "strimzi_topic_controller_retry_budget_exhausted_total " + retryBudget.exhaustedCount() + "\n"
+                + "# HELP strimzi_topic_controller_retry_budget_available Tokens currently available in the retry budget\n"
+                + "# TYPE strimzi_topic_controller_retry_budget_available gauge\n"
+                + "strimzi_topic_controller_retry_budget_available " + retryBudget.available() + "\n";
+    }
+
     /**
      * Start an HTTP health server
      */
@@ -234,7 +483,11 @@ public class Session extends AbstractVerticle {
                     if (request.path().equals("/healthy")) {
                         request.response().setStatusCode(200).end();
                     } else if (request.path().equals("/ready")) {
-                        request.response().setStatusCode(200).end();
+                        request.response().setStatusCode(ready ? 200 : 503).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response().setStatusCode(200)
+                                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                                .end(metrics());
                     }
                 })
                 .listen(HEALTH_SERVER_PORT);
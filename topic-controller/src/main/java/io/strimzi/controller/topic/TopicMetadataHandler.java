@@ -22,6 +22,8 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
 
     private final BackOff backOff;
 
+    private final RetryBudget retryBudget;
+
     private final Vertx vertx;
     private final Kafka kafka;
     private final TopicName topicName;
@@ -33,12 +35,26 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
      * @param kafka Kafka client for getting topic metadata
      * @param topicName topic name for which to get metadata
      * @param backOff   backoff information to use for retrying
+     * @param retryBudget the controller's budget each retry is drawn from
      */
-    TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff) {
+    TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff, RetryBudget retryBudget) {
         this.vertx = vertx;
         this.kafka = kafka;
         this.topicName = topicName;
         this.backOff = backOff;
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance to use for retrying mechanism
+     * @param kafka Kafka client for getting topic metadata
+     * @param topicName topic name for which to get metadata
+     * @param backOff   backoff information to use for retrying
+     */
+    TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff) {
+        this(vertx, kafka, topicName, backOff, null);
     }
 
     /**
@@ -54,7 +70,8 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
 
     /**
      * Schedules this handler to execute again after a delay defined by the {@code BackOff}.
-     * Calls {@link #onMaxAttemptsExceeded} if the backoff has reached its permitted number of retries.
+     * Calls {@link #onMaxAttemptsExceeded} if the backoff has reached its permitted number of retries,
+     * or with a {@link RetryBudgetExhaustedException} if the retry budget has no tokens left.
      */
     protected void retry() {
 
@@ -67,6 +84,11 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
             this.onMaxAttemptsExceeded(e);
             return;
         }
+        if (retryBudget != null && !retryBudget.tryAcquire()) {
+            log.info("Retry budget exhausted on getting metadata for {}, giving up for now", topicName);
+            this.onMaxAttemptsExceeded(new RetryBudgetExhaustedException());
+            return;
+        }
 
         if (delay < 1) {
             // vertx won't tolerate a zero delay
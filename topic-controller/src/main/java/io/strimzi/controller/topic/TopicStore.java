@@ -7,6 +7,10 @@ package io.strimzi.controller.topic;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Represents a persistent data store where the controller can store its copy of the
  * topic state that won't be modified by either K8S or Kafka.
@@ -55,5 +59,27 @@ public interface TopicStore {
      * {@link NoSuchEntityExistsException}.
      */
     void delete(TopicName topic, Handler<AsyncResult<Void>> handler);
+
+    /**
+     * Asynchronously get the current version of each of the given topics
+     * and run the given handler on the context with the result.
+     * The version of a topic changes whenever the topic is updated.
+     * Topics which do not exist in the store are absent from the result.
+     */
+    void versions(Collection<TopicName> topics, Handler<AsyncResult<Map<TopicName, Integer>>> handler);
+
+    /**
+     * Asynchronously delete the given topics from the store, each only if it is still at the given version,
+     * and run the given handler on the context with the names of the topics which were deleted.
+     * Topics which no longer exist, or whose version has changed, are skipped.
+     */
+    void deleteAll(Map<TopicName, Integer> versions, Handler<AsyncResult<Set<TopicName>>> handler);
+
+    /**
+     * Asynchronously list the names of all the topics in the store
+     * and run the given handler on the context with the result.
+     * If the store is empty the handler will be called with an empty set.
+     */
+    void list(Handler<AsyncResult<Set<TopicName>>> handler);
 }
 
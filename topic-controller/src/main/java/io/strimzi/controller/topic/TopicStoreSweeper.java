@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deletes orphans from the {@link TopicStore}: topics which are in the store
+ * but which exist neither in Kafka nor as a ConfigMap.
+ * Orphans are deleted in batches, with a pause between batches, and no batch is
+ * deleted while the controller is busy, so that the sweep never competes with live reconciliations.
+ */
+class TopicStoreSweeper {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TopicStoreSweeper.class);
+
+    private final Vertx vertx;
+    private final TopicStore topicStore;
+    private final BooleanSupplier busy;
+    private final int batchSize;
+    private final long intervalMs;
+    private boolean sweeping = false;
+
+    /**
+     * Constructor
+     *
+     * @param vertx         Vertx instance
+     * @param topicStore    the store to sweep
+     * @param busy          whether the controller has other work in flight
+     * @param batchSize     the maximum number of topics deleted in one batch
+     * @param intervalMs    the pause between batches, and between checks while busy
+     */
+    TopicStoreSweeper(Vertx vertx, TopicStore topicStore, BooleanSupplier busy, int batchSize, long intervalMs) {
+        this.vertx = vertx;
+        this.topicStore = topicStore;
+        this.busy = busy;
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * @return the topics in {@code storeTopics} which are in neither {@code kafkaTopics} nor {@code cmTopics}.
+     */
+    static Set<TopicName> orphans(Collection<TopicName> storeTopics, Collection<TopicName> kafkaTopics, Collection<TopicName> cmTopics) {
+        Set<TopicName> orphans = new LinkedHashSet<>(storeTopics);
+        orphans.removeAll(kafkaTopics);
+        orphans.removeAll(cmTopics);
+        return orphans;
+    }
+
+    /**
+     * Delete the given orphans from the store in batches,
+     * then call the given handler with the number of topics deleted.
+     * The version of each orphan is read before the first batch, and an orphan is only deleted
+     * if it is still at that version, so a topic which is recreated or updated during the sweep is kept.
+     * A batch which fails is logged and skipped: its topics will be found again by the next sweep.
+     * If a sweep is already in progress this one is skipped, and the handler is called with 0.
+     */
+    void sweep(Set<TopicName> orphans, Handler<AsyncResult<Integer>> handler) {
+        if (orphans.isEmpty()) {
+            handler.handle(Future.succeededFuture(0));
+            return;
+        }
+        if (sweeping) {
+            LOGGER.debug("Previous sweep still in progress, skipping this one");
+            handler.handle(Future.succeededFuture(0));
+            return;
+        }
+        sweeping = true;
+        LOGGER.info("Sweeping {} orphans from the topic store", orphans.size());
+        topicStore.versions(orphans, ar -> {
+            if (ar.succeeded()) {
+                nextBatch(ar.result().entrySet().iterator(), 0, handler);
+            } else {
+                sweeping = false;
+                handler.handle(Future.failedFuture(ar.cause()));
+            }
+        });
+    }
+
+    private void nextBatch(Iterator<Map.Entry<TopicName, Integer>> orphans, int deleted, Handler<AsyncResult<Integer>> handler) {
+        if (!orphans.hasNext()) {
+            LOGGER.info("Swept {} orphans from the topic store", deleted);
+            sweeping = false;
+            handler.handle(Future.succeededFuture(deleted));
+            return;
+        }
+        if (busy.getAsBoolean()) {
+            LOGGER.debug("Controller busy, deferring the next batch of orphans");
+            vertx.setTimer(intervalMs, timerId -> nextBatch(orphans, deleted, handler));
+            return;
+        }
+        Map<TopicName, Integer> batch = new LinkedHashMap<>(batchSize);
+        while (orphans.hasNext() && batch.size() < batchSize) {
+            Map.Entry<TopicName, Integer> orphan = orphans.next();
+            batch.put(orphan.getKey(), orphan.getValue());
+        }
+        LOGGER.debug("Deleting orphans {} from the topic store", batch.keySet());
+        topicStore.deleteAll(batch, ar -> {
+            int total = deleted;
+            if (ar.succeeded()) {
+                total += ar.result().size();
+            } else {
+                LOGGER.warn("Error deleting orphans {} from the topic store", batch.keySet(), ar.cause());
+            }
+            int t = total;
+            if (orphans.hasNext()) {
+                vertx.setTimer(intervalMs, timerId -> nextBatch(orphans, t, handler));
+            } else {
+                nextBatch(orphans, t, handler);
+            }
+        });
+    }
+}
@@ -8,6 +8,8 @@ import io.strimzi.controller.topic.zk.Zk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -55,6 +57,20 @@ class TopicsWatcher {
     }
 
     void start(Zk zk) {
+        start(zk, null);
+    }
+
+    /**
+     * Start watching the topics znode.
+     * If {@code observedTopics} is not null it is taken to be the set of topics which have
+     * already been reconciled: each of them has its config and partitions watched and any difference
+     * between them and the initial children of the topics znode is notified to the controller
+     * as creations and deletions, so no changes are missed between the observation and the watch being set.
+     *
+     * @param zk    Zookeeper client instance
+     * @param observedTopics    the topics already observed, or null
+     */
+    void start(Zk zk, Collection<String> observedTopics) {
         children = null;
         tcw.start(zk);
         tw.start(zk);
@@ -67,53 +83,69 @@ class TopicsWatcher {
                 LOGGER.error("Error on znode {} children", TOPICS_ZNODE, childResult.cause());
                 return;
             }
-            List<String> result = childResult.result();
-            LOGGER.debug("znode {} now has children {}, previous children {}", TOPICS_ZNODE, result, this.children);
-            Set<String> deleted = new HashSet<>(this.children);
-            deleted.removeAll(result);
-            Set<String> created = new HashSet<>(result);
-            created.removeAll(this.children);
-            this.children = result;
-
-            if (!deleted.isEmpty()) {
-                LOGGER.info("Deleted topics: {}", deleted);
-                for (String topicName : deleted) {
-                    tcw.removeChild(topicName);
-                    tw.removeChild(topicName);
-                    controller.onTopicDeleted(new TopicName(topicName), ar -> {
-                        if (ar.succeeded()) {
-                            LOGGER.debug("Success responding to deletion of topic {}", topicName);
-                        } else {
-                            LOGGER.warn("Error responding to deletion of topic {}", topicName, ar.cause());
-                        }
-                    });
-                }
-            }
-
-            if (!created.isEmpty()) {
-                LOGGER.info("Created topics: {}", created);
-                for (String topicName : created) {
-                    tcw.addChild(topicName);
-                    tw.addChild(topicName);
-                    controller.onTopicCreated(new TopicName(topicName), ar -> {
-                        if (ar.succeeded()) {
-                            LOGGER.debug("Success responding to creation of topic {}", topicName);
-                        } else {
-                            LOGGER.warn("Error responding to creation of topic {}", topicName, ar.cause());
-                        }
-                    });
-                }
-            }
-
+            childrenChanged(childResult.result());
         }).children(TOPICS_ZNODE, childResult -> {
             if (childResult.failed()) {
                 LOGGER.error("Error on znode {} children", TOPICS_ZNODE, childResult.cause());
                 return;
             }
             List<String> result = childResult.result();
-            LOGGER.debug("Setting initial children {}", result);
-            this.children = result;
+            if (observedTopics != null) {
+                LOGGER.debug("Initial children {}, observed topics {}", result, observedTopics);
+                List<String> observed = new ArrayList<>(observedTopics);
+                Set<String> current = new HashSet<>(result);
+                for (String topicName : observed) {
+                    if (current.contains(topicName)) {
+                        tcw.addChild(topicName);
+                        tw.addChild(topicName);
+                    }
+                }
+                this.children = observed;
+                childrenChanged(result);
+            } else {
+                LOGGER.debug("Setting initial children {}", result);
+                this.children = result;
+            }
             this.state = 1;
         });
     }
+
+    private void childrenChanged(List<String> result) {
+        LOGGER.debug("znode {} now has children {}, previous children {}", TOPICS_ZNODE, result, this.children);
+        Set<String> deleted = new HashSet<>(this.children);
+        deleted.removeAll(result);
+        Set<String> created = new HashSet<>(result);
+        created.removeAll(this.children);
+        this.children = result;
+
+        if (!deleted.isEmpty()) {
+            LOGGER.info("Deleted topics: {}", deleted);
+            for (String topicName : deleted) {
+                tcw.removeChild(topicName);
+                tw.removeChild(topicName);
+                controller.onTopicDeleted(new TopicName(topicName), ar -> {
+                    if (ar.succeeded()) {
+                        LOGGER.debug("Success responding to deletion of topic {}", topicName);
+                    } else {
+                        LOGGER.warn("Error responding to deletion of topic {}", topicName, ar.cause());
+                    }
+                });
+            }
+        }
+
+        if (!created.isEmpty()) {
+            LOGGER.info("Created topics: {}", created);
+            for (String topicName : created) {
+                tcw.addChild(topicName);
+                tw.addChild(topicName);
+                controller.onTopicCreated(new TopicName(topicName), ar -> {
+                    if (ar.succeeded()) {
+                        LOGGER.debug("Success responding to creation of topic {}", topicName);
+                    } else {
+                        LOGGER.warn("Error responding to creation of topic {}", topicName, ar.cause());
+                    }
+                });
+            }
+        }
+    }
 }
@@ -8,15 +8,23 @@ import io.strimzi.controller.topic.zk.AclBuilder;
 import io.strimzi.controller.topic.zk.AclBuilder.Permission;
 import io.strimzi.controller.topic.zk.Zk;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.data.ACL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of {@link TopicStore} that stores the topic state in ZooKeeper.
@@ -108,4 +116,94 @@ public class ZkTopicStore implements TopicStore {
             }
         });
     }
+
+    @Override
+    public void versions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+        Map<TopicName, Integer> versions = new LinkedHashMap<>(topicNames.size());
+        List<Future> futures = new ArrayList<>(topicNames.size());
+        for (TopicName topicName : topicNames) {
+            Future<Void> future = Future.future();
+            futures.add(future);
+            zk.exists(getTopicPath(topicName), result -> {
+                if (result.succeeded()) {
+                    if (result.result() != null) {
+                        versions.put(topicName, result.result().getVersion());
+                    }
+                    future.complete();
+                } else if (result.cause() instanceof KeeperException.NoNodeException) {
+                    future.complete();
+                } else {
+                    future.fail(result.cause());
+                }
+            });
+        }
+        CompositeFuture.all(futures).setHandler(ar -> handler.handle(ar.map(versions)));
+    }
+
+    @Override
+    public void deleteAll(Map<TopicName, Integer> versions, Handler<AsyncResult<Set<TopicName>>> handler) {
+        List<Op> ops = new ArrayList<>(versions.size());
+        for (Map.Entry<TopicName, Integer> entry : versions.entrySet()) {
+            ops.add(Op.delete(getTopicPath(entry.getKey()), entry.getValue()));
+        }
+        LOGGER.debug("delete {} znodes under {}", ops.size(), TOPICS_PATH);
+        zk.multi(ops, result -> {
+            if (result.succeeded()) {
+                handler.handle(Future.succeededFuture(new LinkedHashSet<>(versions.keySet())));
+            } else if (isGone(result.cause())) {
+                // At least one topic was deleted or changed since its version was read,
+                // so delete them one at a time, skipping those
+                deleteEach(versions, handler);
+            } else {
+                handler.handle(Future.failedFuture(result.cause()));
+            }
+        });
+    }
+
+    private void deleteEach(Map<TopicName, Integer> versions, Handler<AsyncResult<Set<TopicName>>> handler) {
+        Set<TopicName> deleted = new LinkedHashSet<>(versions.size());
+        List<Future> futures = new ArrayList<>(versions.size());
+        for (Map.Entry<TopicName, Integer> entry : versions.entrySet()) {
+            Future<Void> future = Future.future();
+            futures.add(future);
+            String topicPath = getTopicPath(entry.getKey());
+            zk.delete(topicPath, entry.getValue(), result -> {
+                if (result.succeeded()) {
+                    deleted.add(entry.getKey());
+                    future.complete();
+                } else if (isGone(result.cause())) {
+                    LOGGER.debug("Skipping znode {} which has been deleted or changed", topicPath);
+                    future.complete();
+                } else {
+                    future.fail(result.cause());
+                }
+            });
+        }
+        CompositeFuture.all(futures).setHandler(ar -> handler.handle(ar.map(deleted)));
+    }
+
+    private static boolean isGone(Throwable cause) {
+        return cause instanceof KeeperException.NoNodeException
+                || cause instanceof KeeperException.BadVersionException;
+    }
+
+    @Override
+    public void list(Handler<AsyncResult<Set<TopicName>>> handler) {
+        LOGGER.debug("list children of znode {}", TOPICS_PATH);
+        zk.children(TOPICS_PATH, result -> {
+            final AsyncResult<Set<TopicName>> fut;
+            if (result.succeeded()) {
+                Set<TopicName> names = new LinkedHashSet<>(result.result().size());
+                for (String child : result.result()) {
+                    names.add(new TopicName(child));
+                }
+                fut = Future.succeededFuture(names);
+            } else if (result.cause() instanceof KeeperException.NoNodeException) {
+                fut = Future.succeededFuture(new LinkedHashSet<>());
+            } else {
+                fut = Future.failedFuture(result.cause());
+            }
+            handler.handle(fut);
+        });
+    }
 }
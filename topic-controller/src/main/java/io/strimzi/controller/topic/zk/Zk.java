@@ -8,6 +8,8 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
 
@@ -104,7 +106,14 @@ public interface Zk {
      */
     Zk unwatchExists(String path);
 
-    // TODO getAcl(), setAcl(), multi()
+    /**
+     * Asynchronously and atomically execute the given {@code ops} as a single transaction,
+     * then invoke the given handler with the results.
+     * If any of the ops fails none of them are applied, and the handler is called with a failed result.
+     */
+    Zk multi(List<Op> ops, Handler<AsyncResult<List<OpResult>>> handler);
+
+    // TODO getAcl(), setAcl()
 
 }
 
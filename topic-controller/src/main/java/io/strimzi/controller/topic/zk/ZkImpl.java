@@ -11,6 +11,8 @@ import io.vertx.core.Vertx;
 import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooKeeper;
@@ -263,6 +265,20 @@ public class ZkImpl implements Zk {
         return this;
     }
 
+    @Override
+    public Zk multi(List<Op> ops, Handler<AsyncResult<List<OpResult>>> handler) {
+        ZooKeeper zookeeper;
+        synchronized (this) {
+            zookeeper = zk;
+        }
+        if (zookeeper == null) {
+            handler.handle(Future.failedFuture(new IllegalStateException("Not connected")));
+            return this;
+        }
+        zookeeper.multi(ops, (rc, path, ctx, opResults) -> invokeOnContext(handler, path, rc, opResults), null);
+        return this;
+    }
+
     @Override
     public Zk exists(String path, Handler<AsyncResult<Stat>> handler) {
         ZooKeeper zookeeper;
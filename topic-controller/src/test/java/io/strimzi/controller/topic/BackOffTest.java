@@ -8,6 +8,7 @@ package io.strimzi.controller.topic;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class BackOffTest {
@@ -62,4 +63,25 @@ public class BackOffTest {
         }
         assertEquals(600L, b.totalDelayMs());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFullJitterBackoff() {
+        for (int run = 0; run < 100; run++) {
+            BackOff b = new BackOff(200L, 2, 6, true);
+            assertEquals(0L, b.delayMs());
+            long max = 200L;
+            for (int attempt = 1; attempt < 6; attempt++) {
+                long delay = b.delayMs();
+                assertTrue("Delay " + delay + " out of range [0, " + max + "]", delay >= 0 && delay <= max);
+                max *= 2;
+            }
+            try {
+                b.delayMs();
+                fail("Should throw");
+            } catch (MaxAttemptsExceededException e) {
+
+            }
+            assertEquals(6200L, b.totalDelayMs());
+        }
+    }
+}
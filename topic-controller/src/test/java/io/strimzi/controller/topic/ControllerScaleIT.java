@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.debezium.kafka.KafkaServer;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.ConfigResource;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Load simulation for the topic controller with a large number of topics.
+ * A {@link Session} runs against an {@link EmbeddedZooKeeper}, an embedded Kafka broker
+ * and a {@link LatencyK8s} with configurable API latency, and a report of startup time
+ * (including the initial reconciliation), heap usage and event-to-ConfigMap latency is written at the end.
+ *
+ * This is not run by default. Enable it by setting the number of topics, for example:
+ * <pre><code>
+ *   mvn verify -pl topic-controller -Dit.test=ControllerScaleIT -Dscale.topics=10000
+ * </code></pre>
+ * Other properties:
+ * <dl>
+ *     <dt>scale.k8sLatencyMs</dt><dd>The simulated Kubernetes API latency (default 10).</dd>
+ *     <dt>scale.churn</dt><dd>The number of churn events (default 1000).</dd>
+ *     <dt>scale.churnRate</dt><dd>The rate of churn events per second (default 50).</dd>
+ *     <dt>scale.seed</dt><dd>The seed for the churn pattern (default 0).</dd>
+ *     <dt>scale.report</dt><dd>Where to write the report (default target/scale-report.txt).</dd>
+ * </dl>
+ */
+public class ControllerScaleIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ControllerScaleIT.class);
+
+    private static final int CREATE_BATCH_SIZE = 500;
+
+    private final int numTopics = Integer.getInteger("scale.topics", 0);
+    private final long k8sLatencyMs = Long.getLong("scale.k8sLatencyMs", 10L);
+    private final int churn = Integer.getInteger("scale.churn", 1_000);
+    private final int churnRate = Integer.getInteger("scale.churnRate", 50);
+    private final long seed = Long.getLong("scale.seed", 0L);
+    private final String reportFile = System.getProperty("scale.report", "target/scale-report.txt");
+    private final long timeoutMs = Long.getLong("scale.timeoutMs", 30 * 60_000L);
+
+    private Vertx vertx;
+    private EmbeddedZooKeeper zkServer;
+    private KafkaServer kafkaServer;
+    private AdminClient adminClient;
+    private LatencyK8s latencyK8s;
+    private Session session;
+    private String deploymentId;
+
+    /** Events we're waiting to see reflected in a ConfigMap, keyed by map name. */
+    private final Map<MapName, Pending> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Long>> latenciesByKind = new ConcurrentHashMap<>();
+
+    private static class Pending {
+        final String kind;
+        final long startNs;
+        final Watcher.Action action;
+        final Predicate<ConfigMap> test;
+
+        Pending(String kind, Watcher.Action action, Predicate<ConfigMap> test) {
+            this.kind = kind;
+            this.startNs = System.nanoTime();
+            this.action = action;
+            this.test = test;
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue("Set -Dscale.topics to run the scale simulation", numTopics > 0);
+        vertx = Vertx.vertx();
+        zkServer = new EmbeddedZooKeeper();
+        kafkaServer = new KafkaServer(zkServer::getZkConnectString, 0);
+        kafkaServer.setStateDirectory(Files.createTempDirectory("controller-scale-test").toFile());
+        kafkaServer.startup();
+        Properties adminClientProps = new Properties();
+        adminClientProps.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServer.getConnection());
+        adminClient = AdminClient.create(adminClientProps);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        if (deploymentId != null) {
+            CountDownLatch undeployed = new CountDownLatch(1);
+            vertx.undeploy(deploymentId, ar -> undeployed.countDown());
+            undeployed.await(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        if (adminClient != null) {
+            adminClient.close(10, TimeUnit.SECONDS);
+        }
+        if (kafkaServer != null) {
+            kafkaServer.shutdown(true);
+        }
+        if (zkServer != null) {
+            zkServer.close();
+        }
+        if (vertx != null) {
+            vertx.close();
+        }
+    }
+
+    private static String topicName(int i) {
+        return String.format(Locale.ENGLISH, "scale-topic-%06d", i);
+    }
+
+    private void createTopics(int from, int to) throws ExecutionException, InterruptedException {
+        for (int batchStart = from; batchStart < to; batchStart += CREATE_BATCH_SIZE) {
+            List<NewTopic> batch = new ArrayList<>(CREATE_BATCH_SIZE);
+            for (int i = batchStart; i < Math.min(to, batchStart + CREATE_BATCH_SIZE); i++) {
+                batch.add(new NewTopic(topicName(i), 1, (short) 1));
+            }
+            adminClient.createTopics(batch).all().get();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier ready, long timeoutMs, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!ready.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(message);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void onConfigMapChange(ConfigMapWatcher watcher, Watcher.Action action, ConfigMap cm) {
+        MapName mapName = new MapName(cm);
+        Pending p = pending.get(mapName);
+        if (p != null && p.action == action && p.test.test(cm) && pending.remove(mapName, p)) {
+            latenciesByKind.computeIfAbsent(p.kind, k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(System.nanoTime() - p.startNs);
+        }
+        // Simulate the ConfigMap watch
+        watcher.eventReceived(action, cm);
+    }
+
+    @Test
+    public void simulate() throws Exception {
+        LOGGER.info("Creating {} topics", numTopics);
+        createTopics(0, numTopics);
+
+        Map<String, String> m = new HashMap<>();
+        m.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, kafkaServer.getConnection());
+        m.put(Config.ZOOKEEPER_CONNECT.key, zkServer.getZkConnectString());
+        m.put(Config.NAMESPACE.key, "scale");
+        Config config = new Config(m);
+
+        latencyK8s = new LatencyK8s(vertx, k8sLatencyMs);
+        session = new ScaleSession(config);
+        long startNs = System.nanoTime();
+        CountDownLatch deployed = new CountDownLatch(1);
+        vertx.deployVerticle(session, ar -> {
+            assertTrue("Failed to deploy session", ar.succeeded());
+            deploymentId = ar.result();
+            deployed.countDown();
+        });
+        deployed.await();
+        waitFor(session::isReady, timeoutMs, "Session not ready");
+        long startupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        LOGGER.info("Ready in {}ms", startupMs);
+        waitFor(() -> latencyK8s.size() >= numTopics, timeoutMs, "Not all topics have a ConfigMap after startup");
+
+        System.gc();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        long churnMs = churn();
+
+        writeReport(startupMs, heapUsed, churnMs);
+    }
+
+    /**
+     * A Session using the {@link LatencyK8s}, whose changes stand in for the ConfigMap watch.
+     */
+    private class ScaleSession extends Session {
+        ScaleSession(Config config) {
+            super(null, config);
+        }
+
+        @Override
+        K8s createK8s(LabelPredicate cmPredicate, String namespace) {
+            return latencyK8s;
+        }
+
+        @Override
+        ConfigMapList listConfigMaps(LabelPredicate cmPredicate, String namespace) {
+            CompletableFuture<List<ConfigMap>> list = new CompletableFuture<>();
+            latencyK8s.listMaps(ar -> {
+                if (ar.succeeded()) {
+                    list.complete(ar.result());
+                } else {
+                    list.completeExceptionally(ar.cause());
+                }
+            });
+            return new ConfigMapListBuilder().withItems(list.join()).build();
+        }
+
+        @Override
+        Watch watchConfigMaps(String namespace, String resourceVersion, ConfigMapWatcher watcher) {
+            latencyK8s.setListener((action, cm) -> onConfigMapChange(watcher, action, cm));
+            return () -> latencyK8s.setListener((action, cm) -> { });
+        }
+    }
+
+    /**
+     * Generate a mix of topic creations, config changes, partition increases and deletions
+     * at the configured rate, and wait for them all to be reflected in ConfigMaps.
+     * @return The duration of the churn phase, in milliseconds.
+     */
+    private long churn() throws Exception {
+        Random random = new Random(seed);
+        long intervalNs = TimeUnit.SECONDS.toNanos(1) / Math.max(1, churnRate);
+        int nextNew = numTopics;
+        List<Integer> existing = new ArrayList<>(numTopics);
+        for (int i = 0; i < numTopics; i++) {
+            existing.add(i);
+        }
+        Map<Integer, Integer> partitions = new HashMap<>();
+        long churnStartNs = System.nanoTime();
+        for (int event = 0; event < churn; event++) {
+            int kind = random.nextInt(10);
+            if (kind < 4 || existing.isEmpty()) {
+                String name = topicName(nextNew);
+                existing.add(nextNew++);
+                pending.put(new TopicName(name).asMapName(), new Pending("create", Watcher.Action.ADDED, cm -> true));
+                adminClient.createTopics(singletonList(new NewTopic(name, 1, (short) 1))).all().get();
+            } else {
+                int index = random.nextInt(existing.size());
+                int topic = existing.get(index);
+                String name = topicName(topic);
+                MapName mapName = new TopicName(name).asMapName();
+                if (kind < 7) {
+                    String retention = Long.toString(3_600_000L + random.nextInt(1_000_000));
+                    pending.put(mapName, new Pending("config", Watcher.Action.MODIFIED,
+                        cm -> retention.equals(TopicSerialization.fromConfigMap(cm).getConfig().get("retention.ms"))));
+                    adminClient.alterConfigs(singletonMap(new ConfigResource(ConfigResource.Type.TOPIC, name),
+                            new org.apache.kafka.clients.admin.Config(singletonList(new ConfigEntry("retention.ms", retention)))))
+                            .all().get();
+                } else if (kind < 9) {
+                    int newPartitions = partitions.getOrDefault(topic, 1) + 1;
+                    partitions.put(topic, newPartitions);
+                    pending.put(mapName, new Pending("partitions", Watcher.Action.MODIFIED,
+                        cm -> TopicSerialization.fromConfigMap(cm).getNumPartitions() == newPartitions));
+                    adminClient.createPartitions(singletonMap(name, NewPartitions.increaseTo(newPartitions))).all().get();
+                } else {
+                    existing.remove(index);
+                    pending.put(mapName, new Pending("delete", Watcher.Action.DELETED, cm -> true));
+                    adminClient.deleteTopics(singletonList(name)).all().get();
+                }
+            }
+            long sleepNs = churnStartNs + (event + 1) * intervalNs - System.nanoTime();
+            if (sleepNs > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNs);
+            }
+        }
+        waitFor(pending::isEmpty, timeoutMs, "Churn events not all reflected in ConfigMaps: " + pending.keySet());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - churnStartNs);
+    }
+
+    private static long percentileMs(List<Long> sortedNs, double percentile) {
+        if (sortedNs.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNs.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sortedNs.get(Math.max(0, index)));
+    }
+
+    private void writeReport(long startupMs, long heapUsed, long churnMs) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "Topics:                  %d%n", numTopics));
+        sb.append(String.format(Locale.ENGLISH, "K8s API latency:         %dms%n", k8sLatencyMs));
+        sb.append(String.format(Locale.ENGLISH, "Startup:                 %dms (%.1f topics/s)%n",
+                startupMs, numTopics * 1000.0 / Math.max(1, startupMs)));
+        sb.append(String.format(Locale.ENGLISH, "Heap after startup:      %dMiB%n", heapUsed / (1024 * 1024)));
+        sb.append(String.format(Locale.ENGLISH, "K8s API calls:           %d%n", latencyK8s.calls()));
+        sb.append(String.format(Locale.ENGLISH, "K8s events:              %d%n", latencyK8s.events()));
+        sb.append(String.format(Locale.ENGLISH, "Churn:                   %d events in %dms (%.1f events/s)%n",
+                churn, churnMs, churn * 1000.0 / Math.max(1, churnMs)));
+        sb.append(String.format(Locale.ENGLISH, "%-12s %8s %8s %8s %8s %8s%n", "Event", "Count", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (Map.Entry<String, List<Long>> entry : latenciesByKind.entrySet()) {
+            List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            sb.append(String.format(Locale.ENGLISH, "%-12s %8d %8d %8d %8d %8d%n", entry.getKey(), sorted.size(),
+                    percentileMs(sorted, 50), percentileMs(sorted, 90), percentileMs(sorted, 99), percentileMs(sorted, 100)));
+        }
+        String report = sb.toString();
+        LOGGER.info("Scale simulation report:{}{}", System.lineSeparator(), report);
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Files.write(file.toPath(), report.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -15,6 +15,7 @@ import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.apache.kafka.common.errors.ClusterAuthorizationException;
+import org.apache.kafka.common.errors.NotControllerException;
 import org.apache.kafka.common.errors.TopicExistsException;
 import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.junit.After;
@@ -273,6 +274,60 @@ public class ControllerTest {
         });
     }
 
+    /**
+     * 1. controller is notified that a topic is created
+     * 2. controller initially gets a retriable exception querying kafka (e.g. during a controller failover)
+     * 3. controller is subsequently successful in querying kafka to get topic metadata
+     * 4. controller successfully creates config map and creates in topic store
+     */
+    @Test
+    public void testOnTopicCreated_retriableException(TestContext context) {
+        TopicMetadata topicMetadata = Utils.getTopicMetadata(topicName.toString(),
+                new org.apache.kafka.clients.admin.Config(Collections.emptyList()));
+
+        mockTopicStore.setCreateTopicResponse(topicName, null);
+        AtomicInteger counter = new AtomicInteger();
+        mockKafka.setTopicMetadataResponse(t -> {
+            int count = counter.getAndIncrement();
+            if (count == 0) {
+                return Future.failedFuture(new NotControllerException("Not the controller"));
+            }
+            return Future.succeededFuture(topicMetadata);
+        });
+        mockK8s.setCreateResponse(mapName, null);
+
+        Async async = context.async();
+        controller.onTopicCreated(topicName, ar -> {
+            assertSucceeded(context, ar);
+            context.assertEquals(2, counter.get());
+            mockK8s.assertExists(context, mapName);
+            async.complete();
+        });
+    }
+
+    /**
+     * 1. controller is notified that a topic is created
+     * 2. controller cannot get the metadata and the retry budget is exhausted
+     */
+    @Test
+    public void testOnTopicCreated_retryBudgetExhausted(TestContext context) {
+        Map<String, String> m = new HashMap<>(MANDATORY_CONFIG);
+        m.put(io.strimzi.controller.topic.Config.RETRY_BUDGET_CAPACITY.key, "1");
+        m.put(io.strimzi.controller.topic.Config.RETRY_BUDGET_REFILL_PER_SECOND.key, "1");
+        controller = new Controller(vertx, mockKafka, mockK8s, mockTopicStore, cmPredicate, "default-namespace",
+                new io.strimzi.controller.topic.Config(m));
+        mockKafka.setTopicMetadataResponse(topicName, null, null);
+
+        Async async = context.async();
+        controller.onTopicCreated(topicName, ar -> {
+            assertFailed(context, ar);
+            context.assertEquals(ar.cause().getClass(), RetryBudgetExhaustedException.class);
+            context.assertEquals(1L, controller.retryBudget().exhaustedCount());
+            mockK8s.assertNotExists(context, mapName);
+            async.complete();
+        });
+    }
+
     private <T> void assertSucceeded(TestContext context, AsyncResult<T> ar) {
         context.assertTrue(ar.succeeded(), ar.cause() != null ? ar.cause().toString() : "");
     }
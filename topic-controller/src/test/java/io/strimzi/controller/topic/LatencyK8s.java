@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.client.Watcher;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * An in-memory {@link K8s} which simulates the latency of the Kubernetes API server:
+ * each call completes {@code latencyMs} after it was made.
+ * Changes are reported to a listener after they've been applied, which can be used
+ * to simulate the ConfigMap watch and to observe the controller's output.
+ */
+public class LatencyK8s implements K8s {
+
+    private final Vertx vertx;
+    private final long latencyMs;
+    private final Map<MapName, ConfigMap> byName = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private volatile BiConsumer<Watcher.Action, ConfigMap> listener = (action, cm) -> { };
+
+    public LatencyK8s(Vertx vertx, long latencyMs) {
+        this.vertx = vertx;
+        this.latencyMs = latencyMs;
+    }
+
+    public LatencyK8s setListener(BiConsumer<Watcher.Action, ConfigMap> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    /** The number of API calls made so far. */
+    public long calls() {
+        return calls.get();
+    }
+
+    /** The number of events created so far. */
+    public long events() {
+        return events.get();
+    }
+
+    private <T> void later(Handler<AsyncResult<T>> handler, AsyncResult<T> result, Runnable sideEffect) {
+        calls.incrementAndGet();
+        Handler<Long> complete = ignored -> {
+            if (result.succeeded() && sideEffect != null) {
+                sideEffect.run();
+            }
+            handler.handle(result);
+        };
+        if (latencyMs > 0) {
+            vertx.setTimer(latencyMs, complete);
+        } else {
+            vertx.runOnContext(ignored -> complete.handle(null));
+        }
+    }
+
+    @Override
+    public void createConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
+        MapName name = new MapName(cm);
+        AsyncResult<Void> result = byName.containsKey(name)
+                ? Future.failedFuture("configmap already existed: " + name)
+                : Future.succeededFuture();
+        later(handler, result, () -> {
+            byName.put(name, cm);
+            listener.accept(Watcher.Action.ADDED, cm);
+        });
+    }
+
+    @Override
+    public void updateConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
+        MapName name = new MapName(cm);
+        AsyncResult<Void> result = byName.containsKey(name)
+                ? Future.succeededFuture()
+                : Future.failedFuture("configmap does not exist, cannot be updated: " + name);
+        later(handler, result, () -> {
+            byName.put(name, cm);
+            listener.accept(Watcher.Action.MODIFIED, cm);
+        });
+    }
+
+    @Override
+    public void deleteConfigMap(MapName mapName, Handler<AsyncResult<Void>> handler) {
+        ConfigMap existing = byName.get(mapName);
+        AsyncResult<Void> result = existing != null
+                ? Future.succeededFuture()
+                : Future.failedFuture("configmap does not exist, cannot be deleted: " + mapName);
+        later(handler, result, () -> {
+            byName.remove(mapName);
+            listener.accept(Watcher.Action.DELETED, existing);
+        });
+    }
+
+    @Override
+    public void listMaps(Handler<AsyncResult<List<ConfigMap>>> handler) {
+        later(handler, Future.succeededFuture(new ArrayList<>(byName.values())), null);
+    }
+
+    @Override
+    public void getFromName(MapName mapName, Handler<AsyncResult<ConfigMap>> handler) {
+        later(handler, Future.succeededFuture(byName.get(mapName)), null);
+    }
+
+    @Override
+    public void createEvent(Event event, Handler<AsyncResult<Void>> handler) {
+        later(handler, Future.succeededFuture(), events::incrementAndGet);
+    }
+}
@@ -10,12 +10,22 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 class MockController extends Controller {
 
     public MockController() {
-        super(null, null, null, null, null, null, null);
+        super(null, null, null, null, null, null, config());
+    }
+
+    private static Config config() {
+        Map<String, String> map = new HashMap<>();
+        map.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        map.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        map.put(Config.NAMESPACE.key, "default");
+        return new Config(map);
     }
 
     static class MockControllerEvent {
@@ -9,13 +9,17 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.ext.unit.TestContext;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 public class MockTopicStore implements TopicStore {
 
     private Map<TopicName, Topic> topics = new HashMap<>();
+    private Map<TopicName, Integer> versions = new HashMap<>();
     private Function<TopicName, AsyncResult<Void>> createTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a createTopicResponse configured.");
     private Function<TopicName, AsyncResult<Void>> deleteTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a deleteTopicResponse configured.");
     private Function<TopicName, AsyncResult<Void>> updateTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a updateTopicResponse configured.");
@@ -34,6 +38,7 @@ public class MockTopicStore implements TopicStore {
             if (old != null) {
                 handler.handle(Future.failedFuture(new TopicStore.EntityExistsException()));
             }
+            versions.put(topic.getTopicName(), 0);
         }
         handler.handle(response);
     }
@@ -42,6 +47,7 @@ public class MockTopicStore implements TopicStore {
     public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
         Topic old = topics.put(topic.getTopicName(), topic);
         if (old != null) {
+            versions.merge(topic.getTopicName(), 1, Integer::sum);
             handler.handle(Future.succeededFuture());
         } else {
             handler.handle(Future.failedFuture(new TopicStore.NoSuchEntityExistsException()));
@@ -53,6 +59,7 @@ public class MockTopicStore implements TopicStore {
         AsyncResult<Void> response = deleteTopicResponse.apply(topicName);
         if (response.succeeded()) {
             Topic topic = topics.remove(topicName);
+            versions.remove(topicName);
             if (topic == null) {
                 handler.handle(Future.failedFuture(new TopicStore.NoSuchEntityExistsException()));
             }
@@ -60,6 +67,36 @@ public class MockTopicStore implements TopicStore {
         handler.handle(response);
     }
 
+    @Override
+    public void versions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+        Map<TopicName, Integer> result = new HashMap<>();
+        for (TopicName topicName : topicNames) {
+            Integer version = versions.get(topicName);
+            if (version != null) {
+                result.put(topicName, version);
+            }
+        }
+        handler.handle(Future.succeededFuture(result));
+    }
+
+    @Override
+    public void deleteAll(Map<TopicName, Integer> topicVersions, Handler<AsyncResult<Set<TopicName>>> handler) {
+        Set<TopicName> deleted = new HashSet<>();
+        for (Map.Entry<TopicName, Integer> entry : topicVersions.entrySet()) {
+            if (entry.getValue().equals(versions.get(entry.getKey()))) {
+                topics.remove(entry.getKey());
+                versions.remove(entry.getKey());
+                deleted.add(entry.getKey());
+            }
+        }
+        handler.handle(Future.succeededFuture(deleted));
+    }
+
+    @Override
+    public void list(Handler<AsyncResult<Set<TopicName>>> handler) {
+        handler.handle(Future.succeededFuture(new HashSet<>(topics.keySet())));
+    }
+
     public void assertExists(TestContext context, TopicName topicName) {
         context.assertTrue(topics.containsKey(topicName));
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testExhaustionAndRefill() {
+        AtomicLong now = new AtomicLong(1_000);
+        // The clock is in nanoseconds
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        RetryBudget budget = new RetryBudget(3, 10, now::get);
+        assertEquals(3, budget.available());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(1L, budget.exhaustedCount());
+
+        // 10 tokens per second => 1 token per 100ms
+        now.addAndGet(99 * ms);
+        assertFalse(budget.tryAcquire());
+        now.addAndGet(ms);
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(3L, budget.exhaustedCount());
+    }
+
+    @Test
+    public void testRefillIsCappedAtCapacity() {
+        AtomicLong now = new AtomicLong(0);
+        RetryBudget budget = new RetryBudget(2, 10, now::get);
+        assertTrue(budget.tryAcquire());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(2, budget.available());
+    }
+
+    @Test
+    public void testClockMayBeNegative() {
+        AtomicLong now = new AtomicLong(Long.MIN_VALUE + 5);
+        RetryBudget budget = new RetryBudget(1, 10, now::get);
+        assertTrue(budget.tryAcquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(budget.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new RetryBudget(0, 10);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(VertxUnitRunner.class)
+public class TopicStoreSweeperTest {
+
+    private final Vertx vertx = Vertx.vertx();
+    private MockTopicStore topicStore;
+
+    @Before
+    public void setup() {
+        topicStore = new MockTopicStore();
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private Set<TopicName> createTopics(String... names) {
+        Set<TopicName> result = new LinkedHashSet<>();
+        for (String name : names) {
+            Topic topic = new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build();
+            topicStore.setCreateTopicResponse(topic.getTopicName(), null);
+            topicStore.create(topic, ar -> { });
+            result.add(topic.getTopicName());
+        }
+        return result;
+    }
+
+    @Test
+    public void testOrphans() {
+        Set<TopicName> orphans = TopicStoreSweeper.orphans(
+                asList(new TopicName("a"), new TopicName("b"), new TopicName("c"), new TopicName("d")),
+                asList(new TopicName("a"), new TopicName("x")),
+                asList(new TopicName("b"), new TopicName("y")));
+        assertEquals(new LinkedHashSet<>(asList(new TopicName("c"), new TopicName("d"))), orphans);
+    }
+
+    @Test
+    public void testSweepInBatches(TestContext context) {
+        Set<TopicName> orphans = createTopics("a", "b", "c", "d", "e");
+        TopicStoreSweeper sweeper = new TopicStoreSweeper(vertx, topicStore, () -> false, 2, 1);
+        Async async = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(5, ar.result());
+            topicStore.assertEmpty(context);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testSweepDeferredWhileBusy(TestContext context) {
+        Set<TopicName> orphans = createTopics("a", "b");
+        AtomicInteger busyChecks = new AtomicInteger();
+        TopicStoreSweeper sweeper = new TopicStoreSweeper(vertx, topicStore, () -> busyChecks.incrementAndGet() <= 3, 10, 1);
+        Async async = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(2, ar.result());
+            context.assertTrue(busyChecks.get() > 3);
+            topicStore.assertEmpty(context);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testSweepSkipsMissingTopic(TestContext context) {
+        Set<TopicName> orphans = createTopics("a", "b");
+        // "c" doesn't exist in the store, so it is skipped
+        orphans.add(new TopicName("c"));
+        TopicStoreSweeper sweeper = new TopicStoreSweeper(vertx, topicStore, () -> false, 2, 1);
+        Async async = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(2, ar.result());
+            topicStore.assertEmpty(context);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testSweepSkipsTopicUpdatedDuringSweep(TestContext context) {
+        Set<TopicName> orphans = createTopics("a", "b");
+        Topic updated = new Topic.Builder("b", 2, (short) 1, Collections.emptyMap()).build();
+        // "b" is updated after its version was read, but before its batch is deleted
+        TopicStoreSweeper sweeper = new TopicStoreSweeper(vertx, topicStore, () -> {
+            topicStore.update(updated, ar -> { });
+            return false;
+        }, 10, 1);
+        Async async = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(1, ar.result());
+            topicStore.assertNotExists(context, new TopicName("a"));
+            topicStore.assertContains(context, updated);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testConcurrentSweepSkipped(TestContext context) {
+        Set<TopicName> orphans = createTopics("a", "b");
+        AtomicBoolean busy = new AtomicBoolean(true);
+        TopicStoreSweeper sweeper = new TopicStoreSweeper(vertx, topicStore, busy::get, 10, 1);
+        Async first = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(2, ar.result());
+            first.complete();
+        });
+        // The first sweep is deferred while busy, so a second one is skipped
+        Async second = context.async();
+        sweeper.sweep(orphans, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(0, ar.result());
+            busy.set(false);
+            second.complete();
+        });
+    }
+}
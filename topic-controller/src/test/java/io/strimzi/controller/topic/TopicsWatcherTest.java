@@ -76,4 +76,28 @@ public class TopicsWatcherTest {
                 MockController.MockControllerEvent.Type.DELETE, new TopicName("bar"))), controller.getMockControllerEvents());
         assertFalse(topicConfigsWatcher.watching("baz"));
     }
+
+    @Test
+    public void testStartFromObservedTopics() {
+        controller = new MockController();
+        controller.topicCreatedResult = Future.succeededFuture();
+        controller.topicDeletedResult = Future.succeededFuture();
+        mockZk = new MockZk();
+        // "bar" was deleted and "baz" created after the topics were observed
+        mockZk.childrenResult = Future.succeededFuture(asList("foo", "baz"));
+        mockZk.dataResult = Future.succeededFuture(new byte[0]);
+        TopicConfigsWatcher topicConfigsWatcher = new TopicConfigsWatcher(controller);
+        TopicWatcher topicWatcher = new TopicWatcher(controller);
+        TopicsWatcher topicsWatcher = new TopicsWatcher(controller, topicConfigsWatcher, topicWatcher);
+        topicsWatcher.start(mockZk, asList("foo", "bar"));
+        assertTrue(topicsWatcher.started());
+        assertEquals(asList(
+                new MockController.MockControllerEvent(MockController.MockControllerEvent.Type.DELETE, new TopicName("bar")),
+                new MockController.MockControllerEvent(MockController.MockControllerEvent.Type.CREATE, new TopicName("baz"))),
+                controller.getMockControllerEvents());
+        assertTrue(topicConfigsWatcher.watching("foo"));
+        assertTrue(topicWatcher.watching("foo"));
+        assertFalse(topicConfigsWatcher.watching("bar"));
+        assertTrue(topicConfigsWatcher.watching("baz"));
+    }
 }
@@ -17,9 +17,14 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(VertxUnitRunner.class)
@@ -93,21 +98,21 @@ public class ZkTopicStoreTest {
         });
 
         // update my_topic
-        Async async2 = context.async();
+        Async async3 = context.async();
         Topic updated = new Topic.Builder(topic)
                 .withNumPartitions(3)
                 .withConfigEntry("fruit", "apple").build();
-        store.update(updated, ar -> async2.complete());
-        async2.await();
+        store.update(updated, ar -> async3.complete());
+        async3.await();
 
         // re-read it and assert equal
-        Async async3 = context.async();
+        Async async2 = context.async();
         Future<Topic> fut = Future.future();
         store.read(new TopicName("my_topic"), ar -> {
             fut.complete(ar.result());
-            async3.complete();
+            async2.complete();
         });
-        async3.await();
+        async2.await();
         Topic rereadTopic = fut.result();
 
         // assert topics equal
@@ -148,4 +153,84 @@ public class ZkTopicStoreTest {
         async6.await();
     }
 
+    @Test
+    public void testList(TestContext context) {
+        // Initially empty
+        Async async0 = context.async();
+        store.list(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertTrue(ar.result().isEmpty());
+            async0.complete();
+        });
+        async0.await();
+
+        // Create a couple of topics
+        for (String name : asList("foo", "bar")) {
+            Async async = context.async();
+            store.create(new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build(), ar -> {
+                context.assertTrue(ar.succeeded());
+                async.complete();
+            });
+            async.await();
+        }
+
+        // Now they're both listed
+        Async async1 = context.async();
+        store.list(ar -> {
+            context.assertTrue(ar.succeeded());
+            Set<TopicName> expected = new HashSet<>(asList(new TopicName("foo"), new TopicName("bar")));
+            context.assertEquals(expected, ar.result());
+            async1.complete();
+        });
+        async1.await();
+    }
+
+    @Test
+    public void testDeleteAll(TestContext context) {
+        for (String name : asList("foo", "bar")) {
+            Async async = context.async();
+            store.create(new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build(), ar -> {
+                context.assertTrue(ar.succeeded());
+                async.complete();
+            });
+            async.await();
+        }
+
+        Async async0 = context.async();
+        Map<TopicName, Integer> versions = new HashMap<>();
+        store.versions(asList(new TopicName("foo"), new TopicName("bar"), new TopicName("baz")), ar -> {
+            context.assertTrue(ar.succeeded());
+            versions.putAll(ar.result());
+            async0.complete();
+        });
+        async0.await();
+        // "baz" doesn't exist, so has no version
+        assertEquals(new HashSet<>(asList(new TopicName("foo"), new TopicName("bar"))), versions.keySet());
+
+        // "bar" is updated after its version was read, so it is skipped
+        Async async1 = context.async();
+        store.update(new Topic.Builder("bar", 2, (short) 1, Collections.emptyMap()).build(), ar -> {
+            context.assertTrue(ar.succeeded());
+            async1.complete();
+        });
+        async1.await();
+        // and a topic which doesn't exist is skipped too
+        versions.put(new TopicName("baz"), 0);
+
+        Async async2 = context.async();
+        store.deleteAll(versions, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(Collections.singleton(new TopicName("foo")), ar.result());
+            async2.complete();
+        });
+        async2.await();
+
+        Async async3 = context.async();
+        store.list(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(Collections.singleton(new TopicName("bar")), ar.result());
+            async3.complete();
+        });
+        async3.await();
+    }
 }